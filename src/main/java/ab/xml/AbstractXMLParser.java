@@ -19,6 +19,8 @@
 package ab.xml;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 
 import org.jetbrains.annotations.*;
@@ -30,11 +32,34 @@ import org.jetbrains.annotations.*;
  */
 public abstract class AbstractXMLParser
 {
+	/**
+	 * Default minimum size of a chunk of a list that is parsed in parallel.
+	 */
+	public static final int DEFAULT_MINIMUM_LIST_CHUNK_SIZE = 0x10000;
+
 	/**
 	 * XML reader.
 	 */
 	protected final XMLReader _reader;
 
+	/**
+	 * Pool used to parse large lists in parallel; {@code null} to parse lists
+	 * sequentially.
+	 */
+	@Nullable
+	private ForkJoinPool _listPool = null;
+
+	/**
+	 * Minimum size of a chunk of a list that is parsed in parallel.
+	 */
+	private int _minimumListChunkSize = DEFAULT_MINIMUM_LIST_CHUNK_SIZE;
+
+	/**
+	 * Character data of the element read by {@link #readElementText()}.
+	 */
+	@NotNull
+	private char[] _elementText = new char[ 64 ];
+
 	/**
 	 * Constructs a new instance.
 	 *
@@ -46,7 +71,7 @@ public abstract class AbstractXMLParser
 	protected AbstractXMLParser( @NotNull final InputStream in, @Nullable final String encoding )
 	throws XMLException
 	{
-		final XMLReaderFactory readerFactory = XMLReaderFactory.newInstance();
+		final XMLReaderFactory readerFactory = XMLReaderFactory.getSharedInstance();
 		_reader = readerFactory.createXMLReader( in, encoding );
 	}
 
@@ -60,6 +85,58 @@ public abstract class AbstractXMLParser
 		_reader = reader;
 	}
 
+	/**
+	 * Returns the pool used to parse large lists in parallel.
+	 *
+	 * @return Fork/join pool; {@code null} if lists are parsed sequentially,
+	 * which is the default.
+	 */
+	@Nullable
+	public ForkJoinPool getListPool()
+	{
+		return _listPool;
+	}
+
+	/**
+	 * Sets the pool used to parse large lists in parallel. This applies to
+	 * {@link #parseDoubleList()}, {@link #parseFloatList()} and {@link
+	 * #parseIntList()}. When set, the character data of a list is first
+	 * buffered in its entirety, then split into chunks at whitespace, which
+	 * are parsed in parallel into a preallocated array.
+	 *
+	 * @param pool Fork/join pool; {@code null} to parse lists sequentially.
+	 */
+	public void setListPool( @Nullable final ForkJoinPool pool )
+	{
+		_listPool = pool;
+	}
+
+	/**
+	 * Returns the minimum size of a chunk of a list that is parsed in
+	 * parallel. Lists are split into about four chunks per thread of the
+	 * pool, but chunks are at least this size.
+	 *
+	 * @return Minimum chunk size, in characters.
+	 */
+	public int getMinimumListChunkSize()
+	{
+		return _minimumListChunkSize;
+	}
+
+	/**
+	 * Sets the minimum size of a chunk of a list that is parsed in parallel.
+	 *
+	 * @param minimumListChunkSize Minimum chunk size, in characters.
+	 */
+	public void setMinimumListChunkSize( final int minimumListChunkSize )
+	{
+		if ( minimumListChunkSize < 1 )
+		{
+			throw new IllegalArgumentException( "minimumListChunkSize: " + minimumListChunkSize );
+		}
+		_minimumListChunkSize = minimumListChunkSize;
+	}
+
 	/**
 	 * Skips over the current element.
 	 *
@@ -69,21 +146,7 @@ public abstract class AbstractXMLParser
 	throws XMLException
 	{
 		require( XMLEventType.START_ELEMENT );
-		int depth = 1;
-		do
-		{
-			switch ( _reader.next() )
-			{
-				case START_ELEMENT:
-					depth++;
-					break;
-
-				case END_ELEMENT:
-					depth--;
-					break;
-			}
-		}
-		while ( depth > 0 );
+		_reader.skipElement();
 	}
 
 	/**
@@ -96,12 +159,13 @@ public abstract class AbstractXMLParser
 	{
 		while ( _reader.getEventType() == XMLEventType.CHARACTERS )
 		{
-			final String text = _reader.getText();
+			final char[] text = _reader.getTextCharacters();
+			final int end = _reader.getTextStart() + _reader.getTextLength();
 
 			boolean empty = true;
-			for ( int i = 0; i < text.length(); i++ )
+			for ( int i = _reader.getTextStart(); i < end; i++ )
 			{
-				if ( !Character.isWhitespace( text.charAt( i ) ) )
+				if ( !Character.isWhitespace( text[ i ] ) )
 				{
 					empty = false;
 					break;
@@ -248,18 +312,24 @@ public abstract class AbstractXMLParser
 	 * Returns whether the current event matches the specified namespace URI and
 	 * local name.
 	 *
+	 * <p>Names are compared by identity first, which succeeds immediately for
+	 * string literals and other canonical names (see {@link XMLReader}).
+	 *
 	 * @param localName Local name.
 	 *
 	 * @return {@code true} if the event matches.
 	 */
 	protected boolean matches( @NotNull final String localName )
 	{
-		return localName.equals( _reader.getLocalName() );
+		final String readLocalName = _reader.getLocalName();
+		//noinspection StringEquality
+		return ( localName == readLocalName ) || localName.equals( readLocalName );
 	}
 
 	/**
 	 * Returns whether the current event matches the specified namespace URI and
-	 * local name.
+	 * local name. Both {@code null} and an empty string indicate that the
+	 * element has no namespace.
 	 *
 	 * @param namespaceURI Namespace URI.
 	 * @param localName    Local name.
@@ -270,7 +340,9 @@ public abstract class AbstractXMLParser
 	{
 		final String readNamespaceURI = _reader.getNamespaceURI();
 		final String readLocalName = _reader.getLocalName();
-		return ( namespaceURI != null ? namespaceURI.equals( readNamespaceURI ) : readNamespaceURI == null ) && localName.equals( readLocalName );
+		//noinspection StringEquality
+		return ( ( localName == readLocalName ) || localName.equals( readLocalName ) ) &&
+		       AttributeIndex.isSameNamespace( namespaceURI, readNamespaceURI );
 	}
 
 	/**
@@ -407,15 +479,13 @@ public abstract class AbstractXMLParser
 	protected double parseDoubleAttribute( @Nullable final String namespaceURI, @NotNull final String localName )
 	throws XMLException
 	{
-		final String value = parseAttribute( namespaceURI, localName );
-		try
+		final double result = _reader.getAttributeAsDouble( namespaceURI, localName, Double.NaN );
+		if ( Double.isNaN( result ) )
 		{
-			return Double.parseDouble( value );
-		}
-		catch ( final NumberFormatException ignored )
-		{
-			throw new XMLException( "Invalid value for attribute '" + localName + "': " + value );
+			// Either the attribute is missing or its value is actually NaN.
+			parseAttribute( namespaceURI, localName );
 		}
+		return result;
 	}
 
 	/**
@@ -448,61 +518,460 @@ public abstract class AbstractXMLParser
 	protected int parseIntegerAttribute( @Nullable final String namespaceURI, @NotNull final String localName )
 	throws XMLException
 	{
-		final String value = parseAttribute( namespaceURI, localName );
-		try
+		final int result = _reader.getAttributeAsInt( namespaceURI, localName, Integer.MIN_VALUE );
+		if ( result == Integer.MIN_VALUE )
 		{
-			return Integer.parseInt( value );
+			// Either the attribute is missing or its value is actually the minimum.
+			parseAttribute( namespaceURI, localName );
 		}
-		catch ( final NumberFormatException ignored )
+		return result;
+	}
+
+	/**
+	 * Parses character data as a list. List elements are separated by
+	 * whitespace.
+	 *
+	 * @param consumer Receives each element of the list as it is parsed.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	protected void parseList( final Consumer<String> consumer )
+	throws XMLException
+	{
+		parseListTokens( ( chars, start, end ) -> consumer.accept( new String( chars, start, end - start ) ) );
+	}
+
+	/**
+	 * Parses character data as a list of doubles. List elements are separated
+	 * by whitespace.
+	 *
+	 * @param consumer Receives each element of the list as it is parsed.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	protected void parseDoubleList( @NotNull final DoubleConsumer consumer )
+	throws XMLException
+	{
+		parseListTokens( ( chars, start, end ) -> {
+			try
+			{
+				consumer.accept( TextParser.parseDouble( chars, start, end ) );
+			}
+			catch ( final NumberFormatException ignored )
+			{
+				throw invalidListElement( chars, start, end );
+			}
+		} );
+	}
+
+	/**
+	 * Parses character data as a list of doubles. List elements are separated
+	 * by whitespace.
+	 *
+	 * @return List elements.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	protected double[] parseDoubleList()
+	throws XMLException
+	{
+		final double[] result;
+		final ForkJoinPool pool = _listPool;
+		if ( pool != null )
+		{
+			result = parseBufferedList( pool, double[]::new, ( array, index, chars, start, end ) -> array[ index ] = TextParser.parseDouble( chars, start, end ) );
+		}
+		else
+		{
+			final DoubleList list = new DoubleList();
+			parseDoubleList( list );
+			result = list.toArray();
+		}
+		return result;
+	}
+
+	/**
+	 * Parses character data as a list of floats. List elements are separated
+	 * by whitespace.
+	 *
+	 * @return List elements.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	protected float[] parseFloatList()
+	throws XMLException
+	{
+		final float[] result;
+		final ForkJoinPool pool = _listPool;
+		if ( pool != null )
+		{
+			result = parseBufferedList( pool, float[]::new, ( array, index, chars, start, end ) -> array[ index ] = TextParser.parseFloat( chars, start, end ) );
+		}
+		else
 		{
-			throw new XMLException( "Invalid value for attribute '" + localName + "': " + value );
+			final FloatList list = new FloatList();
+			parseListTokens( ( chars, start, end ) -> {
+				try
+				{
+					list.add( TextParser.parseFloat( chars, start, end ) );
+				}
+				catch ( final NumberFormatException ignored )
+				{
+					throw invalidListElement( chars, start, end );
+				}
+			} );
+			result = list.toArray();
 		}
+		return result;
 	}
 
 	/**
-	 * Parses character data as a list.
+	 * Parses character data as a list of integers. List elements are
+	 * separated by whitespace.
 	 *
 	 * @param consumer Receives each element of the list as it is parsed.
 	 *
 	 * @throws XMLException if an XML-related exception occurs.
 	 */
-	protected void parseList( final Consumer<String> consumer )
+	protected void parseIntList( @NotNull final IntConsumer consumer )
 	throws XMLException
 	{
-		final StringBuilder builder = new StringBuilder();
+		parseListTokens( ( chars, start, end ) -> {
+			try
+			{
+				consumer.accept( TextParser.parseInt( chars, start, end ) );
+			}
+			catch ( final NumberFormatException ignored )
+			{
+				throw invalidListElement( chars, start, end );
+			}
+		} );
+	}
 
-		int fromIndex = 0;
-		while ( _reader.getEventType() == XMLEventType.CHARACTERS )
+	/**
+	 * Parses character data as a list of integers. List elements are
+	 * separated by whitespace.
+	 *
+	 * @return List elements.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	protected int[] parseIntList()
+	throws XMLException
+	{
+		final int[] result;
+		final ForkJoinPool pool = _listPool;
+		if ( pool != null )
 		{
-			builder.delete( 0, fromIndex );
-			builder.append( _reader.getText() );
+			result = parseBufferedList( pool, int[]::new, ( array, index, chars, start, end ) -> array[ index ] = TextParser.parseInt( chars, start, end ) );
+		}
+		else
+		{
+			final IntList list = new IntList();
+			parseIntList( list );
+			result = list.toArray();
+		}
+		return result;
+	}
+
+	/**
+	 * Splits character data into whitespace-separated tokens. Tokens are
+	 * passed to the handler as ranges of a character array, which is only
+	 * valid during the call.
+	 *
+	 * @param handler Receives each token.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	private void parseListTokens( @NotNull final TokenHandler handler )
+	throws XMLException
+	{
+		final XMLReader reader = _reader;
 
-			int toIndex;
+		// Part of a token that continues in the next character data event.
+		char[] partial = null;
+		int partialLength = 0;
+
+		while ( reader.getEventType() == XMLEventType.CHARACTERS )
+		{
+			final char[] text = reader.getTextCharacters();
+			final int end = reader.getTextStart() + reader.getTextLength();
 
-			while ( true )
+			int fromIndex = reader.getTextStart();
+			for ( int i = fromIndex; i < end; i++ )
 			{
-				// TODO: Other whitespace could be used as well, not just the space character (\u0020).
-				toIndex = builder.indexOf( " ", fromIndex );
-				if ( toIndex == -1 )
+				if ( TextParser.isWhitespace( text[ i ] ) )
 				{
-					break;
+					if ( partialLength > 0 )
+					{
+						partial = append( partial, partialLength, text, fromIndex, i );
+						partialLength += i - fromIndex;
+						handler.token( partial, 0, partialLength );
+						partialLength = 0;
+					}
+					else if ( i > fromIndex )
+					{
+						handler.token( text, fromIndex, i );
+					}
+
+					fromIndex = i + 1;
 				}
+			}
+
+			if ( fromIndex < end )
+			{
+				partial = append( partial, partialLength, text, fromIndex, end );
+				partialLength += end - fromIndex;
+			}
+
+			reader.next();
+		}
+
+		if ( partialLength > 0 )
+		{
+			handler.token( partial, 0, partialLength );
+		}
+	}
+
+	/**
+	 * Parses character data as a list, in parallel. The character data is buffered and split into chunks at
+	 * whitespace. The elements in each chunk are counted in parallel, to
+	 * allocate the resulting array and determine where each chunk starts.
+	 * Then the chunks are parsed in parallel.
+	 *
+	 * @param pool          Fork/join pool.
+	 * @param arrayFactory  Creates an array of the given length.
+	 * @param elementParser Parses list elements into the array.
+	 * @param <A>           Array type.
+	 *
+	 * @return List elements.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private <A> A parseBufferedList( @NotNull final ForkJoinPool pool, @NotNull final IntFunction<A> arrayFactory, @NotNull final ElementParser<A> elementParser )
+	throws XMLException
+	{
+		final XMLReader reader = _reader;
+		char[] buffer = null;
+		int length = 0;
+		while ( reader.getEventType() == XMLEventType.CHARACTERS )
+		{
+			final int start = reader.getTextStart();
+			buffer = append( buffer, length, reader.getTextCharacters(), start, start + reader.getTextLength() );
+			length += reader.getTextLength();
+			reader.next();
+		}
 
-				if ( toIndex > fromIndex )
+		final A result;
+		if ( buffer == null )
+		{
+			result = arrayFactory.apply( 0 );
+		}
+		else
+		{
+			final char[] chars = buffer;
+
+			// Split at whitespace, so no element is split across chunks.
+			final int chunkSize = Math.max( _minimumListChunkSize, length / ( pool.getParallelism() * 4 ) );
+			final List<Integer> splits = new ArrayList<Integer>();
+			splits.add( 0 );
+			int split = chunkSize;
+			while ( split < length )
+			{
+				while ( ( split < length ) && !TextParser.isWhitespace( chars[ split ] ) )
 				{
-					consumer.accept( builder.substring( fromIndex, toIndex ) );
+					split++;
 				}
+				splits.add( split );
+				split += chunkSize;
+			}
+			if ( splits.get( splits.size() - 1 ) < length )
+			{
+				splits.add( length );
+			}
 
-				fromIndex = toIndex + 1;
+			final int chunkCount = splits.size() - 1;
+			final int[] chunkStarts = new int[ chunkCount + 1 ];
+			for ( int i = 0; i <= chunkCount; i++ )
+			{
+				chunkStarts[ i ] = splits.get( i );
 			}
 
-			_reader.next();
+			final int[] elementOffsets = new int[ chunkCount + 1 ];
+			runChunks( pool, chunkCount, chunk -> elementOffsets[ chunk + 1 ] = countListElements( chars, chunkStarts[ chunk ], chunkStarts[ chunk + 1 ] ) );
+			for ( int i = 0; i < chunkCount; i++ )
+			{
+				elementOffsets[ i + 1 ] += elementOffsets[ i ];
+			}
+
+			final A array = arrayFactory.apply( elementOffsets[ chunkCount ] );
+			final int[] errors = new int[ chunkCount ];
+			runChunks( pool, chunkCount, chunk -> errors[ chunk ] = parseListChunk( chars, chunkStarts[ chunk ], chunkStarts[ chunk + 1 ], array, elementOffsets[ chunk ], elementParser ) );
+
+			for ( final int errorStart : errors )
+			{
+				if ( errorStart >= 0 )
+				{
+					int errorEnd = errorStart;
+					while ( ( errorEnd < length ) && !TextParser.isWhitespace( chars[ errorEnd ] ) )
+					{
+						errorEnd++;
+					}
+					throw invalidListElement( chars, errorStart, errorEnd );
+				}
+			}
+
+			result = array;
+		}
+		return result;
+	}
+
+	/**
+	 * Performs a task for each chunk, in parallel if there is more than one.
+	 *
+	 * @param pool       Fork/join pool.
+	 * @param chunkCount Number of chunks.
+	 * @param task       Task to perform for each chunk index.
+	 */
+	private static void runChunks( @NotNull final ForkJoinPool pool, final int chunkCount, @NotNull final IntConsumer task )
+	{
+		if ( chunkCount == 1 )
+		{
+			task.accept( 0 );
 		}
+		else
+		{
+			final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>( chunkCount );
+			for ( int i = 0; i < chunkCount; i++ )
+			{
+				final int chunk = i;
+				tasks.add( pool.submit( () -> task.accept( chunk ) ) );
+			}
+			for ( final ForkJoinTask<?> submitted : tasks )
+			{
+				submitted.join();
+			}
+		}
+	}
 
-		if ( builder.length() > fromIndex )
+	/**
+	 * Counts the whitespace-separated elements in the given characters.
+	 *
+	 * @param chars Characters.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Number of elements.
+	 */
+	private static int countListElements( @NotNull final char[] chars, final int start, final int end )
+	{
+		int result = 0;
+		boolean whitespace = true;
+		for ( int i = start; i < end; i++ )
 		{
-			consumer.accept( builder.substring( fromIndex ) );
+			final boolean previous = whitespace;
+			whitespace = TextParser.isWhitespace( chars[ i ] );
+			if ( previous && !whitespace )
+			{
+				result++;
+			}
 		}
+		return result;
+	}
+
+	/**
+	 * Parses the whitespace-separated elements in the given characters.
+	 *
+	 * @param chars         Characters.
+	 * @param start         Start index.
+	 * @param end           End index.
+	 * @param array         Array to store elements in.
+	 * @param offset        Index in the array of the first element.
+	 * @param elementParser Parses list elements into the array.
+	 * @param <A>           Array type.
+	 *
+	 * @return Start index of the first invalid element; {@code -1} if all
+	 * elements are valid.
+	 */
+	private static <A> int parseListChunk( @NotNull final char[] chars, final int start, final int end, @NotNull final A array, final int offset, @NotNull final ElementParser<A> elementParser )
+	{
+		int result = -1;
+		int index = offset;
+		int i = start;
+		while ( i < end )
+		{
+			if ( TextParser.isWhitespace( chars[ i ] ) )
+			{
+				i++;
+			}
+			else
+			{
+				final int elementStart = i;
+				do
+				{
+					i++;
+				}
+				while ( ( i < end ) && !TextParser.isWhitespace( chars[ i ] ) );
+
+				try
+				{
+					elementParser.parse( array, index++, chars, elementStart, i );
+				}
+				catch ( final NumberFormatException ignored )
+				{
+					result = elementStart;
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Appends characters to a buffer, growing it as needed.
+	 *
+	 * @param buffer Buffer to append to; may be {@code null}.
+	 * @param length Number of characters in the buffer.
+	 * @param chars  Characters to append.
+	 * @param start  Start index of characters to append.
+	 * @param end    End index of characters to append.
+	 *
+	 * @return Buffer containing the appended characters.
+	 */
+	@NotNull
+	private static char[] append( @Nullable final char[] buffer, final int length, @NotNull final char[] chars, final int start, final int end )
+	{
+		final int newLength = length + end - start;
+		char[] result = buffer;
+		if ( result == null )
+		{
+			result = new char[ Math.max( 32, newLength ) ];
+		}
+		else if ( newLength > result.length )
+		{
+			result = Arrays.copyOf( result, Math.max( result.length * 2, newLength ) );
+		}
+		System.arraycopy( chars, start, result, length, end - start );
+		return result;
+	}
+
+	/**
+	 * Creates an exception for an invalid list element.
+	 *
+	 * @param chars Characters of the element.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private XMLException invalidListElement( @NotNull final char[] chars, final int start, final int end )
+	{
+		return new XMLException( "Invalid list element in " + getQName() + ": " + new String( chars, start, end - start ) );
 	}
 
 	/**
@@ -515,14 +984,429 @@ public abstract class AbstractXMLParser
 	protected String parseTextContent()
 	throws XMLException
 	{
-		final StringBuilder builder = new StringBuilder();
+		final String result;
 
-		while ( _reader.getEventType() == XMLEventType.CHARACTERS )
+		final XMLReader reader = _reader;
+		if ( reader.getEventType() == XMLEventType.CHARACTERS )
 		{
-			builder.append( _reader.getText() );
-			_reader.next();
+			final String text = new String( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+			if ( reader.next() == XMLEventType.CHARACTERS )
+			{
+				// Character data may be split up by comments and processing instructions.
+				final StringBuilder builder = new StringBuilder( text );
+				do
+				{
+					builder.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+				}
+				while ( reader.next() == XMLEventType.CHARACTERS );
+				result = builder.toString();
+			}
+			else
+			{
+				result = text;
+			}
+		}
+		else
+		{
+			result = "";
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses the character data of the current element, which may not
+	 * contain other elements. Afterwards, the reader is positioned at the end
+	 * of the element.
+	 *
+	 * @return Character data.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	protected String parseElementText()
+	throws XMLException
+	{
+		final int length = readElementText();
+		return new String( _elementText, 0, length );
+	}
+
+	/**
+	 * Parses the character data of the current element as an integer. See
+	 * {@link #parseElementText()}.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws XMLException if the element content is not a valid integer, or
+	 *                      another XML-related exception occurs.
+	 */
+	protected int parseIntElement()
+	throws XMLException
+	{
+		final int length = readElementText();
+		final int start = trimStart( length );
+		final int end = trimEnd( start, length );
+		final int result;
+		try
+		{
+			result = TextParser.parseInt( _elementText, start, end );
+		}
+		catch ( final IllegalArgumentException ignored )
+		{
+			throw invalidElementText( start, end );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the character data of the current element as a long integer.
+	 * See {@link #parseElementText()}.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws XMLException if the element content is not a valid long, or
+	 *                      another XML-related exception occurs.
+	 */
+	protected long parseLongElement()
+	throws XMLException
+	{
+		final int length = readElementText();
+		final int start = trimStart( length );
+		final int end = trimEnd( start, length );
+		final long result;
+		try
+		{
+			result = TextParser.parseLong( _elementText, start, end );
+		}
+		catch ( final IllegalArgumentException ignored )
+		{
+			throw invalidElementText( start, end );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the character data of the current element as a double. See
+	 * {@link #parseElementText()}.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws XMLException if the element content is not a valid double, or
+	 *                      another XML-related exception occurs.
+	 */
+	protected double parseDoubleElement()
+	throws XMLException
+	{
+		final int length = readElementText();
+		final int start = trimStart( length );
+		final int end = trimEnd( start, length );
+		final double result;
+		try
+		{
+			result = TextParser.parseDouble( _elementText, start, end );
+		}
+		catch ( final IllegalArgumentException ignored )
+		{
+			throw invalidElementText( start, end );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the character data of the current element as a float. See
+	 * {@link #parseElementText()}.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws XMLException if the element content is not a valid float, or
+	 *                      another XML-related exception occurs.
+	 */
+	protected float parseFloatElement()
+	throws XMLException
+	{
+		final int length = readElementText();
+		final int start = trimStart( length );
+		final int end = trimEnd( start, length );
+		final float result;
+		try
+		{
+			result = TextParser.parseFloat( _elementText, start, end );
+		}
+		catch ( final IllegalArgumentException ignored )
+		{
+			throw invalidElementText( start, end );
 		}
+		return result;
+	}
 
-		return builder.toString();
+	/**
+	 * Parses the character data of the current element as a boolean. See
+	 * {@link #parseElementText()}.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws XMLException if the element content is not a valid boolean, or
+	 *                      another XML-related exception occurs.
+	 */
+	protected boolean parseBooleanElement()
+	throws XMLException
+	{
+		final int length = readElementText();
+		final boolean result;
+		try
+		{
+			result = TextParser.parseBoolean( _elementText, 0, length );
+		}
+		catch ( final IllegalArgumentException ignored )
+		{
+			throw invalidElementText( 0, length );
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the character data of the current element into {@link
+	 * #_elementText}. Afterwards, the reader is positioned at the end of the
+	 * element.
+	 *
+	 * @return Number of characters read.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	private int readElementText()
+	throws XMLException
+	{
+		require( XMLEventType.START_ELEMENT );
+
+		final XMLReader reader = _reader;
+		int length = 0;
+		for ( XMLEventType eventType = reader.next(); eventType != XMLEventType.END_ELEMENT; eventType = reader.next() )
+		{
+			if ( eventType == XMLEventType.CHARACTERS )
+			{
+				final int textLength = reader.getTextLength();
+				if ( length + textLength > _elementText.length )
+				{
+					_elementText = Arrays.copyOf( _elementText, Math.max( length + textLength, _elementText.length * 2 ) );
+				}
+				System.arraycopy( reader.getTextCharacters(), reader.getTextStart(), _elementText, length, textLength );
+				length += textLength;
+			}
+			else if ( eventType == XMLEventType.START_ELEMENT )
+			{
+				unexpected();
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Returns the index of the first non-whitespace character read by {@link
+	 * #readElementText()}.
+	 *
+	 * @param length Number of characters read.
+	 *
+	 * @return Start index.
+	 */
+	private int trimStart( final int length )
+	{
+		int result = 0;
+		while ( ( result < length ) && TextParser.isWhitespace( _elementText[ result ] ) )
+		{
+			result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index after the last non-whitespace character read by
+	 * {@link #readElementText()}.
+	 *
+	 * @param start  Start index.
+	 * @param length Number of characters read.
+	 *
+	 * @return End index.
+	 */
+	private int trimEnd( final int start, final int length )
+	{
+		int result = length;
+		while ( ( result > start ) && TextParser.isWhitespace( _elementText[ result - 1 ] ) )
+		{
+			result--;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates an exception for element content that is not a valid value.
+	 *
+	 * @param start Start of the value in {@link #_elementText}.
+	 * @param end   End of the value.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private XMLException invalidElementText( final int start, final int end )
+	{
+		return new XMLException( "Invalid content of element " + getQName() + ": " + new String( _elementText, start, end - start ) );
+	}
+
+	/**
+	 * Receives tokens from {@link #parseListTokens}.
+	 */
+	private interface TokenHandler
+	{
+		/**
+		 * Handles a token.
+		 *
+		 * @param chars Characters of the token.
+		 * @param start Start index.
+		 * @param end   End index.
+		 *
+		 * @throws XMLException if the token is invalid.
+		 */
+		void token( @NotNull char[] chars, int start, int end )
+		throws XMLException;
+	}
+
+	/**
+	 * Parses list elements into an array.
+	 *
+	 * @param <A> Array type.
+	 */
+	private interface ElementParser<A>
+	{
+		/**
+		 * Parses a list element.
+		 *
+		 * @param array Array to store the element in.
+		 * @param index Index of the element in the array.
+		 * @param chars Characters of the element.
+		 * @param start Start index.
+		 * @param end   End index.
+		 *
+		 * @throws NumberFormatException if the element is invalid.
+		 */
+		void parse( @NotNull A array, int index, @NotNull char[] chars, int start, int end );
+	}
+
+	/**
+	 * Growable array of doubles.
+	 */
+	private static final class DoubleList
+	implements DoubleConsumer
+	{
+		/**
+		 * Elements.
+		 */
+		@NotNull
+		private double[] _elements = new double[ 16 ];
+
+		/**
+		 * Number of elements.
+		 */
+		private int _size = 0;
+
+		@Override
+		public void accept( final double value )
+		{
+			if ( _size == _elements.length )
+			{
+				_elements = Arrays.copyOf( _elements, _size * 2 );
+			}
+			_elements[ _size++ ] = value;
+		}
+
+		/**
+		 * Returns the elements as an array.
+		 *
+		 * @return Elements.
+		 */
+		@NotNull
+		double[] toArray()
+		{
+			return Arrays.copyOf( _elements, _size );
+		}
+	}
+
+	/**
+	 * Growable array of floats.
+	 */
+	private static final class FloatList
+	{
+		/**
+		 * Elements.
+		 */
+		@NotNull
+		private float[] _elements = new float[ 16 ];
+
+		/**
+		 * Number of elements.
+		 */
+		private int _size = 0;
+
+		/**
+		 * Adds an element.
+		 *
+		 * @param value Element to add.
+		 */
+		void add( final float value )
+		{
+			if ( _size == _elements.length )
+			{
+				_elements = Arrays.copyOf( _elements, _size * 2 );
+			}
+			_elements[ _size++ ] = value;
+		}
+
+		/**
+		 * Returns the elements as an array.
+		 *
+		 * @return Elements.
+		 */
+		@NotNull
+		float[] toArray()
+		{
+			return Arrays.copyOf( _elements, _size );
+		}
+	}
+
+	/**
+	 * Growable array of integers.
+	 */
+	private static final class IntList
+	implements IntConsumer
+	{
+		/**
+		 * Elements.
+		 */
+		@NotNull
+		private int[] _elements = new int[ 16 ];
+
+		/**
+		 * Number of elements.
+		 */
+		private int _size = 0;
+
+		@Override
+		public void accept( final int value )
+		{
+			if ( _size == _elements.length )
+			{
+				_elements = Arrays.copyOf( _elements, _size * 2 );
+			}
+			_elements[ _size++ ] = value;
+		}
+
+		/**
+		 * Returns the elements as an array.
+		 *
+		 * @return Elements.
+		 */
+		@NotNull
+		int[] toArray()
+		{
+			return Arrays.copyOf( _elements, _size );
+		}
 	}
 }
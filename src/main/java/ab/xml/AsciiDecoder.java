@@ -0,0 +1,170 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.nio.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Decodes runs of ASCII characters, processing eight bytes at a time. Each
+ * group of eight bytes is read as a single {@code long}, which is tested for
+ * non-ASCII bytes and for the stop bytes of the decoder using bitwise
+ * arithmetic (SWAR, SIMD within a register). Decoding stops at the first
+ * non-ASCII byte or stop byte, which are left to the caller, as are the last
+ * few bytes of the input that don't make up a full group.
+ *
+ * @author G. Meinders
+ */
+final class AsciiDecoder
+{
+	/**
+	 * Word with each byte set to 1.
+	 */
+	private static final long ONES = 0x0101010101010101L;
+
+	/**
+	 * Word with the high bit of each byte set.
+	 */
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	/**
+	 * Word with each byte set to the first character that is not a control
+	 * character, i.e. a space.
+	 */
+	private static final long SPACES = ONES * ' ';
+
+	/**
+	 * First stop byte, repeated in each byte of the word.
+	 */
+	private final long _first;
+
+	/**
+	 * Second stop byte, repeated in each byte of the word.
+	 */
+	private final long _second;
+
+	/**
+	 * Third stop byte, repeated in each byte of the word.
+	 */
+	private final long _third;
+
+	/**
+	 * Whether to stop at control characters, i.e. bytes below {@code 0x20}.
+	 */
+	private final boolean _controls;
+
+	/**
+	 * Array that {@link #_words} wraps.
+	 */
+	@Nullable
+	private byte[] _bytes = null;
+
+	/**
+	 * Little-endian view of {@link #_bytes}, used to read words.
+	 */
+	@Nullable
+	private ByteBuffer _words = null;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param first    First stop byte.
+	 * @param second   Second stop byte.
+	 * @param third    Third stop byte.
+	 * @param controls Whether to stop at control characters.
+	 */
+	AsciiDecoder( final char first, final char second, final char third, final boolean controls )
+	{
+		_first = ONES * first;
+		_second = ONES * second;
+		_third = ONES * third;
+		_controls = controls;
+	}
+
+	/**
+	 * Decodes ASCII characters from the given bytes, up to the first
+	 * non-ASCII byte or stop byte. The target array must have room for all
+	 * bytes up to the limit.
+	 *
+	 * @param bytes    Bytes to decode.
+	 * @param position Index of the first byte to decode.
+	 * @param limit    Index after the last byte that may be decoded.
+	 * @param chars    Array to store decoded characters in.
+	 * @param offset   Index in the array of the first decoded character.
+	 *
+	 * @return Index of the first byte that was not decoded.
+	 */
+	int decode( @NotNull final byte[] bytes, final int position, final int limit, @NotNull final char[] chars, final int offset )
+	{
+		int result = position;
+		if ( limit - position >= 8 )
+		{
+			ByteBuffer words = _words;
+			if ( ( words == null ) || ( _bytes != bytes ) )
+			{
+				words = ByteBuffer.wrap( bytes ).order( ByteOrder.LITTLE_ENDIAN );
+				_words = words;
+				_bytes = bytes;
+			}
+
+			final int end = limit - 8;
+			int target = offset;
+			while ( result <= end )
+			{
+				final long word = words.getLong( result );
+				long stop = word | matches( word, _first ) | matches( word, _second ) | matches( word, _third );
+				if ( _controls )
+				{
+					stop |= ( word - SPACES ) & ~word;
+				}
+				stop &= HIGH_BITS;
+
+				// In little-endian order, the lowest flagged byte is the first match.
+				final int count = ( stop == 0 ) ? 8 : Long.numberOfTrailingZeros( stop ) >>> 3;
+				for ( int i = 0; i < count; i++ )
+				{
+					chars[ target++ ] = (char)bytes[ result++ ];
+				}
+
+				if ( count < 8 )
+				{
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a word with the high bit set for bytes of the given word that
+	 * are equal to the corresponding byte of the pattern. Bytes following the
+	 * first match may also be flagged, but the first match is always exact.
+	 *
+	 * @param word    Word to test.
+	 * @param pattern Byte to look for, repeated in each byte of the word.
+	 *
+	 * @return Word with high bits set for matches; other bits are arbitrary.
+	 */
+	private static long matches( final long word, final long pattern )
+	{
+		final long difference = word ^ pattern;
+		return ( difference - ONES ) & ~difference;
+	}
+}
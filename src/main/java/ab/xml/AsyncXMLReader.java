@@ -0,0 +1,861 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * XML reader that never blocks on input. Instead of reading from a stream,
+ * input is passed to the reader in chunks using {@link #feed(ByteBuffer)} as
+ * it becomes available. If the next event can't be parsed from the input
+ * received so far, {@link #next()} returns {@link
+ * XMLEventType#NEED_MORE_INPUT}; after feeding more input, {@code next()} can
+ * be called again. After the last chunk, call {@link #endOfInput()} to allow
+ * the end of the document to be reported.
+ *
+ * <p>Other events are reported exactly as by the other reader
+ * implementations. Supported encodings are UTF-8 (including US-ASCII) and
+ * ISO-8859-1.
+ *
+ * <p>Fed bytes are scanned once to find where complete events end. Bytes are
+ * only parsed when the next event is complete, and parsed bytes are discarded
+ * when more input is fed, so the reader buffers little more than the largest
+ * event in the document. Use {@link #getBufferedLength()} to limit buffering
+ * by the caller.
+ *
+ * @author G. Meinders
+ */
+public class AsyncXMLReader
+implements XMLReader
+{
+	/**
+	 * Scanner state: outside of markup.
+	 */
+	private static final int CONTENT = 0;
+
+	/**
+	 * Scanner state: after {@code <}.
+	 */
+	private static final int MARKUP = 1;
+
+	/**
+	 * Scanner state: after {@code <!}.
+	 */
+	private static final int DECLARATION = 2;
+
+	/**
+	 * Scanner state: after {@code <!-}.
+	 */
+	private static final int COMMENT_START = 3;
+
+	/**
+	 * Scanner state: inside a comment.
+	 */
+	private static final int COMMENT = 4;
+
+	/**
+	 * Scanner state: after {@code <![}, matching the rest of {@link
+	 * #CDATA_START}.
+	 */
+	private static final int CDATA_START = 5;
+
+	/**
+	 * Scanner state: inside a CDATA section.
+	 */
+	private static final int CDATA = 6;
+
+	/**
+	 * Scanner state: inside a processing instruction or XML declaration.
+	 */
+	private static final int PROCESSING_INSTRUCTION = 7;
+
+	/**
+	 * Scanner state: inside a start tag or empty tag.
+	 */
+	private static final int START_TAG = 8;
+
+	/**
+	 * Scanner state: inside an end tag.
+	 */
+	private static final int END_TAG = 9;
+
+	/**
+	 * Scanner state: inside a document type declaration.
+	 */
+	private static final int DOCTYPE = 10;
+
+	/**
+	 * Start of a CDATA section.
+	 */
+	private static final byte[] CDATA_BYTES = { '<', '!', '[', 'C', 'D', 'A', 'T', 'A', '[' };
+
+	/**
+	 * Character encoding; {@code null} to detect automatically.
+	 */
+	@Nullable
+	private String _encoding;
+
+	/**
+	 * Reader that parses the input; {@code null} until the start of the
+	 * document has been received.
+	 */
+	@Nullable
+	private Utf8Reader _reader = null;
+
+	/**
+	 * Input received before {@link #_reader} was created.
+	 */
+	@NotNull
+	private byte[] _pending = new byte[ 256 ];
+
+	/**
+	 * Number of bytes in {@link #_pending}.
+	 */
+	private int _pendingLength = 0;
+
+	/**
+	 * Whether the end of the input was reached.
+	 */
+	private boolean _endOfInput = false;
+
+	/**
+	 * Current event type.
+	 */
+	@NotNull
+	private XMLEventType _eventType = XMLEventType.START_DOCUMENT;
+
+	/**
+	 * Depth of the element being skipped, relative to the current event;
+	 * {@code 0} if no element is being skipped.
+	 */
+	private int _skipDepth = 0;
+
+	/**
+	 * Offset from the start of the input of the next byte to be scanned.
+	 */
+	private long _scanOffset = 0;
+
+	/**
+	 * Scanner state.
+	 */
+	private int _state = CONTENT;
+
+	/**
+	 * Element depth after the scanned input.
+	 */
+	private int _depth = 0;
+
+	/**
+	 * Offset of the {@code <} that started the markup being scanned.
+	 */
+	private long _markupStart = 0;
+
+	/**
+	 * Whether character data is being scanned, which ends at the next markup
+	 * that is not a CDATA section.
+	 */
+	private boolean _characters = false;
+
+	/**
+	 * Quote character of the attribute value or literal being scanned;
+	 * {@code 0} if none.
+	 */
+	private byte _quote = 0;
+
+	/**
+	 * Previous byte in a tag or processing instruction.
+	 */
+	private byte _previous = 0;
+
+	/**
+	 * Number of matched bytes of {@link #CDATA_BYTES}, number of trailing
+	 * dashes or brackets, or nesting level of brackets, depending on the
+	 * scanner state.
+	 */
+	private int _count = 0;
+
+	/**
+	 * Whether any markup was completely scanned, such that the start of the
+	 * document can be parsed.
+	 */
+	private boolean _markupScanned = false;
+
+	/**
+	 * Offset from the start of the input after the last completely scanned
+	 * markup or character data that results in an event; {@code -1} if none.
+	 */
+	private long _eventEnd = -1;
+
+	/**
+	 * Constructs a new instance that detects the character encoding
+	 * automatically.
+	 */
+	public AsyncXMLReader()
+	{
+		this( null );
+	}
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 */
+	public AsyncXMLReader( @Nullable final String encoding )
+	{
+		_encoding = encoding;
+	}
+
+	/**
+	 * Adds input to be parsed. All remaining bytes of the given buffer are
+	 * copied, so the buffer may be reused afterwards.
+	 *
+	 * @param bytes Input to add.
+	 *
+	 * @throws IllegalStateException if {@link #endOfInput()} was called.
+	 */
+	public void feed( @NotNull final ByteBuffer bytes )
+	{
+		if ( _endOfInput )
+		{
+			throw new IllegalStateException( "Not allowed after end of input." );
+		}
+
+		scan( bytes );
+
+		final Utf8Reader reader = _reader;
+		if ( reader != null )
+		{
+			reader.feed( bytes );
+		}
+		else
+		{
+			final int length = bytes.remaining();
+			if ( _pending.length - _pendingLength < length )
+			{
+				_pending = Arrays.copyOf( _pending, Math.max( _pending.length * 2, _pendingLength + length ) );
+			}
+			bytes.get( _pending, _pendingLength, length );
+			_pendingLength += length;
+		}
+	}
+
+	/**
+	 * Indicates that all input has been fed to the reader. Any input that
+	 * remains is parsed as the end of the document.
+	 */
+	public void endOfInput()
+	{
+		_endOfInput = true;
+	}
+
+	/**
+	 * Returns the number of bytes that were fed to the reader, but not yet
+	 * parsed.
+	 *
+	 * @return Number of buffered bytes.
+	 */
+	public int getBufferedLength()
+	{
+		final Utf8Reader reader = _reader;
+		return ( reader != null ) ? reader.getBufferedLength() : _pendingLength;
+	}
+
+	/**
+	 * Starts reading a new document from subsequently fed input. Any state of
+	 * the previous document is discarded.
+	 *
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 */
+	public void restart( @Nullable final String encoding )
+	{
+		_encoding = encoding;
+		_reader = null;
+		_pending = new byte[ 256 ];
+		_pendingLength = 0;
+		_endOfInput = false;
+		_eventType = XMLEventType.START_DOCUMENT;
+		_skipDepth = 0;
+		_scanOffset = 0;
+		_state = CONTENT;
+		_depth = 0;
+		_characters = false;
+		_markupScanned = false;
+		_eventEnd = -1;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The entire stream is read, blocking as needed, after which the end
+	 * of the input is reached.
+	 */
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		restart( encoding );
+		try
+		{
+			final byte[] buffer = new byte[ 8192 ];
+			for ( int read = in.read( buffer ); read >= 0; read = in.read( buffer ) )
+			{
+				feed( ByteBuffer.wrap( buffer, 0, read ) );
+			}
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+		endOfInput();
+	}
+
+	/**
+	 * Scans the given input for the end of markup and character data. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param bytes Input to scan.
+	 */
+	private void scan( @NotNull final ByteBuffer bytes )
+	{
+		long offset = _scanOffset;
+		for ( int i = bytes.position(); i < bytes.limit(); i++, offset++ )
+		{
+			final byte b = bytes.get( i );
+			switch ( _state )
+			{
+				case CONTENT:
+					if ( b == '<' )
+					{
+						_markupStart = offset;
+						_state = MARKUP;
+					}
+					else if ( _depth > 0 )
+					{
+						_characters = true;
+					}
+					break;
+
+				case MARKUP:
+					if ( b == '!' )
+					{
+						_state = DECLARATION;
+					}
+					else
+					{
+						endCharacters();
+						if ( b == '/' )
+						{
+							_state = END_TAG;
+						}
+						else if ( b == '?' )
+						{
+							_previous = 0;
+							_state = PROCESSING_INSTRUCTION;
+						}
+						else
+						{
+							_quote = 0;
+							_previous = b;
+							_state = START_TAG;
+						}
+					}
+					break;
+
+				case DECLARATION:
+					if ( b == '[' )
+					{
+						_count = 3;
+						_state = CDATA_START;
+					}
+					else
+					{
+						endCharacters();
+						if ( b == '-' )
+						{
+							_state = COMMENT_START;
+						}
+						else if ( b == 'D' )
+						{
+							_quote = 0;
+							_count = 0;
+							_state = DOCTYPE;
+						}
+						else
+						{
+							// Invalid markup; the reader reports the error.
+							endMarkup( offset + 1, true );
+						}
+					}
+					break;
+
+				case COMMENT_START:
+					if ( b == '-' )
+					{
+						_count = 0;
+						_state = COMMENT;
+					}
+					else
+					{
+						endMarkup( offset + 1, true );
+					}
+					break;
+
+				case COMMENT:
+					if ( ( b == '>' ) && ( _count >= 2 ) )
+					{
+						endMarkup( offset + 1, false );
+					}
+					else
+					{
+						_count = ( b == '-' ) ? _count + 1 : 0;
+					}
+					break;
+
+				case CDATA_START:
+					if ( b != CDATA_BYTES[ _count ] )
+					{
+						endCharacters();
+						endMarkup( offset + 1, true );
+					}
+					else if ( ++_count == CDATA_BYTES.length )
+					{
+						// Part of the surrounding character data.
+						_characters = ( _depth > 0 );
+						_count = 0;
+						_state = CDATA;
+					}
+					break;
+
+				case CDATA:
+					if ( ( b == '>' ) && ( _count >= 2 ) )
+					{
+						// Outside of the root element, the reader reports the error.
+						endMarkup( offset + 1, ( _depth == 0 ) );
+					}
+					else
+					{
+						_count = ( b == ']' ) ? _count + 1 : 0;
+					}
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					if ( ( b == '>' ) && ( _previous == '?' ) )
+					{
+						endMarkup( offset + 1, true );
+					}
+					else
+					{
+						_previous = b;
+					}
+					break;
+
+				case START_TAG:
+					if ( _quote != 0 )
+					{
+						if ( b == _quote )
+						{
+							_quote = 0;
+						}
+					}
+					else if ( ( b == '"' ) || ( b == '\'' ) )
+					{
+						_quote = b;
+						_previous = b;
+					}
+					else if ( b == '>' )
+					{
+						if ( _previous != '/' )
+						{
+							_depth++;
+						}
+						endMarkup( offset + 1, true );
+					}
+					else
+					{
+						_previous = b;
+					}
+					break;
+
+				case END_TAG:
+					if ( b == '>' )
+					{
+						_depth--;
+						endMarkup( offset + 1, true );
+					}
+					break;
+
+				case DOCTYPE:
+					if ( _quote != 0 )
+					{
+						if ( b == _quote )
+						{
+							_quote = 0;
+						}
+					}
+					else if ( ( b == '"' ) || ( b == '\'' ) )
+					{
+						_quote = b;
+					}
+					else if ( b == '[' )
+					{
+						_count++;
+					}
+					else if ( b == ']' )
+					{
+						_count--;
+					}
+					else if ( ( b == '>' ) && ( _count == 0 ) )
+					{
+						endMarkup( offset + 1, true );
+					}
+					break;
+			}
+		}
+		_scanOffset = offset;
+	}
+
+	/**
+	 * Ends the character data being scanned, if any, at the start of the
+	 * current markup.
+	 */
+	private void endCharacters()
+	{
+		if ( _characters )
+		{
+			_characters = false;
+			_eventEnd = _markupStart;
+		}
+	}
+
+	/**
+	 * Ends the markup being scanned.
+	 *
+	 * @param end   Offset after the end of the markup.
+	 * @param event Whether the markup results in an event.
+	 */
+	private void endMarkup( final long end, final boolean event )
+	{
+		_state = CONTENT;
+		_markupScanned = true;
+		if ( event )
+		{
+			_eventEnd = end;
+		}
+	}
+
+	/**
+	 * Returns whether the next event can be parsed from the available input.
+	 *
+	 * @param reader Reader that parses the input.
+	 *
+	 * @return {@code true} if the next event is available.
+	 */
+	private boolean isEventAvailable( @NotNull final Utf8Reader reader )
+	{
+		return _endOfInput || reader.isEndElementPending() || ( _eventEnd > reader.getInputOffset() );
+	}
+
+	/**
+	 * Returns the reader that parses the input, creating it once the start of
+	 * the document is available.
+	 *
+	 * @return Reader that parses the input; {@code null} if the start of the
+	 * document is not available yet.
+	 *
+	 * @throws XMLException if the start of the document is invalid.
+	 */
+	@Nullable
+	private Utf8Reader getReader()
+	throws XMLException
+	{
+		Utf8Reader result = _reader;
+		if ( ( result == null ) && ( _markupScanned || _endOfInput ) )
+		{
+			result = new Utf8Reader( _pending, 0, _pendingLength, _encoding );
+			_reader = result;
+			_pending = new byte[ 0 ];
+			_pendingLength = 0;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the reader for the current event.
+	 *
+	 * @return Reader that parses the input.
+	 *
+	 * @throws IllegalStateException if there is no current event.
+	 */
+	@NotNull
+	private Utf8Reader current()
+	{
+		final Utf8Reader result = _reader;
+		if ( ( result == null ) || ( _eventType == XMLEventType.NEED_MORE_INPUT ) )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType getEventType()
+	{
+		return _eventType;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>Returns {@link XMLEventType#NEED_MORE_INPUT} if the next event is not
+	 * available yet. All information about the previous event is discarded in
+	 * that case.
+	 */
+	@Override
+	@NotNull
+	public XMLEventType next()
+	throws XMLException
+	{
+		if ( _eventType == XMLEventType.END_DOCUMENT )
+		{
+			throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+		}
+
+		final Utf8Reader reader = getReader();
+		final XMLEventType result;
+		if ( reader == null )
+		{
+			result = XMLEventType.NEED_MORE_INPUT;
+		}
+		else if ( _skipDepth > 0 )
+		{
+			result = skip( reader );
+		}
+		else if ( isEventAvailable( reader ) )
+		{
+			result = reader.next();
+		}
+		else
+		{
+			result = XMLEventType.NEED_MORE_INPUT;
+		}
+
+		_eventType = result;
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>If the end of the element is not available yet, the current event
+	 * becomes {@link XMLEventType#NEED_MORE_INPUT}. Subsequent calls to {@link
+	 * #next()} continue to skip the element, until the end of the element is
+	 * returned.
+	 */
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		_skipDepth = 1;
+		//noinspection ConstantConditions
+		_eventType = skip( _reader );
+	}
+
+	/**
+	 * Skips events up to the end of the element being skipped, as far as the
+	 * available input allows.
+	 *
+	 * @param reader Reader that parses the input.
+	 *
+	 * @return {@link XMLEventType#END_ELEMENT} if the end of the element was
+	 * reached; {@link XMLEventType#NEED_MORE_INPUT} otherwise.
+	 *
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	@NotNull
+	private XMLEventType skip( @NotNull final Utf8Reader reader )
+	throws XMLException
+	{
+		XMLEventType result = XMLEventType.NEED_MORE_INPUT;
+		while ( ( _skipDepth > 0 ) && isEventAvailable( reader ) )
+		{
+			final XMLEventType eventType = reader.next();
+			if ( eventType == XMLEventType.START_ELEMENT )
+			{
+				_skipDepth++;
+			}
+			else if ( ( eventType == XMLEventType.END_ELEMENT ) && ( --_skipDepth == 0 ) )
+			{
+				result = XMLEventType.END_ELEMENT;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public String getNamespaceURI()
+	{
+		return current().getNamespaceURI();
+	}
+
+	@Override
+	@NotNull
+	public String getLocalName()
+	{
+		return current().getLocalName();
+	}
+
+	@Override
+	public int getAttributeCount()
+	{
+		return current().getAttributeCount();
+	}
+
+	@Override
+	public String getAttributeNamespaceURI( final int index )
+	{
+		return current().getAttributeNamespaceURI( index );
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeLocalName( final int index )
+	{
+		return current().getAttributeLocalName( index );
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeValue( final int index )
+	{
+		return current().getAttributeValue( index );
+	}
+
+	@Override
+	public String getAttributeValue( @NotNull final String localName )
+	{
+		return current().getAttributeValue( localName );
+	}
+
+	@Override
+	public String getAttributeValue( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		return current().getAttributeValue( namespaceURI, localName );
+	}
+
+	@Override
+	public int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+	throws XMLException
+	{
+		return current().getAttributeAsInt( namespaceURI, localName, defaultValue );
+	}
+
+	@Override
+	public long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+	throws XMLException
+	{
+		return current().getAttributeAsLong( namespaceURI, localName, defaultValue );
+	}
+
+	@Override
+	public double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+	throws XMLException
+	{
+		return current().getAttributeAsDouble( namespaceURI, localName, defaultValue );
+	}
+
+	@Override
+	public float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+	throws XMLException
+	{
+		return current().getAttributeAsFloat( namespaceURI, localName, defaultValue );
+	}
+
+	@Override
+	public boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+	throws XMLException
+	{
+		return current().getAttributeAsBoolean( namespaceURI, localName, defaultValue );
+	}
+
+	@Override
+	@NotNull
+	public String getText()
+	{
+		return current().getText();
+	}
+
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		return current().getTextCharacters();
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		return current().getTextStart();
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		return current().getTextLength();
+	}
+
+	@Override
+	@NotNull
+	public String getPITarget()
+	{
+		return current().getPITarget();
+	}
+
+	@Override
+	@NotNull
+	public String getPIData()
+	{
+		return current().getPIData();
+	}
+
+	@Override
+	public int getLineNumber()
+	{
+		final Utf8Reader reader = _reader;
+		return ( reader != null ) ? reader.getLineNumber() : -1;
+	}
+
+	@Override
+	public int getColumnNumber()
+	{
+		final Utf8Reader reader = _reader;
+		return ( reader != null ) ? reader.getColumnNumber() : -1;
+	}
+}
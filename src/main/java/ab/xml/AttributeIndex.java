@@ -0,0 +1,260 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Hash table for looking up attributes of an element by name. Readers build
+ * the index when attributes of an element with many attributes are looked up
+ * by name, replacing a linear search for each lookup.
+ *
+ * <p>The index uses open addressing, keyed on the local name of the
+ * attribute. If multiple attributes match a lookup, the first attribute is
+ * found.
+ *
+ * @author G. Meinders
+ */
+final class AttributeIndex
+{
+	/**
+	 * Number of attributes above which the index should be used instead of a
+	 * linear search.
+	 */
+	static final int THRESHOLD = 8;
+
+	/**
+	 * Namespace URIs of indexed attributes.
+	 */
+	@NotNull
+	private String[] _namespaceURIs;
+
+	/**
+	 * Local names of indexed attributes.
+	 */
+	@NotNull
+	private String[] _localNames;
+
+	/**
+	 * Hash table containing attribute indices plus one; {@code 0} for empty
+	 * slots.
+	 */
+	@NotNull
+	private int[] _table;
+
+	/**
+	 * Whether the index was built for the current element.
+	 */
+	private boolean _built;
+
+	/**
+	 * Constructs a new instance.
+	 */
+	AttributeIndex()
+	{
+		_namespaceURIs = new String[ 32 ];
+		_localNames = new String[ 32 ];
+		_table = new int[ 64 ];
+		_built = false;
+	}
+
+	/**
+	 * Invalidates the index, e.g. when the reader moves to the next event.
+	 */
+	void clear()
+	{
+		_built = false;
+	}
+
+	/**
+	 * Returns whether the index was built for the current element.
+	 *
+	 * @return {@code true} if the index was built.
+	 */
+	boolean isBuilt()
+	{
+		return _built;
+	}
+
+	/**
+	 * Starts building the index for an element. Attributes must be added
+	 * using {@link #set}, in order.
+	 *
+	 * @param attributeCount Number of attributes.
+	 */
+	void reset( final int attributeCount )
+	{
+		if ( attributeCount > _localNames.length )
+		{
+			final int capacity = Math.max( attributeCount, _localNames.length * 2 );
+			_namespaceURIs = new String[ capacity ];
+			_localNames = new String[ capacity ];
+		}
+
+		int tableSize = _table.length;
+		while ( tableSize < attributeCount * 2 )
+		{
+			tableSize *= 2;
+		}
+
+		if ( tableSize == _table.length )
+		{
+			Arrays.fill( _table, 0 );
+		}
+		else
+		{
+			_table = new int[ tableSize ];
+		}
+
+		_built = true;
+	}
+
+	/**
+	 * Adds an attribute to the index.
+	 *
+	 * @param index        Attribute index.
+	 * @param namespaceURI Namespace URI of the attribute.
+	 * @param localName    Local name of the attribute.
+	 */
+	void set( final int index, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		_namespaceURIs[ index ] = namespaceURI;
+		_localNames[ index ] = localName;
+
+		final int[] table = _table;
+		final int mask = table.length - 1;
+		int slot = mix( localName.hashCode() ) & mask;
+		while ( table[ slot ] != 0 )
+		{
+			slot = ( slot + 1 ) & mask;
+		}
+		table[ slot ] = index + 1;
+	}
+
+	/**
+	 * Returns the index of the specified attribute.
+	 *
+	 * @param localName Local name.
+	 *
+	 * @return Index of the first attribute with the given local name, in any
+	 * namespace; {@code -1} if not found.
+	 */
+	int indexOf( @NotNull final String localName )
+	{
+		return indexOf( true, null, localName );
+	}
+
+	/**
+	 * Returns the index of the specified attribute.
+	 *
+	 * @param namespaceURI Namespace URI; {@code null} or an empty string for an
+	 *                     attribute with no prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 */
+	int indexOf( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		return indexOf( false, namespaceURI, localName );
+	}
+
+	/**
+	 * Returns the index of the specified attribute.
+	 *
+	 * @param anyNamespace Whether to match attributes in any namespace.
+	 * @param namespaceURI Namespace URI; {@code null} for an attribute with no
+	 *                     prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 */
+	private int indexOf( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		int result = -1;
+
+		final int[] table = _table;
+		final int mask = table.length - 1;
+		int slot = mix( localName.hashCode() ) & mask;
+		int entry;
+		while ( ( entry = table[ slot ] ) != 0 )
+		{
+			final int index = entry - 1;
+			final String candidateLocalName = _localNames[ index ];
+			final String candidateNamespaceURI = _namespaceURIs[ index ];
+			//noinspection StringEquality
+			if ( ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+			     ( anyNamespace || isSameNamespace( namespaceURI, candidateNamespaceURI ) ) )
+			{
+				result = index;
+				break;
+			}
+			slot = ( slot + 1 ) & mask;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns whether the given namespace URIs are equal. Both {@code null}
+	 * and the empty string indicate that there is no namespace.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param other        Namespace URI to compare with.
+	 *
+	 * @return {@code true} if the namespace URIs are equal.
+	 */
+	static boolean isSameNamespace( @Nullable final String namespaceURI, @Nullable final String other )
+	{
+		final boolean result;
+		//noinspection StringEquality
+		if ( namespaceURI == other )
+		{
+			result = true;
+		}
+		else if ( namespaceURI == null )
+		{
+			result = other.isEmpty();
+		}
+		else if ( other == null )
+		{
+			result = namespaceURI.isEmpty();
+		}
+		else
+		{
+			result = namespaceURI.equals( other );
+		}
+		return result;
+	}
+
+	/**
+	 * Spreads the bits of a hash code, such that the lower bits can be used
+	 * as a table index.
+	 *
+	 * @param hash Hash code.
+	 *
+	 * @return Mixed hash code.
+	 */
+	private static int mix( final int hash )
+	{
+		final int h = hash * 0x9e3779b9;
+		return h ^ ( h >>> 16 );
+	}
+}
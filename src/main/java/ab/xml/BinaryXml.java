@@ -0,0 +1,269 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Compact binary encoding of XML documents, which is written by {@link
+ * BinaryXmlWriterFactory} and read by {@link BinaryXmlReaderFactory}. This
+ * class converts documents between the binary encoding and textual XML.
+ *
+ * <p>The binary encoding avoids escaping, character decoding and tokenizing.
+ * Names are written only once per document and referred to by index
+ * afterwards, and numbers written using {@link XMLWriter#doubleAttribute} and
+ * similar methods are stored in binary form, such that they can be read back
+ * without parsing.
+ *
+ * <h3>Format</h3>
+ *
+ * <p>A document starts with the four bytes of {@link #MAGIC}, followed by a
+ * sequence of tokens, each starting with a token byte:
+ *
+ * <table>
+ * <tr><th>Token</th><th>Content</th></tr>
+ * <tr><td>{@link #START_ELEMENT}</td><td>name, attributes, {@code 0}</td></tr>
+ * <tr><td>{@link #END_ELEMENT}</td><td>(none)</td></tr>
+ * <tr><td>{@link #TEXT}</td><td>string</td></tr>
+ * <tr><td>{@link #DOUBLE_TEXT}</td><td>8-byte IEEE 754 value</td></tr>
+ * <tr><td>{@link #FLOAT_TEXT}</td><td>4-byte IEEE 754 value</td></tr>
+ * <tr><td>{@link #END_DOCUMENT}</td><td>(none)</td></tr>
+ * </table>
+ *
+ * <p>Integers are written as unsigned LEB128 varints. Strings are written as
+ * their length in bytes, followed by the characters in modified UTF-8 (i.e.
+ * each UTF-16 code unit as 1 to 3 bytes). Numbers are written in big-endian
+ * byte order.
+ *
+ * <p>A name is written as a varint: {@code 0} defines a new name, consisting
+ * of a namespace and a local name string; any other value {@code n} refers to
+ * the {@code n}-th name defined in the document. A namespace is written as a
+ * varint: {@code 0} defines a new namespace URI string, {@code 1} stands for
+ * no namespace and any other value {@code n} refers to the {@code (n-1)}-th
+ * namespace URI defined in the document.
+ *
+ * <p>Each attribute starts with a varint that combines the name ({@code
+ * name + 1}, shifted left by two bits) with the type of the value: {@link
+ * #STRING_VALUE} (string), {@link #LONG_VALUE} (zig-zag encoded varint),
+ * {@link #DOUBLE_VALUE} or {@link #FLOAT_VALUE}. The name follows if it is a
+ * new name, then the value. A varint {@code 0} ends the attributes.
+ *
+ * <p>Namespace prefixes, comments and processing instructions are not
+ * stored. When converting to text, prefixes are assigned automatically.
+ *
+ * @author G. Meinders
+ */
+public final class BinaryXml
+{
+	/**
+	 * First bytes of every binary XML document; the last byte is the format
+	 * version.
+	 */
+	static final byte[] MAGIC = { (byte)0xab, 'X', 'B', 1 };
+
+	/**
+	 * Token for the end of the document.
+	 */
+	static final int END_DOCUMENT = 0;
+
+	/**
+	 * Token for a start element.
+	 */
+	static final int START_ELEMENT = 1;
+
+	/**
+	 * Token for an end element.
+	 */
+	static final int END_ELEMENT = 2;
+
+	/**
+	 * Token for character data.
+	 */
+	static final int TEXT = 3;
+
+	/**
+	 * Token for character data representing a {@code double} value.
+	 */
+	static final int DOUBLE_TEXT = 4;
+
+	/**
+	 * Token for character data representing a {@code float} value.
+	 */
+	static final int FLOAT_TEXT = 5;
+
+	/**
+	 * Attribute value type for strings.
+	 */
+	static final int STRING_VALUE = 0;
+
+	/**
+	 * Attribute value type for integers, which are stored only if printing
+	 * the integer results in the original attribute value.
+	 */
+	static final int LONG_VALUE = 1;
+
+	/**
+	 * Attribute value type for {@code double} values.
+	 */
+	static final int DOUBLE_VALUE = 2;
+
+	/**
+	 * Attribute value type for {@code float} values.
+	 */
+	static final int FLOAT_VALUE = 3;
+
+	/**
+	 * Namespace reference for a new namespace URI.
+	 */
+	static final int NEW_NAMESPACE = 0;
+
+	/**
+	 * Namespace reference for no namespace.
+	 */
+	static final int NO_NAMESPACE = 1;
+
+	/**
+	 * Namespace URI that is bound to the {@code xml} prefix by definition.
+	 */
+	private static final String XML_NAMESPACE_URI = "http://www.w3.org/XML/1998/namespace";
+
+	/**
+	 * Utility class is not supposed to be instantiated.
+	 */
+	private BinaryXml()
+	{
+	}
+
+	/**
+	 * Converts a textual XML document to binary XML.
+	 *
+	 * @param in  Stream to read textual XML from.
+	 * @param out Stream to write binary XML to.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public static void toBinary( @NotNull final InputStream in, @NotNull final OutputStream out )
+	throws XMLException
+	{
+		final XMLWriter writer = new BinaryXmlWriter( out );
+		copy( XMLReaderFactory.getSharedInstance().createXMLReader( in, null ), writer );
+		writer.flush();
+	}
+
+	/**
+	 * Converts a binary XML document to textual XML.
+	 *
+	 * @param in       Stream to read binary XML from.
+	 * @param out      Stream to write textual XML to.
+	 * @param encoding Character encoding to be used.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public static void toText( @NotNull final InputStream in, @NotNull final OutputStream out, @NotNull final String encoding )
+	throws XMLException
+	{
+		final XMLWriter writer = XMLWriterFactory.newInstance().createXMLWriter( out, encoding );
+		copy( new BinaryXmlReader( in ), writer );
+		writer.flush();
+	}
+
+	/**
+	 * Writes the current event and all remaining events of the given reader
+	 * to the given writer. Namespace prefixes are generated and declared
+	 * where a namespace is first used. Processing instructions are not
+	 * copied.
+	 *
+	 * @param reader XML reader to copy from.
+	 * @param writer XML writer to copy to.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public static void copy( @NotNull final XMLReader reader, @NotNull final XMLWriter writer )
+	throws XMLException
+	{
+		// Namespace URIs that are bound to a prefix in the current scope.
+		final List<String> namespaces = new ArrayList<String>();
+		int[] scopes = new int[ 16 ];
+		int depth = 0;
+		int prefixCount = 0;
+
+		XMLEventType eventType = reader.getEventType();
+		while ( eventType != XMLEventType.END_DOCUMENT )
+		{
+			switch ( eventType )
+			{
+				case START_DOCUMENT:
+					writer.startDocument();
+					break;
+
+				case START_ELEMENT:
+				{
+					if ( depth == scopes.length )
+					{
+						scopes = Arrays.copyOf( scopes, depth * 2 );
+					}
+					scopes[ depth++ ] = namespaces.size();
+
+					final String namespaceURI = reader.getNamespaceURI();
+					final int attributeCount = reader.getAttributeCount();
+					for ( int i = -1; i < attributeCount; i++ )
+					{
+						final String namespace = ( i < 0 ) ? namespaceURI : reader.getAttributeNamespaceURI( i );
+						if ( ( namespace != null ) && !namespace.isEmpty() && !XML_NAMESPACE_URI.equals( namespace ) && !namespaces.contains( namespace ) )
+						{
+							final String prefix = "ns" + ++prefixCount;
+							namespaces.add( namespace );
+							writer.setPrefix( prefix, namespace );
+						}
+					}
+
+					writer.startTag( namespaceURI, reader.getLocalName() );
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						writer.attribute( reader.getAttributeNamespaceURI( i ), reader.getAttributeLocalName( i ), reader.getAttributeValue( i ) );
+					}
+					break;
+				}
+
+				case END_ELEMENT:
+					writer.endTag( reader.getNamespaceURI(), reader.getLocalName() );
+					if ( depth > 0 )
+					{
+						final int scope = scopes[ --depth ];
+						while ( namespaces.size() > scope )
+						{
+							namespaces.remove( namespaces.size() - 1 );
+						}
+					}
+					break;
+
+				case CHARACTERS:
+					writer.text( reader.getText() );
+					break;
+			}
+
+			eventType = reader.next();
+		}
+
+		writer.endDocument();
+	}
+}
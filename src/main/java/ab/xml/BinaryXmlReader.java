@@ -0,0 +1,1311 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * XML reader implementation that reads the binary encoding described in
+ * {@link BinaryXml}. Line and column numbers are not available.
+ *
+ * @author G. Meinders
+ */
+class BinaryXmlReader
+implements XMLReader
+{
+	/**
+	 * Default size of the input buffer.
+	 */
+	private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Stream to read from; {@code null} if the entire input is contained in
+	 * {@link #_buffer}.
+	 */
+	@Nullable
+	private InputStream _in;
+
+	/**
+	 * Input buffer.
+	 */
+	@NotNull
+	private byte[] _buffer;
+
+	/**
+	 * Index of the next byte to read from {@link #_buffer}.
+	 */
+	private int _position;
+
+	/**
+	 * Index after the last byte of input in {@link #_buffer}.
+	 */
+	private int _limit;
+
+	/**
+	 * Canonical names.
+	 */
+	@NotNull
+	private final NameTable _nameTable = new NameTable();
+
+	/**
+	 * Namespace URIs defined in the document.
+	 */
+	@NotNull
+	private String[] _namespaceURIs = new String[ 8 ];
+
+	/**
+	 * Number of namespace URIs defined in the document.
+	 */
+	private int _namespaceCount = 0;
+
+	/**
+	 * Namespace URIs of names defined in the document.
+	 */
+	@NotNull
+	private String[] _nameNamespaceURIs = new String[ 64 ];
+
+	/**
+	 * Local names of names defined in the document.
+	 */
+	@NotNull
+	private String[] _nameLocalNames = new String[ 64 ];
+
+	/**
+	 * Number of names defined in the document.
+	 */
+	private int _nameCount = 0;
+
+	/**
+	 * Event type returned by the last call to {@link #next()}.
+	 */
+	@NotNull
+	private XMLEventType _eventType = XMLEventType.START_DOCUMENT;
+
+	/**
+	 * Names of open elements.
+	 */
+	@NotNull
+	private int[] _elementNames = new int[ 16 ];
+
+	/**
+	 * Number of open elements.
+	 */
+	private int _depth = 0;
+
+	/**
+	 * Name of the current element.
+	 */
+	private int _elementName = -1;
+
+	/**
+	 * Names of the attributes of the current element.
+	 */
+	@NotNull
+	private int[] _attributeNames = new int[ 16 ];
+
+	/**
+	 * Value types of the attributes of the current element.
+	 */
+	@NotNull
+	private int[] _attributeTypes = new int[ 16 ];
+
+	/**
+	 * Values of the attributes of the current element. For strings, the start
+	 * and length of the value in {@link #_attributeChars} are stored in the
+	 * upper and lower 32 bits; for numbers, the value or its bits.
+	 */
+	@NotNull
+	private long[] _attributeValues = new long[ 16 ];
+
+	/**
+	 * Number of attributes of the current element.
+	 */
+	private int _attributeCount = 0;
+
+	/**
+	 * Characters of string attribute values.
+	 */
+	@NotNull
+	private char[] _attributeChars = new char[ 256 ];
+
+	/**
+	 * Number of characters in {@link #_attributeChars}.
+	 */
+	private int _attributeCharCount = 0;
+
+	/**
+	 * Index for looking up attributes of elements with many attributes;
+	 * {@code null} until needed.
+	 */
+	@Nullable
+	private AttributeIndex _attributeIndex = null;
+
+	/**
+	 * Start index of the attribute value being parsed; set by {@link
+	 * #getAttributeChars}.
+	 */
+	private int _valueStart = 0;
+
+	/**
+	 * End index of the attribute value being parsed.
+	 */
+	private int _valueEnd = 0;
+
+	/**
+	 * Character data of the current event.
+	 */
+	@NotNull
+	private char[] _text = new char[ 256 ];
+
+	/**
+	 * Number of characters in {@link #_text}.
+	 */
+	private int _textLength = 0;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param in Stream to read from.
+	 *
+	 * @throws XMLException if the stream doesn't contain binary XML.
+	 */
+	BinaryXmlReader( @NotNull final InputStream in )
+	throws XMLException
+	{
+		_buffer = new byte[ DEFAULT_BUFFER_SIZE ];
+		start( in, 0, 0 );
+	}
+
+	/**
+	 * Constructs a new instance that reads from the given array. The array is
+	 * used as the input buffer, without copying it.
+	 *
+	 * @param bytes  Array containing the document.
+	 * @param offset Start index of the document.
+	 * @param length Length of the document, in bytes.
+	 *
+	 * @throws XMLException if the array doesn't contain binary XML.
+	 */
+	BinaryXmlReader( @NotNull final byte[] bytes, final int offset, final int length )
+	throws XMLException
+	{
+		_buffer = bytes;
+		start( null, offset, offset + length );
+	}
+
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		// The buffer belongs to the caller if the reader was reading an array.
+		if ( _in == null )
+		{
+			_buffer = new byte[ DEFAULT_BUFFER_SIZE ];
+		}
+		start( in, 0, 0 );
+	}
+
+	/**
+	 * Starts reading a new document. Any state of a previous document is
+	 * discarded, but allocated buffers and the name table are retained.
+	 *
+	 * @param in    Stream to read from; {@code null} if the entire input is
+	 *              contained in {@link #_buffer}.
+	 * @param start Index in the buffer of the start of the input.
+	 * @param limit Index in the buffer after the last byte of input that is
+	 *              available.
+	 *
+	 * @throws XMLException if the input doesn't contain binary XML.
+	 */
+	private void start( @Nullable final InputStream in, final int start, final int limit )
+	throws XMLException
+	{
+		_in = in;
+		_position = start;
+		_limit = limit;
+		_namespaceCount = 0;
+		_nameCount = 0;
+		_eventType = XMLEventType.START_DOCUMENT;
+		_depth = 0;
+		_elementName = -1;
+		_attributeCount = 0;
+		_textLength = 0;
+		_nameTable.trim();
+
+		final byte[] magic = BinaryXml.MAGIC;
+		ensure( magic.length );
+		for ( int i = 0; i < magic.length; i++ )
+		{
+			if ( _buffer[ _position + i ] != magic[ i ] )
+			{
+				throw new XMLException( "Not a binary XML document." );
+			}
+		}
+		_position += magic.length;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType getEventType()
+	{
+		return _eventType;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType next()
+	throws XMLException
+	{
+		if ( _eventType == XMLEventType.END_DOCUMENT )
+		{
+			throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+		}
+
+		final XMLEventType result;
+		try
+		{
+			result = readEvent();
+		}
+		catch ( final XMLException | RuntimeException e )
+		{
+			releaseInput();
+			throw e;
+		}
+
+		if ( result == XMLEventType.END_DOCUMENT )
+		{
+			releaseInput();
+		}
+
+		_eventType = result;
+		return result;
+	}
+
+	/**
+	 * Reads the next event from the input.
+	 *
+	 * @return Event type.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	@NotNull
+	private XMLEventType readEvent()
+	throws XMLException
+	{
+		final XMLEventType result;
+		final int token = readByte();
+		switch ( token )
+		{
+			case BinaryXml.START_ELEMENT:
+				readStartElement();
+				result = XMLEventType.START_ELEMENT;
+				break;
+
+			case BinaryXml.END_ELEMENT:
+				readEndElement();
+				result = XMLEventType.END_ELEMENT;
+				break;
+
+			case BinaryXml.TEXT:
+			{
+				final int byteLength = readVarint();
+				if ( _text.length < byteLength )
+				{
+					_text = new char[ Math.max( byteLength, _text.length * 2 ) ];
+				}
+				_textLength = readChars( byteLength, _text, 0 );
+				result = XMLEventType.CHARACTERS;
+				break;
+			}
+
+			case BinaryXml.DOUBLE_TEXT:
+				_textLength = DatatypeConverter.printDouble( Double.longBitsToDouble( readLong() ), _text, 0 );
+				result = XMLEventType.CHARACTERS;
+				break;
+
+			case BinaryXml.FLOAT_TEXT:
+				_textLength = DatatypeConverter.printFloat( Float.intBitsToFloat( readInt() ), _text, 0 );
+				result = XMLEventType.CHARACTERS;
+				break;
+
+			case BinaryXml.END_DOCUMENT:
+				if ( _depth > 0 )
+				{
+					throw new XMLException( "Unexpected end of document inside element: " + _nameLocalNames[ _elementNames[ _depth - 1 ] ] );
+				}
+				result = XMLEventType.END_DOCUMENT;
+				break;
+
+			default:
+				throw new XMLException( "Invalid token: " + token );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Closes the input if it inflates data in the background, so that no
+	 * read-ahead remains after the document ends or fails to parse. Other
+	 * streams are owned by the caller and are left open.
+	 */
+	private void releaseInput()
+	{
+		final InputStream in = _in;
+		if ( in instanceof ParallelGzipInputStream )
+		{
+			( (ParallelGzipInputStream)in ).close();
+		}
+	}
+
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		final int depth = _depth;
+		while ( _depth >= depth )
+		{
+			final int token = readByte();
+			switch ( token )
+			{
+				case BinaryXml.START_ELEMENT:
+					pushElement( readName( readVarint() - 1 ) );
+					skipAttributes();
+					break;
+
+				case BinaryXml.END_ELEMENT:
+					readEndElement();
+					break;
+
+				case BinaryXml.TEXT:
+					skip( readVarint() );
+					break;
+
+				case BinaryXml.DOUBLE_TEXT:
+					skip( 8 );
+					break;
+
+				case BinaryXml.FLOAT_TEXT:
+					skip( 4 );
+					break;
+
+				default:
+					throw new XMLException( "Invalid token inside element: " + token );
+			}
+		}
+
+		_attributeCount = 0;
+		_eventType = XMLEventType.END_ELEMENT;
+	}
+
+	/**
+	 * Reads a start element, after its token.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private void readStartElement()
+	throws XMLException
+	{
+		pushElement( readName( readVarint() - 1 ) );
+
+		if ( _attributeIndex != null )
+		{
+			_attributeIndex.clear();
+		}
+		_attributeCharCount = 0;
+
+		int attributeCount = 0;
+		for ( int header = readVarint(); header != 0; header = readVarint() )
+		{
+			if ( attributeCount == _attributeNames.length )
+			{
+				final int capacity = attributeCount * 2;
+				_attributeNames = Arrays.copyOf( _attributeNames, capacity );
+				_attributeTypes = Arrays.copyOf( _attributeTypes, capacity );
+				_attributeValues = Arrays.copyOf( _attributeValues, capacity );
+			}
+
+			final int type = header & 3;
+			_attributeNames[ attributeCount ] = readName( ( header >>> 2 ) - 2 );
+			_attributeTypes[ attributeCount ] = type;
+
+			final long value;
+			switch ( type )
+			{
+				case BinaryXml.STRING_VALUE:
+				{
+					final int byteLength = readVarint();
+					final int start = _attributeCharCount;
+					if ( start + byteLength > _attributeChars.length )
+					{
+						_attributeChars = Arrays.copyOf( _attributeChars, Math.max( start + byteLength, _attributeChars.length * 2 ) );
+					}
+					final int length = readChars( byteLength, _attributeChars, start );
+					_attributeCharCount = start + length;
+					value = ( (long)start << 32 ) | length;
+					break;
+				}
+
+				case BinaryXml.LONG_VALUE:
+				{
+					final long encoded = readVarlong();
+					value = ( encoded >>> 1 ) ^ -( encoded & 1 );
+					break;
+				}
+
+				case BinaryXml.DOUBLE_VALUE:
+					value = readLong();
+					break;
+
+				default:
+					value = readInt();
+					break;
+			}
+			_attributeValues[ attributeCount++ ] = value;
+		}
+		_attributeCount = attributeCount;
+	}
+
+	/**
+	 * Skips the attributes of a start element.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private void skipAttributes()
+	throws XMLException
+	{
+		for ( int header = readVarint(); header != 0; header = readVarint() )
+		{
+			readName( ( header >>> 2 ) - 2 );
+			switch ( header & 3 )
+			{
+				case BinaryXml.STRING_VALUE:
+					skip( readVarint() );
+					break;
+
+				case BinaryXml.LONG_VALUE:
+					readVarlong();
+					break;
+
+				case BinaryXml.DOUBLE_VALUE:
+					skip( 8 );
+					break;
+
+				default:
+					skip( 4 );
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Adds an element to the stack of open elements and makes it the current
+	 * element.
+	 *
+	 * @param name Name of the element.
+	 */
+	private void pushElement( final int name )
+	{
+		if ( _depth == _elementNames.length )
+		{
+			_elementNames = Arrays.copyOf( _elementNames, _depth * 2 );
+		}
+		_elementNames[ _depth++ ] = name;
+		_elementName = name;
+	}
+
+	/**
+	 * Reads an end element, after its token.
+	 *
+	 * @throws XMLException if there is no open element.
+	 */
+	private void readEndElement()
+	throws XMLException
+	{
+		if ( _depth == 0 )
+		{
+			throw new XMLException( "Unexpected end element." );
+		}
+		_elementName = _elementNames[ --_depth ];
+	}
+
+	/**
+	 * Returns the name with the given index, reading the definition of a new
+	 * name if needed.
+	 *
+	 * @param index Index of the name; {@code -1} for a new name.
+	 *
+	 * @return Index of the name.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private int readName( final int index )
+	throws XMLException
+	{
+		final int result;
+		if ( index < 0 )
+		{
+			final int namespace = readVarint();
+			final String namespaceURI;
+			if ( namespace == BinaryXml.NEW_NAMESPACE )
+			{
+				namespaceURI = readName();
+				if ( _namespaceCount == _namespaceURIs.length )
+				{
+					_namespaceURIs = Arrays.copyOf( _namespaceURIs, _namespaceCount * 2 );
+				}
+				_namespaceURIs[ _namespaceCount++ ] = namespaceURI;
+			}
+			else if ( namespace == BinaryXml.NO_NAMESPACE )
+			{
+				namespaceURI = null;
+			}
+			else if ( namespace - 2 < _namespaceCount )
+			{
+				namespaceURI = _namespaceURIs[ namespace - 2 ];
+			}
+			else
+			{
+				throw new XMLException( "Invalid namespace reference: " + namespace );
+			}
+
+			final String localName = readName();
+			result = _nameCount;
+			if ( result == _nameLocalNames.length )
+			{
+				_nameNamespaceURIs = Arrays.copyOf( _nameNamespaceURIs, result * 2 );
+				_nameLocalNames = Arrays.copyOf( _nameLocalNames, result * 2 );
+			}
+			_nameNamespaceURIs[ result ] = namespaceURI;
+			_nameLocalNames[ result ] = localName;
+			_nameCount = result + 1;
+		}
+		else if ( index < _nameCount )
+		{
+			result = index;
+		}
+		else
+		{
+			throw new XMLException( "Invalid name reference: " + ( index + 1 ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Reads a string and returns its canonical instance.
+	 *
+	 * @return Canonical name.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	@NotNull
+	private String readName()
+	throws XMLException
+	{
+		final int byteLength = readVarint();
+		final char[] chars = new char[ byteLength ];
+		final int length = readChars( byteLength, chars, 0 );
+		return _nameTable.getName( new String( chars, 0, length ) );
+	}
+
+	/**
+	 * Reads characters encoded as modified UTF-8.
+	 *
+	 * @param byteLength Number of bytes to read.
+	 * @param target     Array to store characters in; must have room for at
+	 *                   least {@code byteLength} characters.
+	 * @param offset     Index of the first character in the target array.
+	 *
+	 * @return Number of characters read.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private int readChars( final int byteLength, @NotNull final char[] target, final int offset )
+	throws XMLException
+	{
+		int count = offset;
+		int remaining = byteLength;
+		while ( remaining > 0 )
+		{
+			if ( _position == _limit )
+			{
+				ensure( 1 );
+			}
+
+			final byte[] buffer = _buffer;
+			final int end = Math.min( _limit, _position + remaining );
+			int position = _position;
+			while ( position < end )
+			{
+				final int b = buffer[ position ];
+				if ( b >= 0 )
+				{
+					target[ count++ ] = (char)b;
+					position++;
+				}
+				else if ( ( b & 0xe0 ) == 0xc0 )
+				{
+					if ( position + 2 > end )
+					{
+						break;
+					}
+					target[ count++ ] = (char)( ( ( b & 0x1f ) << 6 ) | ( buffer[ position + 1 ] & 0x3f ) );
+					position += 2;
+				}
+				else
+				{
+					if ( position + 3 > end )
+					{
+						break;
+					}
+					target[ count++ ] = (char)( ( ( b & 0x0f ) << 12 ) | ( ( buffer[ position + 1 ] & 0x3f ) << 6 ) | ( buffer[ position + 2 ] & 0x3f ) );
+					position += 3;
+				}
+			}
+
+			remaining -= position - _position;
+			_position = position;
+
+			if ( position < end )
+			{
+				// Character crosses the end of the buffer.
+				final int required = ( ( buffer[ position ] & 0xe0 ) == 0xc0 ) ? 2 : 3;
+				if ( required > remaining )
+				{
+					throw new XMLException( "Invalid string encoding." );
+				}
+				ensure( required );
+			}
+		}
+		return count - offset;
+	}
+
+	/**
+	 * Reads an unsigned varint.
+	 *
+	 * @return Value.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private int readVarint()
+	throws XMLException
+	{
+		int result = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			if ( shift > 28 )
+			{
+				throw new XMLException( "Invalid varint." );
+			}
+			b = readByte();
+			result |= ( b & 0x7f ) << shift;
+			shift += 7;
+		}
+		while ( ( b & 0x80 ) != 0 );
+		return result;
+	}
+
+	/**
+	 * Reads an unsigned variable-length long.
+	 *
+	 * @return Value.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input is invalid.
+	 */
+	private long readVarlong()
+	throws XMLException
+	{
+		long result = 0;
+		int shift = 0;
+		int b;
+		do
+		{
+			if ( shift > 63 )
+			{
+				throw new XMLException( "Invalid varint." );
+			}
+			b = readByte();
+			result |= (long)( b & 0x7f ) << shift;
+			shift += 7;
+		}
+		while ( ( b & 0x80 ) != 0 );
+		return result;
+	}
+
+	/**
+	 * Reads a 4-byte integer.
+	 *
+	 * @return Value.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input ends.
+	 */
+	private int readInt()
+	throws XMLException
+	{
+		ensure( 4 );
+		final byte[] buffer = _buffer;
+		final int position = _position;
+		_position = position + 4;
+		return ( buffer[ position ] << 24 ) | ( ( buffer[ position + 1 ] & 0xff ) << 16 ) | ( ( buffer[ position + 2 ] & 0xff ) << 8 ) | ( buffer[ position + 3 ] & 0xff );
+	}
+
+	/**
+	 * Reads an 8-byte integer.
+	 *
+	 * @return Value.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input ends.
+	 */
+	private long readLong()
+	throws XMLException
+	{
+		final long high = readInt();
+		return ( high << 32 ) | ( readInt() & 0xffffffffL );
+	}
+
+	/**
+	 * Reads a single byte.
+	 *
+	 * @return Value, from 0 to 255.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input ends.
+	 */
+	private int readByte()
+	throws XMLException
+	{
+		if ( _position == _limit )
+		{
+			ensure( 1 );
+		}
+		return _buffer[ _position++ ] & 0xff;
+	}
+
+	/**
+	 * Skips the given number of bytes.
+	 *
+	 * @param count Number of bytes to skip.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input ends.
+	 */
+	private void skip( final int count )
+	throws XMLException
+	{
+		int remaining = count;
+		while ( remaining > 0 )
+		{
+			if ( _position == _limit )
+			{
+				ensure( 1 );
+			}
+			final int skipped = Math.min( remaining, _limit - _position );
+			_position += skipped;
+			remaining -= skipped;
+		}
+	}
+
+	/**
+	 * Ensures that the given number of bytes is available in the input
+	 * buffer.
+	 *
+	 * @param count Number of bytes; at most the size of the buffer.
+	 *
+	 * @throws XMLException if an I/O error occurs or the input ends.
+	 */
+	private void ensure( final int count )
+	throws XMLException
+	{
+		final InputStream in = _in;
+		if ( _limit - _position < count )
+		{
+			if ( in == null )
+			{
+				throw new XMLException( "Unexpected end of binary XML document." );
+			}
+
+			final byte[] buffer = _buffer;
+			final int available = _limit - _position;
+			System.arraycopy( buffer, _position, buffer, 0, available );
+			_position = 0;
+			_limit = available;
+
+			try
+			{
+				while ( _limit < count )
+				{
+					final int read = in.read( buffer, _limit, buffer.length - _limit );
+					if ( read < 0 )
+					{
+						throw new XMLException( "Unexpected end of binary XML document." );
+					}
+					_limit += read;
+				}
+			}
+			catch ( final IOException e )
+			{
+				throw new XMLException( e );
+			}
+		}
+	}
+
+	@Override
+	public String getNamespaceURI()
+	{
+		checkElement();
+		return _nameNamespaceURIs[ _elementName ];
+	}
+
+	@Override
+	@NotNull
+	public String getLocalName()
+	{
+		checkElement();
+		return _nameLocalNames[ _elementName ];
+	}
+
+	/**
+	 * Checks that the current event is a start or end element event.
+	 */
+	private void checkElement()
+	{
+		final XMLEventType eventType = _eventType;
+		if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+		     ( eventType != XMLEventType.END_ELEMENT ) )
+		{
+			throw new IllegalStateException( "Not allowed for " + eventType );
+		}
+	}
+
+	@Override
+	public int getAttributeCount()
+	{
+		checkStartElement();
+		return _attributeCount;
+	}
+
+	@Override
+	public String getAttributeNamespaceURI( final int index )
+	{
+		checkAttribute( index );
+		return _nameNamespaceURIs[ _attributeNames[ index ] ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeLocalName( final int index )
+	{
+		checkAttribute( index );
+		return _nameLocalNames[ _attributeNames[ index ] ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeValue( final int index )
+	{
+		checkAttribute( index );
+
+		final long value = _attributeValues[ index ];
+		final String result;
+		switch ( _attributeTypes[ index ] )
+		{
+			case BinaryXml.STRING_VALUE:
+				result = new String( _attributeChars, (int)( value >>> 32 ), (int)value );
+				break;
+
+			case BinaryXml.LONG_VALUE:
+				result = Long.toString( value );
+				break;
+
+			case BinaryXml.DOUBLE_VALUE:
+				result = DatatypeConverter.printDouble( Double.longBitsToDouble( value ) );
+				break;
+
+			default:
+				result = DatatypeConverter.printFloat( Float.intBitsToFloat( (int)value ) );
+				break;
+		}
+		return result;
+	}
+
+	@Override
+	public String getAttributeValue( @NotNull final String localName )
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( true, null, localName );
+		return ( index < 0 ) ? null : getAttributeValue( index );
+	}
+
+	@Override
+	public String getAttributeValue( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		return ( index < 0 ) ? null : getAttributeValue( index );
+	}
+
+	@Override
+	public int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+	throws XMLException
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		int result = defaultValue;
+		if ( index >= 0 )
+		{
+			if ( _attributeTypes[ index ] == BinaryXml.LONG_VALUE )
+			{
+				final long value = _attributeValues[ index ];
+				if ( value != (long)(int)value )
+				{
+					throw invalidAttributeValue( index );
+				}
+				result = (int)value;
+			}
+			else
+			{
+				final char[] chars = getAttributeChars( index );
+				try
+				{
+					result = TextParser.parseInt( chars, _valueStart, _valueEnd );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+	throws XMLException
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		long result = defaultValue;
+		if ( index >= 0 )
+		{
+			if ( _attributeTypes[ index ] == BinaryXml.LONG_VALUE )
+			{
+				result = _attributeValues[ index ];
+			}
+			else
+			{
+				final char[] chars = getAttributeChars( index );
+				try
+				{
+					result = TextParser.parseLong( chars, _valueStart, _valueEnd );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+	throws XMLException
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		double result = defaultValue;
+		if ( index >= 0 )
+		{
+			final int type = _attributeTypes[ index ];
+			if ( type == BinaryXml.DOUBLE_VALUE )
+			{
+				result = Double.longBitsToDouble( _attributeValues[ index ] );
+			}
+			else if ( type == BinaryXml.LONG_VALUE )
+			{
+				result = (double)_attributeValues[ index ];
+			}
+			else
+			{
+				final char[] chars = getAttributeChars( index );
+				try
+				{
+					result = TextParser.parseDouble( chars, _valueStart, _valueEnd );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+	throws XMLException
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		float result = defaultValue;
+		if ( index >= 0 )
+		{
+			final int type = _attributeTypes[ index ];
+			if ( type == BinaryXml.FLOAT_VALUE )
+			{
+				result = Float.intBitsToFloat( (int)_attributeValues[ index ] );
+			}
+			else if ( type == BinaryXml.LONG_VALUE )
+			{
+				result = (float)_attributeValues[ index ];
+			}
+			else
+			{
+				final char[] chars = getAttributeChars( index );
+				try
+				{
+					result = TextParser.parseFloat( chars, _valueStart, _valueEnd );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+	throws XMLException
+	{
+		checkStartElement();
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		boolean result = defaultValue;
+		if ( index >= 0 )
+		{
+			final char[] chars = getAttributeChars( index );
+			try
+			{
+				result = TextParser.parseBoolean( chars, _valueStart, _valueEnd );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the characters of the given attribute value, for parsing values
+	 * that are not stored in the requested type. The start and end index of
+	 * the value are stored in {@link #_valueStart} and {@link #_valueEnd}.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @return Array containing the value.
+	 */
+	@NotNull
+	private char[] getAttributeChars( final int index )
+	{
+		final char[] result;
+		if ( _attributeTypes[ index ] == BinaryXml.STRING_VALUE )
+		{
+			final long value = _attributeValues[ index ];
+			result = _attributeChars;
+			_valueStart = (int)( value >>> 32 );
+			_valueEnd = _valueStart + (int)value;
+		}
+		else
+		{
+			result = getAttributeValue( index ).toCharArray();
+			_valueStart = 0;
+			_valueEnd = result.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates an exception for an attribute with an invalid value.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private XMLException invalidAttributeValue( final int index )
+	{
+		return TextParser.invalidAttributeValue( getAttributeLocalName( index ), getAttributeValue( index ) );
+	}
+
+	/**
+	 * Returns the index of the specified attribute of the current element.
+	 *
+	 * @param anyNamespace Whether to match attributes in any namespace.
+	 * @param namespaceURI Namespace URI; {@code null} for an attribute
+	 *                     with no prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 */
+	private int indexOfAttribute( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		int result = -1;
+
+		final int attributeCount = _attributeCount;
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			AttributeIndex attributeIndex = _attributeIndex;
+			if ( attributeIndex == null )
+			{
+				attributeIndex = new AttributeIndex();
+				_attributeIndex = attributeIndex;
+			}
+			if ( !attributeIndex.isBuilt() )
+			{
+				attributeIndex.reset( attributeCount );
+				for ( int i = 0; i < attributeCount; i++ )
+				{
+					final int name = _attributeNames[ i ];
+					attributeIndex.set( i, _nameNamespaceURIs[ name ], _nameLocalNames[ name ] );
+				}
+			}
+			result = anyNamespace ? attributeIndex.indexOf( localName ) : attributeIndex.indexOf( namespaceURI, localName );
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				final int name = _attributeNames[ i ];
+				final String candidateLocalName = _nameLocalNames[ name ];
+				final String candidateNamespaceURI = _nameNamespaceURIs[ name ];
+				//noinspection StringEquality
+				if ( ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+				     ( anyNamespace || AttributeIndex.isSameNamespace( namespaceURI, candidateNamespaceURI ) ) )
+				{
+					result = i;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Checks that the current event is a start element event and that the
+	 * given attribute exists.
+	 *
+	 * @param index Attribute index.
+	 */
+	private void checkAttribute( final int index )
+	{
+		checkStartElement();
+		if ( ( index < 0 ) || ( index >= _attributeCount ) )
+		{
+			throw new IndexOutOfBoundsException( index + " (attributeCount: " + _attributeCount + ')' );
+		}
+	}
+
+	/**
+	 * Checks that the current event is a start element event.
+	 */
+	private void checkStartElement()
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+	}
+
+	@Override
+	@NotNull
+	public String getText()
+	{
+		checkCharacters();
+		return new String( _text, 0, _textLength );
+	}
+
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		checkCharacters();
+		return _text;
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		checkCharacters();
+		return 0;
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		checkCharacters();
+		return _textLength;
+	}
+
+	/**
+	 * Checks that the current event is a character data event.
+	 */
+	private void checkCharacters()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+	}
+
+	@Override
+	@NotNull
+	public String getPITarget()
+	{
+		throw new IllegalStateException( "Not allowed for " + _eventType );
+	}
+
+	@Override
+	@NotNull
+	public String getPIData()
+	{
+		throw new IllegalStateException( "Not allowed for " + _eventType );
+	}
+
+	@Override
+	public int getLineNumber()
+	{
+		return -1;
+	}
+
+	@Override
+	public int getColumnNumber()
+	{
+		return -1;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Factory for XML readers that read binary XML, as described in {@link
+ * BinaryXml}. Unlike other factories, the readers can't read textual XML.
+ * The encoding passed to this factory is ignored.
+ *
+ * @author G. Meinders
+ */
+public class BinaryXmlReaderFactory
+extends XMLReaderFactory
+{
+	/**
+	 * Constructs a new instance.
+	 */
+	public BinaryXmlReaderFactory()
+	{
+	}
+
+	@Override
+	@NotNull
+	protected XMLReaderFactory newFactory()
+	{
+		return new BinaryXmlReaderFactory();
+	}
+
+	@Override
+	public XMLReader createXMLReader( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		return new BinaryXmlReader( CompressedInput.openStream( in ) );
+	}
+
+	@Override
+	public XMLReader createXMLReader( @NotNull final byte[] bytes, final int offset, final int length, @Nullable final String encoding )
+	throws XMLException
+	{
+		final InputStream compressed = CompressedInput.open( ByteBuffer.wrap( bytes, offset, length ) );
+		return ( compressed != null ) ? new BinaryXmlReader( compressed ) : new BinaryXmlReader( bytes, offset, length );
+	}
+}
@@ -0,0 +1,583 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * XML writer implementation that writes the binary encoding described in
+ * {@link BinaryXml}.
+ *
+ * @author G. Meinders
+ */
+class BinaryXmlWriter
+implements XMLWriter
+{
+	/**
+	 * Stream to write to.
+	 */
+	@NotNull
+	private final OutputStream _out;
+
+	/**
+	 * Output buffer.
+	 */
+	@NotNull
+	private final byte[] _buffer = new byte[ 8192 ];
+
+	/**
+	 * Number of bytes in {@link #_buffer}.
+	 */
+	private int _position = 0;
+
+	/**
+	 * Indices of defined namespace URIs.
+	 */
+	@NotNull
+	private final Map<String, Integer> _namespaces = new HashMap<String, Integer>();
+
+	/**
+	 * Indices of defined names, by namespace URI and local name.
+	 */
+	@NotNull
+	private final Map<String, Map<String, Integer>> _names = new HashMap<String, Map<String, Integer>>();
+
+	/**
+	 * Number of defined names.
+	 */
+	private int _nameCount = 0;
+
+	/**
+	 * {@code true} if attributes may currently be written.
+	 */
+	private boolean _inStartTag = false;
+
+	/**
+	 * {@code true} if the writer is currently writing an empty tag.
+	 */
+	private boolean _empty = false;
+
+	/**
+	 * Number of unclosed start tags.
+	 */
+	private int _depth = 0;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param out Stream to write to.
+	 */
+	BinaryXmlWriter( @NotNull final OutputStream out )
+	{
+		_out = out;
+		System.arraycopy( BinaryXml.MAGIC, 0, _buffer, 0, BinaryXml.MAGIC.length );
+		_position = BinaryXml.MAGIC.length;
+	}
+
+	@Override
+	public void setPrefix( @NotNull final String prefix, @NotNull final String namespaceURI )
+	{
+		// Prefixes are not stored.
+	}
+
+	@Override
+	public void startDocument()
+	{
+		// Written by constructor.
+	}
+
+	@Override
+	public void startTag( @Nullable final String namespaceURI, @NotNull final String localName )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		endAttributes();
+		writeByte( BinaryXml.START_ELEMENT );
+		final int name = getName( namespaceURI, localName );
+		writeVarint( name + 1 );
+		if ( name < 0 )
+		{
+			writeNewName( namespaceURI, localName );
+		}
+		_inStartTag = true;
+		_depth++;
+	}
+
+	@Override
+	public void emptyTag( @Nullable final String namespaceURI, @NotNull final String localName )
+	throws XMLException
+	{
+		startTag( namespaceURI, localName );
+		_empty = true;
+	}
+
+	@Override
+	public void attribute( @Nullable final String namespaceURI, @NotNull final String localName, @NotNull final String value )
+	throws XMLException
+	{
+		final long longValue = parseCanonicalLong( value );
+		if ( longValue == Long.MIN_VALUE )
+		{
+			writeAttributeName( namespaceURI, localName, BinaryXml.STRING_VALUE );
+			writeString( value );
+		}
+		else
+		{
+			writeAttributeName( namespaceURI, localName, BinaryXml.LONG_VALUE );
+			writeVarlong( ( longValue << 1 ) ^ ( longValue >> 63 ) );
+		}
+	}
+
+	@Override
+	public void doubleAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final double value )
+	throws XMLException
+	{
+		writeAttributeName( namespaceURI, localName, BinaryXml.DOUBLE_VALUE );
+		writeLong( Double.doubleToRawLongBits( value ) );
+	}
+
+	@Override
+	public void floatAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final float value )
+	throws XMLException
+	{
+		writeAttributeName( namespaceURI, localName, BinaryXml.FLOAT_VALUE );
+		writeInt( Float.floatToRawIntBits( value ) );
+	}
+
+	/**
+	 * Writes the name and value type of an attribute.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param localName    Local name of the attribute.
+	 * @param type         Value type.
+	 *
+	 * @throws XMLException if an I/O error occurs or no start tag is open.
+	 */
+	private void writeAttributeName( @Nullable final String namespaceURI, @NotNull final String localName, final int type )
+	throws XMLException
+	{
+		if ( !_inStartTag )
+		{
+			throw new XMLException( "Attributes must be written directly after a start tag." );
+		}
+
+		final int name = getName( namespaceURI, localName );
+		writeVarint( ( ( name + 2 ) << 2 ) | type );
+		if ( name < 0 )
+		{
+			writeNewName( namespaceURI, localName );
+		}
+	}
+
+	@Override
+	public void text( @NotNull final String characters )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		endAttributes();
+		writeByte( BinaryXml.TEXT );
+		writeString( characters );
+	}
+
+	@Override
+	public void doubleText( final double value )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		endAttributes();
+		writeByte( BinaryXml.DOUBLE_TEXT );
+		writeLong( Double.doubleToRawLongBits( value ) );
+	}
+
+	@Override
+	public void floatText( final float value )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		endAttributes();
+		writeByte( BinaryXml.FLOAT_TEXT );
+		writeInt( Float.floatToRawIntBits( value ) );
+	}
+
+	@Override
+	public void endTag( @Nullable final String namespaceURI, @NotNull final String localName )
+	throws XMLException
+	{
+		if ( _depth == 0 )
+		{
+			throw new XMLException( "No start tag to end: " + localName );
+		}
+
+		endAttributes();
+		writeByte( BinaryXml.END_ELEMENT );
+		_empty = false;
+		_depth--;
+	}
+
+	@Override
+	public void endDocument()
+	throws XMLException
+	{
+		endAttributes();
+		while ( _depth > 0 )
+		{
+			writeByte( BinaryXml.END_ELEMENT );
+			_depth--;
+		}
+		_empty = false;
+		writeByte( BinaryXml.END_DOCUMENT );
+		flush();
+	}
+
+	@Override
+	public void flush()
+	throws XMLException
+	{
+		try
+		{
+			flushBuffer();
+			_out.flush();
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Ends the attributes of the current start tag, if any.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void endAttributes()
+	throws XMLException
+	{
+		if ( _inStartTag )
+		{
+			writeByte( 0 );
+			_inStartTag = false;
+		}
+	}
+
+	/**
+	 * Returns the index of the given name. If the name is not defined yet, it
+	 * is assigned an index, which must be defined using {@link #writeNewName}.
+	 * An empty namespace URI is the same as no namespace.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param localName    Local name.
+	 *
+	 * @return Index of the name; {@code -1} if the name is new.
+	 */
+	private int getName( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		final String namespace = ( ( namespaceURI == null ) || namespaceURI.isEmpty() ) ? null : namespaceURI;
+		Map<String, Integer> names = _names.get( namespace );
+		if ( names == null )
+		{
+			names = new HashMap<String, Integer>();
+			_names.put( namespace, names );
+		}
+
+		final Integer index = names.get( localName );
+		final int result;
+		if ( index == null )
+		{
+			names.put( localName, _nameCount++ );
+			result = -1;
+		}
+		else
+		{
+			result = index;
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the definition of a new name.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param localName    Local name.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeNewName( @Nullable final String namespaceURI, @NotNull final String localName )
+	throws XMLException
+	{
+		if ( ( namespaceURI == null ) || namespaceURI.isEmpty() )
+		{
+			writeVarint( BinaryXml.NO_NAMESPACE );
+		}
+		else
+		{
+			final Integer index = _namespaces.get( namespaceURI );
+			if ( index == null )
+			{
+				_namespaces.put( namespaceURI, _namespaces.size() );
+				writeVarint( BinaryXml.NEW_NAMESPACE );
+				writeString( namespaceURI );
+			}
+			else
+			{
+				writeVarint( index + 2 );
+			}
+		}
+		writeString( localName );
+	}
+
+	/**
+	 * Parses an integer that is written in canonical form, i.e. such that
+	 * {@link Long#toString(long)} results in the same string.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value; {@link Long#MIN_VALUE} if the value is not a
+	 * canonical integer or is out of range.
+	 */
+	private static long parseCanonicalLong( @NotNull final String value )
+	{
+		final int length = value.length();
+		final boolean negative = ( length > 1 ) && ( value.charAt( 0 ) == '-' );
+		final int start = negative ? 1 : 0;
+
+		long result = Long.MIN_VALUE;
+		if ( ( length > start ) && ( length - start <= 18 ) && ( ( value.charAt( start ) != '0' ) || ( length == 1 ) ) )
+		{
+			long magnitude = 0;
+			int i = start;
+			while ( i < length )
+			{
+				final int digit = value.charAt( i ) - '0';
+				if ( ( digit < 0 ) || ( digit > 9 ) )
+				{
+					break;
+				}
+				magnitude = magnitude * 10 + digit;
+				i++;
+			}
+
+			if ( i == length )
+			{
+				result = negative ? -magnitude : magnitude;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes a string.
+	 *
+	 * @param string String to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeString( @NotNull final String string )
+	throws XMLException
+	{
+		final int length = string.length();
+		int byteLength = length;
+		for ( int i = 0; i < length; i++ )
+		{
+			final char c = string.charAt( i );
+			if ( c >= 0x80 )
+			{
+				byteLength += ( c < 0x800 ) ? 1 : 2;
+			}
+		}
+		writeVarint( byteLength );
+
+		final byte[] buffer = _buffer;
+		int position = _position;
+		for ( int i = 0; i < length; i++ )
+		{
+			if ( position > buffer.length - 3 )
+			{
+				_position = position;
+				flushBuffer( 3 );
+				position = _position;
+			}
+
+			final char c = string.charAt( i );
+			if ( c < 0x80 )
+			{
+				buffer[ position++ ] = (byte)c;
+			}
+			else if ( c < 0x800 )
+			{
+				buffer[ position++ ] = (byte)( 0xc0 | ( c >> 6 ) );
+				buffer[ position++ ] = (byte)( 0x80 | ( c & 0x3f ) );
+			}
+			else
+			{
+				buffer[ position++ ] = (byte)( 0xe0 | ( c >> 12 ) );
+				buffer[ position++ ] = (byte)( 0x80 | ( ( c >> 6 ) & 0x3f ) );
+				buffer[ position++ ] = (byte)( 0x80 | ( c & 0x3f ) );
+			}
+		}
+		_position = position;
+	}
+
+	/**
+	 * Writes an unsigned varint.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeVarint( final int value )
+	throws XMLException
+	{
+		flushBuffer( 5 );
+		final byte[] buffer = _buffer;
+		int position = _position;
+		int remaining = value;
+		while ( ( remaining & ~0x7f ) != 0 )
+		{
+			buffer[ position++ ] = (byte)( 0x80 | ( remaining & 0x7f ) );
+			remaining >>>= 7;
+		}
+		buffer[ position++ ] = (byte)remaining;
+		_position = position;
+	}
+
+	/**
+	 * Writes an unsigned variable-length long.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeVarlong( final long value )
+	throws XMLException
+	{
+		flushBuffer( 10 );
+		final byte[] buffer = _buffer;
+		int position = _position;
+		long remaining = value;
+		while ( ( remaining & ~0x7fL ) != 0 )
+		{
+			buffer[ position++ ] = (byte)( 0x80 | ( remaining & 0x7f ) );
+			remaining >>>= 7;
+		}
+		buffer[ position++ ] = (byte)remaining;
+		_position = position;
+	}
+
+	/**
+	 * Writes a 4-byte integer.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeInt( final int value )
+	throws XMLException
+	{
+		flushBuffer( 4 );
+		final byte[] buffer = _buffer;
+		final int position = _position;
+		buffer[ position ] = (byte)( value >>> 24 );
+		buffer[ position + 1 ] = (byte)( value >>> 16 );
+		buffer[ position + 2 ] = (byte)( value >>> 8 );
+		buffer[ position + 3 ] = (byte)value;
+		_position = position + 4;
+	}
+
+	/**
+	 * Writes an 8-byte integer.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeLong( final long value )
+	throws XMLException
+	{
+		writeInt( (int)( value >>> 32 ) );
+		writeInt( (int)value );
+	}
+
+	/**
+	 * Writes a single byte.
+	 *
+	 * @param value Value to write.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void writeByte( final int value )
+	throws XMLException
+	{
+		flushBuffer( 1 );
+		_buffer[ _position++ ] = (byte)value;
+	}
+
+	/**
+	 * Makes room in the output buffer for the given number of bytes.
+	 *
+	 * @param required Required number of bytes.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private void flushBuffer( final int required )
+	throws XMLException
+	{
+		if ( _position > _buffer.length - required )
+		{
+			try
+			{
+				flushBuffer();
+			}
+			catch ( final IOException e )
+			{
+				throw new XMLException( e );
+			}
+		}
+	}
+
+	/**
+	 * Writes the contents of the output buffer to the underlying stream.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void flushBuffer()
+	throws IOException
+	{
+		_out.write( _buffer, 0, _position );
+		_position = 0;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+
+/**
+ * Factory for XML writers that write binary XML, as described in {@link
+ * BinaryXml}. The encoding and indenting settings are ignored, since the
+ * binary encoding defines its own character encoding and has no whitespace.
+ *
+ * @author G. Meinders
+ */
+public class BinaryXmlWriterFactory
+extends XMLWriterFactory
+{
+	/**
+	 * Constructs a new instance.
+	 */
+	public BinaryXmlWriterFactory()
+	{
+	}
+
+	@Override
+	protected XMLWriterFactory newFactory()
+	{
+		return new BinaryXmlWriterFactory();
+	}
+
+	@Override
+	public XMLWriter createXMLWriter( final OutputStream out, final String encoding )
+	{
+		return new BinaryXmlWriter( out );
+	}
+
+	/**
+	 * Not supported, since binary XML can't be written to a character stream.
+	 *
+	 * @param writer   Character stream to write to.
+	 * @param encoding Character encoding to be used.
+	 *
+	 * @return Never returns normally.
+	 *
+	 * @throws XMLException always.
+	 */
+	@Override
+	public XMLWriter createXMLWriter( final Writer writer, final String encoding )
+	throws XMLException
+	{
+		throw new XMLException( "Binary XML can't be written to a character stream." );
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Input stream that reads the remaining bytes of one or more byte buffers, in
+ * order. The buffers may be heap or direct buffers. The positions of the
+ * buffers are advanced as bytes are read.
+ *
+ * @author G. Meinders
+ */
+class ByteBufferInputStream
+extends InputStream
+{
+	/**
+	 * Buffers to read, in order.
+	 */
+	@NotNull
+	private final ByteBuffer[] _buffers;
+
+	/**
+	 * Index of the current buffer.
+	 */
+	private int _current;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param buffers Buffers to read, in order.
+	 */
+	ByteBufferInputStream( @NotNull final ByteBuffer... buffers )
+	{
+		_buffers = buffers;
+		_current = 0;
+	}
+
+	/**
+	 * Returns the current buffer, skipping any buffers that were fully read.
+	 *
+	 * @return Current buffer; {@code null} at the end of the input.
+	 */
+	@Nullable
+	private ByteBuffer currentBuffer()
+	{
+		ByteBuffer result = null;
+		while ( _current < _buffers.length )
+		{
+			final ByteBuffer buffer = _buffers[ _current ];
+			if ( buffer.hasRemaining() )
+			{
+				result = buffer;
+				break;
+			}
+			_buffers[ _current++ ] = null;
+		}
+		return result;
+	}
+
+	@Override
+	public int read()
+	{
+		final ByteBuffer buffer = currentBuffer();
+		return ( buffer == null ) ? -1 : ( buffer.get() & 0xff );
+	}
+
+	@Override
+	public int read( @NotNull final byte[] b, final int off, final int len )
+	{
+		int result;
+		if ( len == 0 )
+		{
+			result = 0;
+		}
+		else
+		{
+			final ByteBuffer buffer = currentBuffer();
+			if ( buffer == null )
+			{
+				result = -1;
+			}
+			else
+			{
+				result = Math.min( len, buffer.remaining() );
+				buffer.get( b, off, result );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long skip( final long n )
+	{
+		long result = 0L;
+		ByteBuffer buffer;
+		while ( ( result < n ) && ( ( buffer = currentBuffer() ) != null ) )
+		{
+			final int skipped = (int)Math.min( n - result, (long)buffer.remaining() );
+			buffer.position( buffer.position() + skipped );
+			result += skipped;
+		}
+		return result;
+	}
+
+	@Override
+	public int available()
+	{
+		final ByteBuffer buffer = currentBuffer();
+		return ( buffer == null ) ? 0 : buffer.remaining();
+	}
+
+	@Override
+	public void close()
+	{
+		_current = _buffers.length;
+		Arrays.fill( _buffers, null );
+	}
+}
@@ -0,0 +1,1390 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Read-only document tree with a small memory footprint. Nodes are
+ * identified by integers and stored in parallel arrays, instead of as
+ * objects. Names are stored once per document, and all character data and
+ * attribute values are stored in a single character array.
+ *
+ * <p>Node {@link #DOCUMENT} is the document node; its children are the
+ * document element and any processing instructions outside of it. The type
+ * of a node is indicated by an {@link XMLEventType}: {@link
+ * XMLEventType#START_DOCUMENT} for the document node, {@link
+ * XMLEventType#START_ELEMENT} for elements, {@link XMLEventType#CHARACTERS}
+ * for character data and {@link XMLEventType#PROCESSING_INSTRUCTION} for
+ * processing instructions. Adjacent character data is stored as a single
+ * node.
+ *
+ * <p>Documents are immutable and may be used from multiple threads. Any
+ * subtree can be read using an {@link XMLReader}; see {@link
+ * #createReader(int)}.
+ *
+ * @author G. Meinders
+ */
+public final class CompactDocument
+{
+	/**
+	 * Document node.
+	 */
+	public static final int DOCUMENT = 0;
+
+	/**
+	 * Value returned by navigation methods if there is no such node.
+	 */
+	public static final int NONE = -1;
+
+	/**
+	 * Number of integers per attribute.
+	 */
+	private static final int ATTRIBUTE_SIZE = 3;
+
+	/**
+	 * Node types, indexed by ordinal.
+	 */
+	private static final XMLEventType[] NODE_TYPES = XMLEventType.values();
+
+	/**
+	 * Type of each node, as the ordinal of an {@link XMLEventType}.
+	 */
+	@NotNull
+	private final byte[] _types;
+
+	/**
+	 * Parent of each node.
+	 */
+	@NotNull
+	private final int[] _parents;
+
+	/**
+	 * First child of each node.
+	 */
+	@NotNull
+	private final int[] _firstChildren;
+
+	/**
+	 * Next sibling of each node.
+	 */
+	@NotNull
+	private final int[] _nextSiblings;
+
+	/**
+	 * Name of each element, or the target of each processing instruction.
+	 */
+	@NotNull
+	private final int[] _names;
+
+	/**
+	 * First attribute of each element, or the start of the character data
+	 * or processing instruction data in {@link #_chars}.
+	 */
+	@NotNull
+	private final int[] _starts;
+
+	/**
+	 * Number of attributes of each element, or the length of the character
+	 * data or processing instruction data.
+	 */
+	@NotNull
+	private final int[] _lengths;
+
+	/**
+	 * Attributes, {@link #ATTRIBUTE_SIZE} integers each: name, value start and
+	 * value length.
+	 */
+	@NotNull
+	private final int[] _attributes;
+
+	/**
+	 * Namespace URI of each name.
+	 */
+	@NotNull
+	private final String[] _namespaceURIs;
+
+	/**
+	 * Local name of each name.
+	 */
+	@NotNull
+	private final String[] _localNames;
+
+	/**
+	 * Character data, attribute values and processing instruction data.
+	 */
+	@NotNull
+	private final char[] _chars;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param builder Builder with the document content.
+	 */
+	private CompactDocument( @NotNull final Builder builder )
+	{
+		final int nodeCount = builder._nodeCount;
+		_types = Arrays.copyOf( builder._types, nodeCount );
+		_parents = Arrays.copyOf( builder._parents, nodeCount );
+		_firstChildren = Arrays.copyOf( builder._firstChildren, nodeCount );
+		_nextSiblings = Arrays.copyOf( builder._nextSiblings, nodeCount );
+		_names = Arrays.copyOf( builder._names, nodeCount );
+		_starts = Arrays.copyOf( builder._starts, nodeCount );
+		_lengths = Arrays.copyOf( builder._lengths, nodeCount );
+		_attributes = Arrays.copyOf( builder._attributes, builder._attributeCount * ATTRIBUTE_SIZE );
+		_namespaceURIs = builder._namespaceURIs.toArray( new String[ builder._namespaceURIs.size() ] );
+		_localNames = builder._localNames.toArray( new String[ builder._localNames.size() ] );
+		_chars = Arrays.copyOf( builder._chars, builder._charCount );
+	}
+
+	/**
+	 * Reads the remaining content of the document being read. The current
+	 * event is included as well, unless it is {@link
+	 * XMLEventType#START_DOCUMENT}. Afterwards, the reader is positioned at
+	 * the end of the document.
+	 *
+	 * @param reader XML reader to read from.
+	 *
+	 * @return Document.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	public static CompactDocument read( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final Builder builder = new Builder();
+		XMLEventType eventType = reader.getEventType();
+		if ( eventType != XMLEventType.START_DOCUMENT )
+		{
+			builder.add( reader );
+		}
+		while ( eventType != XMLEventType.END_DOCUMENT )
+		{
+			eventType = reader.next();
+			builder.add( reader );
+		}
+		return new CompactDocument( builder );
+	}
+
+	/**
+	 * Reads the current element, including its content, as the document
+	 * element of a new document. Afterwards, the reader is positioned at the
+	 * end of the element, like after {@link XMLReader#skipElement()}.
+	 *
+	 * @param reader XML reader to read from.
+	 *
+	 * @return Document.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 */
+	@NotNull
+	public static CompactDocument readElement( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		if ( reader.getEventType() != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + reader.getEventType() );
+		}
+
+		final Builder builder = new Builder();
+		builder.add( reader );
+		while ( builder._current != DOCUMENT )
+		{
+			reader.next();
+			builder.add( reader );
+		}
+		return new CompactDocument( builder );
+	}
+
+	/**
+	 * Returns the number of nodes in the document, including the document
+	 * node. Nodes are numbered in document order, from {@code 0} up to the
+	 * number of nodes.
+	 *
+	 * @return Number of nodes.
+	 */
+	public int getNodeCount()
+	{
+		return _types.length;
+	}
+
+	/**
+	 * Returns the document element.
+	 *
+	 * @return Document element; {@link #NONE} if the document is empty.
+	 */
+	public int getDocumentElement()
+	{
+		int result = getFirstChild( DOCUMENT );
+		while ( ( result != NONE ) && ( _types[ result ] != XMLEventType.START_ELEMENT.ordinal() ) )
+		{
+			result = _nextSiblings[ result ];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the type of the given node.
+	 *
+	 * @param node Node.
+	 *
+	 * @return Node type.
+	 */
+	@NotNull
+	public XMLEventType getNodeType( final int node )
+	{
+		return NODE_TYPES[ _types[ node ] ];
+	}
+
+	/**
+	 * Returns the parent of the given node.
+	 *
+	 * @param node Node.
+	 *
+	 * @return Parent node; {@link #NONE} for the document node.
+	 */
+	public int getParent( final int node )
+	{
+		return _parents[ node ];
+	}
+
+	/**
+	 * Returns the first child of the given node.
+	 *
+	 * @param node Node.
+	 *
+	 * @return First child; {@link #NONE} if the node has no children.
+	 */
+	public int getFirstChild( final int node )
+	{
+		return _firstChildren[ node ];
+	}
+
+	/**
+	 * Returns the next sibling of the given node.
+	 *
+	 * @param node Node.
+	 *
+	 * @return Next sibling; {@link #NONE} if the node is the last child of
+	 * its parent.
+	 */
+	public int getNextSibling( final int node )
+	{
+		return _nextSiblings[ node ];
+	}
+
+	/**
+	 * Returns the first child element of the given node with the given name.
+	 *
+	 * @param node         Node.
+	 * @param namespaceURI Namespace URI; {@code null} for no namespace.
+	 * @param localName    Local name.
+	 *
+	 * @return Child element; {@link #NONE} if there is no such element.
+	 */
+	public int getChildElement( final int node, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		int result = _firstChildren[ node ];
+		while ( ( result != NONE ) && !( ( _types[ result ] == XMLEventType.START_ELEMENT.ordinal() ) && isName( _names[ result ], namespaceURI, localName ) ) )
+		{
+			result = _nextSiblings[ result ];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the namespace URI of the given element.
+	 *
+	 * @param element Element node.
+	 *
+	 * @return Namespace URI; {@code null} if the element has no namespace.
+	 */
+	@Nullable
+	public String getNamespaceURI( final int element )
+	{
+		checkType( element, XMLEventType.START_ELEMENT );
+		return _namespaceURIs[ _names[ element ] ];
+	}
+
+	/**
+	 * Returns the local name of the given element.
+	 *
+	 * @param element Element node.
+	 *
+	 * @return Local name.
+	 */
+	@NotNull
+	public String getLocalName( final int element )
+	{
+		checkType( element, XMLEventType.START_ELEMENT );
+		return _localNames[ _names[ element ] ];
+	}
+
+	/**
+	 * Returns the number of attributes of the given element.
+	 *
+	 * @param element Element node.
+	 *
+	 * @return Number of attributes.
+	 */
+	public int getAttributeCount( final int element )
+	{
+		checkType( element, XMLEventType.START_ELEMENT );
+		return _lengths[ element ];
+	}
+
+	/**
+	 * Returns the namespace URI of the specified attribute.
+	 *
+	 * @param element Element node.
+	 * @param index   Attribute index.
+	 *
+	 * @return Namespace URI; {@code null} if the attribute has no namespace.
+	 */
+	@Nullable
+	public String getAttributeNamespaceURI( final int element, final int index )
+	{
+		return _namespaceURIs[ _attributes[ attributeOffset( element, index ) ] ];
+	}
+
+	/**
+	 * Returns the local name of the specified attribute.
+	 *
+	 * @param element Element node.
+	 * @param index   Attribute index.
+	 *
+	 * @return Local name.
+	 */
+	@NotNull
+	public String getAttributeLocalName( final int element, final int index )
+	{
+		return _localNames[ _attributes[ attributeOffset( element, index ) ] ];
+	}
+
+	/**
+	 * Returns the value of the specified attribute.
+	 *
+	 * @param element Element node.
+	 * @param index   Attribute index.
+	 *
+	 * @return Attribute value.
+	 */
+	@NotNull
+	public String getAttributeValue( final int element, final int index )
+	{
+		final int offset = attributeOffset( element, index );
+		return new String( _chars, _attributes[ offset + 1 ], _attributes[ offset + 2 ] );
+	}
+
+	/**
+	 * Returns the value of the specified attribute.
+	 *
+	 * @param element      Element node.
+	 * @param namespaceURI Namespace URI; {@code null} for no namespace.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute value; {@code null} if the element has no such
+	 * attribute.
+	 */
+	@Nullable
+	public String getAttributeValue( final int element, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		checkType( element, XMLEventType.START_ELEMENT );
+		String result = null;
+		for ( int offset = _starts[ element ] * ATTRIBUTE_SIZE, end = offset + _lengths[ element ] * ATTRIBUTE_SIZE; offset < end; offset += ATTRIBUTE_SIZE )
+		{
+			if ( isName( _attributes[ offset ], namespaceURI, localName ) )
+			{
+				result = new String( _chars, _attributes[ offset + 1 ], _attributes[ offset + 2 ] );
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the character data of the given node. For elements and the
+	 * document node, this is the character data of all descendants.
+	 *
+	 * @param node Node.
+	 *
+	 * @return Character data; the data of processing instructions.
+	 */
+	@NotNull
+	public String getText( final int node )
+	{
+		final String result;
+		final int type = _types[ node ];
+		if ( ( type == XMLEventType.CHARACTERS.ordinal() ) || ( type == XMLEventType.PROCESSING_INSTRUCTION.ordinal() ) )
+		{
+			result = new String( _chars, _starts[ node ], _lengths[ node ] );
+		}
+		else
+		{
+			final StringBuilder text = new StringBuilder();
+			final int end = getEnd( node );
+			for ( int descendant = node + 1; descendant < end; descendant++ )
+			{
+				if ( _types[ descendant ] == XMLEventType.CHARACTERS.ordinal() )
+				{
+					text.append( _chars, _starts[ descendant ], _lengths[ descendant ] );
+				}
+			}
+			result = text.toString();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the target of the given processing instruction.
+	 *
+	 * @param node Processing instruction node.
+	 *
+	 * @return Target.
+	 */
+	@NotNull
+	public String getPITarget( final int node )
+	{
+		checkType( node, XMLEventType.PROCESSING_INSTRUCTION );
+		return _localNames[ _names[ node ] ];
+	}
+
+	/**
+	 * Creates a reader for the entire document.
+	 *
+	 * @return XML reader.
+	 */
+	@NotNull
+	public MarkableXMLReader createReader()
+	{
+		return new NodeReader( DOCUMENT );
+	}
+
+	/**
+	 * Creates a reader for the given node and its descendants. The reader
+	 * starts at {@link XMLEventType#START_DOCUMENT} and ends with {@link
+	 * XMLEventType#END_DOCUMENT}; in between, it returns the events for the
+	 * node.
+	 *
+	 * @param node Node to read.
+	 *
+	 * @return XML reader.
+	 */
+	@NotNull
+	public MarkableXMLReader createReader( final int node )
+	{
+		return new NodeReader( node );
+	}
+
+	/**
+	 * Returns the node following the given node and its descendants.
+	 *
+	 * @param node Node.
+	 *
+	 * @return Index after the last descendant of the node.
+	 */
+	private int getEnd( final int node )
+	{
+		int ancestor = node;
+		int result = NONE;
+		while ( ( ancestor != NONE ) && ( result == NONE ) )
+		{
+			result = _nextSiblings[ ancestor ];
+			ancestor = _parents[ ancestor ];
+		}
+		return ( result == NONE ) ? _types.length : result;
+	}
+
+	/**
+	 * Returns whether the given name has the given namespace and local name.
+	 *
+	 * @param name         Name index.
+	 * @param namespaceURI Namespace URI; {@code null} for no namespace.
+	 * @param localName    Local name.
+	 *
+	 * @return {@code true} if the names are equal.
+	 */
+	private boolean isName( final int name, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		final String candidateLocalName = _localNames[ name ];
+		final String candidateNamespaceURI = _namespaceURIs[ name ];
+		//noinspection StringEquality
+		return ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+		       AttributeIndex.isSameNamespace( namespaceURI, candidateNamespaceURI );
+	}
+
+	/**
+	 * Returns the offset of the given attribute in {@link #_attributes}.
+	 *
+	 * @param element Element node.
+	 * @param index   Attribute index.
+	 *
+	 * @return Offset of the attribute.
+	 */
+	private int attributeOffset( final int element, final int index )
+	{
+		checkType( element, XMLEventType.START_ELEMENT );
+		final int attributeCount = _lengths[ element ];
+		if ( ( index < 0 ) || ( index >= attributeCount ) )
+		{
+			throw new IndexOutOfBoundsException( index + " (attributeCount: " + attributeCount + ')' );
+		}
+		return ( _starts[ element ] + index ) * ATTRIBUTE_SIZE;
+	}
+
+	/**
+	 * Checks that the given node has the given type.
+	 *
+	 * @param node Node.
+	 * @param type Required type.
+	 */
+	private void checkType( final int node, @NotNull final XMLEventType type )
+	{
+		if ( _types[ node ] != type.ordinal() )
+		{
+			throw new IllegalArgumentException( "Node " + node + " is not a " + type + " node, but " + getNodeType( node ) );
+		}
+	}
+
+	/**
+	 * Collects nodes while reading a document.
+	 */
+	private static class Builder
+	{
+		/**
+		 * Node types.
+		 */
+		@NotNull
+		private byte[] _types = new byte[ 64 ];
+
+		/**
+		 * Parents of nodes.
+		 */
+		@NotNull
+		private int[] _parents = new int[ 64 ];
+
+		/**
+		 * First children of nodes.
+		 */
+		@NotNull
+		private int[] _firstChildren = new int[ 64 ];
+
+		/**
+		 * Next siblings of nodes.
+		 */
+		@NotNull
+		private int[] _nextSiblings = new int[ 64 ];
+
+		/**
+		 * Names of nodes.
+		 */
+		@NotNull
+		private int[] _names = new int[ 64 ];
+
+		/**
+		 * Start of the attributes or data of nodes.
+		 */
+		@NotNull
+		private int[] _starts = new int[ 64 ];
+
+		/**
+		 * Number of attributes or length of data of nodes.
+		 */
+		@NotNull
+		private int[] _lengths = new int[ 64 ];
+
+		/**
+		 * Number of nodes.
+		 */
+		private int _nodeCount = 0;
+
+		/**
+		 * Last child of the current element; {@link #NONE} if the current
+		 * element has no children (yet).
+		 */
+		private int _lastChild = NONE;
+
+		/**
+		 * Element to which children are added.
+		 */
+		private int _current;
+
+		/**
+		 * Attributes.
+		 */
+		@NotNull
+		private int[] _attributes = new int[ 64 * ATTRIBUTE_SIZE ];
+
+		/**
+		 * Number of attributes.
+		 */
+		private int _attributeCount = 0;
+
+		/**
+		 * Namespace URIs of names.
+		 */
+		@NotNull
+		private final List<String> _namespaceURIs = new ArrayList<String>();
+
+		/**
+		 * Local names of names.
+		 */
+		@NotNull
+		private final List<String> _localNames = new ArrayList<String>();
+
+		/**
+		 * Indices of names, by namespace URI and local name.
+		 */
+		@NotNull
+		private final Map<String, Map<String, Integer>> _nameIndices = new HashMap<String, Map<String, Integer>>();
+
+		/**
+		 * Characters.
+		 */
+		@NotNull
+		private char[] _chars = new char[ 1024 ];
+
+		/**
+		 * Number of characters.
+		 */
+		private int _charCount = 0;
+
+		/**
+		 * Constructs a new instance.
+		 */
+		Builder()
+		{
+			_current = addNode( XMLEventType.START_DOCUMENT, NONE, 0, 0 );
+		}
+
+		/**
+		 * Adds the current event of the given reader.
+		 *
+		 * @param reader XML reader.
+		 */
+		void add( @NotNull final XMLReader reader )
+		{
+			switch ( reader.getEventType() )
+			{
+				case START_ELEMENT:
+				{
+					final int attributeCount = reader.getAttributeCount();
+					final int element = addNode( XMLEventType.START_ELEMENT, nameIndex( reader.getNamespaceURI(), reader.getLocalName() ), _attributeCount, attributeCount );
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						addAttribute( nameIndex( reader.getAttributeNamespaceURI( i ), reader.getAttributeLocalName( i ) ), reader.getAttributeValue( i ) );
+					}
+					_current = element;
+					_lastChild = NONE;
+					break;
+				}
+
+				case END_ELEMENT:
+					if ( _current != DOCUMENT )
+					{
+						_lastChild = _current;
+						_current = _parents[ _current ];
+					}
+					break;
+
+				case CHARACTERS:
+				{
+					final int length = reader.getTextLength();
+					final int start = addChars( reader.getTextCharacters(), reader.getTextStart(), length );
+					final int lastChild = _lastChild;
+					if ( ( lastChild != NONE ) && ( _types[ lastChild ] == XMLEventType.CHARACTERS.ordinal() ) && ( _starts[ lastChild ] + _lengths[ lastChild ] == start ) )
+					{
+						_lengths[ lastChild ] += length;
+					}
+					else
+					{
+						addNode( XMLEventType.CHARACTERS, 0, start, length );
+					}
+					break;
+				}
+
+				case PROCESSING_INSTRUCTION:
+				{
+					final String data = reader.getPIData();
+					final int start = addChars( data.toCharArray(), 0, data.length() );
+					addNode( XMLEventType.PROCESSING_INSTRUCTION, nameIndex( null, reader.getPITarget() ), start, data.length() );
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Adds a node as the last child of the current element.
+		 *
+		 * @param type   Node type.
+		 * @param name   Name index.
+		 * @param start  Start of attributes or data.
+		 * @param length Number of attributes or length of data.
+		 *
+		 * @return Added node.
+		 */
+		private int addNode( @NotNull final XMLEventType type, final int name, final int start, final int length )
+		{
+			final int result = _nodeCount;
+			if ( result == _types.length )
+			{
+				final int capacity = result * 2;
+				_types = Arrays.copyOf( _types, capacity );
+				_parents = Arrays.copyOf( _parents, capacity );
+				_firstChildren = Arrays.copyOf( _firstChildren, capacity );
+				_nextSiblings = Arrays.copyOf( _nextSiblings, capacity );
+				_names = Arrays.copyOf( _names, capacity );
+				_starts = Arrays.copyOf( _starts, capacity );
+				_lengths = Arrays.copyOf( _lengths, capacity );
+			}
+			_nodeCount = result + 1;
+
+			_types[ result ] = (byte)type.ordinal();
+			_firstChildren[ result ] = NONE;
+			_nextSiblings[ result ] = NONE;
+			_names[ result ] = name;
+			_starts[ result ] = start;
+			_lengths[ result ] = length;
+
+			if ( result == DOCUMENT )
+			{
+				_parents[ result ] = NONE;
+			}
+			else
+			{
+				final int parent = _current;
+				_parents[ result ] = parent;
+				if ( _lastChild == NONE )
+				{
+					_firstChildren[ parent ] = result;
+				}
+				else
+				{
+					_nextSiblings[ _lastChild ] = result;
+				}
+				_lastChild = result;
+			}
+			return result;
+		}
+
+		/**
+		 * Adds an attribute.
+		 *
+		 * @param name  Name index.
+		 * @param value Attribute value.
+		 */
+		private void addAttribute( final int name, @NotNull final String value )
+		{
+			final int offset = _attributeCount * ATTRIBUTE_SIZE;
+			if ( offset == _attributes.length )
+			{
+				_attributes = Arrays.copyOf( _attributes, offset * 2 );
+			}
+			_attributeCount++;
+
+			final int start = reserveChars( value.length() );
+			value.getChars( 0, value.length(), _chars, start );
+			_attributes[ offset ] = name;
+			_attributes[ offset + 1 ] = start;
+			_attributes[ offset + 2 ] = value.length();
+		}
+
+		/**
+		 * Returns the index of the given name, adding it if needed. An empty
+		 * namespace URI, as reported by some readers, is stored as no
+		 * namespace.
+		 *
+		 * @param namespaceURI Namespace URI.
+		 * @param localName    Local name.
+		 *
+		 * @return Name index.
+		 */
+		private int nameIndex( @Nullable final String namespaceURI, @NotNull final String localName )
+		{
+			final String namespace = ( ( namespaceURI == null ) || namespaceURI.isEmpty() ) ? null : namespaceURI;
+			Map<String, Integer> names = _nameIndices.get( namespace );
+			if ( names == null )
+			{
+				names = new HashMap<String, Integer>();
+				_nameIndices.put( namespace, names );
+			}
+
+			Integer result = names.get( localName );
+			if ( result == null )
+			{
+				result = _localNames.size();
+				_namespaceURIs.add( namespace );
+				_localNames.add( localName );
+				names.put( localName, result );
+			}
+			return result;
+		}
+
+		/**
+		 * Adds characters.
+		 *
+		 * @param chars  Characters to add.
+		 * @param start  Start index.
+		 * @param length Number of characters.
+		 *
+		 * @return Index of the first added character.
+		 */
+		private int addChars( @NotNull final char[] chars, final int start, final int length )
+		{
+			final int result = reserveChars( length );
+			System.arraycopy( chars, start, _chars, result, length );
+			return result;
+		}
+
+		/**
+		 * Reserves room for the given number of characters.
+		 *
+		 * @param length Number of characters.
+		 *
+		 * @return Index of the first reserved character.
+		 */
+		private int reserveChars( final int length )
+		{
+			final int result = _charCount;
+			final int required = result + length;
+			if ( required > _chars.length )
+			{
+				_chars = Arrays.copyOf( _chars, Math.max( required, _chars.length * 2 ) );
+			}
+			_charCount = required;
+			return result;
+		}
+	}
+
+	/**
+	 * Reader for a node and its descendants.
+	 */
+	private class NodeReader
+	implements MarkableXMLReader
+	{
+		/**
+		 * Node being read.
+		 */
+		private final int _root;
+
+		/**
+		 * Current node.
+		 */
+		private int _node = NONE;
+
+		/**
+		 * Type of the current event.
+		 */
+		@NotNull
+		private XMLEventType _eventType = XMLEventType.START_DOCUMENT;
+
+		/**
+		 * Index for looking up attributes of elements with many attributes;
+		 * {@code null} until needed.
+		 */
+		@Nullable
+		private AttributeIndex _attributeIndex = null;
+
+		/**
+		 * Marked node.
+		 */
+		private int _markNode = NONE;
+
+		/**
+		 * Type of the marked event; {@code null} if no mark is set.
+		 */
+		@Nullable
+		private XMLEventType _markEventType = null;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param root Node to read.
+		 */
+		NodeReader( final int root )
+		{
+			_root = root;
+		}
+
+		@Override
+		@NotNull
+		public XMLEventType getEventType()
+		{
+			return _eventType;
+		}
+
+		@Override
+		@NotNull
+		public XMLEventType next()
+		{
+			final XMLEventType eventType = _eventType;
+			if ( eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+
+			if ( eventType == XMLEventType.START_DOCUMENT )
+			{
+				moveTo( ( _root == DOCUMENT ) ? _firstChildren[ DOCUMENT ] : _root );
+			}
+			else if ( ( eventType == XMLEventType.START_ELEMENT ) && ( _firstChildren[ _node ] != NONE ) )
+			{
+				moveTo( _firstChildren[ _node ] );
+			}
+			else if ( eventType == XMLEventType.START_ELEMENT )
+			{
+				_eventType = XMLEventType.END_ELEMENT;
+			}
+			else if ( _node == _root )
+			{
+				_eventType = XMLEventType.END_DOCUMENT;
+			}
+			else if ( _nextSiblings[ _node ] != NONE )
+			{
+				moveTo( _nextSiblings[ _node ] );
+			}
+			else
+			{
+				_node = _parents[ _node ];
+				_eventType = ( _node == DOCUMENT ) ? XMLEventType.END_DOCUMENT : XMLEventType.END_ELEMENT;
+			}
+
+			return _eventType;
+		}
+
+		/**
+		 * Moves to the start of the given node.
+		 *
+		 * @param node Node; {@link #NONE} for the end of the document.
+		 */
+		private void moveTo( final int node )
+		{
+			_node = node;
+			_eventType = ( node == NONE ) ? XMLEventType.END_DOCUMENT : NODE_TYPES[ _types[ node ] ];
+			if ( _attributeIndex != null )
+			{
+				_attributeIndex.clear();
+			}
+		}
+
+		@Override
+		public void skipElement()
+		{
+			if ( _eventType != XMLEventType.START_ELEMENT )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+			_eventType = XMLEventType.END_ELEMENT;
+		}
+
+		@Override
+		@NotNull
+		public XMLEventType peek()
+		{
+			final int node = _node;
+			final XMLEventType eventType = _eventType;
+			final XMLEventType result = next();
+			_node = node;
+			_eventType = eventType;
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * <p>Since the document is kept in memory, the mark never becomes
+		 * invalid by reading past the read limit.
+		 */
+		@Override
+		public void mark( final int readLimit )
+		{
+			_markNode = _node;
+			_markEventType = _eventType;
+		}
+
+		@Override
+		public void resetToMark()
+		{
+			final XMLEventType eventType = _markEventType;
+			if ( eventType == null )
+			{
+				throw new IllegalStateException( "No valid mark." );
+			}
+			_node = _markNode;
+			_eventType = eventType;
+			if ( _attributeIndex != null )
+			{
+				_attributeIndex.clear();
+			}
+		}
+
+		@Override
+		public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+		{
+			throw new UnsupportedOperationException( "Document readers can't be reset to another document." );
+		}
+
+		@Override
+		public String getNamespaceURI()
+		{
+			checkElement();
+			return _namespaceURIs[ _names[ _node ] ];
+		}
+
+		@Override
+		@NotNull
+		public String getLocalName()
+		{
+			checkElement();
+			return _localNames[ _names[ _node ] ];
+		}
+
+		/**
+		 * Checks that the current event is a start or end element event.
+		 */
+		private void checkElement()
+		{
+			final XMLEventType eventType = _eventType;
+			if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+			     ( eventType != XMLEventType.END_ELEMENT ) )
+			{
+				throw new IllegalStateException( "Not allowed for " + eventType );
+			}
+		}
+
+		@Override
+		public int getAttributeCount()
+		{
+			checkStartElement();
+			return _lengths[ _node ];
+		}
+
+		@Override
+		public String getAttributeNamespaceURI( final int index )
+		{
+			checkStartElement();
+			return CompactDocument.this.getAttributeNamespaceURI( _node, index );
+		}
+
+		@Override
+		@NotNull
+		public String getAttributeLocalName( final int index )
+		{
+			checkStartElement();
+			return CompactDocument.this.getAttributeLocalName( _node, index );
+		}
+
+		@Override
+		@NotNull
+		public String getAttributeValue( final int index )
+		{
+			checkStartElement();
+			return CompactDocument.this.getAttributeValue( _node, index );
+		}
+
+		@Override
+		public String getAttributeValue( @NotNull final String localName )
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( true, null, localName );
+			return ( index < 0 ) ? null : getAttributeValue( index );
+		}
+
+		@Override
+		public String getAttributeValue( @Nullable final String namespaceURI, @NotNull final String localName )
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			return ( index < 0 ) ? null : getAttributeValue( index );
+		}
+
+		@Override
+		public int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			int result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _starts[ _node ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseInt( _chars, _attributes[ offset + 1 ], _attributes[ offset + 1 ] + _attributes[ offset + 2 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			long result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _starts[ _node ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseLong( _chars, _attributes[ offset + 1 ], _attributes[ offset + 1 ] + _attributes[ offset + 2 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			double result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _starts[ _node ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseDouble( _chars, _attributes[ offset + 1 ], _attributes[ offset + 1 ] + _attributes[ offset + 2 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			float result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _starts[ _node ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseFloat( _chars, _attributes[ offset + 1 ], _attributes[ offset + 1 ] + _attributes[ offset + 2 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			boolean result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _starts[ _node ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseBoolean( _chars, _attributes[ offset + 1 ], _attributes[ offset + 1 ] + _attributes[ offset + 2 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Creates an exception for an attribute with an invalid value.
+		 *
+		 * @param index Attribute index.
+		 *
+		 * @return Exception.
+		 */
+		@NotNull
+		private XMLException invalidAttributeValue( final int index )
+		{
+			return TextParser.invalidAttributeValue( getAttributeLocalName( index ), getAttributeValue( index ) );
+		}
+
+		/**
+		 * Returns the index of the specified attribute of the current element.
+		 *
+		 * @param anyNamespace Whether to match attributes in any namespace.
+		 * @param namespaceURI Namespace URI; {@code null} for an attribute
+		 *                     with no prefix.
+		 * @param localName    Local name.
+		 *
+		 * @return Attribute index; {@code -1} if not found.
+		 */
+		private int indexOfAttribute( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+		{
+			int result = -1;
+
+			final int first = _starts[ _node ];
+			final int attributeCount = _lengths[ _node ];
+			if ( attributeCount > AttributeIndex.THRESHOLD )
+			{
+				AttributeIndex attributeIndex = _attributeIndex;
+				if ( attributeIndex == null )
+				{
+					attributeIndex = new AttributeIndex();
+					_attributeIndex = attributeIndex;
+				}
+				if ( !attributeIndex.isBuilt() )
+				{
+					attributeIndex.reset( attributeCount );
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						final int name = _attributes[ ( first + i ) * ATTRIBUTE_SIZE ];
+						attributeIndex.set( i, _namespaceURIs[ name ], _localNames[ name ] );
+					}
+				}
+				result = anyNamespace ? attributeIndex.indexOf( localName ) : attributeIndex.indexOf( namespaceURI, localName );
+			}
+			else
+			{
+				for ( int i = 0; i < attributeCount; i++ )
+				{
+					final int name = _attributes[ ( first + i ) * ATTRIBUTE_SIZE ];
+					final String candidateLocalName = _localNames[ name ];
+					//noinspection StringEquality
+					if ( anyNamespace ? ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) : isName( name, namespaceURI, localName ) )
+					{
+						result = i;
+						break;
+					}
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Checks that the current event is a start element event.
+		 */
+		private void checkStartElement()
+		{
+			if ( _eventType != XMLEventType.START_ELEMENT )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		@NotNull
+		public String getText()
+		{
+			checkCharacters();
+			return new String( _chars, _starts[ _node ], _lengths[ _node ] );
+		}
+
+		@Override
+		@NotNull
+		public char[] getTextCharacters()
+		{
+			checkCharacters();
+			return _chars;
+		}
+
+		@Override
+		public int getTextStart()
+		{
+			checkCharacters();
+			return _starts[ _node ];
+		}
+
+		@Override
+		public int getTextLength()
+		{
+			checkCharacters();
+			return _lengths[ _node ];
+		}
+
+		/**
+		 * Checks that the current event is a character data event.
+		 */
+		private void checkCharacters()
+		{
+			if ( _eventType != XMLEventType.CHARACTERS )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		@NotNull
+		public String getPITarget()
+		{
+			checkProcessingInstruction();
+			return _localNames[ _names[ _node ] ];
+		}
+
+		@Override
+		@NotNull
+		public String getPIData()
+		{
+			checkProcessingInstruction();
+			return new String( _chars, _starts[ _node ], _lengths[ _node ] );
+		}
+
+		/**
+		 * Checks that the current event is a processing instruction.
+		 */
+		private void checkProcessingInstruction()
+		{
+			if ( _eventType != XMLEventType.PROCESSING_INSTRUCTION )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		public int getLineNumber()
+		{
+			return -1;
+		}
+
+		@Override
+		public int getColumnNumber()
+		{
+			return -1;
+		}
+	}
+}
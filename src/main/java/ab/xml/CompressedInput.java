@@ -0,0 +1,293 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Detects and decompresses compressed input, based on the first two bytes of
+ * the input. Both gzip (RFC 1952) and zlib (RFC 1950) data are supported. Since
+ * an XML document can't start with either signature, uncompressed documents
+ * are never mistaken for compressed data.
+ *
+ * <p>Gzip data from a file or buffer is inflated by {@link
+ * ParallelGzipInputStream}, which inflates the members of multi-member files
+ * in parallel, ahead of the reader. Other compressed input is inflated
+ * sequentially.
+ *
+ * @author G. Meinders
+ */
+final class CompressedInput
+{
+	/**
+	 * Size of the input buffer used to inflate streams.
+	 */
+	private static final int STREAM_BUFFER_SIZE = 65536;
+
+	/**
+	 * Utility class.
+	 */
+	private CompressedInput()
+	{
+	}
+
+	/**
+	 * Returns a stream that decompresses the given file, from the current
+	 * position of the channel up to the end of the file, if it's compressed.
+	 * The file is memory-mapped, so the stream does not depend on the channel.
+	 *
+	 * @param channel File channel to read from.
+	 *
+	 * @return Stream with decompressed data; {@code null} if the file is not
+	 * compressed.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@Nullable
+	static InputStream open( @NotNull final FileChannel channel )
+	throws IOException
+	{
+		final ByteBuffer signature = ByteBuffer.allocate( 2 );
+		final long position = channel.position();
+		while ( signature.hasRemaining() && ( channel.read( signature, position + signature.position() ) > 0 ) )
+		{
+			// Read until the signature is complete or the file ends.
+		}
+
+		InputStream result = null;
+		if ( !signature.hasRemaining() )
+		{
+			final int b0 = signature.get( 0 ) & 0xff;
+			final int b1 = signature.get( 1 ) & 0xff;
+			if ( isGzip( b0, b1 ) )
+			{
+				final int windowSize = MappedFileInputStream.DEFAULT_WINDOW_SIZE;
+				result = new ParallelGzipInputStream( MappedFileInputStream.map( channel, windowSize ), windowSize, ForkJoinPool.commonPool(), ParallelGzipInputStream.DEFAULT_SEGMENT_SIZE, ParallelGzipInputStream.DEFAULT_READ_AHEAD_LIMIT );
+			}
+			else if ( isZlib( b0, b1 ) )
+			{
+				result = new InflaterInputStream( new MappedFileInputStream( channel ), new Inflater(), STREAM_BUFFER_SIZE );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a stream that decompresses the remaining bytes of the given
+	 * buffer, if they are compressed. The position of the buffer is not
+	 * changed, and its contents are not copied.
+	 *
+	 * @param buffer Buffer to read from.
+	 *
+	 * @return Stream with decompressed data; {@code null} if the buffer is not
+	 * compressed.
+	 */
+	@Nullable
+	static InputStream open( @NotNull final ByteBuffer buffer )
+	{
+		InputStream result = null;
+		if ( buffer.remaining() >= 2 )
+		{
+			final int b0 = buffer.get( buffer.position() ) & 0xff;
+			final int b1 = buffer.get( buffer.position() + 1 ) & 0xff;
+			if ( isGzip( b0, b1 ) )
+			{
+				result = new ParallelGzipInputStream( new ByteBuffer[] { buffer.slice() }, Integer.MAX_VALUE, ForkJoinPool.commonPool(), ParallelGzipInputStream.DEFAULT_SEGMENT_SIZE, ParallelGzipInputStream.DEFAULT_READ_AHEAD_LIMIT );
+			}
+			else if ( isZlib( b0, b1 ) )
+			{
+				result = new InflaterInputStream( new ByteBufferInputStream( buffer.slice() ), new Inflater(), STREAM_BUFFER_SIZE );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a stream that decompresses the given stream if it's compressed,
+	 * or a stream with the same contents as the given stream otherwise. If the
+	 * stream supports {@link InputStream#mark}, it's returned as-is if it's
+	 * not compressed. Streams that already decompress their input, such as
+	 * those returned by this class, are also returned as-is.
+	 *
+	 * @param in Stream to read from.
+	 *
+	 * @return Stream with decompressed data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	static InputStream open( @NotNull final InputStream in )
+	throws IOException
+	{
+		InputStream result = in;
+		if ( !isDecompressing( in ) )
+		{
+			final InputStream source = in.markSupported() ? in : new PushbackInputStream( in, 2 );
+			if ( source == in )
+			{
+				in.mark( 2 );
+			}
+
+			final byte[] signature = new byte[ 2 ];
+			int length = 0;
+			int count = 0;
+			while ( ( length < 2 ) && ( count >= 0 ) )
+			{
+				count = source.read( signature, length, 2 - length );
+				length += Math.max( 0, count );
+			}
+
+			if ( source == in )
+			{
+				in.reset();
+			}
+			else
+			{
+				( (PushbackInputStream)source ).unread( signature, 0, length );
+			}
+
+			result = source;
+			if ( length == 2 )
+			{
+				final int b0 = signature[ 0 ] & 0xff;
+				final int b1 = signature[ 1 ] & 0xff;
+				if ( isGzip( b0, b1 ) )
+				{
+					result = new GZIPInputStream( source, STREAM_BUFFER_SIZE );
+				}
+				else if ( isZlib( b0, b1 ) )
+				{
+					result = new InflaterInputStream( source, new Inflater(), STREAM_BUFFER_SIZE );
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a stream that decompresses the given stream if it's compressed,
+	 * or a stream with the same contents as the given stream otherwise.
+	 *
+	 * @param in Stream to read from.
+	 *
+	 * @return Stream with decompressed data.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	@NotNull
+	static InputStream openStream( @NotNull final InputStream in )
+	throws XMLException
+	{
+		final InputStream result;
+		try
+		{
+			result = open( in );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given stream decompresses its input, such as the
+	 * streams returned by this class. Offsets in such a stream don't match
+	 * offsets in the underlying data.
+	 *
+	 * @param in Stream to check.
+	 *
+	 * @return {@code true} if the stream decompresses its input.
+	 */
+	static boolean isDecompressing( @Nullable final InputStream in )
+	{
+		return ( in instanceof InflaterInputStream ) || ( in instanceof ParallelGzipInputStream );
+	}
+
+	/**
+	 * Returns whether the data in the given channel, starting at position 0,
+	 * is compressed. The position of the channel is not changed.
+	 *
+	 * @param channel Channel to read from.
+	 *
+	 * @return {@code true} if the data is compressed (gzip or zlib).
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	static boolean isCompressed( @NotNull final SeekableByteChannel channel )
+	throws IOException
+	{
+		final long position = channel.position();
+		final ByteBuffer signature = ByteBuffer.allocate( 2 );
+		channel.position( 0 );
+		try
+		{
+			while ( signature.hasRemaining() && ( channel.read( signature ) > 0 ) )
+			{
+				// Read until the signature is complete or the data ends.
+			}
+		}
+		finally
+		{
+			channel.position( position );
+		}
+
+		boolean result = false;
+		if ( !signature.hasRemaining() )
+		{
+			final int b0 = signature.get( 0 ) & 0xff;
+			final int b1 = signature.get( 1 ) & 0xff;
+			result = isGzip( b0, b1 ) || isZlib( b0, b1 );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given bytes are the signature of gzip data.
+	 *
+	 * @param b0 First byte.
+	 * @param b1 Second byte.
+	 *
+	 * @return {@code true} if the bytes indicate gzip data.
+	 */
+	private static boolean isGzip( final int b0, final int b1 )
+	{
+		return ( b0 == 0x1f ) && ( b1 == 0x8b );
+	}
+
+	/**
+	 * Returns whether the given bytes are a valid zlib header, using the
+	 * deflate method without a preset dictionary.
+	 *
+	 * @param b0 First byte (CMF).
+	 * @param b1 Second byte (FLG).
+	 *
+	 * @return {@code true} if the bytes indicate zlib data.
+	 */
+	private static boolean isZlib( final int b0, final int b1 )
+	{
+		return ( ( b0 & 0x0f ) == 8 ) && ( ( b0 >> 4 ) <= 7 ) && ( ( b1 & 0x20 ) == 0 ) && ( ( ( b0 << 8 ) | b1 ) % 31 == 0 );
+	}
+}
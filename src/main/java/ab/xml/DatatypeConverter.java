@@ -18,53 +18,44 @@
  */
 package ab.xml;
 
+import java.io.*;
 import java.math.*;
+import java.time.*;
 import java.util.*;
-import javax.xml.datatype.*;
+
+import org.jetbrains.annotations.*;
 
 /**
  * Provides conversion of Java types to XML syntax. Replacement for {@code
  * javax.xml.bind.DatatypeConverter}, which is not available on all target
  * platforms.
  *
- * <p>This implementation uses the {@code javax.xml.datatype} package. On
- * Android, this requires at least API Level 8 (Android 2.2).
+ * <p>All methods are thread-safe.
  *
  * @author G. Meinders
  */
 public class DatatypeConverter
 {
 	/**
-	 * Cached {@link DatatypeFactory} instance.
+	 * Maximum number of characters written by {@link #printDouble(double,
+	 * char[], int)}.
 	 */
-	private static DatatypeFactory _datatypeFactory = null;
+	public static final int MAX_DOUBLE_LENGTH = NumberFormatter.MAX_DOUBLE_LENGTH;
 
 	/**
-	 * Returns a {@link DatatypeFactory}.
-	 *
-	 * @return {@link DatatypeFactory} instance.
+	 * Maximum number of characters written by {@link #printFloat(float,
+	 * char[], int)}.
 	 */
-	private static DatatypeFactory getDatatypeFactory()
-	{
-		DatatypeFactory result = _datatypeFactory;
-		if ( result == null )
-		{
-			try
-			{
-				result = DatatypeFactory.newInstance();
-			}
-			catch ( final DatatypeConfigurationException e )
-			{
-				throw new RuntimeException( e );
-			}
-			_datatypeFactory = result;
-		}
-		return result;
-	}
+	public static final int MAX_FLOAT_LENGTH = NumberFormatter.MAX_FLOAT_LENGTH;
 
+	/**
+	 * Buffer used to format numbers for output other than a character array.
+	 */
+	private static final ThreadLocal<char[]> NUMBER_BUFFER = ThreadLocal.withInitial( () -> new char[ MAX_DOUBLE_LENGTH ] );
 	/**
 	 * Converts the given calendar's date and time into a valid lexical value
-	 * for the XML Schema {@code dateTime} data type.
+	 * for the XML Schema {@code dateTime} data type. The value includes
+	 * milliseconds and the time zone offset of the calendar.
 	 *
 	 * @param calendar Calendar to be converted.
 	 *
@@ -72,35 +63,146 @@ public class DatatypeConverter
 	 */
 	public static String printDateTime( final Calendar calendar )
 	{
-		final GregorianCalendar gregorianCalendar;
-		if ( calendar instanceof GregorianCalendar )
-		{
-			gregorianCalendar = (GregorianCalendar)calendar;
-		}
-		else
-		{
-			gregorianCalendar = new GregorianCalendar( calendar.getTimeZone() );
-			gregorianCalendar.setTime( calendar.getTime() );
-		}
-		final DatatypeFactory datatypeFactory = getDatatypeFactory();
-		final XMLGregorianCalendar xmlGregorianCalendar = datatypeFactory.newXMLGregorianCalendar( gregorianCalendar );
-		return xmlGregorianCalendar.toXMLFormat();
+		final StringBuilder result = new StringBuilder( 29 );
+		DateTimeFormat.printDateTime( result, calendar );
+		return result.toString();
+	}
+
+	/**
+	 * Converts the given date and time into a valid lexical value for the XML
+	 * Schema {@code dateTime} data type. Fractional seconds are only included
+	 * if non-zero.
+	 *
+	 * @param dateTime Date and time to be converted.
+	 *
+	 * @return String representation of the date and time.
+	 *
+	 * @throws IllegalArgumentException if the offset includes seconds, which
+	 * can't be represented.
+	 */
+	public static String printDateTime( @NotNull final OffsetDateTime dateTime )
+	{
+		final StringBuilder result = new StringBuilder( 35 );
+		DateTimeFormat.printDateTime( result, dateTime );
+		return result.toString();
+	}
+
+	/**
+	 * Converts the given instant into a valid lexical value for the XML Schema
+	 * {@code dateTime} data type, in UTC. Fractional seconds are only included
+	 * if non-zero.
+	 *
+	 * @param instant Instant to be converted.
+	 *
+	 * @return String representation of the instant.
+	 */
+	public static String printDateTime( @NotNull final Instant instant )
+	{
+		final StringBuilder result = new StringBuilder( 30 );
+		DateTimeFormat.printDateTime( result, instant );
+		return result.toString();
+	}
+
+	/**
+	 * Converts the given date into a valid lexical value for the XML Schema
+	 * {@code date} data type.
+	 *
+	 * @param date Date to be converted.
+	 *
+	 * @return String representation of the date.
+	 */
+	public static String printDate( @NotNull final LocalDate date )
+	{
+		final StringBuilder result = new StringBuilder( 10 );
+		DateTimeFormat.printDate( result, date );
+		return result.toString();
 	}
 
 	/**
 	 * Converts the given data-time value to a calendar instance. The given
 	 * value must be a valid lexical value of the XML Schema {@code dateTime}
-	 * data type.
+	 * data type. If the value has no time zone, the default time zone is used.
 	 *
 	 * @param value Value to be parsed.
 	 *
-	 * @return String representation of the calendar's date and time.
+	 * @return Calendar with the parsed date and time.
+	 *
+	 * @throws IllegalArgumentException {@code value} is not properly formatted.
 	 */
 	public static Calendar parseDateTime( final String value )
 	{
-		final DatatypeFactory datatypeFactory = getDatatypeFactory();
-		final XMLGregorianCalendar xmlGregorianCalendar = datatypeFactory.newXMLGregorianCalendar( value );
-		return xmlGregorianCalendar.toGregorianCalendar();
+		return DateTimeFormat.parseCalendar( value, 0, value.length() );
+	}
+
+	/**
+	 * Converts the given data-time value to an {@link OffsetDateTime}. The
+	 * given value must be a valid lexical value of the XML Schema {@code
+	 * dateTime} data type. If the value has no time zone, UTC is used.
+	 *
+	 * @param value Value to be parsed.
+	 *
+	 * @return Parsed date and time.
+	 *
+	 * @throws IllegalArgumentException {@code value} is not properly formatted.
+	 */
+	@NotNull
+	public static OffsetDateTime parseOffsetDateTime( @NotNull final CharSequence value )
+	{
+		return DateTimeFormat.parseOffsetDateTime( value, 0, value.length() );
+	}
+
+	/**
+	 * Converts part of a character sequence from a data-time value to an
+	 * {@link OffsetDateTime}. The characters must be a valid lexical value of
+	 * the XML Schema {@code dateTime} data type. If the value has no time
+	 * zone, UTC is used.
+	 *
+	 * @param value Characters to be parsed.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed date and time.
+	 *
+	 * @throws IllegalArgumentException {@code value} is not properly formatted.
+	 */
+	@NotNull
+	public static OffsetDateTime parseOffsetDateTime( @NotNull final CharSequence value, final int start, final int end )
+	{
+		return DateTimeFormat.parseOffsetDateTime( value, start, end );
+	}
+
+	/**
+	 * Converts the given data-time value to an {@link Instant}. The given
+	 * value must be a valid lexical value of the XML Schema {@code dateTime}
+	 * data type. If the value has no time zone, UTC is used.
+	 *
+	 * @param value Value to be parsed.
+	 *
+	 * @return Parsed instant.
+	 *
+	 * @throws IllegalArgumentException {@code value} is not properly formatted.
+	 */
+	@NotNull
+	public static Instant parseInstant( @NotNull final CharSequence value )
+	{
+		return DateTimeFormat.parseOffsetDateTime( value, 0, value.length() ).toInstant();
+	}
+
+	/**
+	 * Converts the given date value to a {@link LocalDate}. The given value
+	 * must be a valid lexical value of the XML Schema {@code date} data type.
+	 * A time zone, if any, is ignored.
+	 *
+	 * @param value Value to be parsed.
+	 *
+	 * @return Parsed date.
+	 *
+	 * @throws IllegalArgumentException {@code value} is not properly formatted.
+	 */
+	@NotNull
+	public static LocalDate parseDate( @NotNull final CharSequence value )
+	{
+		return DateTimeFormat.parseDate( value, 0, value.length() );
 	}
 
 	/**
@@ -206,7 +308,8 @@ public class DatatypeConverter
 
 	/**
 	 * Converts the given value into a valid lexical value for the XML Schema
-	 * {@code float} data type.
+	 * {@code float} data type. The shortest decimal that uniquely
+	 * identifies the value is used.
 	 *
 	 * @param v Value to be converted.
 	 *
@@ -214,29 +317,72 @@ public class DatatypeConverter
 	 */
 	public static String printFloat( final float v )
 	{
-		final String result;
-		if ( v == Float.POSITIVE_INFINITY )
-		{
-			result = "INF";
-		}
-		else if ( v == Float.NEGATIVE_INFINITY )
-		{
-			result = "-INF";
-		}
-		else if ( Float.isNaN( v ) )
+		final char[] buffer = new char[ MAX_FLOAT_LENGTH ];
+		return new String( buffer, 0, NumberFormatter.formatFloat( v, buffer, 0 ) );
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code float} data type, writing it to a character array.
+	 *
+	 * @param v      Value to be converted.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_FLOAT_LENGTH} characters from {@code offset}.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	public static int printFloat( final float v, @NotNull final char[] buffer, final int offset )
+	{
+		return NumberFormatter.formatFloat( v, buffer, offset );
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code float} data type, writing it as ASCII to a byte array.
+	 *
+	 * @param v      Value to be converted.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_FLOAT_LENGTH} bytes from {@code offset}.
+	 * @param offset Index of the first byte to write.
+	 *
+	 * @return Index after the last byte written.
+	 */
+	public static int printFloat( final float v, @NotNull final byte[] buffer, final int offset )
+	{
+		final char[] chars = NUMBER_BUFFER.get();
+		final int length = NumberFormatter.formatFloat( v, chars, 0 );
+		for ( int i = 0; i < length; i++ )
 		{
-			result = "NaN";
+			buffer[ offset + i ] = (byte)chars[ i ];
 		}
-		else
+		return offset + length;
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code float} data type, appending it to the given output.
+	 *
+	 * @param v   Value to be converted.
+	 * @param out Output to append to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void printFloat( final float v, @NotNull final Appendable out )
+	throws IOException
+	{
+		final char[] chars = NUMBER_BUFFER.get();
+		final int length = NumberFormatter.formatFloat( v, chars, 0 );
+		for ( int i = 0; i < length; i++ )
 		{
-			result = String.valueOf( v );
+			out.append( chars[ i ] );
 		}
-		return result;
 	}
 
 	/**
 	 * Converts the given value into a valid lexical value for the XML Schema
-	 * {@code double} data type.
+	 * {@code double} data type. The shortest decimal that uniquely
+	 * identifies the value is used.
 	 *
 	 * @param v Value to be converted.
 	 *
@@ -244,24 +390,66 @@ public class DatatypeConverter
 	 */
 	public static String printDouble( final double v )
 	{
-		final String result;
-		if ( v == Double.POSITIVE_INFINITY )
-		{
-			result = "INF";
-		}
-		else if ( v == Double.NEGATIVE_INFINITY )
-		{
-			result = "-INF";
-		}
-		else if ( Double.isNaN( v ) )
+		final char[] buffer = new char[ MAX_DOUBLE_LENGTH ];
+		return new String( buffer, 0, NumberFormatter.formatDouble( v, buffer, 0 ) );
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code double} data type, writing it to a character array.
+	 *
+	 * @param v      Value to be converted.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_DOUBLE_LENGTH} characters from {@code offset}.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	public static int printDouble( final double v, @NotNull final char[] buffer, final int offset )
+	{
+		return NumberFormatter.formatDouble( v, buffer, offset );
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code double} data type, writing it as ASCII to a byte array.
+	 *
+	 * @param v      Value to be converted.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_DOUBLE_LENGTH} bytes from {@code offset}.
+	 * @param offset Index of the first byte to write.
+	 *
+	 * @return Index after the last byte written.
+	 */
+	public static int printDouble( final double v, @NotNull final byte[] buffer, final int offset )
+	{
+		final char[] chars = NUMBER_BUFFER.get();
+		final int length = NumberFormatter.formatDouble( v, chars, 0 );
+		for ( int i = 0; i < length; i++ )
 		{
-			result = "NaN";
+			buffer[ offset + i ] = (byte)chars[ i ];
 		}
-		else
+		return offset + length;
+	}
+
+	/**
+	 * Converts the given value into a valid lexical value for the XML Schema
+	 * {@code double} data type, appending it to the given output.
+	 *
+	 * @param v   Value to be converted.
+	 * @param out Output to append to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	public static void printDouble( final double v, @NotNull final Appendable out )
+	throws IOException
+	{
+		final char[] chars = NUMBER_BUFFER.get();
+		final int length = NumberFormatter.formatDouble( v, chars, 0 );
+		for ( int i = 0; i < length; i++ )
 		{
-			result = String.valueOf( v );
+			out.append( chars[ i ] );
 		}
-		return result;
 	}
 
 	/**
@@ -0,0 +1,568 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.time.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Parses and prints lexical values of the XML Schema {@code dateTime} and
+ * {@code date} data types. This class has no shared mutable state, so it can
+ * be used concurrently without synchronization.
+ *
+ * <p>Years are interpreted differently for {@link Calendar} and for {@code
+ * java.time} types. For calendars, XML Schema 1.0 is followed, as by {@link
+ * javax.xml.datatype.XMLGregorianCalendar}: there is no year zero and year
+ * -0001 is 1 BC. For {@code java.time} types, XML Schema 1.1 is followed,
+ * which matches ISO 8601: year 0000 is 1 BC.
+ *
+ * @author G. Meinders
+ */
+final class DateTimeFormat
+{
+	/**
+	 * Indicates that a parsed value has no time zone.
+	 */
+	private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+	/**
+	 * Utility class.
+	 */
+	private DateTimeFormat()
+	{
+	}
+
+	/**
+	 * Parses a {@code dateTime} value.
+	 *
+	 * @param value Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed date and time; a value without a time zone is
+	 * interpreted as UTC.
+	 *
+	 * @throws IllegalArgumentException if the value is not a valid {@code
+	 * dateTime}.
+	 */
+	@NotNull
+	static OffsetDateTime parseOffsetDateTime( @NotNull final CharSequence value, final int start, final int end )
+	{
+		final Fields fields = parse( value, start, end, true );
+		final LocalDateTime dateTime = LocalDateTime.of( fields._year, fields._month, fields._day, fields._endOfDay ? 0 : fields._hour, fields._minute, fields._second, fields._nano );
+		final ZoneOffset offset = ( fields._offsetSeconds == NO_OFFSET ) ? ZoneOffset.UTC : ZoneOffset.ofTotalSeconds( fields._offsetSeconds );
+		return OffsetDateTime.of( fields._endOfDay ? dateTime.plusDays( 1L ) : dateTime, offset );
+	}
+
+	/**
+	 * Parses a {@code date} value. A time zone, if any, is ignored.
+	 *
+	 * @param value Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed date.
+	 *
+	 * @throws IllegalArgumentException if the value is not a valid {@code
+	 * date}.
+	 */
+	@NotNull
+	static LocalDate parseDate( @NotNull final CharSequence value, final int start, final int end )
+	{
+		final Fields fields = parse( value, start, end, false );
+		return LocalDate.of( fields._year, fields._month, fields._day );
+	}
+
+	/**
+	 * Parses a {@code dateTime} value as a calendar.
+	 *
+	 * @param value Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Proleptic Gregorian calendar; a value without a time zone is
+	 * interpreted in the default time zone.
+	 *
+	 * @throws IllegalArgumentException if the value is not a valid {@code
+	 * dateTime}.
+	 */
+	@NotNull
+	static GregorianCalendar parseCalendar( @NotNull final CharSequence value, final int start, final int end )
+	{
+		final Fields fields = parse( value, start, end, true );
+		if ( fields._year == 0 )
+		{
+			throw invalid( value, start, end );
+		}
+
+		final TimeZone timeZone;
+		final int offsetSeconds = fields._offsetSeconds;
+		if ( offsetSeconds == NO_OFFSET )
+		{
+			timeZone = TimeZone.getDefault();
+		}
+		else
+		{
+			final int offsetMinutes = Math.abs( offsetSeconds ) / 60;
+			final StringBuilder id = new StringBuilder( 9 ).append( "GMT" ).append( ( offsetSeconds < 0 ) ? '-' : '+' );
+			appendPadded( id, offsetMinutes / 60, 2 );
+			id.append( ':' );
+			appendPadded( id, offsetMinutes % 60, 2 );
+			timeZone = TimeZone.getTimeZone( id.toString() );
+		}
+
+		final GregorianCalendar result = new GregorianCalendar( timeZone );
+		result.setGregorianChange( new Date( Long.MIN_VALUE ) );
+		result.clear();
+		result.set( Calendar.ERA, ( fields._year < 0 ) ? GregorianCalendar.BC : GregorianCalendar.AD );
+		result.set( Calendar.YEAR, Math.abs( fields._year ) );
+		result.set( Calendar.MONTH, fields._month - 1 );
+		result.set( Calendar.DAY_OF_MONTH, fields._day );
+		result.set( Calendar.HOUR_OF_DAY, fields._hour );
+		result.set( Calendar.MINUTE, fields._minute );
+		result.set( Calendar.SECOND, fields._second );
+		result.set( Calendar.MILLISECOND, fields._nano / 1000000 );
+		result.getTimeInMillis();
+		return result;
+	}
+
+	/**
+	 * Parses a {@code dateTime} or {@code date} value into its fields.
+	 *
+	 * @param value    Characters to parse.
+	 * @param start    Start index.
+	 * @param end      End index.
+	 * @param withTime Whether to parse a {@code dateTime}, as opposed to a
+	 *                 {@code date}.
+	 *
+	 * @return Parsed fields.
+	 *
+	 * @throws IllegalArgumentException if the value is invalid.
+	 */
+	@NotNull
+	private static Fields parse( @NotNull final CharSequence value, final int start, final int end, final boolean withTime )
+	{
+		int from = start;
+		int to = end;
+		while ( ( from < to ) && TextParser.isWhitespace( value.charAt( from ) ) )
+		{
+			from++;
+		}
+		while ( ( to > from ) && TextParser.isWhitespace( value.charAt( to - 1 ) ) )
+		{
+			to--;
+		}
+
+		final Fields result = new Fields();
+		int i = from;
+
+		final boolean negative = ( i < to ) && ( value.charAt( i ) == '-' );
+		if ( negative )
+		{
+			i++;
+		}
+		final int yearStart = i;
+		while ( ( i < to ) && ( i - yearStart < 10 ) && isDigit( value.charAt( i ) ) )
+		{
+			i++;
+		}
+		final int yearDigits = i - yearStart;
+		if ( ( yearDigits < 4 ) || ( yearDigits > 9 ) || ( ( yearDigits > 4 ) && ( value.charAt( yearStart ) == '0' ) ) )
+		{
+			throw invalid( value, start, end );
+		}
+		final int year = parseDigits( value, yearStart, i );
+		result._year = negative ? -year : year;
+
+		result._month = parseField( value, i, to, '-', 1, 12, start, end );
+		result._day = parseField( value, i + 3, to, '-', 1, 31, start, end );
+		i += 6;
+		if ( result._day > Month.of( result._month ).length( Year.isLeap( (long)result._year ) ) )
+		{
+			throw invalid( value, start, end );
+		}
+
+		if ( withTime )
+		{
+			result._hour = parseField( value, i, to, 'T', 0, 24, start, end );
+			result._minute = parseField( value, i + 3, to, ':', 0, 59, start, end );
+			result._second = parseField( value, i + 6, to, ':', 0, 59, start, end );
+			i += 9;
+
+			if ( ( i < to ) && ( value.charAt( i ) == '.' ) )
+			{
+				i++;
+				final int fractionStart = i;
+				int nano = 0;
+				while ( ( i < to ) && isDigit( value.charAt( i ) ) )
+				{
+					// Digits beyond nanoseconds are truncated.
+					if ( i - fractionStart < 9 )
+					{
+						nano = nano * 10 + ( value.charAt( i ) - '0' );
+					}
+					i++;
+				}
+				if ( i == fractionStart )
+				{
+					throw invalid( value, start, end );
+				}
+				for ( int digits = i - fractionStart; digits < 9; digits++ )
+				{
+					nano *= 10;
+				}
+				result._nano = nano;
+			}
+
+			if ( result._hour == 24 )
+			{
+				if ( ( result._minute != 0 ) || ( result._second != 0 ) || ( result._nano != 0 ) )
+				{
+					throw invalid( value, start, end );
+				}
+				result._endOfDay = true;
+			}
+		}
+
+		if ( i < to )
+		{
+			final char c = value.charAt( i );
+			if ( c == 'Z' )
+			{
+				result._offsetSeconds = 0;
+				i++;
+			}
+			else if ( ( c == '+' ) || ( c == '-' ) )
+			{
+				final int hours = parseField( value, i, to, c, 0, 14, start, end );
+				final int minutes = parseField( value, i + 3, to, ':', 0, 59, start, end );
+				if ( ( hours == 14 ) && ( minutes != 0 ) )
+				{
+					throw invalid( value, start, end );
+				}
+				final int offsetSeconds = ( hours * 60 + minutes ) * 60;
+				result._offsetSeconds = ( c == '-' ) ? -offsetSeconds : offsetSeconds;
+				i += 6;
+			}
+		}
+
+		if ( i != to )
+		{
+			throw invalid( value, start, end );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses a two-digit field that is preceded by the given separator.
+	 *
+	 * @param value     Characters to parse.
+	 * @param index     Index of the separator.
+	 * @param end       End index of the value.
+	 * @param separator Separator character.
+	 * @param minimum   Minimum value of the field.
+	 * @param maximum   Maximum value of the field.
+	 * @param start     Start index of the value, for error reporting.
+	 * @param valueEnd  End index of the value, for error reporting.
+	 *
+	 * @return Field value.
+	 *
+	 * @throws IllegalArgumentException if the field is invalid.
+	 */
+	private static int parseField( @NotNull final CharSequence value, final int index, final int end, final char separator, final int minimum, final int maximum, final int start, final int valueEnd )
+	{
+		if ( ( index + 3 > end ) || ( value.charAt( index ) != separator ) || !isDigit( value.charAt( index + 1 ) ) || !isDigit( value.charAt( index + 2 ) ) )
+		{
+			throw invalid( value, start, valueEnd );
+		}
+
+		final int result = parseDigits( value, index + 1, index + 3 );
+		if ( ( result < minimum ) || ( result > maximum ) )
+		{
+			throw invalid( value, start, valueEnd );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a sequence of ASCII digits.
+	 *
+	 * @param value Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 */
+	private static int parseDigits( @NotNull final CharSequence value, final int start, final int end )
+	{
+		int result = 0;
+		for ( int i = start; i < end; i++ )
+		{
+			result = result * 10 + ( value.charAt( i ) - '0' );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given character is an ASCII digit.
+	 *
+	 * @param c Character.
+	 *
+	 * @return {@code true} for an ASCII digit.
+	 */
+	private static boolean isDigit( final char c )
+	{
+		return ( c >= '0' ) && ( c <= '9' );
+	}
+
+	/**
+	 * Creates an exception for an invalid value.
+	 *
+	 * @param value Characters that were parsed.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private static IllegalArgumentException invalid( @NotNull final CharSequence value, final int start, final int end )
+	{
+		return new IllegalArgumentException( "Invalid date/time: " + value.subSequence( start, end ) );
+	}
+
+	/**
+	 * Prints a {@code dateTime} value. Fractional seconds are printed only if
+	 * non-zero, without trailing zeros.
+	 *
+	 * @param out      Output to append to.
+	 * @param dateTime Date and time to print.
+	 *
+	 * @throws IllegalArgumentException if the offset of the date and time
+	 * includes seconds, which can't be represented.
+	 */
+	static void printDateTime( @NotNull final StringBuilder out, @NotNull final OffsetDateTime dateTime )
+	{
+		printDate( out, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth() );
+		printTime( out, dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond() );
+
+		int nano = dateTime.getNano();
+		if ( nano != 0 )
+		{
+			int digits = 9;
+			while ( nano % 10 == 0 )
+			{
+				nano /= 10;
+				digits--;
+			}
+			out.append( '.' );
+			appendPadded( out, nano, digits );
+		}
+
+		final int offsetSeconds = dateTime.getOffset().getTotalSeconds();
+		if ( offsetSeconds % 60 != 0 )
+		{
+			throw new IllegalArgumentException( "Offset can't be represented: " + dateTime.getOffset() );
+		}
+		printOffset( out, offsetSeconds / 60 );
+	}
+
+	/**
+	 * Prints a {@code dateTime} value for the given instant, in UTC.
+	 *
+	 * @param out     Output to append to.
+	 * @param instant Instant to print.
+	 */
+	static void printDateTime( @NotNull final StringBuilder out, @NotNull final Instant instant )
+	{
+		printDateTime( out, instant.atOffset( ZoneOffset.UTC ) );
+	}
+
+	/**
+	 * Prints a {@code dateTime} value for the given calendar, which always
+	 * includes milliseconds and the time zone.
+	 *
+	 * @param out      Output to append to.
+	 * @param calendar Calendar to print.
+	 */
+	static void printDateTime( @NotNull final StringBuilder out, @NotNull final Calendar calendar )
+	{
+		final Calendar gregorianCalendar;
+		if ( calendar instanceof GregorianCalendar )
+		{
+			gregorianCalendar = calendar;
+		}
+		else
+		{
+			gregorianCalendar = new GregorianCalendar( calendar.getTimeZone() );
+			gregorianCalendar.setTime( calendar.getTime() );
+		}
+
+		final int year = gregorianCalendar.get( Calendar.YEAR );
+		printDate( out, ( gregorianCalendar.get( Calendar.ERA ) == GregorianCalendar.BC ) ? -year : year, gregorianCalendar.get( Calendar.MONTH ) + 1, gregorianCalendar.get( Calendar.DAY_OF_MONTH ) );
+		printTime( out, gregorianCalendar.get( Calendar.HOUR_OF_DAY ), gregorianCalendar.get( Calendar.MINUTE ), gregorianCalendar.get( Calendar.SECOND ) );
+		out.append( '.' );
+		appendPadded( out, gregorianCalendar.get( Calendar.MILLISECOND ), 3 );
+		printOffset( out, ( gregorianCalendar.get( Calendar.ZONE_OFFSET ) + gregorianCalendar.get( Calendar.DST_OFFSET ) ) / 60000 );
+	}
+
+	/**
+	 * Prints a {@code date} value.
+	 *
+	 * @param out  Output to append to.
+	 * @param date Date to print.
+	 */
+	static void printDate( @NotNull final StringBuilder out, @NotNull final LocalDate date )
+	{
+		printDate( out, date.getYear(), date.getMonthValue(), date.getDayOfMonth() );
+	}
+
+	/**
+	 * Prints a date.
+	 *
+	 * @param out   Output to append to.
+	 * @param year  Year.
+	 * @param month Month, from 1 to 12.
+	 * @param day   Day of the month.
+	 */
+	private static void printDate( @NotNull final StringBuilder out, final int year, final int month, final int day )
+	{
+		if ( year < 0 )
+		{
+			out.append( '-' );
+		}
+		appendPadded( out, Math.abs( year ), 4 );
+		out.append( '-' );
+		appendPadded( out, month, 2 );
+		out.append( '-' );
+		appendPadded( out, day, 2 );
+	}
+
+	/**
+	 * Prints a time, excluding fractional seconds.
+	 *
+	 * @param out    Output to append to.
+	 * @param hour   Hour.
+	 * @param minute Minute.
+	 * @param second Second.
+	 */
+	private static void printTime( @NotNull final StringBuilder out, final int hour, final int minute, final int second )
+	{
+		out.append( 'T' );
+		appendPadded( out, hour, 2 );
+		out.append( ':' );
+		appendPadded( out, minute, 2 );
+		out.append( ':' );
+		appendPadded( out, second, 2 );
+	}
+
+	/**
+	 * Prints a time zone offset.
+	 *
+	 * @param out           Output to append to.
+	 * @param offsetMinutes Offset from UTC, in minutes.
+	 */
+	private static void printOffset( @NotNull final StringBuilder out, final int offsetMinutes )
+	{
+		if ( offsetMinutes == 0 )
+		{
+			out.append( 'Z' );
+		}
+		else
+		{
+			final int absolute = Math.abs( offsetMinutes );
+			out.append( ( offsetMinutes < 0 ) ? '-' : '+' );
+			appendPadded( out, absolute / 60, 2 );
+			out.append( ':' );
+			appendPadded( out, absolute % 60, 2 );
+		}
+	}
+
+	/**
+	 * Appends a non-negative number, padded with leading zeros.
+	 *
+	 * @param out    Output to append to.
+	 * @param value  Number to append.
+	 * @param digits Minimum number of digits.
+	 */
+	private static void appendPadded( @NotNull final StringBuilder out, final int value, final int digits )
+	{
+		for ( int power = 10, i = 1; i < digits; power *= 10, i++ )
+		{
+			if ( value < power )
+			{
+				out.append( '0' );
+			}
+		}
+		out.append( value );
+	}
+
+	/**
+	 * Fields of a parsed value.
+	 */
+	private static class Fields
+	{
+		/**
+		 * Year, as written.
+		 */
+		int _year;
+
+		/**
+		 * Month, from 1 to 12.
+		 */
+		int _month;
+
+		/**
+		 * Day of the month.
+		 */
+		int _day;
+
+		/**
+		 * Hour, from 0 to 24.
+		 */
+		int _hour = 0;
+
+		/**
+		 * Minute.
+		 */
+		int _minute = 0;
+
+		/**
+		 * Second.
+		 */
+		int _second = 0;
+
+		/**
+		 * Nanosecond.
+		 */
+		int _nano = 0;
+
+		/**
+		 * Whether the time is 24:00:00, i.e. the end of the day.
+		 */
+		boolean _endOfDay = false;
+
+		/**
+		 * Offset from UTC in seconds; {@link #NO_OFFSET} if not specified.
+		 */
+		int _offsetSeconds = NO_OFFSET;
+	}
+}
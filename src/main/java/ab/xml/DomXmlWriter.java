@@ -221,6 +221,34 @@ implements XMLWriter
 		}
 	}
 
+	@Override
+	public void doubleAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final double value )
+	throws XMLException
+	{
+		attribute( namespaceURI, localName, DatatypeConverter.printDouble( value ) );
+	}
+
+	@Override
+	public void floatAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final float value )
+	throws XMLException
+	{
+		attribute( namespaceURI, localName, DatatypeConverter.printFloat( value ) );
+	}
+
+	@Override
+	public void doubleText( final double value )
+	throws XMLException
+	{
+		text( DatatypeConverter.printDouble( value ) );
+	}
+
+	@Override
+	public void floatText( final float value )
+	throws XMLException
+	{
+		text( DatatypeConverter.printFloat( value ) );
+	}
+
 	@Override
 	public void endTag( final String namespaceURI, @NotNull final String localName )
 	throws XMLException
@@ -0,0 +1,361 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Registry of factory implementations, which are discovered using {@link
+ * ServiceLoader}. Implementations are listed in a file {@code
+ * META-INF/services/<factory class name>}, in order of preference.
+ *
+ * <p>Discovery is performed lazily and only once: implementations are
+ * instantiated in order of preference, up to the first one that is needed. An
+ * implementation is available if it can be instantiated, i.e. if its
+ * constructor doesn't throw a {@link FactoryException} and the underlying API
+ * is present. New instances are created from the discovered instances using a
+ * copy function, without reflection.
+ *
+ * @param <T> Factory type.
+ *
+ * @author G. Meinders
+ */
+final class FactoryRegistry<T>
+{
+	/**
+	 * Factory type.
+	 */
+	@NotNull
+	private final Class<T> _type;
+
+	/**
+	 * Creates a new instance of the same class as a given factory.
+	 */
+	@NotNull
+	private final UnaryOperator<T> _copy;
+
+	/**
+	 * Instances of factory implementations discovered so far, in order of
+	 * preference.
+	 */
+	@NotNull
+	private final List<T> _discovered = new ArrayList<T>();
+
+	/**
+	 * Iterator used for discovery; {@code null} if discovery didn't start
+	 * yet.
+	 */
+	@Nullable
+	private Iterator<T> _iterator = null;
+
+	/**
+	 * Whether all implementations were discovered.
+	 */
+	private boolean _complete = false;
+
+	/**
+	 * Instances of available factory implementations, in order of preference;
+	 * {@code null} until discovery is complete.
+	 */
+	@Nullable
+	private volatile List<T> _factories = null;
+
+	/**
+	 * Shared instance of the preferred factory implementation; {@code null}
+	 * until discovered.
+	 */
+	@Nullable
+	private volatile T _sharedInstance = null;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param type Factory type.
+	 * @param copy Creates a new instance of the same class as a given
+	 *             factory.
+	 */
+	FactoryRegistry( @NotNull final Class<T> type, @NotNull final UnaryOperator<T> copy )
+	{
+		_type = type;
+		_copy = copy;
+	}
+
+	/**
+	 * Returns instances of all available factory implementations. These
+	 * instances are shared.
+	 *
+	 * @return Factory instances, in order of preference.
+	 *
+	 * @throws FactoryException if discovery fails.
+	 */
+	@NotNull
+	List<T> getFactories()
+	{
+		List<T> result = _factories;
+		if ( result == null )
+		{
+			synchronized ( this )
+			{
+				discover( Integer.MAX_VALUE );
+				result = _factories;
+			}
+		}
+		//noinspection ConstantConditions
+		return result;
+	}
+
+	/**
+	 * Returns the shared instance of the preferred factory implementation.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no factory is available.
+	 */
+	@NotNull
+	T getSharedInstance()
+	{
+		T result = _sharedInstance;
+		if ( result == null )
+		{
+			result = getFactory( 0 );
+			if ( result == null )
+			{
+				throw new FactoryException( "Could not find an implementation that is supported by the current platform." );
+			}
+			_sharedInstance = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a new instance of the preferred factory implementation.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no factory is available.
+	 */
+	@NotNull
+	T newInstance()
+	{
+		return copy( getSharedInstance() );
+	}
+
+	/**
+	 * Creates a new instance of the factory implementation with the given
+	 * name.
+	 *
+	 * @param name Fully qualified or simple class name of the factory.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if the factory is not available.
+	 */
+	@NotNull
+	T newInstance( @NotNull final String name )
+	{
+		return newInstance( candidate -> name.equals( candidate.getClass().getName() ) || name.equals( candidate.getClass().getSimpleName() ), "Factory not available: " + name );
+	}
+
+	/**
+	 * Creates a new instance of the most preferred factory implementation that
+	 * matches the given condition. Implementations are discovered only as far
+	 * as needed to find a match.
+	 *
+	 * @param condition Condition that the factory must match.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no matching factory is available.
+	 */
+	@NotNull
+	T newInstance( @NotNull final Predicate<? super T> condition )
+	{
+		return newInstance( condition, "Could not find an implementation with the requested capabilities." );
+	}
+
+	/**
+	 * Creates a new instance of the most preferred factory implementation that
+	 * matches the given condition.
+	 *
+	 * @param condition Condition that the factory must match.
+	 * @param message   Message of the exception thrown if no factory matches.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no matching factory is available.
+	 */
+	@NotNull
+	private T newInstance( @NotNull final Predicate<? super T> condition, @NotNull final String message )
+	{
+		T factory = null;
+		for ( int i = 0; factory == null; i++ )
+		{
+			final T candidate = getFactory( i );
+			if ( candidate == null )
+			{
+				throw new FactoryException( message );
+			}
+
+			if ( condition.test( candidate ) )
+			{
+				factory = candidate;
+			}
+		}
+		return copy( factory );
+	}
+
+	/**
+	 * Returns the shared instance of the factory implementation with the given
+	 * index in order of preference, discovering implementations as needed.
+	 *
+	 * @param index Index of the factory.
+	 *
+	 * @return Factory instance; {@code null} if there are not that many
+	 * available factories.
+	 *
+	 * @throws FactoryException if discovery fails.
+	 */
+	@Nullable
+	private T getFactory( final int index )
+	{
+		final List<T> factories = _factories;
+		T result;
+		if ( factories != null )
+		{
+			result = ( index < factories.size() ) ? factories.get( index ) : null;
+		}
+		else
+		{
+			synchronized ( this )
+			{
+				discover( index + 1 );
+				result = ( index < _discovered.size() ) ? _discovered.get( index ) : null;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Discovers available factory implementations, until the given number of
+	 * implementations is available or all implementations are discovered.
+	 * Must be called while synchronized on this registry.
+	 *
+	 * @param count Number of implementations needed.
+	 *
+	 * @throws FactoryException if a factory implementation is misconfigured.
+	 */
+	private void discover( final int count )
+	{
+		Iterator<T> iterator = _iterator;
+		if ( iterator == null )
+		{
+			iterator = ServiceLoader.load( _type, _type.getClassLoader() ).iterator();
+			_iterator = iterator;
+		}
+
+		final List<T> discovered = _discovered;
+		while ( !_complete && ( discovered.size() < count ) )
+		{
+			try
+			{
+				if ( iterator.hasNext() )
+				{
+					discovered.add( iterator.next() );
+				}
+				else
+				{
+					_complete = true;
+					_factories = Collections.unmodifiableList( new ArrayList<T>( discovered ) );
+				}
+			}
+			catch ( final ServiceConfigurationError e )
+			{
+				final Throwable cause = e.getCause();
+				if ( !( cause instanceof FactoryException ) && !( cause instanceof LinkageError ) )
+				{
+					/*
+					 * Any other problem with the factory probably indicates a
+					 * programming error.
+					 */
+					throw new FactoryException( e );
+				}
+				// Factory determined a problem or the underlying API is not available. Use another factory.
+			}
+		}
+	}
+
+	/**
+	 * Creates a new instance of the same class as the given factory, using the
+	 * copy function. If the copy function returns an instance of another
+	 * class, e.g. because a subclass doesn't override the copy method of its
+	 * superclass, reflection is used instead.
+	 *
+	 * @param factory Factory to create another instance of.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if the factory can't be created.
+	 */
+	@NotNull
+	private T copy( @NotNull final T factory )
+	{
+		T result = _copy.apply( factory );
+		if ( result.getClass() != factory.getClass() )
+		{
+			result = instantiate( factory );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a new instance of the same class as the given factory, using
+	 * its public no-argument constructor. This is only needed for factory
+	 * implementations that don't provide a copy method.
+	 *
+	 * @param factory Factory to create another instance of.
+	 * @param <F>     Factory type.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if the factory can't be created.
+	 */
+	@NotNull
+	static <F> F instantiate( @NotNull final F factory )
+	{
+		try
+		{
+			@SuppressWarnings( "unchecked" )
+			final F result = (F)factory.getClass().getConstructor().newInstance();
+			return result;
+		}
+		catch ( final InvocationTargetException e )
+		{
+			final Throwable cause = e.getCause();
+			throw ( cause instanceof FactoryException ) ? (FactoryException)cause : new FactoryException( cause );
+		}
+		catch ( final ReflectiveOperationException e )
+		{
+			throw new FactoryException( e );
+		}
+	}
+}
@@ -0,0 +1,753 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Adds support for {@link #peek()}, {@link #mark(int)} and {@link
+ * #resetToMark()} to any XML reader. Events that may have to be read again are copied into a
+ * ring buffer of reusable event records, so the underlying document is never
+ * read twice. While there is no mark and no event was peeked at, all calls
+ * are passed directly to the underlying reader.
+ *
+ * @author G. Meinders
+ */
+public class LookAheadXMLReader
+implements MarkableXMLReader
+{
+	/**
+	 * Underlying reader.
+	 */
+	@NotNull
+	private final XMLReader _reader;
+
+	/**
+	 * Recorded events, indexed by position modulo the length of the array.
+	 */
+	@NotNull
+	private Event[] _events;
+
+	/**
+	 * Position of the current event, i.e. the number of calls to {@link
+	 * #next()}.
+	 */
+	private long _position = 0;
+
+	/**
+	 * Position of the underlying reader, which is ahead of {@link #_position}
+	 * if events are read again or were peeked at.
+	 */
+	private long _readerPosition = 0;
+
+	/**
+	 * Position of the marked event; {@code -1} if there is no valid mark.
+	 */
+	private long _markPosition = -1;
+
+	/**
+	 * Number of events that may be read while the mark remains valid.
+	 */
+	private int _readLimit = 0;
+
+	/**
+	 * Index for looking up attributes of recorded events; {@code null} until
+	 * needed.
+	 */
+	@Nullable
+	private AttributeIndex _attributeIndex = null;
+
+	/**
+	 * Event for which {@link #_attributeIndex} was built.
+	 */
+	@Nullable
+	private Event _indexedEvent = null;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param reader Underlying reader.
+	 */
+	public LookAheadXMLReader( @NotNull final XMLReader reader )
+	{
+		_reader = reader;
+		_events = new Event[ 0 ];
+		ensureCapacity( 2 );
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType getEventType()
+	{
+		return isLive() ? _reader.getEventType() : current()._eventType;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType next()
+	throws XMLException
+	{
+		final XMLEventType result;
+		if ( isLive() )
+		{
+			result = _reader.next();
+			_position++;
+			_readerPosition++;
+			if ( isMarkValid() )
+			{
+				record( _readerPosition );
+			}
+		}
+		else
+		{
+			if ( current()._eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+			_position++;
+			result = current()._eventType;
+		}
+
+		if ( ( _markPosition >= 0 ) && !isMarkValid() )
+		{
+			_markPosition = -1;
+		}
+		return result;
+	}
+
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( isLive() && ( _markPosition < 0 ) )
+		{
+			_reader.skipElement();
+		}
+		else
+		{
+			if ( getEventType() != XMLEventType.START_ELEMENT )
+			{
+				throw new IllegalStateException( "Not allowed for " + getEventType() );
+			}
+
+			int depth = 0;
+			XMLEventType eventType = next();
+			while ( ( depth > 0 ) || ( eventType != XMLEventType.END_ELEMENT ) )
+			{
+				if ( eventType == XMLEventType.START_ELEMENT )
+				{
+					depth++;
+				}
+				else if ( eventType == XMLEventType.END_ELEMENT )
+				{
+					depth--;
+				}
+				eventType = next();
+			}
+		}
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType peek()
+	throws XMLException
+	{
+		final XMLEventType result;
+		if ( isLive() )
+		{
+			if ( _reader.getEventType() == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+			if ( _markPosition < 0 )
+			{
+				record( _position );
+			}
+			result = _reader.next();
+			_readerPosition++;
+			record( _readerPosition );
+		}
+		else
+		{
+			if ( current()._eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+			result = _events[ index( _position + 1 ) ]._eventType;
+		}
+		return result;
+	}
+
+	@Override
+	public void mark( final int readLimit )
+	{
+		if ( readLimit < 0 )
+		{
+			throw new IllegalArgumentException( "readLimit: " + readLimit );
+		}
+
+		// Room for the marked event, the events read after it and a peeked event.
+		ensureCapacity( readLimit + 2 );
+		if ( isLive() )
+		{
+			record( _position );
+		}
+		_markPosition = _position;
+		_readLimit = readLimit;
+	}
+
+	@Override
+	public void resetToMark()
+	{
+		if ( _markPosition < 0 )
+		{
+			throw new IllegalStateException( "No valid mark." );
+		}
+		_position = _markPosition;
+	}
+
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		_reader.reset( in, encoding );
+		_position = 0;
+		_readerPosition = 0;
+		_markPosition = -1;
+		_indexedEvent = null;
+	}
+
+	/**
+	 * Returns whether the current event is that of the underlying reader.
+	 *
+	 * @return {@code true} if calls can be passed to the underlying reader.
+	 */
+	private boolean isLive()
+	{
+		return _position == _readerPosition;
+	}
+
+	/**
+	 * Returns whether the mark is set and still valid.
+	 *
+	 * @return {@code true} if the mark is valid.
+	 */
+	private boolean isMarkValid()
+	{
+		return ( _markPosition >= 0 ) && ( _position - _markPosition <= _readLimit );
+	}
+
+	/**
+	 * Returns the record of the current event, which is not live.
+	 *
+	 * @return Current event.
+	 */
+	@NotNull
+	private Event current()
+	{
+		return _events[ index( _position ) ];
+	}
+
+	/**
+	 * Returns the index in {@link #_events} for the given position.
+	 *
+	 * @param position Event position.
+	 *
+	 * @return Index in the ring buffer.
+	 */
+	private int index( final long position )
+	{
+		return (int)( position % _events.length );
+	}
+
+	/**
+	 * Records the current event of the underlying reader.
+	 *
+	 * @param position Position of the event.
+	 */
+	private void record( final long position )
+	{
+		final Event event = _events[ index( position ) ];
+		if ( event == _indexedEvent )
+		{
+			_indexedEvent = null;
+		}
+		event.record( _reader );
+	}
+
+	/**
+	 * Ensures that the ring buffer holds at least the given number of events,
+	 * keeping the events that are currently recorded.
+	 *
+	 * @param capacity Minimum capacity.
+	 */
+	private void ensureCapacity( final int capacity )
+	{
+		final Event[] oldEvents = _events;
+		if ( oldEvents.length < capacity )
+		{
+			final Event[] events = new Event[ capacity ];
+			final long first = ( _markPosition >= 0 ) ? _markPosition : _position;
+			for ( long position = first; ( position <= _readerPosition ) && ( oldEvents.length > 0 ); position++ )
+			{
+				events[ (int)( position % capacity ) ] = oldEvents[ (int)( position % oldEvents.length ) ];
+			}
+			for ( int i = 0; i < capacity; i++ )
+			{
+				if ( events[ i ] == null )
+				{
+					events[ i ] = new Event();
+				}
+			}
+			_events = events;
+		}
+	}
+
+	@Override
+	public String getNamespaceURI()
+	{
+		final String result;
+		if ( isLive() )
+		{
+			result = _reader.getNamespaceURI();
+		}
+		else
+		{
+			final Event event = current();
+			checkElement( event );
+			result = event._namespaceURI;
+		}
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public String getLocalName()
+	{
+		final String result;
+		if ( isLive() )
+		{
+			result = _reader.getLocalName();
+		}
+		else
+		{
+			final Event event = current();
+			checkElement( event );
+			//noinspection ConstantConditions
+			result = event._localName;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that the given event is a start or end element event.
+	 *
+	 * @param event Recorded event.
+	 */
+	private static void checkElement( @NotNull final Event event )
+	{
+		final XMLEventType eventType = event._eventType;
+		if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+		     ( eventType != XMLEventType.END_ELEMENT ) )
+		{
+			throw new IllegalStateException( "Not allowed for " + eventType );
+		}
+	}
+
+	@Override
+	public int getAttributeCount()
+	{
+		return isLive() ? _reader.getAttributeCount() : startElement()._attributeCount;
+	}
+
+	@Override
+	public String getAttributeNamespaceURI( final int index )
+	{
+		return isLive() ? _reader.getAttributeNamespaceURI( index ) : startElement()._attributeNamespaceURIs[ checkIndex( index ) ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeLocalName( final int index )
+	{
+		return isLive() ? _reader.getAttributeLocalName( index ) : startElement()._attributeLocalNames[ checkIndex( index ) ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeValue( final int index )
+	{
+		return isLive() ? _reader.getAttributeValue( index ) : startElement()._attributeValues[ checkIndex( index ) ];
+	}
+
+	@Override
+	public String getAttributeValue( @NotNull final String localName )
+	{
+		final String result;
+		if ( isLive() )
+		{
+			result = _reader.getAttributeValue( localName );
+		}
+		else
+		{
+			final int index = indexOfAttribute( true, null, localName );
+			result = ( index < 0 ) ? null : current()._attributeValues[ index ];
+		}
+		return result;
+	}
+
+	@Override
+	public String getAttributeValue( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		final String result;
+		if ( isLive() )
+		{
+			result = _reader.getAttributeValue( namespaceURI, localName );
+		}
+		else
+		{
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			result = ( index < 0 ) ? null : current()._attributeValues[ index ];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the current recorded event, which must be a start element.
+	 *
+	 * @return Current event.
+	 */
+	@NotNull
+	private Event startElement()
+	{
+		final Event result = current();
+		if ( result._eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + result._eventType );
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the given attribute index for the current recorded event.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @return Attribute index.
+	 */
+	private int checkIndex( final int index )
+	{
+		final int attributeCount = current()._attributeCount;
+		if ( ( index < 0 ) || ( index >= attributeCount ) )
+		{
+			throw new IndexOutOfBoundsException( index + " (attributeCount: " + attributeCount + ')' );
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of the specified attribute of the current recorded
+	 * event, which must be a start element.
+	 *
+	 * @param anyNamespace Whether to match attributes in any namespace.
+	 * @param namespaceURI Namespace URI; {@code null} for an attribute
+	 *                     with no prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 */
+	private int indexOfAttribute( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		final Event event = startElement();
+		final int attributeCount = event._attributeCount;
+		int result = -1;
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			AttributeIndex attributeIndex = _attributeIndex;
+			if ( attributeIndex == null )
+			{
+				attributeIndex = new AttributeIndex();
+				_attributeIndex = attributeIndex;
+			}
+			if ( _indexedEvent != event )
+			{
+				attributeIndex.reset( attributeCount );
+				for ( int i = 0; i < attributeCount; i++ )
+				{
+					attributeIndex.set( i, event._attributeNamespaceURIs[ i ], event._attributeLocalNames[ i ] );
+				}
+				_indexedEvent = event;
+			}
+			result = anyNamespace ? attributeIndex.indexOf( localName ) : attributeIndex.indexOf( namespaceURI, localName );
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				final String candidateLocalName = event._attributeLocalNames[ i ];
+				final String candidateNamespaceURI = event._attributeNamespaceURIs[ i ];
+				//noinspection StringEquality
+				if ( ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+				     ( anyNamespace || AttributeIndex.isSameNamespace( namespaceURI, candidateNamespaceURI ) ) )
+				{
+					result = i;
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public String getText()
+	{
+		return isLive() ? _reader.getText() : new String( characters()._text, 0, current()._textLength );
+	}
+
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		return isLive() ? _reader.getTextCharacters() : characters()._text;
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		int result = 0;
+		if ( isLive() )
+		{
+			result = _reader.getTextStart();
+		}
+		else
+		{
+			characters();
+		}
+		return result;
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		return isLive() ? _reader.getTextLength() : characters()._textLength;
+	}
+
+	/**
+	 * Returns the current recorded event, which must be character data.
+	 *
+	 * @return Current event.
+	 */
+	@NotNull
+	private Event characters()
+	{
+		final Event result = current();
+		if ( result._eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + result._eventType );
+		}
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public String getPITarget()
+	{
+		return isLive() ? _reader.getPITarget() : processingInstruction()._piTarget;
+	}
+
+	@Override
+	@NotNull
+	public String getPIData()
+	{
+		return isLive() ? _reader.getPIData() : processingInstruction()._piData;
+	}
+
+	/**
+	 * Returns the current recorded event, which must be a processing
+	 * instruction.
+	 *
+	 * @return Current event.
+	 */
+	@NotNull
+	private Event processingInstruction()
+	{
+		final Event result = current();
+		if ( result._eventType != XMLEventType.PROCESSING_INSTRUCTION )
+		{
+			throw new IllegalStateException( "Not allowed for " + result._eventType );
+		}
+		return result;
+	}
+
+	@Override
+	public int getLineNumber()
+	{
+		return isLive() ? _reader.getLineNumber() : current()._lineNumber;
+	}
+
+	@Override
+	public int getColumnNumber()
+	{
+		return isLive() ? _reader.getColumnNumber() : current()._columnNumber;
+	}
+
+	/**
+	 * Recorded event. Records are reused, including their arrays.
+	 */
+	private static class Event
+	{
+		/**
+		 * Event type.
+		 */
+		@NotNull
+		private XMLEventType _eventType = XMLEventType.START_DOCUMENT;
+
+		/**
+		 * Namespace URI of the element.
+		 */
+		@Nullable
+		private String _namespaceURI = null;
+
+		/**
+		 * Local name of the element.
+		 */
+		@Nullable
+		private String _localName = null;
+
+		/**
+		 * Number of attributes.
+		 */
+		private int _attributeCount = 0;
+
+		/**
+		 * Namespace URIs of attributes.
+		 */
+		@NotNull
+		private String[] _attributeNamespaceURIs = new String[ 0 ];
+
+		/**
+		 * Local names of attributes.
+		 */
+		@NotNull
+		private String[] _attributeLocalNames = new String[ 0 ];
+
+		/**
+		 * Values of attributes.
+		 */
+		@NotNull
+		private String[] _attributeValues = new String[ 0 ];
+
+		/**
+		 * Character data.
+		 */
+		@NotNull
+		private char[] _text = new char[ 0 ];
+
+		/**
+		 * Length of the character data.
+		 */
+		private int _textLength = 0;
+
+		/**
+		 * Target of the processing instruction.
+		 */
+		@Nullable
+		private String _piTarget = null;
+
+		/**
+		 * Data of the processing instruction.
+		 */
+		@Nullable
+		private String _piData = null;
+
+		/**
+		 * Line number.
+		 */
+		private int _lineNumber = -1;
+
+		/**
+		 * Column number.
+		 */
+		private int _columnNumber = -1;
+
+		/**
+		 * Records the current event of the given reader.
+		 *
+		 * @param reader XML reader.
+		 */
+		void record( @NotNull final XMLReader reader )
+		{
+			final XMLEventType eventType = reader.getEventType();
+			_eventType = eventType;
+			_lineNumber = reader.getLineNumber();
+			_columnNumber = reader.getColumnNumber();
+
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+				{
+					_namespaceURI = reader.getNamespaceURI();
+					_localName = reader.getLocalName();
+					final int attributeCount = reader.getAttributeCount();
+					if ( attributeCount > _attributeValues.length )
+					{
+						_attributeNamespaceURIs = new String[ attributeCount ];
+						_attributeLocalNames = new String[ attributeCount ];
+						_attributeValues = new String[ attributeCount ];
+					}
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						_attributeNamespaceURIs[ i ] = reader.getAttributeNamespaceURI( i );
+						_attributeLocalNames[ i ] = reader.getAttributeLocalName( i );
+						_attributeValues[ i ] = reader.getAttributeValue( i );
+					}
+					Arrays.fill( _attributeValues, attributeCount, _attributeCount > attributeCount ? _attributeCount : attributeCount, null );
+					_attributeCount = attributeCount;
+					break;
+				}
+
+				case END_ELEMENT:
+					_namespaceURI = reader.getNamespaceURI();
+					_localName = reader.getLocalName();
+					break;
+
+				case CHARACTERS:
+				{
+					final int length = reader.getTextLength();
+					if ( length > _text.length )
+					{
+						_text = new char[ Math.max( length, _text.length * 2 ) ];
+					}
+					System.arraycopy( reader.getTextCharacters(), reader.getTextStart(), _text, 0, length );
+					_textLength = length;
+					break;
+				}
+
+				case PROCESSING_INSTRUCTION:
+					_piTarget = reader.getPITarget();
+					_piData = reader.getPIData();
+					break;
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Input stream that reads the contents of a file through memory-mapped
+ * buffers. Since a single mapping is limited to 2 GB, larger files are mapped
+ * as a sequence of windows.
+ *
+ * <p>All windows are mapped when the stream is created. Mappings remain valid
+ * after the file channel is closed, so the stream doesn't need to be closed
+ * to release the file.
+ *
+ * @author G. Meinders
+ */
+class MappedFileInputStream
+extends ByteBufferInputStream
+{
+	/**
+	 * Default size of a mapped window.
+	 */
+	static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+
+	/**
+	 * Constructs a new instance that reads from the current position of the
+	 * given channel up to the end of the file. The position of the channel is
+	 * not changed.
+	 *
+	 * @param channel File channel to read from.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	MappedFileInputStream( @NotNull final FileChannel channel )
+	throws IOException
+	{
+		this( channel, DEFAULT_WINDOW_SIZE );
+	}
+
+	/**
+	 * Constructs a new instance that reads from the current position of the
+	 * given channel up to the end of the file. The position of the channel is
+	 * not changed.
+	 *
+	 * @param channel    File channel to read from.
+	 * @param windowSize Maximum size of a mapped window.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	MappedFileInputStream( @NotNull final FileChannel channel, final int windowSize )
+	throws IOException
+	{
+		super( map( channel, windowSize ) );
+	}
+
+	/**
+	 * Maps the given file from the current position of the channel up to the
+	 * end of the file.
+	 *
+	 * @param channel    File channel to map.
+	 * @param windowSize Maximum size of a mapped window.
+	 *
+	 * @return Mapped windows, in order.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	static ByteBuffer[] map( @NotNull final FileChannel channel, final int windowSize )
+	throws IOException
+	{
+		final long start = channel.position();
+		final long size = Math.max( 0L, channel.size() - start );
+		final int windowCount = (int)( ( size + windowSize - 1 ) / windowSize );
+
+		final ByteBuffer[] result = new ByteBuffer[ windowCount ];
+		for ( int i = 0; i < windowCount; i++ )
+		{
+			final long offset = (long)i * windowSize;
+			result[ i ] = channel.map( FileChannel.MapMode.READ_ONLY, start + offset, Math.min( (long)windowSize, size - offset ) );
+		}
+		return result;
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * XML reader that supports look-ahead, i.e. peeking at the next event and
+ * reading events again after returning to a mark. Readers that parse a stream
+ * don't support look-ahead by themselves; wrap them in a {@link
+ * LookAheadXMLReader} instead.
+ *
+ * @author G. Meinders
+ */
+public interface MarkableXMLReader
+extends XMLReader
+{
+	/**
+	 * Returns the event type of the next event, without proceeding to it.
+	 *
+	 * @return Event type of the next event.
+	 *
+	 * @throws XMLException if a parse error occurs.
+	 * @throws IllegalStateException if the current event is {@link
+	 * XMLEventType#END_DOCUMENT}.
+	 */
+	@NotNull
+	XMLEventType peek()
+	throws XMLException;
+
+	/**
+	 * Marks the current event, such that {@link #resetToMark()} returns to
+	 * it. The mark remains valid until more than {@code readLimit} calls to
+	 * {@link #next()} are made, or until a new mark is set. Skipping an
+	 * element counts as reading all of its events.
+	 *
+	 * @param readLimit Number of events that may be read while the mark
+	 *                  remains valid.
+	 */
+	void mark( int readLimit );
+
+	/**
+	 * Returns to the event that was marked by {@link #mark(int)}. The mark
+	 * remains valid, so the same events can be read again.
+	 *
+	 * @throws IllegalStateException if there is no valid mark.
+	 */
+	void resetToMark();
+}
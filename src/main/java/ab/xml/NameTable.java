@@ -0,0 +1,397 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.nio.charset.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Symbol table that maps names to canonical string instances. The canonical
+ * instance of a name is the same as returned by {@link String#intern()}, so
+ * canonical names can be compared to string literals using {@code ==}.
+ *
+ * <p>Names read as bytes are also assigned a symbol, i.e. a small integer that
+ * identifies the qualified name, which provides access to the canonical
+ * prefix and local name without creating new strings.
+ *
+ * <p>This class is not thread-safe; each reader should use its own instance.
+ *
+ * @author G. Meinders
+ */
+final class NameTable
+{
+	/**
+	 * Maximum number of names or symbols retained by {@link #trim()}.
+	 */
+	static final int MAXIMUM_SIZE = 4096;
+
+	/**
+	 * Canonical names, indexed by hash code of the name.
+	 */
+	@NotNull
+	private String[] _names;
+
+	/**
+	 * Number of names in {@link #_names}.
+	 */
+	private int _nameCount;
+
+	/**
+	 * Symbols, indexed by hash code of the encoded name; {@code -1} for empty
+	 * slots.
+	 */
+	@NotNull
+	private int[] _symbolTable;
+
+	/**
+	 * Encoded names of symbols.
+	 */
+	@NotNull
+	private byte[][] _symbolBytes;
+
+	/**
+	 * Hash codes of the encoded names of symbols.
+	 */
+	@NotNull
+	private int[] _symbolHashes;
+
+	/**
+	 * Canonical qualified names of symbols.
+	 */
+	@NotNull
+	private String[] _symbolQNames;
+
+	/**
+	 * Canonical prefixes of symbols; empty string if the name has no prefix.
+	 */
+	@NotNull
+	private String[] _symbolPrefixes;
+
+	/**
+	 * Canonical local names of symbols.
+	 */
+	@NotNull
+	private String[] _symbolLocalNames;
+
+	/**
+	 * Number of symbols.
+	 */
+	private int _symbolCount;
+
+	/**
+	 * Character set used to decode the names of symbols; {@code null} if
+	 * there are no symbols.
+	 */
+	@Nullable
+	private Charset _symbolCharset;
+
+	/**
+	 * Constructs a new instance.
+	 */
+	NameTable()
+	{
+		clearNames();
+		clearSymbols();
+	}
+
+	/**
+	 * Removes all names and symbols if the table grew beyond {@link
+	 * #MAXIMUM_SIZE}, such that a reader that is reused for many documents
+	 * doesn't retain every name it has ever seen. Must only be called when no
+	 * symbols are in use, e.g. when a reader is reset.
+	 */
+	void trim()
+	{
+		if ( ( _nameCount > MAXIMUM_SIZE ) || ( _symbolCount > MAXIMUM_SIZE ) )
+		{
+			clearNames();
+			clearSymbols();
+		}
+	}
+
+	/**
+	 * Removes all canonical names.
+	 */
+	private void clearNames()
+	{
+		_names = new String[ 64 ];
+		_nameCount = 0;
+	}
+
+	/**
+	 * Removes all symbols.
+	 */
+	private void clearSymbols()
+	{
+		_symbolTable = new int[ 64 ];
+		Arrays.fill( _symbolTable, -1 );
+		_symbolBytes = new byte[ 32 ][];
+		_symbolHashes = new int[ 32 ];
+		_symbolQNames = new String[ 32 ];
+		_symbolPrefixes = new String[ 32 ];
+		_symbolLocalNames = new String[ 32 ];
+		_symbolCount = 0;
+		_symbolCharset = null;
+	}
+
+	/**
+	 * Returns the canonical instance of the given name.
+	 *
+	 * @param name Name.
+	 *
+	 * @return Canonical name.
+	 */
+	@Contract( "null -> null; !null -> !null" )
+	String getName( @Nullable final String name )
+	{
+		String result = null;
+		if ( name != null )
+		{
+			final String[] names = _names;
+			final int mask = names.length - 1;
+			int index = mix( name.hashCode() ) & mask;
+			while ( true )
+			{
+				final String candidate = names[ index ];
+				if ( candidate == null )
+				{
+					result = name.intern();
+					addName( index, result );
+					break;
+				}
+				else if ( ( candidate == name ) || candidate.equals( name ) )
+				{
+					result = candidate;
+					break;
+				}
+				index = ( index + 1 ) & mask;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a canonical name to the table.
+	 *
+	 * @param index Free slot in {@link #_names} for the name.
+	 * @param name  Canonical name.
+	 */
+	private void addName( final int index, @NotNull final String name )
+	{
+		_names[ index ] = name;
+		if ( ++_nameCount * 2 > _names.length )
+		{
+			final String[] oldNames = _names;
+			final String[] names = new String[ oldNames.length * 2 ];
+			final int mask = names.length - 1;
+			for ( final String oldName : oldNames )
+			{
+				if ( oldName != null )
+				{
+					int i = mix( oldName.hashCode() ) & mask;
+					while ( names[ i ] != null )
+					{
+						i = ( i + 1 ) & mask;
+					}
+					names[ i ] = oldName;
+				}
+			}
+			_names = names;
+		}
+	}
+
+	/**
+	 * Returns the symbol for the given encoded qualified name. Symbols are
+	 * specific to a character set; if the character set differs from that of
+	 * previous calls, existing symbols are removed.
+	 *
+	 * @param bytes   Buffer containing the encoded name.
+	 * @param start   Start index of the name.
+	 * @param length  Length of the name, in bytes.
+	 * @param charset Character set used to encode the name.
+	 *
+	 * @return Symbol.
+	 */
+	int getSymbol( @NotNull final byte[] bytes, final int start, final int length, @NotNull final Charset charset )
+	{
+		if ( charset != _symbolCharset )
+		{
+			if ( _symbolCount > 0 )
+			{
+				clearSymbols();
+			}
+			_symbolCharset = charset;
+		}
+
+		int hash = length;
+		for ( int i = start, end = start + length; i < end; i++ )
+		{
+			hash = 31 * hash + bytes[ i ];
+		}
+
+		final int[] table = _symbolTable;
+		final int mask = table.length - 1;
+		int index = mix( hash ) & mask;
+		int result;
+		while ( true )
+		{
+			result = table[ index ];
+			if ( result < 0 )
+			{
+				result = addSymbol( index, Arrays.copyOfRange( bytes, start, start + length ), hash, charset );
+				break;
+			}
+			else if ( ( _symbolHashes[ result ] == hash ) && equals( _symbolBytes[ result ], bytes, start, length ) )
+			{
+				break;
+			}
+			index = ( index + 1 ) & mask;
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a symbol to the table.
+	 *
+	 * @param index   Free slot in {@link #_symbolTable} for the symbol.
+	 * @param bytes   Encoded name.
+	 * @param hash    Hash code of the encoded name.
+	 * @param charset Character set used to encode the name.
+	 *
+	 * @return Added symbol.
+	 */
+	private int addSymbol( final int index, @NotNull final byte[] bytes, final int hash, @NotNull final Charset charset )
+	{
+		final int result = _symbolCount;
+		if ( result == _symbolBytes.length )
+		{
+			final int capacity = result * 2;
+			_symbolBytes = Arrays.copyOf( _symbolBytes, capacity );
+			_symbolHashes = Arrays.copyOf( _symbolHashes, capacity );
+			_symbolQNames = Arrays.copyOf( _symbolQNames, capacity );
+			_symbolPrefixes = Arrays.copyOf( _symbolPrefixes, capacity );
+			_symbolLocalNames = Arrays.copyOf( _symbolLocalNames, capacity );
+		}
+
+		final String qName = getName( new String( bytes, charset ) );
+		final int colon = qName.indexOf( ':' );
+
+		_symbolBytes[ result ] = bytes;
+		_symbolHashes[ result ] = hash;
+		_symbolQNames[ result ] = qName;
+		_symbolPrefixes[ result ] = ( colon < 0 ) ? "" : getName( qName.substring( 0, colon ) );
+		_symbolLocalNames[ result ] = ( colon < 0 ) ? qName : getName( qName.substring( colon + 1 ) );
+		_symbolCount = result + 1;
+
+		_symbolTable[ index ] = result;
+		if ( _symbolCount * 2 > _symbolTable.length )
+		{
+			final int[] table = new int[ _symbolTable.length * 2 ];
+			Arrays.fill( table, -1 );
+			final int mask = table.length - 1;
+			for ( int symbol = 0; symbol < _symbolCount; symbol++ )
+			{
+				int i = mix( _symbolHashes[ symbol ] ) & mask;
+				while ( table[ i ] >= 0 )
+				{
+					i = ( i + 1 ) & mask;
+				}
+				table[ i ] = symbol;
+			}
+			_symbolTable = table;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the canonical qualified name of the given symbol.
+	 *
+	 * @param symbol Symbol.
+	 *
+	 * @return Qualified name.
+	 */
+	@NotNull
+	String getQName( final int symbol )
+	{
+		return _symbolQNames[ symbol ];
+	}
+
+	/**
+	 * Returns the canonical prefix of the given symbol.
+	 *
+	 * @param symbol Symbol.
+	 *
+	 * @return Prefix; empty string if the name has no prefix.
+	 */
+	@NotNull
+	String getPrefix( final int symbol )
+	{
+		return _symbolPrefixes[ symbol ];
+	}
+
+	/**
+	 * Returns the canonical local name of the given symbol.
+	 *
+	 * @param symbol Symbol.
+	 *
+	 * @return Local name.
+	 */
+	@NotNull
+	String getLocalName( final int symbol )
+	{
+		return _symbolLocalNames[ symbol ];
+	}
+
+	/**
+	 * Returns whether the given byte ranges are equal.
+	 *
+	 * @param expected Expected bytes.
+	 * @param bytes    Buffer containing bytes to compare.
+	 * @param start    Start index in {@code bytes}.
+	 * @param length   Number of bytes to compare.
+	 *
+	 * @return {@code true} if the byte ranges are equal.
+	 */
+	private static boolean equals( @NotNull final byte[] expected, @NotNull final byte[] bytes, final int start, final int length )
+	{
+		boolean result = ( expected.length == length );
+		for ( int i = 0; result && ( i < length ); i++ )
+		{
+			result = ( expected[ i ] == bytes[ start + i ] );
+		}
+		return result;
+	}
+
+	/**
+	 * Spreads the bits of a hash code, such that the lower bits can be used
+	 * as a table index.
+	 *
+	 * @param hash Hash code.
+	 *
+	 * @return Mixed hash code.
+	 */
+	private static int mix( final int hash )
+	{
+		final int h = hash * 0x9e3779b9;
+		return h ^ ( h >>> 16 );
+	}
+}
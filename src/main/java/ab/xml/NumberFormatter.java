@@ -0,0 +1,692 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.math.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Formats floating point numbers as lexical values of the XML Schema {@code
+ * double} and {@code float} data types, directly into a character array.
+ *
+ * <p>The shortest decimal that rounds to the original value is selected using
+ * the Schubfach algorithm by Raffaello Giulietti, which is also used by {@link
+ * Double#toString(double)} since Java 19. The layout matches that of {@link
+ * Double#toString(double)}: plain notation for values from 10<sup>-3</sup> up
+ * to 10<sup>7</sup>, computerized scientific notation otherwise. Infinity and
+ * NaN are written as {@code INF}, {@code -INF} and {@code NaN}.
+ *
+ * @author G. Meinders
+ */
+final class NumberFormatter
+{
+	/**
+	 * Maximum number of characters written for a double.
+	 */
+	static final int MAX_DOUBLE_LENGTH = 24;
+
+	/**
+	 * Maximum number of characters written for a float.
+	 */
+	static final int MAX_FLOAT_LENGTH = 15;
+
+	/**
+	 * Precision of a double, in bits.
+	 */
+	private static final int DOUBLE_PRECISION = 53;
+
+	/**
+	 * Minimum binary exponent of a double.
+	 */
+	private static final int DOUBLE_Q_MIN = -1074;
+
+	/**
+	 * Significands of subnormal doubles below this value need an extra
+	 * decimal digit.
+	 */
+	private static final long DOUBLE_C_TINY = 3;
+
+	/**
+	 * Smallest significand of a normal double.
+	 */
+	private static final long DOUBLE_C_MIN = 1L << ( DOUBLE_PRECISION - 1 );
+
+	/**
+	 * Mask for the biased exponent of a double.
+	 */
+	private static final int DOUBLE_EXPONENT_MASK = ( 1 << 11 ) - 1;
+
+	/**
+	 * Mask for the trailing significand bits of a double.
+	 */
+	private static final long DOUBLE_SIGNIFICAND_MASK = ( 1L << ( DOUBLE_PRECISION - 1 ) ) - 1;
+
+	/**
+	 * Precision of a float, in bits.
+	 */
+	private static final int FLOAT_PRECISION = 24;
+
+	/**
+	 * Minimum binary exponent of a float.
+	 */
+	private static final int FLOAT_Q_MIN = -149;
+
+	/**
+	 * Significands of subnormal floats below this value need an extra decimal
+	 * digit.
+	 */
+	private static final int FLOAT_C_TINY = 8;
+
+	/**
+	 * Smallest significand of a normal float.
+	 */
+	private static final int FLOAT_C_MIN = 1 << ( FLOAT_PRECISION - 1 );
+
+	/**
+	 * Mask for the biased exponent of a float.
+	 */
+	private static final int FLOAT_EXPONENT_MASK = ( 1 << 8 ) - 1;
+
+	/**
+	 * Mask for the trailing significand bits of a float.
+	 */
+	private static final int FLOAT_SIGNIFICAND_MASK = ( 1 << ( FLOAT_PRECISION - 1 ) ) - 1;
+
+	/**
+	 * Minimum decimal exponent in {@link #G}.
+	 */
+	private static final int K_MIN = -324;
+
+	/**
+	 * Maximum decimal exponent in {@link #G}.
+	 */
+	private static final int K_MAX = 292;
+
+	/**
+	 * Mask for the lower 63 bits of a long.
+	 */
+	private static final long MASK_63 = ( 1L << 63 ) - 1;
+
+	/**
+	 * Mask for the lower 32 bits of a long.
+	 */
+	private static final long MASK_32 = ( 1L << 32 ) - 1;
+
+	/**
+	 * Approximations of powers of ten, as pairs of 63-bit values. For each
+	 * {@code k}, let 10<sup>-k</sup> = &beta; 2<sup>r</sup> with
+	 * 2<sup>125</sup> &le; &beta; &lt; 2<sup>126</sup>, and g = &lfloor;&beta;&rfloor;
+	 * + 1. Then {@code G[ 2 * ( k - K_MIN ) ]} holds the upper 63 bits of g
+	 * and the next element the lower 63 bits.
+	 */
+	private static final long[] G = createPowersOfTen();
+
+	/**
+	 * Utility class.
+	 */
+	private NumberFormatter()
+	{
+	}
+
+	/**
+	 * Creates the table of approximated powers of ten.
+	 *
+	 * @return Table of powers of ten.
+	 *
+	 * @see #G
+	 */
+	@NotNull
+	private static long[] createPowersOfTen()
+	{
+		final long[] result = new long[ 2 * ( K_MAX - K_MIN + 1 ) ];
+		for ( int k = K_MIN; k <= K_MAX; k++ )
+		{
+			final int r = flog2pow10( -k ) - 125;
+			final BigInteger beta;
+			if ( k <= 0 )
+			{
+				final BigInteger power = BigInteger.TEN.pow( -k );
+				beta = ( r >= 0 ) ? power.shiftRight( r ) : power.shiftLeft( -r );
+			}
+			else
+			{
+				beta = BigInteger.ONE.shiftLeft( -r ).divide( BigInteger.TEN.pow( k ) );
+			}
+			final BigInteger g = beta.add( BigInteger.ONE );
+			result[ 2 * ( k - K_MIN ) ] = g.shiftRight( 63 ).longValue();
+			result[ 2 * ( k - K_MIN ) + 1 ] = g.longValue() & MASK_63;
+		}
+		return result;
+	}
+
+	/**
+	 * Formats a double.
+	 *
+	 * @param value  Value to format.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_DOUBLE_LENGTH} characters from {@code offset}.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	static int formatDouble( final double value, @NotNull final char[] buffer, final int offset )
+	{
+		final long bits = Double.doubleToRawLongBits( value );
+		final long t = bits & DOUBLE_SIGNIFICAND_MASK;
+		final int bq = (int)( bits >>> ( DOUBLE_PRECISION - 1 ) ) & DOUBLE_EXPONENT_MASK;
+
+		int result = offset;
+		if ( bq < DOUBLE_EXPONENT_MASK )
+		{
+			if ( bits < 0 )
+			{
+				buffer[ result++ ] = '-';
+			}
+
+			if ( bq != 0 )
+			{
+				// Normal value.
+				final int mq = -DOUBLE_Q_MIN + 1 - bq;
+				final long c = DOUBLE_C_MIN | t;
+				final long f = ( ( mq > 0 ) && ( mq < DOUBLE_PRECISION ) ) ? c >> mq : 0;
+				if ( ( f != 0 ) && ( f << mq == c ) )
+				{
+					// Integer value, which is exactly representable.
+					result = format( f, 0, buffer, result );
+				}
+				else
+				{
+					result = formatDouble( -mq, c, 0, buffer, result );
+				}
+			}
+			else if ( t != 0 )
+			{
+				// Subnormal value.
+				result = ( t < DOUBLE_C_TINY ) ? formatDouble( DOUBLE_Q_MIN, 10 * t, -1, buffer, result ) : formatDouble( DOUBLE_Q_MIN, t, 0, buffer, result );
+			}
+			else
+			{
+				buffer[ result++ ] = '0';
+				buffer[ result++ ] = '.';
+				buffer[ result++ ] = '0';
+			}
+		}
+		else
+		{
+			result = formatSpecial( t == 0, bits < 0, buffer, result );
+		}
+		return result;
+	}
+
+	/**
+	 * Formats a finite, non-zero double c&middot;2<sup>q</sup>.
+	 *
+	 * @param q      Binary exponent.
+	 * @param c      Significand.
+	 * @param dk     Correction of the decimal exponent.
+	 * @param buffer Buffer to write to.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	private static int formatDouble( final int q, final long c, final int dk, @NotNull final char[] buffer, final int offset )
+	{
+		final int out = (int)c & 1;
+		final long cb = c << 2;
+		final long cbr = cb + 2;
+		final long cbl;
+		final int k;
+		if ( ( c != DOUBLE_C_MIN ) || ( q == DOUBLE_Q_MIN ) )
+		{
+			cbl = cb - 2;
+			k = flog10pow2( q );
+		}
+		else
+		{
+			// The gap below a power of two is half the gap above.
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2( q );
+		}
+		final int h = q + flog2pow10( -k ) + 2;
+
+		final long g1 = G[ 2 * ( k - K_MIN ) ];
+		final long g0 = G[ 2 * ( k - K_MIN ) + 1 ];
+
+		final long vb = roundToOdd( g1, g0, cb << h );
+		final long vbl = roundToOdd( g1, g0, cbl << h );
+		final long vbr = roundToOdd( g1, g0, cbr << h );
+
+		final long s = vb >> 2;
+
+		int result = -1;
+		if ( s >= 100 )
+		{
+			// Try a decimal with one digit less first.
+			final long sp10 = 10 * multiplyHigh( s, 115292150460684698L << 4 );
+			final long tp10 = sp10 + 10;
+			final boolean upin = vbl + out <= sp10 << 2;
+			final boolean wpin = ( tp10 << 2 ) + out <= vbr;
+			if ( upin != wpin )
+			{
+				result = format( upin ? sp10 : tp10, k, buffer, offset );
+			}
+		}
+
+		if ( result < 0 )
+		{
+			final long t = s + 1;
+			final boolean uin = vbl + out <= s << 2;
+			final boolean win = ( t << 2 ) + out <= vbr;
+			if ( uin != win )
+			{
+				result = format( uin ? s : t, k + dk, buffer, offset );
+			}
+			else
+			{
+				// Both are in the rounding interval; pick the closest.
+				final long cmp = vb - ( ( s + t ) << 1 );
+				result = format( ( ( cmp < 0 ) || ( ( cmp == 0 ) && ( ( s & 1 ) == 0 ) ) ) ? s : t, k + dk, buffer, offset );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Formats a float.
+	 *
+	 * @param value  Value to format.
+	 * @param buffer Buffer to write to; must have room for {@link
+	 *               #MAX_FLOAT_LENGTH} characters from {@code offset}.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	static int formatFloat( final float value, @NotNull final char[] buffer, final int offset )
+	{
+		final int bits = Float.floatToRawIntBits( value );
+		final int t = bits & FLOAT_SIGNIFICAND_MASK;
+		final int bq = ( bits >>> ( FLOAT_PRECISION - 1 ) ) & FLOAT_EXPONENT_MASK;
+
+		int result = offset;
+		if ( bq < FLOAT_EXPONENT_MASK )
+		{
+			if ( bits < 0 )
+			{
+				buffer[ result++ ] = '-';
+			}
+
+			if ( bq != 0 )
+			{
+				// Normal value.
+				final int mq = -FLOAT_Q_MIN + 1 - bq;
+				final int c = FLOAT_C_MIN | t;
+				final int f = ( ( mq > 0 ) && ( mq < FLOAT_PRECISION ) ) ? c >> mq : 0;
+				if ( ( f != 0 ) && ( f << mq == c ) )
+				{
+					// Integer value, which is exactly representable.
+					result = format( f, 0, buffer, result );
+				}
+				else
+				{
+					result = formatFloat( -mq, c, 0, buffer, result );
+				}
+			}
+			else if ( t != 0 )
+			{
+				// Subnormal value.
+				result = ( t < FLOAT_C_TINY ) ? formatFloat( FLOAT_Q_MIN, 10 * t, -1, buffer, result ) : formatFloat( FLOAT_Q_MIN, t, 0, buffer, result );
+			}
+			else
+			{
+				buffer[ result++ ] = '0';
+				buffer[ result++ ] = '.';
+				buffer[ result++ ] = '0';
+			}
+		}
+		else
+		{
+			result = formatSpecial( t == 0, bits < 0, buffer, result );
+		}
+		return result;
+	}
+
+	/**
+	 * Formats a finite, non-zero float c&middot;2<sup>q</sup>.
+	 *
+	 * @param q      Binary exponent.
+	 * @param c      Significand.
+	 * @param dk     Correction of the decimal exponent.
+	 * @param buffer Buffer to write to.
+	 * @param offset Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	private static int formatFloat( final int q, final int c, final int dk, @NotNull final char[] buffer, final int offset )
+	{
+		final int out = c & 1;
+		final long cb = (long)c << 2;
+		final long cbr = cb + 2;
+		final long cbl;
+		final int k;
+		if ( ( c != FLOAT_C_MIN ) || ( q == FLOAT_Q_MIN ) )
+		{
+			cbl = cb - 2;
+			k = flog10pow2( q );
+		}
+		else
+		{
+			// The gap below a power of two is half the gap above.
+			cbl = cb - 1;
+			k = flog10threeQuartersPow2( q );
+		}
+		final int h = q + flog2pow10( -k ) + 33;
+
+		final long g = G[ 2 * ( k - K_MIN ) ] + 1;
+
+		final int vb = roundToOdd( g, cb << h );
+		final int vbl = roundToOdd( g, cbl << h );
+		final int vbr = roundToOdd( g, cbr << h );
+
+		final int s = vb >> 2;
+
+		int result = -1;
+		if ( s >= 100 )
+		{
+			// Try a decimal with one digit less first.
+			final int sp10 = 10 * (int)( s * 1717986919L >>> 34 );
+			final int tp10 = sp10 + 10;
+			final boolean upin = vbl + out <= sp10 << 2;
+			final boolean wpin = ( tp10 << 2 ) + out <= vbr;
+			if ( upin != wpin )
+			{
+				result = format( upin ? sp10 : tp10, k, buffer, offset );
+			}
+		}
+
+		if ( result < 0 )
+		{
+			final int t = s + 1;
+			final boolean uin = vbl + out <= s << 2;
+			final boolean win = ( t << 2 ) + out <= vbr;
+			if ( uin != win )
+			{
+				result = format( uin ? s : t, k + dk, buffer, offset );
+			}
+			else
+			{
+				// Both are in the rounding interval; pick the closest.
+				final int cmp = vb - ( ( s + t ) << 1 );
+				result = format( ( ( cmp < 0 ) || ( ( cmp == 0 ) && ( ( s & 1 ) == 0 ) ) ) ? s : t, k + dk, buffer, offset );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes infinity or NaN.
+	 *
+	 * @param infinite Whether the value is infinite, as opposed to NaN.
+	 * @param negative Whether the value is negative.
+	 * @param buffer   Buffer to write to.
+	 * @param offset   Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	private static int formatSpecial( final boolean infinite, final boolean negative, @NotNull final char[] buffer, final int offset )
+	{
+		int result = offset;
+		if ( infinite )
+		{
+			if ( negative )
+			{
+				buffer[ result++ ] = '-';
+			}
+			buffer[ result++ ] = 'I';
+			buffer[ result++ ] = 'N';
+			buffer[ result++ ] = 'F';
+		}
+		else
+		{
+			buffer[ result++ ] = 'N';
+			buffer[ result++ ] = 'a';
+			buffer[ result++ ] = 'N';
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the decimal f&middot;10<sup>e</sup>.
+	 *
+	 * @param significand Decimal significand; must be positive.
+	 * @param exponent    Decimal exponent.
+	 * @param buffer      Buffer to write to.
+	 * @param offset      Index of the first character to write.
+	 *
+	 * @return Index after the last character written.
+	 */
+	private static int format( final long significand, final int exponent, @NotNull final char[] buffer, final int offset )
+	{
+		// Trailing zeros are not significant.
+		long f = significand;
+		int e = exponent;
+		while ( f % 10 == 0 )
+		{
+			f /= 10;
+			e++;
+		}
+
+		int digits = 1;
+		for ( long power = 10; ( digits < 19 ) && ( power <= f ); power *= 10 )
+		{
+			digits++;
+		}
+
+		// Exponent in scientific notation.
+		int scientific = e + digits - 1;
+
+		int result = offset;
+		if ( ( scientific >= -3 ) && ( scientific < 7 ) )
+		{
+			if ( scientific >= 0 )
+			{
+				final int integerDigits = scientific + 1;
+				if ( digits <= integerDigits )
+				{
+					writeDigits( f, digits, digits, buffer, result );
+					result += digits;
+					for ( int i = digits; i < integerDigits; i++ )
+					{
+						buffer[ result++ ] = '0';
+					}
+					buffer[ result++ ] = '.';
+					buffer[ result++ ] = '0';
+				}
+				else
+				{
+					writeDigits( f, digits, integerDigits, buffer, result );
+					result += digits + 1;
+				}
+			}
+			else
+			{
+				buffer[ result++ ] = '0';
+				buffer[ result++ ] = '.';
+				for ( int i = -1; i > scientific; i-- )
+				{
+					buffer[ result++ ] = '0';
+				}
+				writeDigits( f, digits, digits, buffer, result );
+				result += digits;
+			}
+		}
+		else
+		{
+			if ( digits == 1 )
+			{
+				buffer[ result++ ] = (char)( '0' + f );
+				buffer[ result++ ] = '.';
+				buffer[ result++ ] = '0';
+			}
+			else
+			{
+				writeDigits( f, digits, 1, buffer, result );
+				result += digits + 1;
+			}
+
+			buffer[ result++ ] = 'E';
+			if ( scientific < 0 )
+			{
+				buffer[ result++ ] = '-';
+				scientific = -scientific;
+			}
+			if ( scientific >= 100 )
+			{
+				buffer[ result++ ] = (char)( '0' + scientific / 100 );
+				scientific %= 100;
+				buffer[ result++ ] = (char)( '0' + scientific / 10 );
+			}
+			else if ( scientific >= 10 )
+			{
+				buffer[ result++ ] = (char)( '0' + scientific / 10 );
+			}
+			buffer[ result++ ] = (char)( '0' + scientific % 10 );
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the digits of a number, with a decimal point inserted after the
+	 * given number of digits.
+	 *
+	 * @param value  Number to write.
+	 * @param digits Number of digits of the number.
+	 * @param point  Number of digits before the decimal point; if equal to
+	 *               {@code digits}, no decimal point is written.
+	 * @param buffer Buffer to write to.
+	 * @param offset Index of the first character to write.
+	 */
+	private static void writeDigits( final long value, final int digits, final int point, @NotNull final char[] buffer, final int offset )
+	{
+		long remaining = value;
+		for ( int i = digits - 1; i >= 0; i-- )
+		{
+			buffer[ offset + ( ( i >= point ) ? i + 1 : i ) ] = (char)( '0' + remaining % 10 );
+			remaining /= 10;
+		}
+		if ( point < digits )
+		{
+			buffer[ offset + point ] = '.';
+		}
+	}
+
+	/**
+	 * Computes the rounded-to-odd upper bits of g&middot;cp / 2<sup>127</sup>,
+	 * with g = g1&middot;2<sup>63</sup> + g0.
+	 *
+	 * @param g1 Upper 63 bits of g.
+	 * @param g0 Lower 63 bits of g.
+	 * @param cp Multiplier.
+	 *
+	 * @return Rounded product.
+	 */
+	private static long roundToOdd( final long g1, final long g0, final long cp )
+	{
+		final long x1 = multiplyHigh( g0, cp );
+		final long y0 = g1 * cp;
+		final long y1 = multiplyHigh( g1, cp );
+		final long z = ( y0 >>> 1 ) + x1;
+		final long vbp = y1 + ( z >>> 63 );
+		return vbp | ( ( z & MASK_63 ) + MASK_63 ) >>> 63;
+	}
+
+	/**
+	 * Computes the rounded-to-odd upper bits of g&middot;cp / 2<sup>95</sup>.
+	 *
+	 * @param g  Multiplicand.
+	 * @param cp Multiplier.
+	 *
+	 * @return Rounded product.
+	 */
+	private static int roundToOdd( final long g, final long cp )
+	{
+		final long x1 = multiplyHigh( g, cp );
+		final long vbp = x1 >>> 31;
+		return (int)( vbp | ( ( x1 & MASK_32 ) + MASK_32 ) >>> 32 );
+	}
+
+	/**
+	 * Returns the upper 64 bits of the 128-bit product of two signed longs,
+	 * like {@code Math.multiplyHigh} in Java 9 and later.
+	 *
+	 * @param x First value.
+	 * @param y Second value.
+	 *
+	 * @return Upper 64 bits of the product.
+	 */
+	private static long multiplyHigh( final long x, final long y )
+	{
+		final long x1 = x >> 32;
+		final long x2 = x & 0xffffffffL;
+		final long y1 = y >> 32;
+		final long y2 = y & 0xffffffffL;
+		final long z2 = x2 * y2;
+		final long t = x1 * y2 + ( z2 >>> 32 );
+		long z1 = t & 0xffffffffL;
+		final long z0 = t >> 32;
+		z1 += x2 * y1;
+		return x1 * y1 + z0 + ( z1 >> 32 );
+	}
+
+	/**
+	 * Returns &lfloor;log<sub>10</sub>(2<sup>e</sup>)&rfloor;.
+	 *
+	 * @param e Exponent, in the range [-5456721, 5456721].
+	 *
+	 * @return Result.
+	 */
+	private static int flog10pow2( final int e )
+	{
+		return (int)( e * 661971961083L >> 41 );
+	}
+
+	/**
+	 * Returns &lfloor;log<sub>10</sub>(3/4 &middot; 2<sup>e</sup>)&rfloor;.
+	 *
+	 * @param e Exponent, in the range [-3648, 3648].
+	 *
+	 * @return Result.
+	 */
+	private static int flog10threeQuartersPow2( final int e )
+	{
+		return (int)( e * 661971961083L + -274743187321L >> 41 );
+	}
+
+	/**
+	 * Returns &lfloor;log<sub>2</sub>(10<sup>e</sup>)&rfloor;.
+	 *
+	 * @param e Exponent, in the range [-1233, 1233].
+	 *
+	 * @return Result.
+	 */
+	private static int flog2pow10( final int e )
+	{
+		return (int)( e * 913124641741L >> 38 );
+	}
+}
@@ -0,0 +1,888 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Input stream that decompresses gzip data, inflating members in parallel if
+ * the data consists of multiple members, e.g. files produced by {@code pigz
+ * --independent}, {@code bgzip} or by concatenating gzip files.
+ *
+ * <p>The compressed data is divided into segments of a fixed size. For
+ * segments ahead of the current position, background tasks look for the first
+ * member that starts in the segment and inflate members up to the first member
+ * boundary after the segment. Members are found by scanning for the gzip magic
+ * bytes, so member starts are speculative, just like the split points of
+ * {@link ParallelRecordParser}. The output of a task is only used if the
+ * preceding member ends exactly where the task started; otherwise, members are
+ * inflated by the reading thread itself. As a result, the output is always the
+ * same as that of {@link GZIPInputStream}, and data consisting of a single
+ * member is simply inflated sequentially.
+ *
+ * <p>The output of all segments that are inflated ahead of the reader is
+ * limited to a total number of bytes; a segment that doesn't fit is left to
+ * the reading thread. Background tasks are cancelled when the stream is
+ * closed, which happens automatically at the end of the data or when an I/O
+ * error occurs.
+ *
+ * @author G. Meinders
+ */
+class ParallelGzipInputStream
+extends InputStream
+{
+	/**
+	 * Default size of a segment of compressed data.
+	 */
+	static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * Default maximum total size of the output of segments inflated ahead of
+	 * the reader.
+	 */
+	static final long DEFAULT_READ_AHEAD_LIMIT = 1 << 26;
+
+	/**
+	 * State of a segment task that may still produce output.
+	 */
+	private static final int RUNNING = 0;
+
+	/**
+	 * State of a segment task that finished.
+	 */
+	private static final int DONE = 1;
+
+	/**
+	 * State of a segment task whose output is no longer needed.
+	 */
+	private static final int ABANDONED = 2;
+
+	/**
+	 * Size of the buffers for compressed data.
+	 */
+	private static final int INPUT_BUFFER_SIZE = 65536;
+
+	/**
+	 * Header flag indicating a header checksum.
+	 */
+	private static final int FHCRC = 2;
+
+	/**
+	 * Header flag indicating extra fields.
+	 */
+	private static final int FEXTRA = 4;
+
+	/**
+	 * Header flag indicating a file name.
+	 */
+	private static final int FNAME = 8;
+
+	/**
+	 * Header flag indicating a comment.
+	 */
+	private static final int FCOMMENT = 16;
+
+	/**
+	 * Header flags that are reserved and must be zero.
+	 */
+	private static final int RESERVED_FLAGS = 0xe0;
+
+	/**
+	 * Windows containing the compressed data, starting at index 0.
+	 */
+	@NotNull
+	private final ByteBuffer[] _windows;
+
+	/**
+	 * Size of each window, except the last.
+	 */
+	private final int _windowSize;
+
+	/**
+	 * Size of the compressed data.
+	 */
+	private final long _size;
+
+	/**
+	 * Pool used to inflate segments.
+	 */
+	@NotNull
+	private final ForkJoinPool _pool;
+
+	/**
+	 * Size of a segment of compressed data.
+	 */
+	private final int _segmentSize;
+
+	/**
+	 * Maximum number of segments that are inflated ahead of the current
+	 * position.
+	 */
+	private final int _readAhead;
+
+	/**
+	 * Number of bytes that may still be reserved for the output of segments.
+	 */
+	@NotNull
+	private final AtomicLong _readAheadBudget;
+
+	/**
+	 * Buffer for compressed data inflated by the reading thread.
+	 */
+	@NotNull
+	private final byte[] _input = new byte[ INPUT_BUFFER_SIZE ];
+
+	/**
+	 * Buffer used to read a single byte.
+	 */
+	@NotNull
+	private final byte[] _singleByte = new byte[ 1 ];
+
+	/**
+	 * Segments being inflated by tasks, by segment index.
+	 */
+	@NotNull
+	private final Map<Long, Segment> _tasks = new HashMap<Long, Segment>();
+
+	/**
+	 * Index of the next segment to be inflated by a task.
+	 */
+	private long _nextSegment = 1;
+
+	/**
+	 * Offset of the next member, after the member being read or the output
+	 * of a segment.
+	 */
+	private long _offset = 0;
+
+	/**
+	 * Member being inflated by the reading thread; {@code null} if none.
+	 */
+	@Nullable
+	private Member _member = null;
+
+	/**
+	 * Output of the segment being read.
+	 */
+	@NotNull
+	private byte[] _output = new byte[ 0 ];
+
+	/**
+	 * Position in {@link #_output}.
+	 */
+	private int _outputPosition = 0;
+
+	/**
+	 * Length of the data in {@link #_output}.
+	 */
+	private int _outputLength = 0;
+
+	/**
+	 * Number of bytes of the read-ahead budget reserved for {@link #_output}.
+	 */
+	private long _outputReserved = 0;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param windows        Windows containing the compressed data, starting
+	 *                       at index 0.
+	 * @param windowSize     Size of each window, except the last.
+	 * @param pool           Pool used to inflate segments.
+	 * @param segmentSize    Size of a segment of compressed data.
+	 * @param readAheadLimit Maximum total size of the output of segments
+	 *                       inflated ahead of the reader.
+	 */
+	ParallelGzipInputStream( @NotNull final ByteBuffer[] windows, final int windowSize, @NotNull final ForkJoinPool pool, final int segmentSize, final long readAheadLimit )
+	{
+		long size = 0;
+		for ( final ByteBuffer window : windows )
+		{
+			size += window.limit();
+		}
+
+		_windows = windows;
+		_windowSize = windowSize;
+		_size = size;
+		_pool = pool;
+		_segmentSize = segmentSize;
+		_readAhead = pool.getParallelism() + 1;
+		_readAheadBudget = new AtomicLong( readAheadLimit );
+	}
+
+	@Override
+	public int read()
+	throws IOException
+	{
+		final byte[] buffer = _singleByte;
+		return ( read( buffer, 0, 1 ) < 0 ) ? -1 : ( buffer[ 0 ] & 0xff );
+	}
+
+	@Override
+	public int read( @NotNull final byte[] b, final int off, final int len )
+	throws IOException
+	{
+		int result = ( len == 0 ) ? 0 : -1;
+		try
+		{
+			while ( ( result < 0 ) && ( ( _outputPosition < _outputLength ) || ( _member != null ) || ( _offset < _size ) ) )
+			{
+				final Member member = _member;
+				if ( _outputPosition < _outputLength )
+				{
+					result = Math.min( len, _outputLength - _outputPosition );
+					System.arraycopy( _output, _outputPosition, b, off, result );
+					_outputPosition += result;
+				}
+				else if ( member != null )
+				{
+					result = member.read( b, off, len );
+					if ( result < 0 )
+					{
+						_offset = member.getEnd();
+						member.close();
+						_member = null;
+					}
+				}
+				else
+				{
+					nextMember();
+				}
+			}
+		}
+		catch ( final IOException e )
+		{
+			close();
+			throw e;
+		}
+
+		if ( result < 0 )
+		{
+			close();
+		}
+		return result;
+	}
+
+	/**
+	 * Proceeds to the member at {@link #_offset}, using the output of a
+	 * segment task if it starts at that member.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void nextMember()
+	throws IOException
+	{
+		final long offset = _offset;
+		final long index = offset / _segmentSize;
+
+		for ( final Iterator<Map.Entry<Long, Segment>> i = _tasks.entrySet().iterator(); i.hasNext(); )
+		{
+			final Map.Entry<Long, Segment> entry = i.next();
+			if ( entry.getKey() < index )
+			{
+				abandon( entry.getValue() );
+				i.remove();
+			}
+		}
+
+		release( _outputReserved );
+		_output = new byte[ 0 ];
+		_outputPosition = 0;
+		_outputLength = 0;
+		_outputReserved = 0;
+
+		final Segment segment = _tasks.remove( index );
+		boolean used = false;
+		if ( segment != null )
+		{
+			segment.join();
+			final byte[] data = segment._data;
+			if ( ( data != null ) && ( segment._start == offset ) )
+			{
+				_output = data;
+				_outputLength = segment._length;
+				_outputReserved = segment._reserved;
+				_offset = segment._end;
+				used = true;
+			}
+			else
+			{
+				release( segment._reserved );
+			}
+		}
+
+		if ( !used )
+		{
+			try
+			{
+				_member = new Member( offset, _input );
+			}
+			catch ( final ZipException e )
+			{
+				// Ignore trailing garbage, like GZIPInputStream.
+				if ( offset == 0 )
+				{
+					throw e;
+				}
+				_offset = _size;
+			}
+		}
+
+		submitTasks();
+	}
+
+	/**
+	 * Submits tasks for segments up to the read-ahead limit.
+	 */
+	private void submitTasks()
+	{
+		final long current = _offset / _segmentSize;
+		final long segmentCount = ( _size + _segmentSize - 1 ) / _segmentSize;
+		_nextSegment = Math.max( _nextSegment, current + 1 );
+		while ( ( _nextSegment < segmentCount ) && ( _nextSegment <= current + _readAhead ) )
+		{
+			final long index = _nextSegment++;
+			final Segment segment = new Segment();
+			segment._task = _pool.submit( () -> inflateSegment( index, segment ) );
+			_tasks.put( index, segment );
+		}
+	}
+
+	/**
+	 * Abandons the given segment. If its task is still running, the task
+	 * releases its reserved output itself; otherwise, the output is released
+	 * here.
+	 *
+	 * @param segment Segment to abandon.
+	 */
+	private void abandon( @NotNull final Segment segment )
+	{
+		if ( segment._state.compareAndSet( RUNNING, ABANDONED ) )
+		{
+			final ForkJoinTask<?> task = segment._task;
+			if ( task != null )
+			{
+				task.cancel( false );
+			}
+		}
+		else
+		{
+			release( segment._reserved );
+		}
+	}
+
+	/**
+	 * Reserves part of the read-ahead budget.
+	 *
+	 * @param bytes Number of bytes to reserve.
+	 *
+	 * @return {@code true} if the bytes were reserved; {@code false} if the
+	 * budget is exhausted.
+	 */
+	private boolean reserve( final long bytes )
+	{
+		final AtomicLong budget = _readAheadBudget;
+		boolean result = false;
+		long available = budget.get();
+		while ( !result && ( available >= bytes ) )
+		{
+			result = budget.compareAndSet( available, available - bytes );
+			available = budget.get();
+		}
+		return result;
+	}
+
+	/**
+	 * Releases reserved bytes to the read-ahead budget.
+	 *
+	 * @param bytes Number of bytes to release.
+	 */
+	private void release( final long bytes )
+	{
+		if ( bytes > 0 )
+		{
+			_readAheadBudget.addAndGet( bytes );
+		}
+	}
+
+	/**
+	 * Inflates the members of the given segment, starting at the first member
+	 * that starts in the segment, up to the first member boundary after the
+	 * segment. If the segment was abandoned in the meantime, any reserved
+	 * output is released.
+	 *
+	 * @param index   Segment index.
+	 * @param segment Segment to store the output in.
+	 */
+	private void inflateSegment( final long index, @NotNull final Segment segment )
+	{
+		final long start = index * _segmentSize;
+		final long end = Math.min( start + _segmentSize, _size );
+		final byte[] input = new byte[ INPUT_BUFFER_SIZE ];
+
+		boolean found = false;
+		for ( long candidate = findMagic( start, end ); !found && ( candidate >= 0 ) && ( segment._state.get() == RUNNING ) && ( _readAheadBudget.get() >= INPUT_BUFFER_SIZE ); candidate = findMagic( candidate + 1, end ) )
+		{
+			found = inflateMembers( segment, candidate, end, input );
+		}
+
+		if ( !segment._state.compareAndSet( RUNNING, DONE ) )
+		{
+			release( segment._reserved );
+			segment._data = null;
+			segment._reserved = 0;
+		}
+	}
+
+	/**
+	 * Inflates members, starting at the given offset, up to the first member
+	 * boundary at or after the given end, and stores the output in the given
+	 * segment.
+	 *
+	 * @param segment Segment to store the output in.
+	 * @param start   Offset of the first member.
+	 * @param end     Offset after which to stop at the first member boundary.
+	 * @param input   Buffer for compressed data.
+	 *
+	 * @return {@code true} if the output was stored; {@code false} if the data
+	 * is not valid, the read-ahead budget is exhausted, or the segment was
+	 * abandoned.
+	 */
+	private boolean inflateMembers( @NotNull final Segment segment, final long start, final long end, @NotNull final byte[] input )
+	{
+		boolean result = false;
+
+		byte[] data = null;
+		long reserved = 0;
+		if ( reserve( INPUT_BUFFER_SIZE ) )
+		{
+			data = new byte[ INPUT_BUFFER_SIZE ];
+			reserved = INPUT_BUFFER_SIZE;
+		}
+
+		int length = 0;
+		long offset = start;
+		try
+		{
+			while ( ( data != null ) && ( offset < end ) )
+			{
+				try ( final Member member = new Member( offset, input ) )
+				{
+					while ( true )
+					{
+						if ( segment._state.get() != RUNNING )
+						{
+							throw new IOException( "Segment abandoned." );
+						}
+
+						if ( length == data.length )
+						{
+							if ( ( length > Integer.MAX_VALUE / 2 ) || !reserve( length ) )
+							{
+								throw new IOException( "Read-ahead limit reached." );
+							}
+							reserved += length;
+							data = Arrays.copyOf( data, length * 2 );
+						}
+
+						final int count = member.read( data, length, data.length - length );
+						if ( count < 0 )
+						{
+							break;
+						}
+						length += count;
+					}
+					offset = member.getEnd();
+				}
+			}
+
+			if ( data != null )
+			{
+				segment._start = start;
+				segment._end = offset;
+				segment._data = data;
+				segment._length = length;
+				segment._reserved = reserved;
+				result = true;
+			}
+		}
+		catch ( final IOException ignored )
+		{
+			// Not a member, or left to the reading thread.
+			release( reserved );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the offset of the first occurrence of the gzip magic bytes and
+	 * compression method in the given range.
+	 *
+	 * @param start Start of the range.
+	 * @param end   End of the range.
+	 *
+	 * @return Offset of the magic bytes; {@code -1} if not found.
+	 */
+	private long findMagic( final long start, final long end )
+	{
+		long result = -1;
+		final long last = Math.min( end, _size - 2 );
+		for ( long offset = start; offset < last; offset++ )
+		{
+			if ( ( byteAt( offset ) == (byte)0x1f ) && ( byteAt( offset + 1 ) == (byte)0x8b ) && ( byteAt( offset + 2 ) == 8 ) )
+			{
+				result = offset;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the byte at the given offset of the compressed data.
+	 *
+	 * @param offset Offset of the byte.
+	 *
+	 * @return Byte at the offset.
+	 */
+	private byte byteAt( final long offset )
+	{
+		return _windows[ (int)( offset / _windowSize ) ].get( (int)( offset % _windowSize ) );
+	}
+
+	/**
+	 * Reads compressed data into the given array. Fewer bytes are only read at
+	 * the end of the data.
+	 *
+	 * @param offset Offset of the first byte to read.
+	 * @param b      Array to read into.
+	 * @param off    Start index in the array.
+	 * @param len    Maximum number of bytes to read.
+	 *
+	 * @return Number of bytes read.
+	 */
+	private int readFully( final long offset, @NotNull final byte[] b, final int off, final int len )
+	{
+		int result = 0;
+		while ( ( result < len ) && ( offset + result < _size ) )
+		{
+			final long position = offset + result;
+			final ByteBuffer window = _windows[ (int)( position / _windowSize ) ].duplicate();
+			window.position( (int)( position % _windowSize ) );
+			final int count = Math.min( len - result, window.remaining() );
+			window.get( b, off + result, count );
+			result += count;
+		}
+		return result;
+	}
+
+	@Override
+	public void close()
+	{
+		for ( final Segment segment : _tasks.values() )
+		{
+			abandon( segment );
+		}
+		_tasks.clear();
+
+		final Member member = _member;
+		if ( member != null )
+		{
+			member.close();
+			_member = null;
+		}
+
+		release( _outputReserved );
+		_output = new byte[ 0 ];
+		_outputPosition = 0;
+		_outputLength = 0;
+		_outputReserved = 0;
+		_offset = _size;
+	}
+
+	/**
+	 * Segment inflated by a background task. The output fields are set by the
+	 * task before its state changes from {@link #RUNNING} to {@link #DONE}.
+	 */
+	private static class Segment
+	{
+		/**
+		 * State of the task.
+		 */
+		@NotNull
+		private final AtomicInteger _state = new AtomicInteger( RUNNING );
+
+		/**
+		 * Task that inflates the segment.
+		 */
+		@Nullable
+		private ForkJoinTask<?> _task = null;
+
+		/**
+		 * Offset of the first member.
+		 */
+		private long _start = 0;
+
+		/**
+		 * Offset after the last member.
+		 */
+		private long _end = 0;
+
+		/**
+		 * Inflated data; {@code null} if no output is available.
+		 */
+		@Nullable
+		private byte[] _data = null;
+
+		/**
+		 * Length of the inflated data.
+		 */
+		private int _length = 0;
+
+		/**
+		 * Number of bytes of the read-ahead budget reserved for the data.
+		 */
+		private long _reserved = 0;
+
+		/**
+		 * Waits for the task to finish.
+		 */
+		void join()
+		{
+			final ForkJoinTask<?> task = _task;
+			if ( task != null )
+			{
+				task.join();
+			}
+		}
+	}
+
+	/**
+	 * Inflates a single gzip member.
+	 */
+	private class Member
+	implements Closeable
+	{
+		/**
+		 * Inflater for the compressed data.
+		 */
+		@NotNull
+		private final Inflater _inflater = new Inflater( true );
+
+		/**
+		 * Checksum of the inflated data.
+		 */
+		@NotNull
+		private final CRC32 _crc = new CRC32();
+
+		/**
+		 * Buffer for compressed data.
+		 */
+		@NotNull
+		private final byte[] _input;
+
+		/**
+		 * Offset of the next compressed byte to be read into {@link #_input}.
+		 */
+		private long _position;
+
+		/**
+		 * Number of inflated bytes.
+		 */
+		private long _inflated = 0;
+
+		/**
+		 * Offset after the end of the member; {@code -1} until the end is
+		 * reached.
+		 */
+		private long _end = -1;
+
+		/**
+		 * Constructs a new instance and reads the member header.
+		 *
+		 * @param offset Offset of the member.
+		 * @param input  Buffer for compressed data.
+		 *
+		 * @throws ZipException if there is no valid member header at the
+		 * offset.
+		 */
+		Member( final long offset, @NotNull final byte[] input )
+		throws ZipException
+		{
+			_input = input;
+			final int length = readFully( offset, input, 0, input.length );
+			if ( ( length < 10 ) || ( input[ 0 ] != (byte)0x1f ) || ( input[ 1 ] != (byte)0x8b ) || ( input[ 2 ] != 8 ) || ( ( input[ 3 ] & RESERVED_FLAGS ) != 0 ) )
+			{
+				_inflater.end();
+				throw new ZipException( "Not in GZIP format" );
+			}
+
+			final int flags = input[ 3 ];
+			int position = 10;
+			if ( ( ( flags & FEXTRA ) != 0 ) && ( position + 2 <= length ) )
+			{
+				position += 2 + ( ( input[ position ] & 0xff ) | ( ( input[ position + 1 ] & 0xff ) << 8 ) );
+			}
+			if ( ( flags & FNAME ) != 0 )
+			{
+				position = skipString( input, position, length );
+			}
+			if ( ( flags & FCOMMENT ) != 0 )
+			{
+				position = skipString( input, position, length );
+			}
+			if ( ( flags & FHCRC ) != 0 )
+			{
+				position += 2;
+			}
+			if ( position > length )
+			{
+				_inflater.end();
+				throw new ZipException( "Unsupported GZIP header" );
+			}
+
+			_inflater.setInput( input, position, length - position );
+			_position = offset + length;
+		}
+
+		/**
+		 * Returns the index after the zero-terminated string at the given
+		 * index.
+		 *
+		 * @param input    Header bytes.
+		 * @param position Start of the string.
+		 * @param length   Number of header bytes available.
+		 *
+		 * @return Index after the string; greater than {@code length} if the
+		 * string is not terminated.
+		 */
+		private int skipString( @NotNull final byte[] input, final int position, final int length )
+		{
+			int result = position;
+			while ( ( result < length ) && ( input[ result ] != 0 ) )
+			{
+				result++;
+			}
+			return result + 1;
+		}
+
+		/**
+		 * Inflates data from the member.
+		 *
+		 * @param b   Array to inflate into.
+		 * @param off Start index in the array.
+		 * @param len Maximum number of bytes to inflate.
+		 *
+		 * @return Number of bytes inflated; {@code -1} at the end of the
+		 * member.
+		 *
+		 * @throws IOException if the member is not valid.
+		 */
+		int read( @NotNull final byte[] b, final int off, final int len )
+		throws IOException
+		{
+			int result = -1;
+			try
+			{
+				while ( ( result <= 0 ) && ( _end < 0 ) && ( len > 0 ) )
+				{
+					result = _inflater.inflate( b, off, len );
+					if ( result > 0 )
+					{
+						_crc.update( b, off, result );
+						_inflated += result;
+					}
+					else if ( _inflater.finished() )
+					{
+						readTrailer();
+						result = -1;
+					}
+					else if ( _inflater.needsInput() )
+					{
+						final int length = readFully( _position, _input, 0, _input.length );
+						if ( length == 0 )
+						{
+							throw new EOFException( "Unexpected end of ZLIB input stream" );
+						}
+						_inflater.setInput( _input, 0, length );
+						_position += length;
+					}
+					else
+					{
+						throw new ZipException( "Preset dictionaries are not supported." );
+					}
+				}
+			}
+			catch ( final DataFormatException e )
+			{
+				throw new ZipException( e.getMessage() );
+			}
+			return ( len == 0 ) ? 0 : result;
+		}
+
+		/**
+		 * Reads and verifies the member trailer.
+		 *
+		 * @throws IOException if the trailer is missing or doesn't match the
+		 * inflated data.
+		 */
+		private void readTrailer()
+		throws IOException
+		{
+			final long trailer = _position - _inflater.getRemaining();
+			final byte[] bytes = new byte[ 8 ];
+			if ( readFully( trailer, bytes, 0, 8 ) < 8 )
+			{
+				throw new EOFException( "Unexpected end of ZLIB input stream" );
+			}
+
+			final long crc = ( bytes[ 0 ] & 0xffL ) | ( ( bytes[ 1 ] & 0xffL ) << 8 ) | ( ( bytes[ 2 ] & 0xffL ) << 16 ) | ( ( bytes[ 3 ] & 0xffL ) << 24 );
+			final long size = ( bytes[ 4 ] & 0xffL ) | ( ( bytes[ 5 ] & 0xffL ) << 8 ) | ( ( bytes[ 6 ] & 0xffL ) << 16 ) | ( ( bytes[ 7 ] & 0xffL ) << 24 );
+			if ( ( crc != _crc.getValue() ) || ( size != ( _inflated & 0xffffffffL ) ) )
+			{
+				throw new ZipException( "Corrupt GZIP trailer" );
+			}
+			_end = trailer + 8;
+		}
+
+		/**
+		 * Returns the offset after the end of the member.
+		 *
+		 * @return Offset after the member.
+		 */
+		long getEnd()
+		{
+			return _end;
+		}
+
+		@Override
+		public void close()
+		{
+			_inflater.end();
+		}
+	}
+}
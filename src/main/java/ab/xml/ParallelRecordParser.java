@@ -0,0 +1,1041 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Parses documents consisting of a root element with many independent child
+ * elements ('records') using multiple threads.
+ *
+ * <p>The document is split into chunks at the start tags of record elements,
+ * which are found by scanning the bytes of the document. Each chunk is parsed
+ * by its own {@link XMLReader}, preceded by the prolog and root start tag of
+ * the document, such that the namespace declarations and encoding of the
+ * document apply to each chunk.
+ *
+ * <p>Split points are speculative, since a start tag may also appear in a
+ * comment, CDATA section or nested element. Such a split always causes the
+ * chunk before it to be malformed. Chunks that can't be trusted for that
+ * reason are merged and parsed again by a single reader, so the result is
+ * the same as that of parsing the document sequentially.
+ *
+ * <p>Line and column numbers reported by readers are relative to the start
+ * of the chunk being parsed.
+ *
+ * @param <T> Record type.
+ *
+ * @author G. Meinders
+ */
+public class ParallelRecordParser<T>
+{
+	/**
+	 * Parses a single record. Records are parsed concurrently, so
+	 * implementations must be thread-safe.
+	 *
+	 * @param <T> Record type.
+	 */
+	public interface RecordParser<T>
+	{
+		/**
+		 * Parses a record. The reader is positioned at the start of the
+		 * record element. When this method returns, the reader must be
+		 * positioned at the end of the same element.
+		 *
+		 * @param reader XML reader.
+		 *
+		 * @return Parsed record; {@code null} to omit the record from the
+		 * result.
+		 *
+		 * @throws XMLException if an XML-related exception occurs.
+		 */
+		@Nullable
+		T parseRecord( @NotNull XMLReader reader )
+		throws XMLException;
+	}
+
+	/**
+	 * Default minimum size of a chunk.
+	 */
+	public static final int DEFAULT_MINIMUM_CHUNK_SIZE = 1 << 20;
+
+	/**
+	 * Number of bytes scanned at a time when looking for a split point or the
+	 * root start tag.
+	 */
+	private static final int PROBE_SIZE = 65536;
+
+	/**
+	 * Factory used to create XML readers.
+	 */
+	@NotNull
+	private final XMLReaderFactory _factory;
+
+	/**
+	 * Encoded qualified name of record elements.
+	 */
+	@NotNull
+	private final byte[] _recordName;
+
+	/**
+	 * Parses records.
+	 */
+	@NotNull
+	private final RecordParser<? extends T> _recordParser;
+
+	/**
+	 * Pool used to parse chunks.
+	 */
+	@NotNull
+	private ForkJoinPool _pool = ForkJoinPool.commonPool();
+
+	/**
+	 * Minimum size of a chunk.
+	 */
+	private int _minimumChunkSize = DEFAULT_MINIMUM_CHUNK_SIZE;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param factory      Factory used to create XML readers.
+	 * @param recordName   Qualified name of record elements, as it appears in
+	 *                     the document (including the prefix, if any).
+	 * @param recordParser Parses records.
+	 */
+	public ParallelRecordParser( @NotNull final XMLReaderFactory factory, @NotNull final String recordName, @NotNull final RecordParser<? extends T> recordParser )
+	{
+		_factory = factory;
+		_recordName = recordName.getBytes( StandardCharsets.UTF_8 );
+		_recordParser = recordParser;
+	}
+
+	/**
+	 * Returns the pool used to parse chunks. The default is the {@link
+	 * ForkJoinPool#commonPool() common pool}.
+	 *
+	 * @return Fork/join pool.
+	 */
+	@NotNull
+	public ForkJoinPool getPool()
+	{
+		return _pool;
+	}
+
+	/**
+	 * Sets the pool used to parse chunks.
+	 *
+	 * @param pool Fork/join pool.
+	 */
+	public void setPool( @NotNull final ForkJoinPool pool )
+	{
+		_pool = pool;
+	}
+
+	/**
+	 * Returns the minimum size of a chunk. Documents are split into about
+	 * four chunks per thread of the pool, but chunks are at least this size.
+	 *
+	 * @return Minimum chunk size, in bytes.
+	 */
+	public int getMinimumChunkSize()
+	{
+		return _minimumChunkSize;
+	}
+
+	/**
+	 * Sets the minimum size of a chunk.
+	 *
+	 * @param minimumChunkSize Minimum chunk size, in bytes.
+	 */
+	public void setMinimumChunkSize( final int minimumChunkSize )
+	{
+		if ( minimumChunkSize < 1 )
+		{
+			throw new IllegalArgumentException( "minimumChunkSize: " + minimumChunkSize );
+		}
+		_minimumChunkSize = minimumChunkSize;
+	}
+
+	/**
+	 * Parses the records in the given file.
+	 *
+	 * @param file File to parse.
+	 *
+	 * @return Records, in document order.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	public List<T> parse( @NotNull final Path file )
+	throws XMLException
+	{
+		try ( final FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+		{
+			return parse( new FileSource( channel ) );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Parses the records in the remaining bytes of the given buffer. The
+	 * position of the buffer is not changed.
+	 *
+	 * @param buffer Buffer containing the document.
+	 *
+	 * @return Records, in document order.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	public List<T> parse( @NotNull final ByteBuffer buffer )
+	throws XMLException
+	{
+		try
+		{
+			return parse( new BufferSource( buffer ) );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Parses the records in the given file, passing them to the consumer as
+	 * soon as they are available. Records are not passed in document order,
+	 * and the consumer may be called from multiple threads concurrently.
+	 *
+	 * <p>If an exception is thrown, some records may have been passed to the
+	 * consumer already.
+	 *
+	 * @param file     File to parse.
+	 * @param consumer Receives parsed records.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public void parseUnordered( @NotNull final Path file, @NotNull final Consumer<? super T> consumer )
+	throws XMLException
+	{
+		try ( final FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+		{
+			parse( new FileSource( channel ), consumer );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Parses the records in the remaining bytes of the given buffer, passing
+	 * them to the consumer as soon as they are available. Records are not
+	 * passed in document order, and the consumer may be called from multiple
+	 * threads concurrently. The position of the buffer is not changed.
+	 *
+	 * <p>If an exception is thrown, some records may have been passed to the
+	 * consumer already.
+	 *
+	 * @param buffer   Buffer containing the document.
+	 * @param consumer Receives parsed records.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public void parseUnordered( @NotNull final ByteBuffer buffer, @NotNull final Consumer<? super T> consumer )
+	throws XMLException
+	{
+		try
+		{
+			parse( new BufferSource( buffer ), consumer );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Parses the records in the given document, in order.
+	 *
+	 * @param source Document to parse.
+	 *
+	 * @return Records, in document order.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private List<T> parse( @NotNull final Source source )
+	throws IOException, XMLException
+	{
+		final List<T> result = new ArrayList<T>();
+		final Chunks chunks = parse( source, null );
+		for ( final List<T> records : chunks._records )
+		{
+			result.addAll( records );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses the records in the given document. Records are stored per chunk
+	 * and, if a consumer is specified, also passed to the consumer as soon as
+	 * they are known to be valid.
+	 *
+	 * @param source   Document to parse.
+	 * @param consumer Receives parsed records; {@code null} if not needed.
+	 *
+	 * @return Parsed chunks.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private Chunks parse( @NotNull final Source source, @Nullable final Consumer<? super T> consumer )
+	throws IOException, XMLException
+	{
+		final Chunks chunks = split( source, consumer );
+
+		final int chunkCount = chunks.size();
+		final List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>( chunkCount );
+		for ( int i = 0; i < chunkCount; i++ )
+		{
+			final int chunk = i;
+			tasks.add( _pool.submit( () -> chunks.parseChunk( chunk ) ) );
+		}
+		for ( final ForkJoinTask<?> task : tasks )
+		{
+			task.join();
+		}
+
+		/*
+		 * Parse each run of chunks that can't be trusted as a whole. Such a
+		 * run is always preceded and followed by a valid split point.
+		 */
+		int start = 0;
+		while ( start < chunkCount )
+		{
+			if ( chunks.isValid( start ) )
+			{
+				start++;
+			}
+			else
+			{
+				int end = start + 1;
+				while ( ( end < chunkCount ) && !chunks.isValid( end ) )
+				{
+					end++;
+				}
+				chunks.parseRun( start, end );
+				start = end;
+			}
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * Splits the given document into chunks.
+	 *
+	 * @param source   Document to split.
+	 * @param consumer Receives parsed records; {@code null} if not needed.
+	 *
+	 * @return Chunks.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document has no root element.
+	 */
+	@NotNull
+	private Chunks split( @NotNull final Source source, @Nullable final Consumer<? super T> consumer )
+	throws IOException, XMLException
+	{
+		final long size = source.size();
+		final ByteBuffer prolog = findRootStartTag( source );
+		final long contentStart = prolog.remaining();
+
+		final List<Long> splits = new ArrayList<Long>();
+		splits.add( contentStart );
+
+		final byte[] suffix;
+		if ( prolog.get( prolog.limit() - 2 ) == '/' )
+		{
+			// Empty root element.
+			suffix = new byte[ 0 ];
+		}
+		else
+		{
+			final int rootStart = findRootStart( prolog );
+			int nameEnd = rootStart + 1;
+			while ( !isNameDelimiter( prolog.get( nameEnd ) ) )
+			{
+				nameEnd++;
+			}
+
+			suffix = new byte[ nameEnd - rootStart + 2 ];
+			suffix[ 0 ] = '<';
+			suffix[ 1 ] = '/';
+			for ( int i = rootStart + 1; i < nameEnd; i++ )
+			{
+				suffix[ i - rootStart + 1 ] = prolog.get( i );
+			}
+			suffix[ suffix.length - 1 ] = '>';
+
+			final int targetCount = _pool.getParallelism() * 4;
+			final long chunkSize = Math.max( (long)_minimumChunkSize, ( size - contentStart ) / targetCount );
+			long target = contentStart + chunkSize;
+			while ( target < size )
+			{
+				final long split = findSplit( source, target );
+				if ( split < 0 )
+				{
+					break;
+				}
+				splits.add( split );
+				target = split + chunkSize;
+			}
+		}
+
+		splits.add( size );
+		return new Chunks( source, prolog, suffix, splits, consumer );
+	}
+
+	/**
+	 * Finds the start tag of the root element and returns the part of the
+	 * document up to the end of that start tag.
+	 *
+	 * @param source Document.
+	 *
+	 * @return Prolog and root start tag.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document has no root element.
+	 */
+	@NotNull
+	private static ByteBuffer findRootStartTag( @NotNull final Source source )
+	throws IOException, XMLException
+	{
+		final long size = source.size();
+		long length = Math.min( size, (long)PROBE_SIZE );
+		while ( true )
+		{
+			final ByteBuffer buffer = source.slice( 0, length );
+			final int start = findRootStart( buffer );
+			final int end = ( start < 0 ) ? -1 : skipMarkup( buffer, start + 1, false );
+			if ( end >= 0 )
+			{
+				buffer.limit( end );
+				return buffer;
+			}
+			if ( length == size )
+			{
+				throw new XMLException( "No root element found" );
+			}
+			length = Math.min( size, length * 2 );
+		}
+	}
+
+	/**
+	 * Returns the index of the start of the root start tag.
+	 *
+	 * @param buffer Start of the document.
+	 *
+	 * @return Index of the root start tag; {@code -1} if the root start tag
+	 * is not in the buffer.
+	 */
+	private static int findRootStart( @NotNull final ByteBuffer buffer )
+	{
+		final int limit = buffer.limit();
+		int result = -1;
+		int position = 0;
+		while ( position < limit )
+		{
+			final byte b = buffer.get( position );
+			if ( b != '<' )
+			{
+				position++;
+			}
+			else if ( position + 1 >= limit )
+			{
+				break;
+			}
+			else
+			{
+				final byte next = buffer.get( position + 1 );
+				if ( next == '?' )
+				{
+					position = indexOf( buffer, position + 2, '?', '>' );
+				}
+				else if ( next == '!' )
+				{
+					if ( ( position + 3 < limit ) && ( buffer.get( position + 2 ) == '-' ) && ( buffer.get( position + 3 ) == '-' ) )
+					{
+						position = indexOf( buffer, position + 4, '-', '>' );
+					}
+					else
+					{
+						position = skipMarkup( buffer, position + 2, true );
+					}
+				}
+				else
+				{
+					result = position;
+					break;
+				}
+
+				if ( position < 0 )
+				{
+					break;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Skips a start tag or declaration up to and including its closing
+	 * {@code '>'}, taking quoted strings and, optionally, the internal subset
+	 * of a document type declaration into account.
+	 *
+	 * @param buffer        Buffer to scan.
+	 * @param position      Index to start at.
+	 * @param allowBrackets Whether square brackets may enclose nested markup.
+	 *
+	 * @return Index after the closing {@code '>'}; {@code -1} if not found.
+	 */
+	private static int skipMarkup( @NotNull final ByteBuffer buffer, final int position, final boolean allowBrackets )
+	{
+		final int limit = buffer.limit();
+		int result = -1;
+		int depth = 0;
+		byte quote = 0;
+		for ( int i = position; i < limit; i++ )
+		{
+			final byte b = buffer.get( i );
+			if ( quote != 0 )
+			{
+				if ( b == quote )
+				{
+					quote = 0;
+				}
+			}
+			else if ( ( b == '"' ) || ( b == '\'' ) )
+			{
+				quote = b;
+			}
+			else if ( allowBrackets && ( b == '[' ) )
+			{
+				depth++;
+			}
+			else if ( allowBrackets && ( b == ']' ) )
+			{
+				depth--;
+			}
+			else if ( ( b == '>' ) && ( depth == 0 ) )
+			{
+				result = i + 1;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index after the first occurrence of the given two bytes.
+	 *
+	 * @param buffer   Buffer to scan.
+	 * @param position Index to start at.
+	 * @param first    First byte.
+	 * @param second   Second byte.
+	 *
+	 * @return Index after the bytes; {@code -1} if not found.
+	 */
+	private static int indexOf( @NotNull final ByteBuffer buffer, final int position, final char first, final char second )
+	{
+		int result = -1;
+		for ( int i = position, end = buffer.limit() - 1; i < end; i++ )
+		{
+			if ( ( buffer.get( i ) == first ) && ( buffer.get( i + 1 ) == second ) )
+			{
+				result = i + 2;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the first start tag of a record element at or after the given
+	 * offset.
+	 *
+	 * @param source Document.
+	 * @param offset Offset to start at.
+	 *
+	 * @return Offset of the start tag; {@code -1} if not found.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private long findSplit( @NotNull final Source source, final long offset )
+	throws IOException
+	{
+		final byte[] recordName = _recordName;
+		final int tagLength = recordName.length + 2;
+		final long size = source.size();
+
+		long result = -1;
+		long start = offset;
+		while ( ( result < 0 ) && ( start + tagLength <= size ) )
+		{
+			final long end = Math.min( size, start + PROBE_SIZE + tagLength );
+			final ByteBuffer buffer = source.slice( start, end );
+			final int last = buffer.limit() - tagLength;
+			for ( int i = 0; i <= last; i++ )
+			{
+				if ( ( buffer.get( i ) == '<' ) && matches( buffer, i + 1, recordName ) && isNameDelimiter( buffer.get( i + tagLength - 1 ) ) )
+				{
+					result = start + i;
+					break;
+				}
+			}
+			start = end - tagLength + 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given bytes occur in the buffer at the given index.
+	 *
+	 * @param buffer   Buffer to scan.
+	 * @param position Index in the buffer.
+	 * @param bytes    Bytes to match.
+	 *
+	 * @return {@code true} if the bytes match.
+	 */
+	private static boolean matches( @NotNull final ByteBuffer buffer, final int position, @NotNull final byte[] bytes )
+	{
+		boolean result = true;
+		for ( int i = 0; result && ( i < bytes.length ); i++ )
+		{
+			result = ( buffer.get( position + i ) == bytes[ i ] );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given byte ends a name.
+	 *
+	 * @param b Byte to check.
+	 *
+	 * @return {@code true} if the byte ends a name.
+	 */
+	private static boolean isNameDelimiter( final byte b )
+	{
+		return ( b == ' ' ) || ( b == '\t' ) || ( b == '\n' ) || ( b == '\r' ) || ( b == '>' ) || ( b == '/' );
+	}
+
+	/**
+	 * Parses records from the given reader, which reads a document containing
+	 * the root start tag followed by the contents of one or more chunks.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Parsed records.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private List<T> parseRecords( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final List<T> result = new ArrayList<T>();
+
+		XMLEventType eventType;
+		while ( ( eventType = reader.next() ) != XMLEventType.START_ELEMENT )
+		{
+			if ( eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new XMLException( "No root element found" );
+			}
+		}
+
+		while ( ( eventType = reader.next() ) != XMLEventType.END_ELEMENT )
+		{
+			if ( eventType == XMLEventType.START_ELEMENT )
+			{
+				final T record = _recordParser.parseRecord( reader );
+				if ( reader.getEventType() != XMLEventType.END_ELEMENT )
+				{
+					throw new XMLException( "Record parser must end at the end of the record, but ended at " + reader.getEventType() );
+				}
+				if ( record != null )
+				{
+					result.add( record );
+				}
+			}
+			else if ( eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new XMLException( "Unexpected end of document" );
+			}
+		}
+
+		while ( reader.next() != XMLEventType.END_DOCUMENT )
+		{
+			// Skip comments and processing instructions after the root element.
+		}
+
+		return result;
+	}
+
+	/**
+	 * Chunks of a document and the results of parsing them.
+	 */
+	private class Chunks
+	{
+		/**
+		 * Document.
+		 */
+		@NotNull
+		private final Source _source;
+
+		/**
+		 * Prolog and root start tag.
+		 */
+		@NotNull
+		private final ByteBuffer _prolog;
+
+		/**
+		 * Root end tag, added to chunks except the last.
+		 */
+		@NotNull
+		private final byte[] _suffix;
+
+		/**
+		 * Offsets of split points, including the start of the root element
+		 * content and the end of the document.
+		 */
+		@NotNull
+		private final List<Long> _splits;
+
+		/**
+		 * Receives parsed records; {@code null} if not needed.
+		 */
+		@Nullable
+		private final Consumer<? super T> _consumer;
+
+		/**
+		 * Records parsed from each chunk; {@code null} if parsing failed.
+		 */
+		@NotNull
+		private final List<List<T>> _records;
+
+		/**
+		 * Whether each chunk was parsed (successfully or not).
+		 */
+		@NotNull
+		private final boolean[] _done;
+
+		/**
+		 * Whether the records of each chunk were passed to the consumer.
+		 */
+		@NotNull
+		private final boolean[] _delivered;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param source   Document.
+		 * @param prolog   Prolog and root start tag.
+		 * @param suffix   Root end tag.
+		 * @param splits   Offsets of split points.
+		 * @param consumer Receives parsed records; {@code null} if not needed.
+		 */
+		Chunks( @NotNull final Source source, @NotNull final ByteBuffer prolog, @NotNull final byte[] suffix, @NotNull final List<Long> splits, @Nullable final Consumer<? super T> consumer )
+		{
+			_source = source;
+			_prolog = prolog;
+			_suffix = suffix;
+			_splits = splits;
+			_consumer = consumer;
+			final int size = splits.size() - 1;
+			_records = new ArrayList<List<T>>( Collections.<List<T>>nCopies( size, null ) );
+			_done = new boolean[ size ];
+			_delivered = new boolean[ size ];
+		}
+
+		/**
+		 * Returns the number of chunks.
+		 *
+		 * @return Number of chunks.
+		 */
+		int size()
+		{
+			return _done.length;
+		}
+
+		/**
+		 * Returns whether the records parsed from the given chunk are valid,
+		 * i.e. parsing it and the chunk before it succeeded.
+		 *
+		 * @param chunk Chunk index.
+		 *
+		 * @return {@code true} if the records are valid.
+		 */
+		synchronized boolean isValid( final int chunk )
+		{
+			return _done[ chunk ] && ( _records.get( chunk ) != null ) && ( ( chunk == 0 ) || ( _done[ chunk - 1 ] && ( _records.get( chunk - 1 ) != null ) ) );
+		}
+
+		/**
+		 * Parses a single chunk. Exceptions are not thrown, but cause the
+		 * chunk to be parsed again later, together with adjacent chunks.
+		 *
+		 * @param chunk Chunk index.
+		 */
+		void parseChunk( final int chunk )
+		{
+			List<T> records;
+			try
+			{
+				records = parseChunks( chunk, chunk + 1 );
+			}
+			catch ( final Exception e )
+			{
+				records = null;
+			}
+
+			synchronized ( this )
+			{
+				_records.set( chunk, records );
+				_done[ chunk ] = true;
+			}
+
+			deliver( chunk );
+			if ( chunk + 1 < size() )
+			{
+				deliver( chunk + 1 );
+			}
+		}
+
+		/**
+		 * Parses the given chunks as a whole and stores the records in the
+		 * first chunk.
+		 *
+		 * @param start First chunk index.
+		 * @param end   Chunk index after the last chunk.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 * @throws XMLException if an XML-related exception occurs.
+		 */
+		void parseRun( final int start, final int end )
+		throws IOException, XMLException
+		{
+			final List<T> records = parseChunks( start, end );
+			synchronized ( this )
+			{
+				_records.set( start, records );
+				for ( int i = start + 1; i < end; i++ )
+				{
+					_records.set( i, Collections.<T>emptyList() );
+				}
+			}
+
+			final Consumer<? super T> consumer = _consumer;
+			if ( consumer != null )
+			{
+				records.forEach( consumer );
+			}
+		}
+
+		/**
+		 * Parses the given chunks as a whole.
+		 *
+		 * @param start First chunk index.
+		 * @param end   Chunk index after the last chunk.
+		 *
+		 * @return Parsed records.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 * @throws XMLException if an XML-related exception occurs.
+		 */
+		@NotNull
+		private List<T> parseChunks( final int start, final int end )
+		throws IOException, XMLException
+		{
+			final ByteBuffer content = _source.slice( _splits.get( start ), _splits.get( end ) );
+			final ByteBuffer suffix = ByteBuffer.wrap( ( end == size() ) ? new byte[ 0 ] : _suffix );
+			final InputStream in = new ByteBufferInputStream( _prolog.duplicate(), content, suffix );
+
+			final XMLReaderFactory factory = _factory;
+			final XMLReader reader = factory.acquireXMLReader( in, null );
+			final List<T> result = parseRecords( reader );
+			factory.releaseXMLReader( reader );
+			return result;
+		}
+
+		/**
+		 * Passes the records of the given chunk to the consumer, if they are
+		 * valid and were not passed before.
+		 *
+		 * @param chunk Chunk index.
+		 */
+		private void deliver( final int chunk )
+		{
+			final Consumer<? super T> consumer = _consumer;
+			if ( consumer != null )
+			{
+				final List<T> records;
+				synchronized ( this )
+				{
+					if ( !_delivered[ chunk ] && isValid( chunk ) )
+					{
+						_delivered[ chunk ] = true;
+						records = _records.get( chunk );
+					}
+					else
+					{
+						records = null;
+					}
+				}
+
+				if ( records != null )
+				{
+					records.forEach( consumer );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Provides random access to the bytes of a document.
+	 */
+	private abstract static class Source
+	{
+		/**
+		 * Returns the size of the document.
+		 *
+		 * @return Size, in bytes.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		abstract long size()
+		throws IOException;
+
+		/**
+		 * Returns a buffer containing the specified part of the document. The
+		 * returned buffer has position zero and is not shared.
+		 *
+		 * @param start Start offset.
+		 * @param end   End offset.
+		 *
+		 * @return Buffer.
+		 *
+		 * @throws IOException if an I/O error occurs.
+		 */
+		@NotNull
+		abstract ByteBuffer slice( long start, long end )
+		throws IOException;
+	}
+
+	/**
+	 * Document contained in a byte buffer.
+	 */
+	private static class BufferSource
+	extends Source
+	{
+		/**
+		 * Buffer containing the document.
+		 */
+		@NotNull
+		private final ByteBuffer _buffer;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param buffer Buffer containing the document.
+		 */
+		BufferSource( @NotNull final ByteBuffer buffer )
+		{
+			_buffer = buffer.slice();
+		}
+
+		@Override
+		long size()
+		{
+			return _buffer.limit();
+		}
+
+		@NotNull
+		@Override
+		ByteBuffer slice( final long start, final long end )
+		{
+			final ByteBuffer result = _buffer.duplicate();
+			result.limit( (int)end );
+			result.position( (int)start );
+			return result.slice();
+		}
+	}
+
+	/**
+	 * Document contained in a file, which is memory-mapped as needed.
+	 */
+	private static class FileSource
+	extends Source
+	{
+		/**
+		 * File channel to read from.
+		 */
+		@NotNull
+		private final FileChannel _channel;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param channel File channel to read from.
+		 */
+		FileSource( @NotNull final FileChannel channel )
+		{
+			_channel = channel;
+		}
+
+		@Override
+		long size()
+		throws IOException
+		{
+			return _channel.size();
+		}
+
+		@NotNull
+		@Override
+		ByteBuffer slice( final long start, final long end )
+		throws IOException
+		{
+			return _channel.map( FileChannel.MapMode.READ_ONLY, start, end - start );
+		}
+	}
+}
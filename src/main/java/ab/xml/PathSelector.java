@@ -0,0 +1,865 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Selects elements, attributes and text at given paths while streaming
+ * through a document, without building a document tree. Handlers are
+ * registered for paths, after which {@link #select(XMLReader)} reads the
+ * document and calls the handlers for each match. Subtrees that can't contain
+ * any matches are skipped.
+ *
+ * <p>Paths use a small subset of XPath:
+ * <pre>
+ * path      ::= ( '/' step | '//' step )+ ( '/@' name | '/text()' )?
+ * step      ::= ( name | '*' ) predicate*
+ * predicate ::= '[@' name ( '=' literal )? ']'
+ * name      ::= ( '{' namespaceURI? '}' )? localName
+ * </pre>
+ *
+ * <p>A {@code /} step selects child elements and a {@code //} step selects
+ * descendant elements. A name without braces matches elements and attributes
+ * in any namespace; {@code {}name} matches only names without namespace. A
+ * predicate requires the element to have the given attribute, optionally
+ * with the given value, which is a literal in single or double quotes. Paths
+ * ending with an attribute or {@code text()} select the value of the
+ * attribute or the character data directly inside the element, respectively.
+ * For example:
+ * <pre>
+ * /config/database[@type='sql']/@url
+ * //{urn:example}item/text()
+ * </pre>
+ *
+ * <p>All paths are combined into a single automaton, in which paths share
+ * common leading steps. The selector itself is not modified while selecting,
+ * so a configured selector may be used from multiple threads.
+ *
+ * @author G. Meinders
+ */
+public class PathSelector
+{
+	/**
+	 * Handles a selected element.
+	 */
+	public interface ElementHandler
+	{
+		/**
+		 * Handles a selected element. The reader is positioned at the start
+		 * of the element. When this method returns, the reader must be
+		 * positioned at the start of the same element, or at its end, in
+		 * which case any other handlers for the element or its content are
+		 * not called.
+		 *
+		 * @param reader XML reader.
+		 *
+		 * @throws XMLException if an XML-related exception occurs.
+		 */
+		void element( @NotNull XMLReader reader )
+		throws XMLException;
+	}
+
+	/**
+	 * Handles a selected attribute value or character data.
+	 */
+	public interface ValueHandler
+	{
+		/**
+		 * Handles a selected value.
+		 *
+		 * @param value Attribute value or character data.
+		 *
+		 * @throws XMLException if an XML-related exception occurs.
+		 */
+		void value( @NotNull String value )
+		throws XMLException;
+	}
+
+	/**
+	 * Virtual step that precedes the first step of every path.
+	 */
+	@NotNull
+	private final Step _root = new Step( false, false, null, null, Collections.<Predicate>emptyList(), "" );
+
+	/**
+	 * Registers a handler for the elements selected by the given path.
+	 *
+	 * @param path    Path that selects elements.
+	 * @param handler Handler to be called for each selected element.
+	 *
+	 * @throws IllegalArgumentException if the path is invalid or doesn't
+	 * select elements.
+	 */
+	public void addElementHandler( @NotNull final String path, @NotNull final ElementHandler handler )
+	{
+		final PathParser parser = new PathParser( path );
+		final Step step = parser.parseSteps( _root );
+		if ( parser.hasMore() )
+		{
+			throw parser.invalid( "Expected element step" );
+		}
+		step._elementHandlers.add( handler );
+	}
+
+	/**
+	 * Registers a handler for the attribute values or character data
+	 * selected by the given path.
+	 *
+	 * @param path    Path that selects attribute values or character data.
+	 * @param handler Handler to be called for each selected value.
+	 *
+	 * @throws IllegalArgumentException if the path is invalid or doesn't
+	 * select a value.
+	 */
+	public void addValueHandler( @NotNull final String path, @NotNull final ValueHandler handler )
+	{
+		final PathParser parser = new PathParser( path );
+		final Step step = parser.parseSteps( _root );
+		if ( parser.accept( "/text()" ) )
+		{
+			step._textHandlers.add( handler );
+		}
+		else if ( parser.accept( "/@" ) )
+		{
+			final Predicate attribute = new Predicate( parser.parseName( false ), null );
+			step._attributeHandlers.add( new AttributeHandler( attribute, handler ) );
+		}
+		else
+		{
+			throw parser.invalid( "Expected '/@' or '/text()'" );
+		}
+
+		if ( parser.hasMore() )
+		{
+			throw parser.invalid( "Unexpected character" );
+		}
+	}
+
+	/**
+	 * Reads the given document and calls the handlers for all selected
+	 * elements and values, in document order. Reading starts at the current
+	 * event; paths are matched relative to the depth of that event.
+	 * Afterwards, the reader is positioned at the end of the document.
+	 *
+	 * @param reader XML reader to read from.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public void select( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		// Frame 0 is the parent of the outermost element.
+		final List<Frame> frames = new ArrayList<Frame>();
+		final Frame rootFrame = new Frame();
+		rootFrame._candidates.addAll( _root._next );
+		frames.add( rootFrame );
+		int depth = 0;
+
+		final List<Step> matched = new ArrayList<Step>();
+
+		XMLEventType eventType = reader.getEventType();
+		while ( eventType != XMLEventType.END_DOCUMENT )
+		{
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+				{
+					final Frame parent = frames.get( depth );
+					if ( depth + 1 == frames.size() )
+					{
+						frames.add( new Frame() );
+					}
+					final Frame frame = frames.get( depth + 1 );
+					frame.clear();
+
+					matched.clear();
+					for ( final Step step : parent._candidates )
+					{
+						if ( step._descendant )
+						{
+							frame.addCandidate( step );
+						}
+						if ( step.matches( reader ) )
+						{
+							for ( final Step next : step._next )
+							{
+								frame.addCandidate( next );
+							}
+							for ( final AttributeHandler attributeHandler : step._attributeHandlers )
+							{
+								final String value = attributeHandler._attribute.getValue( reader );
+								if ( value != null )
+								{
+									attributeHandler._handler.value( value );
+								}
+							}
+							frame._textHandlers.addAll( step._textHandlers );
+							matched.add( step );
+						}
+					}
+
+					for ( final Step step : matched )
+					{
+						for ( final ElementHandler elementHandler : step._elementHandlers )
+						{
+							if ( reader.getEventType() == XMLEventType.START_ELEMENT )
+							{
+								elementHandler.element( reader );
+							}
+						}
+					}
+
+					if ( reader.getEventType() == XMLEventType.START_ELEMENT )
+					{
+						if ( frame._candidates.isEmpty() && frame._textHandlers.isEmpty() )
+						{
+							reader.skipElement();
+						}
+						else
+						{
+							depth++;
+						}
+					}
+					else if ( reader.getEventType() != XMLEventType.END_ELEMENT )
+					{
+						throw new XMLException( "Element handler must leave the reader at the start or end of the element, but was at " + reader.getEventType() );
+					}
+					break;
+				}
+
+				case END_ELEMENT:
+					if ( depth > 0 )
+					{
+						final Frame frame = frames.get( depth-- );
+						if ( !frame._textHandlers.isEmpty() )
+						{
+							final String text = frame._text.toString();
+							for ( final ValueHandler textHandler : frame._textHandlers )
+							{
+								textHandler.value( text );
+							}
+						}
+					}
+					break;
+
+				case CHARACTERS:
+				{
+					final Frame frame = frames.get( depth );
+					if ( !frame._textHandlers.isEmpty() )
+					{
+						frame._text.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+					}
+					break;
+				}
+			}
+
+			eventType = reader.next();
+		}
+	}
+
+	/**
+	 * Returns whether the given namespace URI matches a name test.
+	 *
+	 * @param anyNamespace Whether any namespace matches.
+	 * @param namespaceURI Namespace URI of the name test; {@code null} for no
+	 *                     namespace.
+	 * @param actual       Actual namespace URI; {@code null} or empty for no
+	 *                     namespace.
+	 *
+	 * @return {@code true} if the namespace URI matches.
+	 */
+	private static boolean matchesNamespace( final boolean anyNamespace, @Nullable final String namespaceURI, @Nullable final String actual )
+	{
+		final boolean result;
+		if ( anyNamespace )
+		{
+			result = true;
+		}
+		else if ( namespaceURI == null )
+		{
+			result = ( actual == null ) || actual.isEmpty();
+		}
+		else
+		{
+			//noinspection StringEquality
+			result = ( namespaceURI == actual ) || namespaceURI.equals( actual );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given local name matches a name test.
+	 *
+	 * @param localName Local name of the name test.
+	 * @param actual    Actual local name.
+	 *
+	 * @return {@code true} if the local name matches.
+	 */
+	private static boolean matchesLocalName( @NotNull final String localName, @NotNull final String actual )
+	{
+		//noinspection StringEquality
+		return ( localName == actual ) || localName.equals( actual );
+	}
+
+	/**
+	 * Step of a path, which is a state of the automaton.
+	 */
+	private static class Step
+	{
+		/**
+		 * Whether the step selects descendants, instead of only children.
+		 */
+		private final boolean _descendant;
+
+		/**
+		 * Whether elements in any namespace match.
+		 */
+		private final boolean _anyNamespace;
+
+		/**
+		 * Namespace URI of matching elements.
+		 */
+		@Nullable
+		private final String _namespaceURI;
+
+		/**
+		 * Local name of matching elements; {@code null} to match any name.
+		 */
+		@Nullable
+		private final String _localName;
+
+		/**
+		 * Attributes that matching elements must have.
+		 */
+		@NotNull
+		private final List<Predicate> _predicates;
+
+		/**
+		 * Canonical representation of the step, used to combine equal steps
+		 * of different paths.
+		 */
+		@NotNull
+		private final String _key;
+
+		/**
+		 * Steps that follow this step.
+		 */
+		@NotNull
+		private final List<Step> _next = new ArrayList<Step>();
+
+		/**
+		 * Handlers for elements matched by this step.
+		 */
+		@NotNull
+		private final List<ElementHandler> _elementHandlers = new ArrayList<ElementHandler>();
+
+		/**
+		 * Handlers for attributes of elements matched by this step.
+		 */
+		@NotNull
+		private final List<AttributeHandler> _attributeHandlers = new ArrayList<AttributeHandler>();
+
+		/**
+		 * Handlers for character data of elements matched by this step.
+		 */
+		@NotNull
+		private final List<ValueHandler> _textHandlers = new ArrayList<ValueHandler>();
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param descendant   Whether the step selects descendants.
+		 * @param anyNamespace Whether elements in any namespace match.
+		 * @param namespaceURI Namespace URI of matching elements.
+		 * @param localName    Local name of matching elements; {@code null}
+		 *                     to match any name.
+		 * @param predicates   Attributes that matching elements must have.
+		 * @param key          Canonical representation of the step.
+		 */
+		Step( final boolean descendant, final boolean anyNamespace, @Nullable final String namespaceURI, @Nullable final String localName, @NotNull final List<Predicate> predicates, @NotNull final String key )
+		{
+			_descendant = descendant;
+			_anyNamespace = anyNamespace;
+			_namespaceURI = namespaceURI;
+			_localName = localName;
+			_predicates = predicates;
+			_key = key;
+		}
+
+		/**
+		 * Returns whether the current element matches this step.
+		 *
+		 * @param reader XML reader.
+		 *
+		 * @return {@code true} if the element matches.
+		 */
+		boolean matches( @NotNull final XMLReader reader )
+		{
+			final String localName = _localName;
+			boolean result = ( ( localName == null ) || matchesLocalName( localName, reader.getLocalName() ) ) &&
+			                 matchesNamespace( _anyNamespace, _namespaceURI, reader.getNamespaceURI() );
+
+			for ( int i = 0; result && ( i < _predicates.size() ); i++ )
+			{
+				result = _predicates.get( i ).matches( reader );
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Attribute test.
+	 */
+	private static class Predicate
+	{
+		/**
+		 * Name of the attribute.
+		 */
+		@NotNull
+		private final Name _name;
+
+		/**
+		 * Required value; {@code null} if any value matches.
+		 */
+		@Nullable
+		private final String _value;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param name  Name of the attribute.
+		 * @param value Required value; {@code null} if any value matches.
+		 */
+		Predicate( @NotNull final Name name, @Nullable final String value )
+		{
+			_name = name;
+			_value = value;
+		}
+
+		/**
+		 * Returns whether the current element has a matching attribute.
+		 *
+		 * @param reader XML reader.
+		 *
+		 * @return {@code true} if the attribute matches.
+		 */
+		boolean matches( @NotNull final XMLReader reader )
+		{
+			final String value = getValue( reader );
+			return ( value != null ) && ( ( _value == null ) || _value.equals( value ) );
+		}
+
+		/**
+		 * Returns the value of the attribute of the current element.
+		 *
+		 * @param reader XML reader.
+		 *
+		 * @return Attribute value; {@code null} if the element has no such
+		 * attribute.
+		 */
+		@Nullable
+		String getValue( @NotNull final XMLReader reader )
+		{
+			final Name name = _name;
+			String result = null;
+			for ( int i = 0, count = reader.getAttributeCount(); i < count; i++ )
+			{
+				if ( matchesLocalName( name._localName, reader.getAttributeLocalName( i ) ) &&
+				     matchesNamespace( name._anyNamespace, name._namespaceURI, reader.getAttributeNamespaceURI( i ) ) )
+				{
+					result = reader.getAttributeValue( i );
+					break;
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Name test.
+	 */
+	private static class Name
+	{
+		/**
+		 * Whether names in any namespace match.
+		 */
+		private final boolean _anyNamespace;
+
+		/**
+		 * Namespace URI; {@code null} for no namespace.
+		 */
+		@Nullable
+		private final String _namespaceURI;
+
+		/**
+		 * Local name; {@code null} to match any name.
+		 */
+		private final String _localName;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param anyNamespace Whether names in any namespace match.
+		 * @param namespaceURI Namespace URI; {@code null} for no namespace.
+		 * @param localName    Local name; {@code null} to match any name.
+		 */
+		Name( final boolean anyNamespace, @Nullable final String namespaceURI, final String localName )
+		{
+			_anyNamespace = anyNamespace;
+			_namespaceURI = namespaceURI;
+			_localName = localName;
+		}
+
+		@Override
+		public String toString()
+		{
+			return ( _anyNamespace ? "" : '{' + ( _namespaceURI == null ? "" : _namespaceURI ) + '}' ) + ( _localName == null ? "*" : _localName );
+		}
+	}
+
+	/**
+	 * Handler for an attribute value.
+	 */
+	private static class AttributeHandler
+	{
+		/**
+		 * Selected attribute.
+		 */
+		@NotNull
+		private final Predicate _attribute;
+
+		/**
+		 * Handler for the attribute value.
+		 */
+		@NotNull
+		private final ValueHandler _handler;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param attribute Selected attribute.
+		 * @param handler   Handler for the attribute value.
+		 */
+		AttributeHandler( @NotNull final Predicate attribute, @NotNull final ValueHandler handler )
+		{
+			_attribute = attribute;
+			_handler = handler;
+		}
+	}
+
+	/**
+	 * State of the automaton for an open element.
+	 */
+	private static class Frame
+	{
+		/**
+		 * Steps that may match child elements.
+		 */
+		@NotNull
+		private final List<Step> _candidates = new ArrayList<Step>();
+
+		/**
+		 * Handlers for the character data of the element.
+		 */
+		@NotNull
+		private final List<ValueHandler> _textHandlers = new ArrayList<ValueHandler>();
+
+		/**
+		 * Character data of the element, if there are text handlers.
+		 */
+		@NotNull
+		private final StringBuilder _text = new StringBuilder();
+
+		/**
+		 * Clears the frame for reuse.
+		 */
+		void clear()
+		{
+			_candidates.clear();
+			_textHandlers.clear();
+			_text.setLength( 0 );
+		}
+
+		/**
+		 * Adds a step that may match child elements, unless already added.
+		 *
+		 * @param step Step to add.
+		 */
+		void addCandidate( @NotNull final Step step )
+		{
+			if ( !_candidates.contains( step ) )
+			{
+				_candidates.add( step );
+			}
+		}
+	}
+
+	/**
+	 * Parses path expressions.
+	 */
+	private static class PathParser
+	{
+		/**
+		 * Path being parsed.
+		 */
+		@NotNull
+		private final String _path;
+
+		/**
+		 * Current position.
+		 */
+		private int _position = 0;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param path Path to parse.
+		 */
+		PathParser( @NotNull final String path )
+		{
+			_path = path;
+		}
+
+		/**
+		 * Parses element steps, adding them to the automaton.
+		 *
+		 * @param root Virtual root step.
+		 *
+		 * @return Last step.
+		 */
+		@NotNull
+		Step parseSteps( @NotNull final Step root )
+		{
+			Step result = root;
+			do
+			{
+				final boolean descendant;
+				if ( accept( "//" ) )
+				{
+					descendant = true;
+				}
+				else if ( accept( "/" ) )
+				{
+					descendant = false;
+				}
+				else
+				{
+					throw invalid( "Expected '/' or '//'" );
+				}
+
+				result = addStep( result, parseStep( descendant ) );
+			}
+			while ( hasMore() && !_path.startsWith( "/@", _position ) && !_path.startsWith( "/text()", _position ) );
+
+			return result;
+		}
+
+		/**
+		 * Parses a single element step.
+		 *
+		 * @param descendant Whether the step selects descendants.
+		 *
+		 * @return Parsed step.
+		 */
+		@NotNull
+		private Step parseStep( final boolean descendant )
+		{
+			final Name name = parseName( true );
+
+			final List<Predicate> predicates = new ArrayList<Predicate>();
+			final StringBuilder key = new StringBuilder( descendant ? "//" : "/" ).append( name );
+			while ( accept( "[@" ) )
+			{
+				final Name attributeName = parseName( false );
+				String value = null;
+				if ( accept( "=" ) )
+				{
+					value = parseLiteral();
+				}
+				if ( !accept( "]" ) )
+				{
+					throw invalid( "Expected ']'" );
+				}
+				predicates.add( new Predicate( attributeName, value ) );
+				key.append( "[@" ).append( attributeName );
+				if ( value != null )
+				{
+					key.append( "='" ).append( value ).append( '\'' );
+				}
+				key.append( ']' );
+			}
+
+			return new Step( descendant, name._anyNamespace, name._namespaceURI, name._localName, predicates, key.toString() );
+		}
+
+		/**
+		 * Adds a step after the given step, or returns an equal step that was
+		 * added before.
+		 *
+		 * @param previous Previous step.
+		 * @param step     Step to add.
+		 *
+		 * @return Added or existing step.
+		 */
+		@NotNull
+		private static Step addStep( @NotNull final Step previous, @NotNull final Step step )
+		{
+			Step result = null;
+			for ( final Step next : previous._next )
+			{
+				if ( next._key.equals( step._key ) )
+				{
+					result = next;
+					break;
+				}
+			}
+			if ( result == null )
+			{
+				previous._next.add( step );
+				result = step;
+			}
+			return result;
+		}
+
+		/**
+		 * Parses a name test.
+		 *
+		 * @param allowWildcard Whether to allow {@code *} to match any name.
+		 *
+		 * @return Name test.
+		 */
+		@NotNull
+		Name parseName( final boolean allowWildcard )
+		{
+			boolean anyNamespace = true;
+			String namespaceURI = null;
+			if ( accept( "{" ) )
+			{
+				final int end = _path.indexOf( '}', _position );
+				if ( end < 0 )
+				{
+					throw invalid( "Expected '}'" );
+				}
+				anyNamespace = false;
+				namespaceURI = ( end == _position ) ? null : _path.substring( _position, end );
+				_position = end + 1;
+			}
+
+			final String localName;
+			if ( allowWildcard && accept( "*" ) )
+			{
+				localName = null;
+			}
+			else
+			{
+				final int start = _position;
+				while ( ( _position < _path.length() ) && isNameChar( _path.charAt( _position ) ) )
+				{
+					_position++;
+				}
+				if ( _position == start )
+				{
+					throw invalid( "Expected name" );
+				}
+				localName = _path.substring( start, _position ).intern();
+			}
+
+			return new Name( anyNamespace, namespaceURI, localName );
+		}
+
+		/**
+		 * Parses a literal in single or double quotes.
+		 *
+		 * @return Value of the literal.
+		 */
+		@NotNull
+		private String parseLiteral()
+		{
+			final char quote = hasMore() ? _path.charAt( _position ) : 0;
+			if ( ( quote != '\'' ) && ( quote != '"' ) )
+			{
+				throw invalid( "Expected literal" );
+			}
+			final int end = _path.indexOf( quote, _position + 1 );
+			if ( end < 0 )
+			{
+				throw invalid( "Unterminated literal" );
+			}
+			final String result = _path.substring( _position + 1, end );
+			_position = end + 1;
+			return result;
+		}
+
+		/**
+		 * Returns whether the given character may be part of a local name.
+		 *
+		 * @param c Character.
+		 *
+		 * @return {@code true} if the character may be part of a name.
+		 */
+		private static boolean isNameChar( final char c )
+		{
+			return Character.isLetterOrDigit( c ) || ( c == '_' ) || ( c == '-' ) || ( c == '.' ) || ( c > 0x7f );
+		}
+
+		/**
+		 * Skips the given token if it is next.
+		 *
+		 * @param token Token to accept.
+		 *
+		 * @return {@code true} if the token was skipped.
+		 */
+		boolean accept( @NotNull final String token )
+		{
+			final boolean result = _path.startsWith( token, _position );
+			if ( result )
+			{
+				_position += token.length();
+			}
+			return result;
+		}
+
+		/**
+		 * Returns whether there are characters left to parse.
+		 *
+		 * @return {@code true} if there are characters left.
+		 */
+		boolean hasMore()
+		{
+			return _position < _path.length();
+		}
+
+		/**
+		 * Creates an exception for an invalid path.
+		 *
+		 * @param message Description of the problem.
+		 *
+		 * @return Exception.
+		 */
+		@NotNull
+		IllegalArgumentException invalid( @NotNull final String message )
+		{
+			return new IllegalArgumentException( message + " at position " + _position + " of path: " + _path );
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package ab.xml;
 
+import java.io.*;
 import javax.xml.stream.*;
 
 import org.jetbrains.annotations.*;
@@ -30,10 +31,17 @@ import org.jetbrains.annotations.*;
 class StaxReader
 implements XMLReader
 {
+	/**
+	 * Factory used to create StAX readers.
+	 */
+	@NotNull
+	private final XMLInputFactory _factory;
+
 	/**
 	 * StAX reader to be used.
 	 */
-	private final XMLStreamReader _reader;
+	@NotNull
+	private XMLStreamReader _reader;
 
 	/**
 	 * Event type returned by the last call to {@link #next()}.
@@ -41,15 +49,31 @@ implements XMLReader
 	@NotNull
 	private XMLEventType _eventType;
 
+	/**
+	 * Provides canonical names.
+	 */
+	@NotNull
+	private final NameTable _names;
+
+	/**
+	 * Index used to look up attributes of elements with many attributes.
+	 */
+	@NotNull
+	private final AttributeIndex _attributeIndex;
+
 	/**
 	 * Constructs a new instance.
 	 *
-	 * @param reader StAX reader to be used.
+	 * @param factory Factory used to create StAX readers.
+	 * @param reader  StAX reader to be used.
 	 */
-	StaxReader( final XMLStreamReader reader )
+	StaxReader( @NotNull final XMLInputFactory factory, @NotNull final XMLStreamReader reader )
 	{
+		_factory = factory;
 		_reader = reader;
 		_eventType = XMLEventType.START_DOCUMENT;
+		_names = new NameTable();
+		_attributeIndex = new AttributeIndex();
 	}
 
 	@Override
@@ -163,10 +187,72 @@ implements XMLReader
 		while ( result == null );
 
 		_eventType = result;
+		_attributeIndex.clear();
 
 		return result;
 	}
 
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		final XMLStreamReader reader = _reader;
+		try
+		{
+			int depth = 1;
+			while ( depth > 0 )
+			{
+				switch ( reader.next() )
+				{
+					case XMLStreamConstants.START_ELEMENT:
+						depth++;
+						break;
+
+					case XMLStreamConstants.END_ELEMENT:
+						depth--;
+						break;
+
+					case XMLStreamConstants.END_DOCUMENT:
+						throw new XMLException( "Unexpected end of document." );
+				}
+			}
+		}
+		catch ( final XMLStreamException e )
+		{
+			throw new XMLException( e );
+		}
+
+		_eventType = XMLEventType.END_ELEMENT;
+		_attributeIndex.clear();
+	}
+
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		// StAX readers can't be reused, so only our own state is retained.
+		final XMLStreamReader reader;
+		try
+		{
+			_reader.close();
+			reader = _factory.createXMLStreamReader( in, encoding );
+		}
+		catch ( final XMLStreamException e )
+		{
+			throw new XMLException( e );
+		}
+
+		_reader = reader;
+		_eventType = XMLEventType.START_DOCUMENT;
+		_attributeIndex.clear();
+		_names.trim();
+	}
+
 	@Override
 	public String getNamespaceURI()
 	{
@@ -177,7 +263,7 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + eventType );
 		}
 
-		return _reader.getNamespaceURI();
+		return _names.getName( _reader.getNamespaceURI() );
 	}
 
 	@Override
@@ -191,7 +277,7 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + eventType );
 		}
 
-		return _reader.getLocalName();
+		return _names.getName( _reader.getLocalName() );
 	}
 
 	@Override
@@ -220,7 +306,7 @@ implements XMLReader
 			throw new IndexOutOfBoundsException( index + " (attributeCount: " + getAttributeCount() + ')' );
 		}
 
-		return _reader.getAttributeNamespace( index );
+		return _names.getName( _reader.getAttributeNamespace( index ) );
 	}
 
 	@Override
@@ -238,7 +324,7 @@ implements XMLReader
 			throw new IndexOutOfBoundsException( index + " (attributeCount: " + getAttributeCount() + ')' );
 		}
 
-		return _reader.getAttributeLocalName( index );
+		return _names.getName( _reader.getAttributeLocalName( index ) );
 	}
 
 	@Override
@@ -271,12 +357,23 @@ implements XMLReader
 		String result = null;
 
 		final int attributeCount = _reader.getAttributeCount();
-		for ( int i = 0; i < attributeCount; i++ )
+		if ( attributeCount > AttributeIndex.THRESHOLD )
 		{
-			if ( localName.equals( _reader.getAttributeLocalName( i ) ) )
+			final int index = getAttributeIndex().indexOf( localName );
+			if ( index >= 0 )
 			{
-				result = _reader.getAttributeValue( i );
-				break;
+				result = _reader.getAttributeValue( index );
+			}
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				if ( localName.equals( _reader.getAttributeLocalName( i ) ) )
+				{
+					result = _reader.getAttributeValue( i );
+					break;
+				}
 			}
 		}
 
@@ -292,7 +389,54 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + eventType );
 		}
 
-		return _reader.getAttributeValue( namespaceURI, localName );
+		String result = null;
+
+		// Not delegated, since StAX matches any namespace if none is specified.
+		final int attributeCount = _reader.getAttributeCount();
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			final int index = getAttributeIndex().indexOf( namespaceURI, localName );
+			if ( index >= 0 )
+			{
+				result = _reader.getAttributeValue( index );
+			}
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				if ( localName.equals( _reader.getAttributeLocalName( i ) ) && AttributeIndex.isSameNamespace( namespaceURI, _reader.getAttributeNamespace( i ) ) )
+				{
+					result = _reader.getAttributeValue( i );
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the attribute index for the current element, building it if
+	 * needed.
+	 *
+	 * @return Attribute index.
+	 */
+	@NotNull
+	private AttributeIndex getAttributeIndex()
+	{
+		final AttributeIndex result = _attributeIndex;
+		if ( !result.isBuilt() )
+		{
+			final XMLStreamReader reader = _reader;
+			final int attributeCount = reader.getAttributeCount();
+			result.reset( attributeCount );
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				result.set( i, reader.getAttributeNamespace( i ), reader.getAttributeLocalName( i ) );
+			}
+		}
+		return result;
 	}
 
 	@Override
@@ -307,6 +451,40 @@ implements XMLReader
 		return _reader.getText();
 	}
 
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _reader.getTextCharacters();
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _reader.getTextStart();
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _reader.getTextLength();
+	}
+
 	@Override
 	@NotNull
 	public String getPITarget()
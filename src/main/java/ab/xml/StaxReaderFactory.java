@@ -19,6 +19,7 @@
 package ab.xml;
 
 import java.io.*;
+import java.util.concurrent.atomic.*;
 import javax.xml.stream.*;
 
 import org.jetbrains.annotations.*;
@@ -28,14 +29,24 @@ import org.jetbrains.annotations.*;
  *
  * @author G. Meinders
  */
-class StaxReaderFactory
+public class StaxReaderFactory
 extends XMLReaderFactory
 {
+	/**
+	 * Whether a warning about the StAX implementation was printed.
+	 */
+	private static final AtomicBoolean WARNED = new AtomicBoolean();
+
 	/**
 	 * Factory used to create StAX readers.
 	 */
 	private final XMLInputFactory _factory;
 
+	/**
+	 * Whether {@link #_factory} is the recommended implementation.
+	 */
+	private final boolean _recommended;
+
 	/**
 	 * Constructs a new instance.
 	 */
@@ -44,6 +55,7 @@ extends XMLReaderFactory
 		try
 		{
 			XMLInputFactory factory;
+			boolean recommended = true;
 			try
 			{
 				// NOTE: For OpenJDK, this requires a file 'META-INF/services/com.sun.xml.internal.stream.XMLInputFactoryImpl' containing the factory class name.
@@ -52,7 +64,7 @@ extends XMLReaderFactory
 			catch ( final FactoryConfigurationError ignored )
 			{
 				factory = XMLInputFactory.newFactory();
-				System.err.println( getClass().getName() + ": Using StAX factory class " + factory.getClass().getName() + ", which is not the recommended implementation." );
+				recommended = false;
 			}
 
 			factory.setProperty( XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE );
@@ -60,6 +72,7 @@ extends XMLReaderFactory
 			factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
 
 			_factory = factory;
+			_recommended = recommended;
 		}
 		catch ( final FactoryConfigurationError e )
 		{
@@ -67,21 +80,47 @@ extends XMLReaderFactory
 		}
 	}
 
+	/**
+	 * Constructs a new instance that uses the given StAX factory.
+	 *
+	 * @param factory     Factory used to create StAX readers.
+	 * @param recommended Whether the factory is the recommended
+	 *                    implementation.
+	 */
+	private StaxReaderFactory( @NotNull final XMLInputFactory factory, final boolean recommended )
+	{
+		_factory = factory;
+		_recommended = recommended;
+	}
+
+	@Override
+	@NotNull
+	protected XMLReaderFactory newFactory()
+	{
+		return new StaxReaderFactory( _factory, _recommended );
+	}
+
 	@Override
 	public XMLReader createXMLReader( @NotNull final InputStream in, final String encoding )
 	throws XMLException
 	{
+		// Warn when actually used, not when discovered as one of the available factories.
+		if ( !_recommended && WARNED.compareAndSet( false, true ) )
+		{
+			System.err.println( getClass().getName() + ": Using StAX factory class " + _factory.getClass().getName() + ", which is not the recommended implementation." );
+		}
+
 		final XMLStreamReader reader;
 		try
 		{
 			final XMLInputFactory factory = _factory;
-			reader = factory.createXMLStreamReader( in, encoding );
+			reader = factory.createXMLStreamReader( CompressedInput.openStream( in ), encoding );
 		}
 		catch ( final XMLStreamException e )
 		{
 			throw new XMLException( e );
 		}
 
-		return new StaxReader( reader );
+		return new StaxReader( _factory, reader );
 	}
 }
@@ -26,7 +26,7 @@ import javax.xml.stream.*;
  *
  * @author G. Meinders
  */
-class StaxWriterFactory
+public class StaxWriterFactory
 extends XMLWriterFactory
 {
 	/**
@@ -49,6 +49,22 @@ extends XMLWriterFactory
 		}
 	}
 
+	/**
+	 * Constructs a new instance that uses the given StAX factory.
+	 *
+	 * @param factory Factory used to create StAX writers.
+	 */
+	private StaxWriterFactory( final XMLOutputFactory factory )
+	{
+		_factory = factory;
+	}
+
+	@Override
+	protected XMLWriterFactory newFactory()
+	{
+		return new StaxWriterFactory( _factory );
+	}
+
 	@Override
 	public XMLWriter createXMLWriter( final OutputStream out, final String encoding )
 	throws XMLException
@@ -0,0 +1,493 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Parses primitive values directly from character arrays, without creating
+ * strings. Numbers are parsed with the same semantics as the corresponding
+ * methods of {@link Integer}, {@link Long}, {@link Double} and {@link Float};
+ * values that are not handled by the fast paths in this class are passed to
+ * those methods.
+ *
+ * @author G. Meinders
+ */
+final class TextParser
+{
+	/**
+	 * Powers of ten that are exactly representable as a double.
+	 */
+	private static final double[] DOUBLE_POWERS_OF_TEN = {
+	1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+	1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Powers of ten that are exactly representable as a float.
+	 */
+	private static final float[] FLOAT_POWERS_OF_TEN = {
+	1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+	};
+
+	/**
+	 * Number of bits used for the significand of a packed decimal.
+	 */
+	private static final int SIGNIFICAND_BITS = 50;
+
+	/**
+	 * Mask for the significand of a packed decimal.
+	 */
+	private static final long SIGNIFICAND_MASK = ( 1L << SIGNIFICAND_BITS ) - 1;
+
+	/**
+	 * Bias added to the exponent of a packed decimal.
+	 */
+	private static final int EXPONENT_BIAS = 512;
+
+	/**
+	 * Sign bit of a packed decimal.
+	 */
+	private static final long NEGATIVE_BIT = 1L << 60;
+
+	/**
+	 * Utility class.
+	 */
+	private TextParser()
+	{
+	}
+
+	/**
+	 * Parses an integer, like {@link Integer#parseInt(String)}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws NumberFormatException if the characters are not a valid integer.
+	 */
+	static int parseInt( @NotNull final char[] chars, final int start, final int end )
+	{
+		final long result = parseLong( chars, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE );
+		return (int)result;
+	}
+
+	/**
+	 * Parses a long integer, like {@link Long#parseLong(String)}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws NumberFormatException if the characters are not a valid long.
+	 */
+	static long parseLong( @NotNull final char[] chars, final int start, final int end )
+	{
+		return parseLong( chars, start, end, Long.MIN_VALUE, Long.MAX_VALUE );
+	}
+
+	/**
+	 * Parses an integer within the given range.
+	 *
+	 * @param chars    Characters to parse.
+	 * @param start    Start index.
+	 * @param end      End index.
+	 * @param minimum  Minimum value.
+	 * @param maximum  Maximum value.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws NumberFormatException if the characters are not a valid integer
+	 * in the given range.
+	 */
+	private static long parseLong( @NotNull final char[] chars, final int start, final int end, final long minimum, final long maximum )
+	{
+		int i = start;
+		boolean negative = false;
+		if ( i < end )
+		{
+			final char first = chars[ i ];
+			if ( ( first == '-' ) || ( first == '+' ) )
+			{
+				negative = ( first == '-' );
+				i++;
+			}
+		}
+
+		if ( i == end )
+		{
+			throw numberFormatException( chars, start, end );
+		}
+
+		// Accumulate negatively, since the negative range is larger.
+		final long limit = negative ? minimum : -maximum;
+		final long multiplicationLimit = limit / 10;
+		long result = 0;
+		for ( ; i < end; i++ )
+		{
+			final char c = chars[ i ];
+			final int digit = c - '0';
+			if ( ( digit < 0 ) || ( digit > 9 ) )
+			{
+				if ( c < 128 )
+				{
+					throw numberFormatException( chars, start, end );
+				}
+
+				// Let the JDK handle non-ASCII digits.
+				final String value = new String( chars, start, end - start );
+				result = -( ( maximum == Integer.MAX_VALUE ) ? Integer.parseInt( value ) : Long.parseLong( value ) );
+				negative = false;
+				break;
+			}
+
+			if ( ( result < multiplicationLimit ) || ( result * 10 < limit + digit ) )
+			{
+				throw numberFormatException( chars, start, end );
+			}
+			result = result * 10 - digit;
+		}
+
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Creates an exception for an invalid number.
+	 *
+	 * @param chars Characters that were parsed.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private static NumberFormatException numberFormatException( @NotNull final char[] chars, final int start, final int end )
+	{
+		return new NumberFormatException( "For input string: \"" + new String( chars, start, end - start ) + '"' );
+	}
+
+	/**
+	 * Parses a double, like {@link Double#parseDouble(String)}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws NumberFormatException if the characters are not a valid double.
+	 */
+	static double parseDouble( @NotNull final char[] chars, final int start, final int end )
+	{
+		final long decimal = parseSimpleDecimal( chars, start, end, 15, 22 );
+		final double result;
+		if ( decimal >= 0 )
+		{
+			// Both operands are exact, so the result is correctly rounded.
+			final double significand = (double)( decimal & SIGNIFICAND_MASK );
+			final int exponent = getExponent( decimal );
+			final double value = ( exponent < 0 ) ? significand / DOUBLE_POWERS_OF_TEN[ -exponent ] : significand * DOUBLE_POWERS_OF_TEN[ exponent ];
+			result = ( ( decimal & NEGATIVE_BIT ) != 0 ) ? -value : value;
+		}
+		else
+		{
+			result = Double.parseDouble( new String( chars, start, end - start ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a float, like {@link Float#parseFloat(String)}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws NumberFormatException if the characters are not a valid float.
+	 */
+	static float parseFloat( @NotNull final char[] chars, final int start, final int end )
+	{
+		final long decimal = parseSimpleDecimal( chars, start, end, 7, 10 );
+		final float result;
+		if ( decimal >= 0 )
+		{
+			// Both operands are exact, so the result is correctly rounded.
+			final float significand = (float)( decimal & SIGNIFICAND_MASK );
+			final int exponent = getExponent( decimal );
+			final float value = ( exponent < 0 ) ? significand / FLOAT_POWERS_OF_TEN[ -exponent ] : significand * FLOAT_POWERS_OF_TEN[ exponent ];
+			result = ( ( decimal & NEGATIVE_BIT ) != 0 ) ? -value : value;
+		}
+		else
+		{
+			result = Float.parseFloat( new String( chars, start, end - start ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a boolean, as defined for the XML Schema {@code boolean} data
+	 * type: {@code true}, {@code false}, {@code 1} or {@code 0}, optionally
+	 * surrounded by whitespace.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws IllegalArgumentException if the characters are not a valid
+	 * boolean.
+	 */
+	static boolean parseBoolean( @NotNull final char[] chars, final int start, final int end )
+	{
+		int from = start;
+		int to = end;
+		while ( ( from < to ) && isWhitespace( chars[ from ] ) )
+		{
+			from++;
+		}
+		while ( ( to > from ) && isWhitespace( chars[ to - 1 ] ) )
+		{
+			to--;
+		}
+
+		final boolean result;
+		if ( matches( chars, from, to, "true" ) || matches( chars, from, to, "1" ) )
+		{
+			result = true;
+		}
+		else if ( matches( chars, from, to, "false" ) || matches( chars, from, to, "0" ) )
+		{
+			result = false;
+		}
+		else
+		{
+			throw new IllegalArgumentException( "Invalid boolean: " + new String( chars, start, end - start ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a boolean, as defined for the XML Schema {@code boolean} data
+	 * type.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value.
+	 *
+	 * @throws IllegalArgumentException if the value is not a valid boolean.
+	 * @see #parseBoolean(char[], int, int)
+	 */
+	static boolean parseBoolean( @NotNull final String value )
+	{
+		final boolean result;
+		switch ( value.trim() )
+		{
+			case "true":
+			case "1":
+				result = true;
+				break;
+
+			case "false":
+			case "0":
+				result = false;
+				break;
+
+			default:
+				throw new IllegalArgumentException( "Invalid boolean: " + value );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the exception thrown when an attribute value can't be parsed as
+	 * the requested type.
+	 *
+	 * @param localName Local name of the attribute.
+	 * @param value     Attribute value.
+	 *
+	 * @return Exception to be thrown.
+	 */
+	@NotNull
+	static XMLException invalidAttributeValue( @NotNull final String localName, @NotNull final String value )
+	{
+		return new XMLException( "Invalid value for attribute '" + localName + "': " + value );
+	}
+
+	/**
+	 * Returns whether the given characters are equal to a string.
+	 *
+	 * @param chars    Characters to compare.
+	 * @param start    Start index.
+	 * @param end      End index.
+	 * @param expected Expected characters.
+	 *
+	 * @return {@code true} if the characters are equal.
+	 */
+	private static boolean matches( @NotNull final char[] chars, final int start, final int end, @NotNull final String expected )
+	{
+		boolean result = ( end - start == expected.length() );
+		for ( int i = 0; result && ( i < expected.length() ); i++ )
+		{
+			result = ( chars[ start + i ] == expected.charAt( i ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given character is XML whitespace.
+	 *
+	 * @param c Character to check.
+	 *
+	 * @return {@code true} if the character is whitespace.
+	 */
+	static boolean isWhitespace( final char c )
+	{
+		return ( c == ' ' ) || ( c == '\t' ) || ( c == '\n' ) || ( c == '\r' );
+	}
+
+	/**
+	 * Parses a decimal number in the simple form that is handled by the fast
+	 * paths of {@link #parseDouble} and {@link #parseFloat}: an optional sign,
+	 * digits with an optional decimal point and an optional exponent,
+	 * optionally surrounded by whitespace.
+	 *
+	 * <p>The result is packed into a long: the significand in the lower 50
+	 * bits, the decimal exponent (offset by {@link #EXPONENT_BIAS}) in the
+	 * next 10 bits, and {@link #NEGATIVE_BIT} for negative numbers.
+	 *
+	 * @param chars       Characters to parse.
+	 * @param start       Start index.
+	 * @param end         End index.
+	 * @param maxDigits   Maximum number of significant digits.
+	 * @param maxExponent Maximum absolute value of the decimal exponent.
+	 *
+	 * @return Packed decimal; {@code -1} if the number is not in the simple
+	 * form or exceeds the given limits.
+	 */
+	private static long parseSimpleDecimal( @NotNull final char[] chars, final int start, final int end, final int maxDigits, final int maxExponent )
+	{
+		int i = start;
+		int to = end;
+		while ( ( i < to ) && ( chars[ i ] <= ' ' ) )
+		{
+			i++;
+		}
+		while ( ( to > i ) && ( chars[ to - 1 ] <= ' ' ) )
+		{
+			to--;
+		}
+
+		boolean negative = false;
+		if ( ( i < to ) && ( ( chars[ i ] == '-' ) || ( chars[ i ] == '+' ) ) )
+		{
+			negative = ( chars[ i ] == '-' );
+			i++;
+		}
+
+		boolean valid = false;
+		long significand = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean fraction = false;
+		for ( ; i < to; i++ )
+		{
+			final char c = chars[ i ];
+			if ( ( c >= '0' ) && ( c <= '9' ) )
+			{
+				significand = significand * 10 + ( c - '0' );
+				if ( ( significand != 0 ) && ( ++digits > maxDigits ) )
+				{
+					valid = false;
+					break;
+				}
+				if ( fraction )
+				{
+					exponent--;
+				}
+				valid = true;
+			}
+			else if ( ( c == '.' ) && !fraction )
+			{
+				fraction = true;
+			}
+			else
+			{
+				break;
+			}
+		}
+
+		if ( valid && ( i < to ) && ( ( chars[ i ] == 'e' ) || ( chars[ i ] == 'E' ) ) )
+		{
+			i++;
+			boolean negativeExponent = false;
+			if ( ( i < to ) && ( ( chars[ i ] == '-' ) || ( chars[ i ] == '+' ) ) )
+			{
+				negativeExponent = ( chars[ i ] == '-' );
+				i++;
+			}
+
+			valid = false;
+			int explicitExponent = 0;
+			for ( ; i < to; i++ )
+			{
+				final char c = chars[ i ];
+				if ( ( c < '0' ) || ( c > '9' ) )
+				{
+					break;
+				}
+				valid = true;
+				if ( explicitExponent < 1000 )
+				{
+					explicitExponent = explicitExponent * 10 + ( c - '0' );
+				}
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		final long result;
+		if ( valid && ( i == to ) && ( exponent >= -maxExponent ) && ( exponent <= maxExponent ) )
+		{
+			result = significand | ( (long)( exponent + EXPONENT_BIAS ) << SIGNIFICAND_BITS ) | ( negative ? NEGATIVE_BIT : 0 );
+		}
+		else
+		{
+			result = -1;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the decimal exponent of a packed decimal.
+	 *
+	 * @param decimal Packed decimal.
+	 *
+	 * @return Decimal exponent.
+	 */
+	private static int getExponent( final long decimal )
+	{
+		return (int)( ( decimal >>> SIGNIFICAND_BITS ) & 0x3ff ) - EXPONENT_BIAS;
+	}
+}
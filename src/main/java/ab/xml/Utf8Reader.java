@@ -0,0 +1,2675 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * XML reader implementation that scans the bytes of a document directly,
+ * without the use of a third-party parser or a character decoder. Supported
+ * encodings are UTF-8 (including US-ASCII) and ISO-8859-1.
+ *
+ * <p>Document type declarations are reported, but not processed. As a result,
+ * only the predefined entities and character references are supported.
+ *
+ * @author G. Meinders
+ */
+class Utf8Reader
+implements XMLReader
+{
+	/**
+	 * Namespace URI that is bound to the {@code xml} prefix.
+	 */
+	private static final String XML_NAMESPACE_URI = "http://www.w3.org/XML/1998/namespace";
+
+	/**
+	 * Default size of the input buffer.
+	 */
+	static final int DEFAULT_BUFFER_SIZE = 8192;
+
+	/**
+	 * Start of a comment.
+	 */
+	private static final byte[] COMMENT_START = { '<', '!', '-', '-' };
+
+	/**
+	 * Start of a CDATA section.
+	 */
+	private static final byte[] CDATA_START = { '<', '!', '[', 'C', 'D', 'A', 'T', 'A', '[' };
+
+	/**
+	 * Start of a document type declaration.
+	 */
+	private static final byte[] DOCTYPE_START = { '<', '!', 'D', 'O', 'C', 'T', 'Y', 'P', 'E' };
+
+	/**
+	 * Start of the XML declaration.
+	 */
+	private static final byte[] XML_DECLARATION_START = { '<', '?', 'x', 'm', 'l' };
+
+	/**
+	 * Stream to read from; {@code null} if the entire input is contained in
+	 * {@link #_buffer}.
+	 */
+	@Nullable
+	private InputStream _in;
+
+	/**
+	 * Input buffer.
+	 */
+	@NotNull
+	private byte[] _buffer;
+
+	/**
+	 * Offset of the first byte in {@link #_buffer} from the start of the
+	 * input.
+	 */
+	private long _bufferOffset;
+
+	/**
+	 * Index of the next byte to be scanned in {@link #_buffer}.
+	 */
+	private int _position;
+
+	/**
+	 * Index in {@link #_buffer} after the last byte that was read.
+	 */
+	private int _limit;
+
+	/**
+	 * Index of the first byte in {@link #_buffer} that must be retained when
+	 * more input is read; {@code -1} if no bytes need to be retained.
+	 */
+	private int _mark;
+
+	/**
+	 * Whether the input is encoded using ISO-8859-1 instead of UTF-8.
+	 */
+	private boolean _latin1;
+
+	/**
+	 * Character set used to decode names.
+	 */
+	@NotNull
+	private Charset _charset;
+
+	/**
+	 * Provides canonical names.
+	 */
+	@NotNull
+	private final NameTable _names;
+
+	/**
+	 * Event type returned by the last call to {@link #next()}.
+	 */
+	@NotNull
+	private XMLEventType _eventType;
+
+	/**
+	 * Offset from the start of the input where the current event ends.
+	 */
+	private long _eventEnd;
+
+	/**
+	 * Offset from the start of the input up to which {@link #_lineNumber} and
+	 * {@link #_column} were determined.
+	 */
+	private long _locationOffset;
+
+	/**
+	 * Line number at {@link #_locationOffset}.
+	 */
+	private int _lineNumber;
+
+	/**
+	 * Number of characters on the current line before {@link
+	 * #_locationOffset}.
+	 */
+	private int _column;
+
+	/**
+	 * Whether the root element was started.
+	 */
+	private boolean _rootStarted;
+
+	/**
+	 * Number of elements that are currently open.
+	 */
+	private int _depth;
+
+	/**
+	 * Whether the current start element event was an empty tag, such that an
+	 * end element event should follow immediately.
+	 */
+	private boolean _emptyElement;
+
+	/**
+	 * Symbols representing the qualified names of open elements.
+	 */
+	@NotNull
+	private int[] _elementSymbols;
+
+	/**
+	 * Namespace URIs of open elements.
+	 */
+	@NotNull
+	private String[] _elementNamespaceURIs;
+
+	/**
+	 * Local names of open elements.
+	 */
+	@NotNull
+	private String[] _elementLocalNames;
+
+	/**
+	 * Number of namespace declarations in scope before each open element.
+	 */
+	@NotNull
+	private int[] _elementNamespaceCounts;
+
+	/**
+	 * Namespace URI of the current element.
+	 */
+	@Nullable
+	private String _namespaceURI;
+
+	/**
+	 * Local name of the current element.
+	 */
+	@Nullable
+	private String _localName;
+
+	/**
+	 * Prefixes of namespace declarations in scope. The default namespace has
+	 * an empty prefix.
+	 */
+	@NotNull
+	private String[] _namespacePrefixes;
+
+	/**
+	 * Namespace URIs of namespace declarations in scope. An empty string
+	 * indicates that the default namespace was undeclared.
+	 */
+	@NotNull
+	private String[] _namespaceURIs;
+
+	/**
+	 * Number of namespace declarations in scope.
+	 */
+	private int _namespaceCount;
+
+	/**
+	 * Number of attributes of the current element.
+	 */
+	private int _attributeCount;
+
+	/**
+	 * Symbols representing the qualified names of attributes of the current
+	 * element.
+	 */
+	@NotNull
+	private int[] _attributeSymbols;
+
+	/**
+	 * Namespace URIs of attributes of the current element.
+	 */
+	@NotNull
+	private String[] _attributeNamespaceURIs;
+
+	/**
+	 * Local names of attributes of the current element.
+	 */
+	@NotNull
+	private String[] _attributeLocalNames;
+
+	/**
+	 * Index used to look up attributes of elements with many attributes.
+	 */
+	@NotNull
+	private final AttributeIndex _attributeIndex;
+
+	/**
+	 * Values of attributes of the current element, created as needed from
+	 * {@link #_chars}.
+	 */
+	@NotNull
+	private String[] _attributeValues;
+
+	/**
+	 * Start of each attribute value in {@link #_chars}.
+	 */
+	@NotNull
+	private int[] _attributeValueStarts;
+
+	/**
+	 * End of each attribute value in {@link #_chars}.
+	 */
+	@NotNull
+	private int[] _attributeValueEnds;
+
+	/**
+	 * Decoded characters of the current event. Contains character data or
+	 * attribute values, depending on the event type.
+	 */
+	@NotNull
+	private char[] _chars;
+
+	/**
+	 * Number of characters in {@link #_chars}.
+	 */
+	private int _charsLength;
+
+	/**
+	 * Offset from the start of the input of the current character data.
+	 */
+	private long _textOffset;
+
+	/**
+	 * Whether the current character data consists of the bytes starting at
+	 * {@link #_textOffset}, one byte per character, such that a string can
+	 * be created from the bytes directly.
+	 */
+	private boolean _textContiguous;
+
+	/**
+	 * Decodes ASCII runs in character data. Stops at ']' to detect ']]>' and
+	 * at control characters, which must be tested by the caller.
+	 */
+	@NotNull
+	private final AsciiDecoder _textDecoder = new AsciiDecoder( '<', '&', ']', true );
+
+	/**
+	 * Decodes ASCII runs in CDATA sections.
+	 */
+	@NotNull
+	private final AsciiDecoder _cdataDecoder = new AsciiDecoder( ']', ']', ']', true );
+
+	/**
+	 * Decodes ASCII runs in attribute values delimited by double quotes.
+	 */
+	@NotNull
+	private final AsciiDecoder _doubleQuotedDecoder = new AsciiDecoder( '"', '&', '<', true );
+
+	/**
+	 * Decodes ASCII runs in attribute values delimited by single quotes.
+	 */
+	@NotNull
+	private final AsciiDecoder _singleQuotedDecoder = new AsciiDecoder( '\'', '&', '<', true );
+
+	/**
+	 * Target of the current processing instruction, if any.
+	 */
+	@Nullable
+	private String _piTarget;
+
+	/**
+	 * Data of the current processing instruction, if any.
+	 */
+	@Nullable
+	private String _piData;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param in       Stream to read from.
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	Utf8Reader( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		this( in, encoding, DEFAULT_BUFFER_SIZE );
+	}
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param in         Stream to read from.
+	 * @param encoding   Character encoding; {@code null} to detect
+	 *                   automatically.
+	 * @param bufferSize Initial size of the input buffer.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	Utf8Reader( @NotNull final InputStream in, @Nullable final String encoding, final int bufferSize )
+	throws XMLException
+	{
+		this( in, new byte[ bufferSize ], 0, 0, encoding );
+	}
+
+	/**
+	 * Constructs a new instance that reads directly from the given array. The
+	 * contents of the array must not be modified while the reader is in use.
+	 *
+	 * @param bytes    Array containing the document.
+	 * @param offset   Start index of the document.
+	 * @param length   Length of the document, in bytes.
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	Utf8Reader( @NotNull final byte[] bytes, final int offset, final int length, @Nullable final String encoding )
+	throws XMLException
+	{
+		this( null, bytes, offset, offset + length, encoding );
+	}
+
+	/**
+	 * Constructs a new instance that resumes parsing at the given checkpoint.
+	 *
+	 * @param checkpoint Checkpoint to resume from.
+	 * @param in         Stream to read from, starting at the offset of the
+	 *                   checkpoint.
+	 * @param bufferSize Initial size of the input buffer.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	Utf8Reader( @NotNull final XMLCheckpoint checkpoint, @NotNull final InputStream in, final int bufferSize )
+	throws XMLException
+	{
+		this( in, new byte[ bufferSize ], 0, 0, checkpoint.getEncoding() );
+		resume( checkpoint );
+	}
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param in       Stream to read from; {@code null} if the entire input is
+	 *                 contained in the given buffer.
+	 * @param buffer   Input buffer.
+	 * @param start    Index in the buffer of the start of the input.
+	 * @param limit    Index in the buffer after the last byte of input that is
+	 *                 available.
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	private Utf8Reader( @Nullable final InputStream in, @NotNull final byte[] buffer, final int start, final int limit, @Nullable final String encoding )
+	throws XMLException
+	{
+		_names = new NameTable();
+		_elementSymbols = new int[ 16 ];
+		_elementNamespaceURIs = new String[ 16 ];
+		_elementLocalNames = new String[ 16 ];
+		_elementNamespaceCounts = new int[ 16 ];
+		_namespacePrefixes = new String[ 8 ];
+		_namespaceURIs = new String[ 8 ];
+		_attributeSymbols = new int[ 8 ];
+		_attributeNamespaceURIs = new String[ 8 ];
+		_attributeLocalNames = new String[ 8 ];
+		_attributeIndex = new AttributeIndex();
+		_attributeValues = new String[ 8 ];
+		_attributeValueStarts = new int[ 8 ];
+		_attributeValueEnds = new int[ 8 ];
+		_chars = new char[ 256 ];
+
+		start( in, buffer, start, limit, encoding );
+	}
+
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		try
+		{
+			if ( _emptyElement )
+			{
+				_emptyElement = false;
+				endElement();
+			}
+			else
+			{
+				skipContent();
+			}
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+
+		_eventType = XMLEventType.END_ELEMENT;
+		_eventEnd = _bufferOffset + _position;
+	}
+
+	/**
+	 * Skips the content of the current element, including its end tag. Only
+	 * markup boundaries are scanned; text and attributes are not decoded and
+	 * the names of nested elements are not checked.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void skipContent()
+	throws IOException, XMLException
+	{
+		int depth = 0;
+		while ( true )
+		{
+			if ( !ensure( 2 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte[] buffer = _buffer;
+			final int end = _limit - 1;
+			int position = _position;
+			while ( ( position < end ) && ( buffer[ position ] != '<' ) )
+			{
+				position++;
+			}
+			_position = position;
+
+			if ( position < end )
+			{
+				final byte next = buffer[ position + 1 ];
+				if ( next == '/' )
+				{
+					if ( depth == 0 )
+					{
+						parseEndTag();
+						break;
+					}
+					skipTag();
+					depth--;
+				}
+				else if ( next == '?' )
+				{
+					_position += 2;
+					skipUntil( '?', '>' );
+				}
+				else if ( next == '!' )
+				{
+					if ( startsWith( COMMENT_START ) )
+					{
+						_position += COMMENT_START.length;
+						skipUntil( '-', '-', '>' );
+					}
+					else if ( startsWith( CDATA_START ) )
+					{
+						_position += CDATA_START.length;
+						skipUntil( ']', ']', '>' );
+					}
+					else
+					{
+						throw new XMLException( "Invalid markup at line " + getLineNumber( _bufferOffset + _position ) );
+					}
+				}
+				else if ( !skipTag() )
+				{
+					depth++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Skips a start tag, end tag or empty tag, up to and including the closing
+	 * {@code '>'}.
+	 *
+	 * @return {@code true} if the tag was an empty tag.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private boolean skipTag()
+	throws IOException, XMLException
+	{
+		boolean result = false;
+		byte quote = 0;
+		_position++;
+		while ( true )
+		{
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position++ ];
+			if ( quote != 0 )
+			{
+				if ( b == quote )
+				{
+					quote = 0;
+				}
+			}
+			else if ( ( b == '"' ) || ( b == '\'' ) )
+			{
+				quote = b;
+			}
+			else if ( b == '>' )
+			{
+				break;
+			}
+			else
+			{
+				result = ( b == '/' );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		// The buffer belongs to the caller if the reader was reading an array.
+		final byte[] buffer = ( _in == null ) ? new byte[ DEFAULT_BUFFER_SIZE ] : _buffer;
+		start( in, buffer, 0, 0, encoding );
+	}
+
+	/**
+	 * Starts reading a new document. Any state of a previous document is
+	 * discarded, but allocated buffers and the name table are retained.
+	 *
+	 * @param in       Stream to read from; {@code null} if the entire input is
+	 *                 contained in the given buffer.
+	 * @param buffer   Input buffer.
+	 * @param start    Index in the buffer of the start of the input.
+	 * @param limit    Index in the buffer after the last byte of input that is
+	 *                 available.
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	private void start( @Nullable final InputStream in, @NotNull final byte[] buffer, final int start, final int limit, @Nullable final String encoding )
+	throws XMLException
+	{
+		_in = in;
+		_buffer = buffer;
+		_bufferOffset = -start;
+		_position = start;
+		_limit = limit;
+		_mark = -1;
+		_latin1 = false;
+		_charset = StandardCharsets.UTF_8;
+		_names.trim();
+		_eventType = XMLEventType.START_DOCUMENT;
+		_eventEnd = 0;
+		_locationOffset = 0;
+		_lineNumber = 1;
+		_column = 0;
+		_rootStarted = false;
+		_depth = 0;
+		_emptyElement = false;
+		_namespaceURI = null;
+		_localName = null;
+		_namespaceCount = 0;
+		_attributeCount = 0;
+		_attributeIndex.clear();
+		_charsLength = 0;
+		_piTarget = null;
+		_piData = null;
+
+		try
+		{
+			parseDocumentStart( encoding );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Restores the state of the document at the given checkpoint. The input
+	 * must start at the offset of the checkpoint.
+	 *
+	 * @param checkpoint Checkpoint to resume from.
+	 */
+	private void resume( @NotNull final XMLCheckpoint checkpoint )
+	{
+		final NameTable names = _names;
+		final Charset charset = _charset;
+
+		final long offset = checkpoint.getOffset();
+		_bufferOffset = offset - _position;
+		_eventEnd = offset;
+		_locationOffset = offset;
+		_lineNumber = checkpoint.getLineNumber();
+		_column = checkpoint.getColumn();
+		_rootStarted = true;
+
+		final String[] elementQNames = checkpoint.getElementQNames();
+		final String[] elementNamespaceURIs = checkpoint.getElementNamespaceURIs();
+		final int[] elementNamespaceCounts = checkpoint.getElementNamespaceCounts();
+		final int depth = elementQNames.length;
+		if ( depth > _elementSymbols.length )
+		{
+			_elementSymbols = new int[ depth ];
+			_elementNamespaceURIs = new String[ depth ];
+			_elementLocalNames = new String[ depth ];
+			_elementNamespaceCounts = new int[ depth ];
+		}
+		for ( int i = 0; i < depth; i++ )
+		{
+			final byte[] qName = elementQNames[ i ].getBytes( charset );
+			final int symbol = names.getSymbol( qName, 0, qName.length, charset );
+			_elementSymbols[ i ] = symbol;
+			_elementNamespaceURIs[ i ] = names.getName( elementNamespaceURIs[ i ] );
+			_elementLocalNames[ i ] = names.getLocalName( symbol );
+			_elementNamespaceCounts[ i ] = elementNamespaceCounts[ i ];
+		}
+		_depth = depth;
+
+		final String[] namespacePrefixes = checkpoint.getNamespacePrefixes();
+		final String[] namespaceURIs = checkpoint.getNamespaceURIs();
+		final int namespaceCount = namespacePrefixes.length;
+		if ( namespaceCount > _namespacePrefixes.length )
+		{
+			_namespacePrefixes = new String[ namespaceCount ];
+			_namespaceURIs = new String[ namespaceCount ];
+		}
+		for ( int i = 0; i < namespaceCount; i++ )
+		{
+			_namespacePrefixes[ i ] = names.getName( namespacePrefixes[ i ] );
+			_namespaceURIs[ i ] = names.getName( namespaceURIs[ i ] );
+		}
+		_namespaceCount = namespaceCount;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>The checkpoint is valid for the entire document, also if it was read
+	 * from an array or memory-mapped file. Checkpoints are not available for
+	 * compressed documents, because offsets in the decompressed data can't be
+	 * used to resume parsing.
+	 *
+	 * @throws IllegalStateException if the input is decompressed.
+	 */
+	@Override
+	@NotNull
+	public XMLCheckpoint getCheckpoint()
+	{
+		if ( CompressedInput.isDecompressing( _in ) )
+		{
+			throw new IllegalStateException( "Not allowed for compressed input" );
+		}
+		if ( ( ( _eventType != XMLEventType.START_ELEMENT ) && ( _eventType != XMLEventType.END_ELEMENT ) ) || _emptyElement )
+		{
+			throw new IllegalStateException( "Not allowed for " + ( _emptyElement ? "empty element" : _eventType ) );
+		}
+
+		updateLocation( _eventEnd );
+
+		final int depth = _depth;
+		final String[] elementQNames = new String[ depth ];
+		for ( int i = 0; i < depth; i++ )
+		{
+			elementQNames[ i ] = _names.getQName( _elementSymbols[ i ] );
+		}
+
+		final int namespaceCount = _namespaceCount;
+		return new XMLCheckpoint( _eventEnd, _lineNumber, _column, _charset.name(), elementQNames,
+		                          Arrays.copyOf( _elementNamespaceURIs, depth ), Arrays.copyOf( _elementLocalNames, depth ), Arrays.copyOf( _elementNamespaceCounts, depth ),
+		                          Arrays.copyOf( _namespacePrefixes, namespaceCount ), Arrays.copyOf( _namespaceURIs, namespaceCount ) );
+	}
+
+	/**
+	 * Parses the byte order mark and XML declaration, if present, and
+	 * determines the character encoding of the document.
+	 *
+	 * @param encoding Character encoding; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the encoding is not supported.
+	 */
+	private void parseDocumentStart( @Nullable final String encoding )
+	throws IOException, XMLException
+	{
+		String declaredEncoding = null;
+
+		if ( ensure( 3 ) && ( _buffer[ _position ] == (byte)0xef ) && ( _buffer[ _position + 1 ] == (byte)0xbb ) && ( _buffer[ _position + 2 ] == (byte)0xbf ) )
+		{
+			_position += 3;
+			_locationOffset = 3;
+		}
+		else if ( ensure( 2 ) && ( ( ( _buffer[ _position ] == (byte)0xfe ) && ( _buffer[ _position + 1 ] == (byte)0xff ) ) ||
+		                           ( ( _buffer[ _position ] == (byte)0xff ) && ( _buffer[ _position + 1 ] == (byte)0xfe ) ) ) )
+		{
+			throw new XMLException( "Unsupported encoding: UTF-16" );
+		}
+
+		if ( startsWith( XML_DECLARATION_START ) && ensure( XML_DECLARATION_START.length + 1 ) && isWhitespace( _buffer[ _position + XML_DECLARATION_START.length ] ) )
+		{
+			_position += XML_DECLARATION_START.length;
+			final String declaration = parseUntil( '?', '>', false );
+			declaredEncoding = getPseudoAttribute( declaration, "encoding" );
+		}
+
+		final String effectiveEncoding = ( encoding != null ) ? encoding : declaredEncoding;
+		if ( effectiveEncoding != null )
+		{
+			final Charset charset;
+			try
+			{
+				charset = Charset.forName( effectiveEncoding );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				throw new XMLException( "Unsupported encoding: " + effectiveEncoding, e );
+			}
+
+			if ( StandardCharsets.ISO_8859_1.equals( charset ) )
+			{
+				_latin1 = true;
+				_charset = charset;
+			}
+			else if ( !StandardCharsets.UTF_8.equals( charset ) && !StandardCharsets.US_ASCII.equals( charset ) )
+			{
+				throw new XMLException( "Unsupported encoding: " + effectiveEncoding );
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of a pseudo-attribute from the XML declaration.
+	 *
+	 * @param declaration Content of the XML declaration.
+	 * @param name        Name of the pseudo-attribute.
+	 *
+	 * @return Value of the pseudo-attribute; {@code null} if not specified.
+	 */
+	@Nullable
+	private static String getPseudoAttribute( @NotNull final String declaration, @NotNull final String name )
+	{
+		String result = null;
+
+		final int nameIndex = declaration.indexOf( name );
+		if ( nameIndex >= 0 )
+		{
+			final int equalsIndex = declaration.indexOf( '=', nameIndex + name.length() );
+			if ( equalsIndex >= 0 )
+			{
+				int start = equalsIndex + 1;
+				while ( ( start < declaration.length() ) && ( declaration.charAt( start ) <= ' ' ) )
+				{
+					start++;
+				}
+
+				if ( start < declaration.length() )
+				{
+					final char quote = declaration.charAt( start );
+					final int end = declaration.indexOf( quote, start + 1 );
+					if ( end >= 0 )
+					{
+						result = declaration.substring( start + 1, end );
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType getEventType()
+	{
+		return _eventType;
+	}
+
+	@Override
+	@NotNull
+	public XMLEventType next()
+	throws XMLException
+	{
+		if ( _eventType == XMLEventType.END_DOCUMENT )
+		{
+			throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+		}
+
+		final XMLEventType result;
+
+		try
+		{
+			if ( _emptyElement )
+			{
+				_emptyElement = false;
+				endElement();
+				result = XMLEventType.END_ELEMENT;
+			}
+			else
+			{
+				result = parseEvent();
+			}
+		}
+		catch ( final IOException e )
+		{
+			releaseInput();
+			throw new XMLException( e );
+		}
+		catch ( final XMLException | RuntimeException e )
+		{
+			releaseInput();
+			throw e;
+		}
+
+		if ( result == XMLEventType.END_DOCUMENT )
+		{
+			releaseInput();
+		}
+
+		_eventType = result;
+		_eventEnd = _bufferOffset + _position;
+		return result;
+	}
+
+	/**
+	 * Closes the input if it inflates data in the background, so that no
+	 * read-ahead remains after the document ends or fails to parse. Other
+	 * streams are owned by the caller and are left open.
+	 */
+	private void releaseInput()
+	{
+		final InputStream in = _in;
+		if ( in instanceof ParallelGzipInputStream )
+		{
+			( (ParallelGzipInputStream)in ).close();
+		}
+	}
+
+	/**
+	 * Parses the next event from the input.
+	 *
+	 * @return Event type.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	@NotNull
+	private XMLEventType parseEvent()
+	throws IOException, XMLException
+	{
+		XMLEventType result = null;
+		while ( result == null )
+		{
+			if ( !ensure( 1 ) )
+			{
+				if ( !_rootStarted || ( _depth > 0 ) )
+				{
+					throw new XMLException( "Unexpected end of document." );
+				}
+				result = XMLEventType.END_DOCUMENT;
+			}
+			else if ( _buffer[ _position ] == '<' )
+			{
+				if ( !ensure( 2 ) )
+				{
+					throw new XMLException( "Unexpected end of document." );
+				}
+
+				final byte next = _buffer[ _position + 1 ];
+				if ( next == '/' )
+				{
+					parseEndTag();
+					result = XMLEventType.END_ELEMENT;
+				}
+				else if ( next == '?' )
+				{
+					parseProcessingInstruction();
+					result = XMLEventType.PROCESSING_INSTRUCTION;
+				}
+				else if ( next == '!' )
+				{
+					if ( startsWith( COMMENT_START ) )
+					{
+						_position += COMMENT_START.length;
+						skipUntil( '-', '-', '>' );
+					}
+					else if ( startsWith( CDATA_START ) )
+					{
+						if ( _depth == 0 )
+						{
+							throw new XMLException( "CDATA section not allowed outside of root element." );
+						}
+						parseCharacters();
+						result = XMLEventType.CHARACTERS;
+					}
+					else if ( startsWith( DOCTYPE_START ) )
+					{
+						skipDoctype();
+						result = XMLEventType.DTD;
+					}
+					else
+					{
+						throw new XMLException( "Invalid markup at line " + getLineNumber( _bufferOffset + _position ) );
+					}
+				}
+				else
+				{
+					parseStartTag();
+					result = XMLEventType.START_ELEMENT;
+				}
+			}
+			else if ( _depth == 0 )
+			{
+				if ( !isWhitespace( _buffer[ _position ] ) )
+				{
+					throw new XMLException( "Character data not allowed outside of root element at line " + getLineNumber( _bufferOffset + _position ) );
+				}
+				_position++;
+			}
+			else
+			{
+				parseCharacters();
+				result = XMLEventType.CHARACTERS;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a start tag or empty tag.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseStartTag()
+	throws IOException, XMLException
+	{
+		if ( _rootStarted && ( _depth == 0 ) )
+		{
+			throw new XMLException( "Only one root element is allowed." );
+		}
+		_rootStarted = true;
+
+		_position++;
+		final int symbol = parseSymbol();
+		final NameTable names = _names;
+		final int namespaceCount = _namespaceCount;
+
+		_attributeCount = 0;
+		_attributeIndex.clear();
+		_charsLength = 0;
+
+		while ( true )
+		{
+			skipWhitespace();
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position ];
+			if ( b == '>' )
+			{
+				_position++;
+				break;
+			}
+			else if ( b == '/' )
+			{
+				if ( !ensure( 2 ) || ( _buffer[ _position + 1 ] != '>' ) )
+				{
+					throw new XMLException( "Expected '/>' in tag '" + names.getQName( symbol ) + "'." );
+				}
+				_position += 2;
+				_emptyElement = true;
+				break;
+			}
+
+			final int attributeSymbol = parseSymbol();
+			skipWhitespace();
+			if ( !ensure( 1 ) || ( _buffer[ _position ] != '=' ) )
+			{
+				throw new XMLException( "Expected '=' after attribute '" + names.getQName( attributeSymbol ) + "' in tag '" + names.getQName( symbol ) + "'." );
+			}
+			_position++;
+			skipWhitespace();
+
+			final int valueStart = _charsLength;
+			parseAttributeValue();
+
+			final String attributePrefix = names.getPrefix( attributeSymbol );
+			//noinspection StringEquality
+			if ( ( attributePrefix == "xmlns" ) || ( names.getQName( attributeSymbol ) == "xmlns" ) )
+			{
+				//noinspection StringEquality
+				final String prefix = ( attributePrefix == "xmlns" ) ? names.getLocalName( attributeSymbol ) : "";
+				declareNamespace( prefix, names.getName( new String( _chars, valueStart, _charsLength - valueStart ) ) );
+				_charsLength = valueStart;
+			}
+			else
+			{
+				addAttribute( attributeSymbol, valueStart, _charsLength );
+			}
+		}
+
+		for ( int i = 0; i < _attributeCount; i++ )
+		{
+			final int attributeSymbol = _attributeSymbols[ i ];
+			final String prefix = names.getPrefix( attributeSymbol );
+			_attributeNamespaceURIs[ i ] = prefix.isEmpty() ? null : resolvePrefix( prefix );
+			_attributeLocalNames[ i ] = names.getLocalName( attributeSymbol );
+		}
+		checkDuplicateAttributes( symbol );
+
+		final String namespaceURI = resolvePrefix( names.getPrefix( symbol ) );
+		final String localName = names.getLocalName( symbol );
+
+		final int depth = _depth;
+		if ( depth == _elementSymbols.length )
+		{
+			final int capacity = depth * 2;
+			_elementSymbols = Arrays.copyOf( _elementSymbols, capacity );
+			_elementNamespaceURIs = Arrays.copyOf( _elementNamespaceURIs, capacity );
+			_elementLocalNames = Arrays.copyOf( _elementLocalNames, capacity );
+			_elementNamespaceCounts = Arrays.copyOf( _elementNamespaceCounts, capacity );
+		}
+		_elementSymbols[ depth ] = symbol;
+		_elementNamespaceURIs[ depth ] = namespaceURI;
+		_elementLocalNames[ depth ] = localName;
+		_elementNamespaceCounts[ depth ] = namespaceCount;
+		_depth = depth + 1;
+
+		_namespaceURI = namespaceURI;
+		_localName = localName;
+	}
+
+	/**
+	 * Throws an exception if the current element has multiple attributes with
+	 * the same namespace URI and local name. For many attributes, the
+	 * attribute index is built to find duplicates, which also prepares it for
+	 * lookups by name.
+	 *
+	 * @param symbol Symbol representing the qualified name of the element.
+	 *
+	 * @throws XMLException if an attribute is specified more than once.
+	 */
+	private void checkDuplicateAttributes( final int symbol )
+	throws XMLException
+	{
+		final int attributeCount = _attributeCount;
+		final String[] namespaceURIs = _attributeNamespaceURIs;
+		final String[] localNames = _attributeLocalNames;
+
+		int duplicate = -1;
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			final AttributeIndex attributeIndex = _attributeIndex;
+			attributeIndex.reset( attributeCount );
+			for ( int i = 0; ( duplicate < 0 ) && ( i < attributeCount ); i++ )
+			{
+				if ( attributeIndex.indexOf( namespaceURIs[ i ], localNames[ i ] ) >= 0 )
+				{
+					duplicate = i;
+				}
+				attributeIndex.set( i, namespaceURIs[ i ], localNames[ i ] );
+			}
+		}
+		else
+		{
+			for ( int i = 1; ( duplicate < 0 ) && ( i < attributeCount ); i++ )
+			{
+				for ( int j = 0; j < i; j++ )
+				{
+					if ( localNames[ i ].equals( localNames[ j ] ) && AttributeIndex.isSameNamespace( namespaceURIs[ i ], namespaceURIs[ j ] ) )
+					{
+						duplicate = i;
+						break;
+					}
+				}
+			}
+		}
+
+		if ( duplicate >= 0 )
+		{
+			_attributeIndex.clear();
+			throw new XMLException( "Duplicate attribute '" + _names.getQName( _attributeSymbols[ duplicate ] ) + "' in tag '" + _names.getQName( symbol ) + "'." );
+		}
+	}
+
+	/**
+	 * Adds an attribute to the current element.
+	 *
+	 * @param symbol     Symbol representing the qualified name.
+	 * @param valueStart Start of the value in {@link #_chars}.
+	 * @param valueEnd   End of the value in {@link #_chars}.
+	 */
+	private void addAttribute( final int symbol, final int valueStart, final int valueEnd )
+	{
+		final int index = _attributeCount;
+		if ( index == _attributeSymbols.length )
+		{
+			final int capacity = index * 2;
+			_attributeSymbols = Arrays.copyOf( _attributeSymbols, capacity );
+			_attributeNamespaceURIs = Arrays.copyOf( _attributeNamespaceURIs, capacity );
+			_attributeLocalNames = Arrays.copyOf( _attributeLocalNames, capacity );
+			_attributeValues = Arrays.copyOf( _attributeValues, capacity );
+			_attributeValueStarts = Arrays.copyOf( _attributeValueStarts, capacity );
+			_attributeValueEnds = Arrays.copyOf( _attributeValueEnds, capacity );
+		}
+		_attributeSymbols[ index ] = symbol;
+		_attributeValues[ index ] = null;
+		_attributeValueStarts[ index ] = valueStart;
+		_attributeValueEnds[ index ] = valueEnd;
+		_attributeCount = index + 1;
+	}
+
+	/**
+	 * Adds a namespace declaration for the element being parsed.
+	 *
+	 * @param prefix       Canonical namespace prefix; empty for the default
+	 *                     namespace.
+	 * @param namespaceURI Canonical namespace URI.
+	 */
+	private void declareNamespace( @NotNull final String prefix, @NotNull final String namespaceURI )
+	{
+		final int index = _namespaceCount;
+		if ( index == _namespacePrefixes.length )
+		{
+			final int capacity = index * 2;
+			_namespacePrefixes = Arrays.copyOf( _namespacePrefixes, capacity );
+			_namespaceURIs = Arrays.copyOf( _namespaceURIs, capacity );
+		}
+		_namespacePrefixes[ index ] = prefix;
+		_namespaceURIs[ index ] = namespaceURI;
+		_namespaceCount = index + 1;
+	}
+
+	/**
+	 * Returns the namespace URI bound to the given prefix.
+	 *
+	 * @param prefix Canonical namespace prefix; empty for the default namespace.
+	 *
+	 * @return Namespace URI; {@code null} if the prefix is empty and no default
+	 * namespace is in scope.
+	 *
+	 * @throws XMLException if the prefix is not bound to a namespace.
+	 */
+	@Nullable
+	private String resolvePrefix( @NotNull final String prefix )
+	throws XMLException
+	{
+		String result = null;
+
+		boolean found = false;
+		for ( int i = _namespaceCount - 1; i >= 0; i-- )
+		{
+			//noinspection StringEquality
+			if ( prefix == _namespacePrefixes[ i ] )
+			{
+				result = _namespaceURIs[ i ];
+				found = true;
+				break;
+			}
+		}
+
+		if ( !found )
+		{
+			if ( "xml".equals( prefix ) )
+			{
+				result = XML_NAMESPACE_URI;
+			}
+			else if ( !prefix.isEmpty() )
+			{
+				throw new XMLException( "Undeclared namespace prefix: " + prefix );
+			}
+		}
+		else if ( ( result != null ) && result.isEmpty() )
+		{
+			result = null;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Parses an end tag.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseEndTag()
+	throws IOException, XMLException
+	{
+		_position += 2;
+		final int symbol = parseSymbol();
+		skipWhitespace();
+		if ( !ensure( 1 ) || ( _buffer[ _position ] != '>' ) )
+		{
+			throw new XMLException( "Expected '>' after end tag '" + _names.getQName( symbol ) + "'." );
+		}
+		_position++;
+
+		if ( _depth == 0 )
+		{
+			throw new XMLException( "Unexpected end tag '" + _names.getQName( symbol ) + "'." );
+		}
+
+		final int expected = _elementSymbols[ _depth - 1 ];
+		if ( symbol != expected )
+		{
+			throw new XMLException( "Expected end tag '" + _names.getQName( expected ) + "', but found '" + _names.getQName( symbol ) + "'." );
+		}
+
+		endElement();
+	}
+
+	/**
+	 * Ends the innermost open element.
+	 */
+	private void endElement()
+	{
+		final int depth = _depth - 1;
+		_namespaceURI = _elementNamespaceURIs[ depth ];
+		_localName = _elementLocalNames[ depth ];
+		_namespaceCount = _elementNamespaceCounts[ depth ];
+		_depth = depth;
+	}
+
+	/**
+	 * Parses a processing instruction.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseProcessingInstruction()
+	throws IOException, XMLException
+	{
+		_position += 2;
+		_piTarget = _names.getQName( parseSymbol() );
+		skipWhitespace();
+		_piData = parseUntil( '?', '>', true );
+	}
+
+	/**
+	 * Skips a document type declaration, including any internal subset.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void skipDoctype()
+	throws IOException, XMLException
+	{
+		_position += DOCTYPE_START.length;
+
+		byte quote = 0;
+		int brackets = 0;
+		while ( true )
+		{
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position++ ];
+			if ( quote != 0 )
+			{
+				if ( b == quote )
+				{
+					quote = 0;
+				}
+			}
+			else if ( ( b == '"' ) || ( b == '\'' ) )
+			{
+				quote = b;
+			}
+			else if ( b == '[' )
+			{
+				brackets++;
+			}
+			else if ( b == ']' )
+			{
+				brackets--;
+			}
+			else if ( ( b == '>' ) && ( brackets == 0 ) )
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Parses character data, including any CDATA sections and references, up
+	 * to the next markup that is not a CDATA section.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseCharacters()
+	throws IOException, XMLException
+	{
+		_charsLength = 0;
+		_textOffset = _bufferOffset + _position;
+		_textContiguous = true;
+
+		final AsciiDecoder decoder = _textDecoder;
+		while ( ensure( 1 ) )
+		{
+			final byte[] buffer = _buffer;
+			final int limit = _limit;
+			int position = _position;
+
+			char[] chars = _chars;
+			int length = _charsLength;
+			if ( chars.length - length < limit - position )
+			{
+				chars = Arrays.copyOf( chars, Math.max( chars.length * 2, length + limit - position ) );
+				_chars = chars;
+			}
+
+			byte b = 0;
+			while ( position < limit )
+			{
+				final int ascii = decoder.decode( buffer, position, limit, chars, length );
+				length += ascii - position;
+				position = ascii;
+
+				if ( position < limit )
+				{
+					b = buffer[ position ];
+					if ( ( b < ' ' ) ? ( ( b != '\n' ) && ( b != '\t' ) ) : ( ( b == '<' ) || ( b == '&' ) || ( b == ']' ) ) )
+					{
+						break;
+					}
+					chars[ length++ ] = (char)b;
+					position++;
+				}
+			}
+
+			_position = position;
+			_charsLength = length;
+
+			if ( position < limit )
+			{
+				if ( b == '<' )
+				{
+					if ( !startsWith( CDATA_START ) )
+					{
+						break;
+					}
+					_position += CDATA_START.length;
+					_textContiguous = false;
+					parseCData();
+				}
+				else if ( b == '&' )
+				{
+					_textContiguous = false;
+					appendCodePoint( parseReference() );
+				}
+				else if ( b == '\r' )
+				{
+					_textContiguous = false;
+					parseCarriageReturn();
+					appendChar( '\n' );
+				}
+				else if ( b == ']' )
+				{
+					if ( ensure( 3 ) && ( _buffer[ _position + 1 ] == ']' ) && ( _buffer[ _position + 2 ] == '>' ) )
+					{
+						throw new XMLException( "Character sequence ']]>' not allowed in content at line " + getLineNumber( _bufferOffset + _position ) );
+					}
+					appendChar( ']' );
+					_position++;
+				}
+				else if ( b < 0 )
+				{
+					_textContiguous &= _latin1;
+					appendCodePoint( decodeCharacter() );
+				}
+				else
+				{
+					throw invalidCharacter( b );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parses the content of a CDATA section and the end of the section.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseCData()
+	throws IOException, XMLException
+	{
+		while ( true )
+		{
+			decodeAscii( _cdataDecoder );
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position ];
+			if ( b == ']' && ensure( 3 ) && ( _buffer[ _position + 1 ] == ']' ) && ( _buffer[ _position + 2 ] == '>' ) )
+			{
+				_position += 3;
+				break;
+			}
+			else if ( b == '\r' )
+			{
+				parseCarriageReturn();
+				appendChar( '\n' );
+			}
+			else if ( b < 0 )
+			{
+				appendCodePoint( decodeCharacter() );
+			}
+			else if ( ( b < ' ' ) && ( b != '\n' ) && ( b != '\t' ) )
+			{
+				throw invalidCharacter( b );
+			}
+			else
+			{
+				appendChar( (char)b );
+				_position++;
+			}
+		}
+	}
+
+	/**
+	 * Parses a quoted attribute value, appending the normalized value to
+	 * {@link #_chars}.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void parseAttributeValue()
+	throws IOException, XMLException
+	{
+		if ( !ensure( 1 ) )
+		{
+			throw new XMLException( "Unexpected end of document." );
+		}
+
+		final byte quote = _buffer[ _position ];
+		if ( ( quote != '"' ) && ( quote != '\'' ) )
+		{
+			throw new XMLException( "Expected quoted attribute value at line " + getLineNumber( _bufferOffset + _position ) );
+		}
+		_position++;
+
+		final AsciiDecoder decoder = ( quote == '"' ) ? _doubleQuotedDecoder : _singleQuotedDecoder;
+		while ( true )
+		{
+			decodeAscii( decoder );
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position ];
+			if ( b == quote )
+			{
+				_position++;
+				break;
+			}
+			else if ( b == '&' )
+			{
+				appendCodePoint( parseReference() );
+			}
+			else if ( b == '<' )
+			{
+				throw new XMLException( "Character '<' not allowed in attribute value at line " + getLineNumber( _bufferOffset + _position ) );
+			}
+			else if ( b == '\r' )
+			{
+				parseCarriageReturn();
+				appendChar( ' ' );
+			}
+			else if ( ( b == '\n' ) || ( b == '\t' ) )
+			{
+				appendChar( ' ' );
+				_position++;
+			}
+			else if ( b < 0 )
+			{
+				appendCodePoint( decodeCharacter() );
+			}
+			else if ( b < ' ' )
+			{
+				throw invalidCharacter( b );
+			}
+			else
+			{
+				appendChar( (char)b );
+				_position++;
+			}
+		}
+	}
+
+	/**
+	 * Parses a carriage return, including any line feed that immediately
+	 * follows it.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void parseCarriageReturn()
+	throws IOException
+	{
+		_position++;
+		if ( ensure( 1 ) && ( _buffer[ _position ] == '\n' ) )
+		{
+			_position++;
+		}
+	}
+
+	/**
+	 * Parses an entity reference or character reference.
+	 *
+	 * @return Referenced character (code point).
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private int parseReference()
+	throws IOException, XMLException
+	{
+		_position++;
+		_mark = _position;
+
+		while ( true )
+		{
+			if ( !ensure( 1 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte b = _buffer[ _position ];
+			if ( b == ';' )
+			{
+				break;
+			}
+			else if ( ( b == '<' ) || ( b == '&' ) || isWhitespace( b ) || ( _position - _mark > 16 ) )
+			{
+				throw new XMLException( "Unterminated reference at line " + getLineNumber( _bufferOffset + _position ) );
+			}
+			_position++;
+		}
+
+		final String name = new String( _buffer, _mark, _position - _mark, StandardCharsets.ISO_8859_1 );
+		_mark = -1;
+		_position++;
+
+		int result;
+		if ( name.startsWith( "#" ) )
+		{
+			// Only digits are allowed; no signs, as accepted by Integer.parseInt.
+			final boolean hex = name.startsWith( "#x" );
+			final int radix = hex ? 16 : 10;
+			final int start = hex ? 2 : 1;
+			result = 0;
+			for ( int i = start; i < name.length(); i++ )
+			{
+				final int digit = Character.digit( name.charAt( i ), radix );
+				if ( ( digit < 0 ) || ( result > Character.MAX_CODE_POINT ) )
+				{
+					throw new XMLException( "Invalid character reference: &" + name + ';' );
+				}
+				result = result * radix + digit;
+			}
+
+			if ( ( name.length() == start ) || !isXmlChar( result ) )
+			{
+				throw new XMLException( "Invalid character reference: &" + name + ';' );
+			}
+		}
+		else
+		{
+			switch ( name )
+			{
+				case "lt":
+					result = '<';
+					break;
+				case "gt":
+					result = '>';
+					break;
+				case "amp":
+					result = '&';
+					break;
+				case "apos":
+					result = '\'';
+					break;
+				case "quot":
+					result = '"';
+					break;
+				default:
+					throw new XMLException( "Undefined entity: &" + name + ';' );
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Decodes a non-ASCII character at the current position. Overlong forms,
+	 * encoded surrogates and code points above U+10FFFF are rejected, as are
+	 * characters that are not allowed in XML documents.
+	 *
+	 * @return Decoded character (code point).
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the input is not properly encoded.
+	 */
+	private int decodeCharacter()
+	throws IOException, XMLException
+	{
+		final int first = _buffer[ _position ] & 0xff;
+
+		int result;
+		if ( _latin1 )
+		{
+			result = first;
+			_position++;
+		}
+		else
+		{
+			final int length;
+			final int minimum;
+			if ( ( first & 0xe0 ) == 0xc0 )
+			{
+				length = 2;
+				minimum = 0x80;
+				result = first & 0x1f;
+			}
+			else if ( ( first & 0xf0 ) == 0xe0 )
+			{
+				length = 3;
+				minimum = 0x800;
+				result = first & 0x0f;
+			}
+			else if ( ( first & 0xf8 ) == 0xf0 )
+			{
+				length = 4;
+				minimum = 0x10000;
+				result = first & 0x07;
+			}
+			else
+			{
+				throw new XMLException( "Invalid UTF-8 byte 0x" + Integer.toHexString( first ) + " at line " + getLineNumber( _bufferOffset + _position ) );
+			}
+
+			if ( !ensure( length ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			for ( int i = 1; i < length; i++ )
+			{
+				final int b = _buffer[ _position + i ];
+				if ( ( b & 0xc0 ) != 0x80 )
+				{
+					throw new XMLException( "Invalid UTF-8 sequence at line " + getLineNumber( _bufferOffset + _position ) );
+				}
+				result = ( result << 6 ) | ( b & 0x3f );
+			}
+
+			if ( ( result < minimum ) || ( result > Character.MAX_CODE_POINT ) || ( ( result >= Character.MIN_SURROGATE ) && ( result <= Character.MAX_SURROGATE ) ) )
+			{
+				throw new XMLException( "Invalid UTF-8 sequence at line " + getLineNumber( _bufferOffset + _position ) );
+			}
+
+			if ( !isXmlChar( result ) )
+			{
+				throw invalidCharacter( result );
+			}
+			_position += length;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Creates an exception for a character at the current position that is
+	 * not allowed in XML documents.
+	 *
+	 * @param c Character (code point).
+	 *
+	 * @return Exception to be thrown.
+	 */
+	@NotNull
+	private XMLException invalidCharacter( final int c )
+	{
+		return new XMLException( "Invalid character 0x" + Integer.toHexString( c ) + " at line " + getLineNumber( _bufferOffset + _position ) );
+	}
+
+	/**
+	 * Appends the run of ASCII characters at the current position to {@link
+	 * #_chars}, up to the first stop byte of the given decoder.
+	 *
+	 * @param decoder Decoder to use.
+	 */
+	private void decodeAscii( @NotNull final AsciiDecoder decoder )
+	{
+		final int available = _limit - _position;
+		if ( ( available >= 8 ) && ( _chars.length - _charsLength < available ) )
+		{
+			_chars = Arrays.copyOf( _chars, Math.max( _chars.length * 2, _charsLength + available ) );
+		}
+
+		final int position = decoder.decode( _buffer, _position, _limit, _chars, _charsLength );
+		_charsLength += position - _position;
+		_position = position;
+	}
+
+	/**
+	 * Appends a character to {@link #_chars}.
+	 *
+	 * @param c Character to be appended.
+	 */
+	private void appendChar( final char c )
+	{
+		if ( _charsLength == _chars.length )
+		{
+			_chars = Arrays.copyOf( _chars, _chars.length * 2 );
+		}
+		_chars[ _charsLength++ ] = c;
+	}
+
+	/**
+	 * Appends a character to {@link #_chars}.
+	 *
+	 * @param codePoint Character (code point) to be appended.
+	 */
+	private void appendCodePoint( final int codePoint )
+	{
+		if ( Character.isBmpCodePoint( codePoint ) )
+		{
+			appendChar( (char)codePoint );
+		}
+		else
+		{
+			appendChar( Character.highSurrogate( codePoint ) );
+			appendChar( Character.lowSurrogate( codePoint ) );
+		}
+	}
+
+	/**
+	 * Parses a name, i.e. an element name, attribute name or processing
+	 * instruction target.
+	 *
+	 * @return Symbol representing the name; see {@link NameTable}.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private int parseSymbol()
+	throws IOException, XMLException
+	{
+		_mark = _position;
+
+		while ( true )
+		{
+			if ( _position == _limit && !fill() )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte[] buffer = _buffer;
+			final int limit = _limit;
+			int position = _position;
+			while ( ( position < limit ) && !isNameDelimiter( buffer[ position ] ) )
+			{
+				position++;
+			}
+			_position = position;
+
+			if ( position < limit )
+			{
+				break;
+			}
+		}
+
+		final int start = _mark;
+		_mark = -1;
+
+		if ( _position == start )
+		{
+			throw new XMLException( "Expected name at line " + getLineNumber( _bufferOffset + _position ) );
+		}
+
+		return _names.getSymbol( _buffer, start, _position - start, _charset );
+	}
+
+	/**
+	 * Parses text up to and including the given two-byte delimiter.
+	 *
+	 * @param first  First byte of the delimiter.
+	 * @param second Second byte of the delimiter.
+	 * @param decode Whether to decode the text; if {@code false}, the text is
+	 *               assumed to consist of ASCII characters only.
+	 *
+	 * @return Text before the delimiter.
+	 *
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	@NotNull
+	private String parseUntil( final char first, final char second, final boolean decode )
+	throws XMLException
+	{
+		_charsLength = 0;
+
+		try
+		{
+			while ( true )
+			{
+				if ( !ensure( 2 ) )
+				{
+					throw new XMLException( "Unexpected end of document." );
+				}
+
+				final byte b = _buffer[ _position ];
+				if ( ( b == first ) && ( _buffer[ _position + 1 ] == second ) )
+				{
+					_position += 2;
+					break;
+				}
+				else if ( b == '\r' )
+				{
+					parseCarriageReturn();
+					appendChar( '\n' );
+				}
+				else if ( ( b < 0 ) && decode )
+				{
+					appendCodePoint( decodeCharacter() );
+				}
+				else
+				{
+					appendChar( (char)( b & 0xff ) );
+					_position++;
+				}
+			}
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+
+		return new String( _chars, 0, _charsLength );
+	}
+
+	/**
+	 * Skips input up to and including the given two-byte delimiter.
+	 *
+	 * @param first  First byte of the delimiter.
+	 * @param second Second byte of the delimiter.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void skipUntil( final char first, final char second )
+	throws IOException, XMLException
+	{
+		while ( true )
+		{
+			if ( !ensure( 2 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte[] buffer = _buffer;
+			final int end = _limit - 1;
+			int position = _position;
+			while ( ( position < end ) && ( buffer[ position ] != first ) )
+			{
+				position++;
+			}
+			_position = position;
+
+			if ( ( position < end ) && ( buffer[ position + 1 ] == second ) )
+			{
+				_position = position + 2;
+				break;
+			}
+			else if ( position < end )
+			{
+				_position++;
+			}
+		}
+	}
+
+	/**
+	 * Skips input up to and including the given three-byte delimiter.
+	 *
+	 * @param first  First byte of the delimiter.
+	 * @param second Second byte of the delimiter.
+	 * @param third  Third byte of the delimiter.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 * @throws XMLException if the document is not well-formed.
+	 */
+	private void skipUntil( final char first, final char second, final char third )
+	throws IOException, XMLException
+	{
+		while ( true )
+		{
+			if ( !ensure( 3 ) )
+			{
+				throw new XMLException( "Unexpected end of document." );
+			}
+
+			final byte[] buffer = _buffer;
+			final int end = _limit - 2;
+			int position = _position;
+			while ( ( position < end ) && ( buffer[ position ] != first ) )
+			{
+				position++;
+			}
+			_position = position;
+
+			if ( ( position < end ) && ( buffer[ position + 1 ] == second ) && ( buffer[ position + 2 ] == third ) )
+			{
+				_position = position + 3;
+				break;
+			}
+			else if ( position < end )
+			{
+				_position++;
+			}
+		}
+	}
+
+	/**
+	 * Skips any whitespace at the current position.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void skipWhitespace()
+	throws IOException
+	{
+		while ( ensure( 1 ) && isWhitespace( _buffer[ _position ] ) )
+		{
+			_position++;
+		}
+	}
+
+	/**
+	 * Returns whether the input at the current position starts with the given
+	 * bytes.
+	 *
+	 * @param bytes Bytes to compare with.
+	 *
+	 * @return {@code true} if the input starts with the given bytes.
+	 *
+	 * @throws XMLException if an I/O error occurs.
+	 */
+	private boolean startsWith( @NotNull final byte[] bytes )
+	throws XMLException
+	{
+		boolean result;
+		try
+		{
+			result = ensure( bytes.length );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+
+		if ( result )
+		{
+			final byte[] buffer = _buffer;
+			final int position = _position;
+			for ( int i = 0; i < bytes.length; i++ )
+			{
+				if ( buffer[ position + i ] != bytes[ i ] )
+				{
+					result = false;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Ensures that the given number of bytes is available in the buffer,
+	 * starting at the current position.
+	 *
+	 * @param length Number of bytes.
+	 *
+	 * @return {@code true} if the bytes are available; {@code false} if the
+	 * end of the input was reached.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private boolean ensure( final int length )
+	throws IOException
+	{
+		boolean result = true;
+		while ( _limit - _position < length )
+		{
+			if ( !fill() )
+			{
+				result = false;
+				break;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads more input into the buffer. Bytes before the current position (or
+	 * mark, if set) are discarded, and the buffer is enlarged if needed. If
+	 * the entire input is contained in the buffer, the buffer is left as is.
+	 *
+	 * @return {@code true} if input was read; {@code false} if the end of the
+	 * input was reached.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private boolean fill()
+	throws IOException
+	{
+		boolean result = false;
+
+		final InputStream in = _in;
+		if ( in != null )
+		{
+			final int keep = ( _mark >= 0 ) ? _mark : _position;
+			if ( keep > 0 )
+			{
+				updateLocation( _bufferOffset + keep );
+				System.arraycopy( _buffer, keep, _buffer, 0, _limit - keep );
+				_bufferOffset += keep;
+				_position -= keep;
+				_limit -= keep;
+				if ( _mark >= 0 )
+				{
+					_mark -= keep;
+				}
+			}
+			else if ( _limit == _buffer.length )
+			{
+				_buffer = Arrays.copyOf( _buffer, _buffer.length * 2 );
+			}
+
+			final int read = in.read( _buffer, _limit, _buffer.length - _limit );
+			if ( read > 0 )
+			{
+				_limit += read;
+			}
+			result = ( read >= 0 );
+		}
+
+		return result;
+	}
+
+	/**
+	 * Appends input for a reader that reads from its own array, as used by
+	 * {@link AsyncXMLReader}. Bytes before the current position are discarded
+	 * and the buffer is enlarged if needed.
+	 *
+	 * @param bytes Bytes to append.
+	 */
+	void feed( @NotNull final ByteBuffer bytes )
+	{
+		final int keep = ( _mark >= 0 ) ? _mark : _position;
+		if ( keep > 0 )
+		{
+			updateLocation( _bufferOffset + keep );
+			System.arraycopy( _buffer, keep, _buffer, 0, _limit - keep );
+			_bufferOffset += keep;
+			_position -= keep;
+			_limit -= keep;
+			if ( _mark >= 0 )
+			{
+				_mark -= keep;
+			}
+		}
+
+		final int length = bytes.remaining();
+		if ( _buffer.length - _limit < length )
+		{
+			_buffer = Arrays.copyOf( _buffer, Math.max( _buffer.length * 2, _limit + length ) );
+		}
+		bytes.get( _buffer, _limit, length );
+		_limit += length;
+	}
+
+	/**
+	 * Returns the offset from the start of the input of the next byte to be
+	 * scanned.
+	 *
+	 * @return Input offset.
+	 */
+	long getInputOffset()
+	{
+		return _bufferOffset + _position;
+	}
+
+	/**
+	 * Returns the number of bytes in the buffer that were not scanned yet.
+	 *
+	 * @return Number of buffered bytes.
+	 */
+	int getBufferedLength()
+	{
+		return _limit - _position;
+	}
+
+	/**
+	 * Returns whether the current element is an empty tag, such that the next
+	 * event is its end, which doesn't require any more input.
+	 *
+	 * @return {@code true} if the end of an empty element is pending.
+	 */
+	boolean isEndElementPending()
+	{
+		return _emptyElement;
+	}
+
+	/**
+	 * Updates {@link #_lineNumber} and {@link #_column} up to the given offset.
+	 * The bytes from {@link #_locationOffset} up to the given offset must be
+	 * available in the buffer.
+	 *
+	 * @param offset Offset from the start of the input.
+	 */
+	private void updateLocation( final long offset )
+	{
+		if ( offset > _locationOffset )
+		{
+			final byte[] buffer = _buffer;
+			final int end = (int)( offset - _bufferOffset );
+			final boolean latin1 = _latin1;
+
+			int lineNumber = _lineNumber;
+			int column = _column;
+			for ( int i = (int)( _locationOffset - _bufferOffset ); i < end; i++ )
+			{
+				final byte b = buffer[ i ];
+				if ( b == '\n' )
+				{
+					lineNumber++;
+					column = 0;
+				}
+				else if ( latin1 || ( ( b & 0xc0 ) != 0x80 ) )
+				{
+					column++;
+				}
+			}
+
+			_lineNumber = lineNumber;
+			_column = column;
+			_locationOffset = offset;
+		}
+	}
+
+	/**
+	 * Returns the line number at the given offset, for use in error messages.
+	 *
+	 * @param offset Offset from the start of the input.
+	 *
+	 * @return Line number.
+	 */
+	private int getLineNumber( final long offset )
+	{
+		updateLocation( offset );
+		return _lineNumber;
+	}
+
+	/**
+	 * Returns whether the given byte is a whitespace character.
+	 *
+	 * @param b Byte to check.
+	 *
+	 * @return {@code true} for whitespace.
+	 */
+	private static boolean isWhitespace( final byte b )
+	{
+		return ( b == ' ' ) || ( b == '\n' ) || ( b == '\t' ) || ( b == '\r' );
+	}
+
+	/**
+	 * Returns whether the given code point matches the 'Char' production of
+	 * the XML specification.
+	 *
+	 * @param c Code point to check.
+	 *
+	 * @return {@code true} if the code point is an XML character.
+	 */
+	private static boolean isXmlChar( final int c )
+	{
+		return ( c == 0x9 ) || ( c == 0xa ) || ( c == 0xd ) ||
+		       ( ( c >= 0x20 ) && ( c <= 0xd7ff ) ) ||
+		       ( ( c >= 0xe000 ) && ( c <= 0xfffd ) ) ||
+		       ( ( c >= 0x10000 ) && ( c <= 0x10ffff ) );
+	}
+
+	/**
+	 * Returns whether the given byte ends a name.
+	 *
+	 * @param b Byte to check.
+	 *
+	 * @return {@code true} if the byte ends a name.
+	 */
+	private static boolean isNameDelimiter( final byte b )
+	{
+		return ( b >= 0 ) && ( ( b <= ' ' ) || ( b == '>' ) || ( b == '/' ) || ( b == '=' ) || ( b == '?' ) || ( b == '<' ) || ( b == '"' ) || ( b == '\'' ) );
+	}
+
+	@Override
+	public String getNamespaceURI()
+	{
+		final XMLEventType eventType = _eventType;
+		if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+		     ( eventType != XMLEventType.END_ELEMENT ) )
+		{
+			throw new IllegalStateException( "Not allowed for " + eventType );
+		}
+
+		return _namespaceURI;
+	}
+
+	@Override
+	@NotNull
+	public String getLocalName()
+	{
+		final XMLEventType eventType = _eventType;
+		if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+		     ( eventType != XMLEventType.END_ELEMENT ) )
+		{
+			throw new IllegalStateException( "Not allowed for " + eventType );
+		}
+
+		//noinspection ConstantConditions
+		return _localName;
+	}
+
+	@Override
+	public int getAttributeCount()
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _attributeCount;
+	}
+
+	@Override
+	public String getAttributeNamespaceURI( final int index )
+	{
+		checkAttributeIndex( index );
+		return _attributeNamespaceURIs[ index ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeLocalName( final int index )
+	{
+		checkAttributeIndex( index );
+		return _attributeLocalNames[ index ];
+	}
+
+	@Override
+	@NotNull
+	public String getAttributeValue( final int index )
+	{
+		checkAttributeIndex( index );
+		return getAttributeValueImpl( index );
+	}
+
+	@Override
+	public String getAttributeValue( @NotNull final String localName )
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		final int index = indexOfAttribute( true, null, localName );
+		return ( index < 0 ) ? null : getAttributeValueImpl( index );
+	}
+
+	@Override
+	public String getAttributeValue( final String namespaceURI, @NotNull final String localName )
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		final int index = indexOfAttribute( false, namespaceURI, localName );
+		return ( index < 0 ) ? null : getAttributeValueImpl( index );
+	}
+
+	@Override
+	public int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+	throws XMLException
+	{
+		final int index = indexOfAttribute( namespaceURI, localName );
+		int result = defaultValue;
+		if ( index >= 0 )
+		{
+			try
+			{
+				result = TextParser.parseInt( _chars, _attributeValueStarts[ index ], _attributeValueEnds[ index ] );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+	throws XMLException
+	{
+		final int index = indexOfAttribute( namespaceURI, localName );
+		long result = defaultValue;
+		if ( index >= 0 )
+		{
+			try
+			{
+				result = TextParser.parseLong( _chars, _attributeValueStarts[ index ], _attributeValueEnds[ index ] );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+	throws XMLException
+	{
+		final int index = indexOfAttribute( namespaceURI, localName );
+		double result = defaultValue;
+		if ( index >= 0 )
+		{
+			try
+			{
+				result = TextParser.parseDouble( _chars, _attributeValueStarts[ index ], _attributeValueEnds[ index ] );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+	throws XMLException
+	{
+		final int index = indexOfAttribute( namespaceURI, localName );
+		float result = defaultValue;
+		if ( index >= 0 )
+		{
+			try
+			{
+				result = TextParser.parseFloat( _chars, _attributeValueStarts[ index ], _attributeValueEnds[ index ] );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+	throws XMLException
+	{
+		final int index = indexOfAttribute( namespaceURI, localName );
+		boolean result = defaultValue;
+		if ( index >= 0 )
+		{
+			try
+			{
+				result = TextParser.parseBoolean( _chars, _attributeValueStarts[ index ], _attributeValueEnds[ index ] );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw invalidAttributeValue( index );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the specified attribute of the current element.
+	 *
+	 * @param namespaceURI Namespace URI; {@code null} for an attribute with no
+	 *                     prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 */
+	private int indexOfAttribute( @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return indexOfAttribute( false, namespaceURI, localName );
+	}
+
+	/**
+	 * Creates an exception for an attribute with an invalid value.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @return Exception.
+	 */
+	@NotNull
+	private XMLException invalidAttributeValue( final int index )
+	{
+		return TextParser.invalidAttributeValue( _attributeLocalNames[ index ], getAttributeValueImpl( index ) );
+	}
+
+	/**
+	 * Returns the index of the specified attribute of the current element.
+	 *
+	 * @param anyNamespace Whether to match attributes in any namespace.
+	 * @param namespaceURI Namespace URI; {@code null} for an attribute with no
+	 *                     prefix.
+	 * @param localName    Local name.
+	 *
+	 * @return Attribute index; {@code -1} if not found.
+	 */
+	private int indexOfAttribute( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+	{
+		int result = -1;
+
+		final int attributeCount = _attributeCount;
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			final AttributeIndex attributeIndex = _attributeIndex;
+			if ( !attributeIndex.isBuilt() )
+			{
+				attributeIndex.reset( attributeCount );
+				for ( int i = 0; i < attributeCount; i++ )
+				{
+					attributeIndex.set( i, _attributeNamespaceURIs[ i ], _attributeLocalNames[ i ] );
+				}
+			}
+			result = anyNamespace ? attributeIndex.indexOf( localName ) : attributeIndex.indexOf( namespaceURI, localName );
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				final String candidateLocalName = _attributeLocalNames[ i ];
+				final String candidateNamespaceURI = _attributeNamespaceURIs[ i ];
+				//noinspection StringEquality
+				if ( ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+				     ( anyNamespace || AttributeIndex.isSameNamespace( namespaceURI, candidateNamespaceURI ) ) )
+				{
+					result = i;
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified attribute, creating it if needed.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @return Attribute value.
+	 */
+	@NotNull
+	private String getAttributeValueImpl( final int index )
+	{
+		String result = _attributeValues[ index ];
+		if ( result == null )
+		{
+			final int start = _attributeValueStarts[ index ];
+			result = new String( _chars, start, _attributeValueEnds[ index ] - start );
+			_attributeValues[ index ] = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that the current event is a start element event and that the
+	 * given attribute index is valid.
+	 *
+	 * @param index Attribute index.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws IndexOutOfBoundsException if the index is invalid.
+	 */
+	private void checkAttributeIndex( final int index )
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		if ( ( index < 0 ) || ( index >= _attributeCount ) )
+		{
+			throw new IndexOutOfBoundsException( index + " (attributeCount: " + _attributeCount + ')' );
+		}
+	}
+
+	@Override
+	@NotNull
+	public String getText()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		// Create a string from the input directly, if it's still available.
+		final long start = _textOffset - _bufferOffset;
+		return ( _textContiguous && ( start >= 0 ) ) ? new String( _buffer, (int)start, _charsLength, StandardCharsets.ISO_8859_1 ) : new String( _chars, 0, _charsLength );
+	}
+
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _chars;
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return 0;
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _charsLength;
+	}
+
+	@Override
+	@NotNull
+	public String getPITarget()
+	{
+		if ( _eventType != XMLEventType.PROCESSING_INSTRUCTION )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		//noinspection ConstantConditions
+		return _piTarget;
+	}
+
+	@Override
+	@NotNull
+	public String getPIData()
+	{
+		if ( _eventType != XMLEventType.PROCESSING_INSTRUCTION )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		//noinspection ConstantConditions
+		return _piData;
+	}
+
+	@Override
+	public int getLineNumber()
+	{
+		return getLineNumber( _eventEnd );
+	}
+
+	@Override
+	public int getColumnNumber()
+	{
+		updateLocation( _eventEnd );
+		return _column + 1;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Factory for XML readers that scan UTF-8 or ISO-8859-1 encoded bytes
+ * directly, without depending on a third-party XML API.
+ *
+ * <p>This factory is registered after the XML Pull and StAX factories, so
+ * {@link XMLReaderFactory#newInstance()} and {@link
+ * XMLReaderFactory#getSharedInstance()} only choose it if neither API is
+ * available. Unlike those parsers, it rejects documents in other encodings
+ * (such as UTF-16) and references to entities declared in a DTD, so it must
+ * be requested explicitly, e.g. using {@code
+ * XMLReaderFactory.newInstance( "Utf8ReaderFactory" )}.
+ *
+ * @author G. Meinders
+ */
+public class Utf8ReaderFactory
+extends XMLReaderFactory
+{
+	/**
+	 * Size of the input buffer used for memory-mapped files. Since reading
+	 * from a mapped file doesn't involve system calls, a larger buffer only
+	 * reduces the number of times the buffer is compacted.
+	 */
+	private static final int MAPPED_BUFFER_SIZE = 65536;
+
+	/**
+	 * Constructs a new instance.
+	 */
+	public Utf8ReaderFactory()
+	{
+	}
+
+	@Override
+	@NotNull
+	protected XMLReaderFactory newFactory()
+	{
+		return new Utf8ReaderFactory();
+	}
+
+	@Override
+	public XMLReader createXMLReader( @NotNull final InputStream in, final String encoding )
+	throws XMLException
+	{
+		return new Utf8Reader( CompressedInput.openStream( in ), encoding );
+	}
+
+	@Override
+	public XMLReader createXMLReader( @NotNull final byte[] bytes, final int offset, final int length, @Nullable final String encoding )
+	throws XMLException
+	{
+		final InputStream compressed = CompressedInput.open( ByteBuffer.wrap( bytes, offset, length ) );
+		return ( compressed != null ) ? new Utf8Reader( compressed, encoding ) : new Utf8Reader( bytes, offset, length, encoding );
+	}
+
+	@Override
+	public XMLReader createXMLReader( @NotNull final FileChannel channel )
+	throws XMLException
+	{
+		final XMLReader result;
+		try
+		{
+			final InputStream compressed = CompressedInput.open( channel );
+			result = ( compressed != null ) ? new Utf8Reader( compressed, null ) : new Utf8Reader( new MappedFileInputStream( channel ), null, MAPPED_BUFFER_SIZE );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+		return result;
+	}
+
+	@Override
+	public boolean supportsCheckpoints()
+	{
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * <p>If the channel is a {@link FileChannel}, the file is memory-mapped and
+	 * the reader does not depend on the channel, which may be closed after
+	 * calling this method.	 *
+	 * <p>Compressed documents can't be resumed, because checkpoints are not
+	 * available for them.
+	 */
+	@Override
+	public XMLReader resumeXMLReader( @NotNull final SeekableByteChannel channel, @NotNull final XMLCheckpoint checkpoint )
+	throws XMLException
+	{
+		final XMLReader result;
+		try
+		{
+			if ( CompressedInput.isCompressed( channel ) )
+			{
+				throw new XMLException( "Can't resume a compressed document." );
+			}
+			channel.position( checkpoint.getOffset() );
+			if ( channel instanceof FileChannel )
+			{
+				result = new Utf8Reader( checkpoint, new MappedFileInputStream( (FileChannel)channel ), MAPPED_BUFFER_SIZE );
+			}
+			else
+			{
+				result = new Utf8Reader( checkpoint, Channels.newInputStream( channel ), Utf8Reader.DEFAULT_BUFFER_SIZE );
+			}
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+		return result;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a field to an attribute of the element of an {@link XMLElement}
+ * class. Supported field types are {@code String}, {@code int}, {@code long},
+ * {@code float}, {@code double} and {@code boolean}. If the attribute is
+ * absent, the field keeps its initial value.
+ *
+ * @author G. Meinders
+ */
+@Documented
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.FIELD )
+public @interface XMLAttribute
+{
+	/**
+	 * Local name of the attribute.
+	 *
+	 * @return Local name; empty to use the field name.
+	 */
+	String value() default "";
+
+	/**
+	 * Namespace URI of the attribute.
+	 *
+	 * @return Namespace URI; empty for no namespace.
+	 */
+	String namespace() default "";
+}
@@ -0,0 +1,1253 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+import javax.tools.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Annotation processor that generates a parser and a serializer for each
+ * class annotated with {@link XMLElement}. For a class {@code Foo}, the
+ * following classes are generated in the same package:
+ *
+ * <dl>
+ * <dt>{@code FooXMLParser}</dt>
+ * <dd>Subclass of {@link AbstractXMLParser} with a {@code parse()} method that
+ * reads the document element, and a {@code readFoo()} method that reads the
+ * current element. Child elements are matched using a {@code switch} on their
+ * local name, attributes are read using the typed accessors of {@link
+ * XMLReader}, and unknown elements are skipped.</dd>
+ * <dt>{@code FooXMLSerializer}</dt>
+ * <dd>Static {@code writeDocument} and {@code write} methods that write an
+ * instance to an {@link XMLWriter}.</dd>
+ * </dl>
+ *
+ * <p>Other bound classes that are used as children get a (non-public) method
+ * in the same generated classes, so no reflection or lookup is needed at run
+ * time. The processor is registered as a service, so it runs automatically
+ * when this library is on the compiler's class path.
+ *
+ * @author G. Meinders
+ */
+@SupportedAnnotationTypes( "ab.xml.XMLElement" )
+public class XMLBindingProcessor
+extends AbstractProcessor
+{
+	/**
+	 * Names of classes for which code was generated.
+	 */
+	private final Set<String> _generated = new HashSet<String>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion()
+	{
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process( final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnvironment )
+	{
+		final Messager messager = processingEnv.getMessager();
+		for ( final Element element : roundEnvironment.getElementsAnnotatedWith( XMLElement.class ) )
+		{
+			try
+			{
+				if ( ( element.getKind() != ElementKind.CLASS ) )
+				{
+					throw new BindingException( "Only classes can be bound to an element.", element );
+				}
+
+				final TypeElement type = (TypeElement)element;
+				if ( _generated.add( type.getQualifiedName().toString() ) )
+				{
+					final Map<String, Binding> bindings = new LinkedHashMap<String, Binding>();
+					final Binding root = getBinding( type, bindings );
+					writeParser( root, bindings.values() );
+					writeSerializer( root, bindings.values() );
+				}
+			}
+			catch ( final BindingException e )
+			{
+				messager.printMessage( Diagnostic.Kind.ERROR, e.getMessage(), e._element );
+			}
+			catch ( final IOException e )
+			{
+				messager.printMessage( Diagnostic.Kind.ERROR, "Failed to write generated code: " + e, element );
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the binding for the given class, creating it and the bindings
+	 * of the classes it refers to if needed.
+	 *
+	 * @param type     Class annotated with {@link XMLElement}.
+	 * @param bindings Bindings created so far, by class name.
+	 *
+	 * @return Binding.
+	 *
+	 * @throws BindingException if the class can't be bound.
+	 */
+	@NotNull
+	private Binding getBinding( @NotNull final TypeElement type, @NotNull final Map<String, Binding> bindings )
+	throws BindingException
+	{
+		final String className = type.getQualifiedName().toString();
+		Binding result = bindings.get( className );
+		if ( result == null )
+		{
+			final XMLElement element = type.getAnnotation( XMLElement.class );
+			result = new Binding( type, element.value(), namespace( element.namespace() ), uniqueName( type.getSimpleName().toString(), bindings.values() ) );
+			bindings.put( className, result );
+			checkClass( type, bindings.values().iterator().next()._type );
+
+			final List<VariableElement> fields = new ArrayList<VariableElement>();
+			for ( TypeMirror current = type.asType(); current.getKind() == TypeKind.DECLARED; current = ( (TypeElement)( (DeclaredType)current ).asElement() ).getSuperclass() )
+			{
+				fields.addAll( 0, ElementFilter.fieldsIn( ( (DeclaredType)current ).asElement().getEnclosedElements() ) );
+			}
+
+			for ( final VariableElement field : fields )
+			{
+				final XMLAttribute attribute = field.getAnnotation( XMLAttribute.class );
+				final XMLChild child = field.getAnnotation( XMLChild.class );
+				final XMLText text = field.getAnnotation( XMLText.class );
+				if ( ( ( attribute != null ) ? 1 : 0 ) + ( ( child != null ) ? 1 : 0 ) + ( ( text != null ) ? 1 : 0 ) > 1 )
+				{
+					throw new BindingException( "Field can only be bound to one of attribute, child or text.", field );
+				}
+
+				if ( ( attribute != null ) || ( child != null ) || ( text != null ) )
+				{
+					final Set<Modifier> modifiers = field.getModifiers();
+					if ( modifiers.contains( Modifier.PRIVATE ) || modifiers.contains( Modifier.FINAL ) || modifiers.contains( Modifier.STATIC ) )
+					{
+						throw new BindingException( "Bound fields must not be private, final or static.", field );
+					}
+				}
+
+				if ( attribute != null )
+				{
+					final ValueType valueType = getValueType( field.asType(), false );
+					if ( valueType == null )
+					{
+						throw new BindingException( "Unsupported attribute type: " + field.asType(), field );
+					}
+					result._attributes.add( new Field( field.getSimpleName().toString(), valueType, false, null, attribute.value().isEmpty() ? field.getSimpleName().toString() : attribute.value(), namespace( attribute.namespace() ) ) );
+				}
+				else if ( text != null )
+				{
+					final ValueType valueType = getValueType( field.asType(), false );
+					if ( valueType == null )
+					{
+						throw new BindingException( "Unsupported text type: " + field.asType(), field );
+					}
+					if ( result._text != null )
+					{
+						throw new BindingException( "Only one field can be bound to text.", field );
+					}
+					result._text = new Field( field.getSimpleName().toString(), valueType, false, null, "", null );
+				}
+				else if ( child != null )
+				{
+					result._children.add( getChild( field, child, bindings ) );
+				}
+			}
+
+			for ( int i = 0; i < result._children.size(); i++ )
+			{
+				final Field child = result._children.get( i );
+				for ( int j = 0; j < i; j++ )
+				{
+					final Field other = result._children.get( j );
+					if ( child._localName.equals( other._localName ) && ( ( child._namespaceURI == null ) ? ( other._namespaceURI == null ) : child._namespaceURI.equals( other._namespaceURI ) ) )
+					{
+						throw new BindingException( "Fields '" + other._fieldName + "' and '" + child._fieldName + "' are bound to the same element.", type );
+					}
+				}
+			}
+
+			if ( ( result._text != null ) && !result._children.isEmpty() && ( result._text._valueType != ValueType.STRING ) )
+			{
+				throw new BindingException( "Text of elements with child elements must be bound to a String.", type );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the binding of a field to child elements.
+	 *
+	 * @param field    Field.
+	 * @param child    Annotation of the field.
+	 * @param bindings Bindings created so far, by class name.
+	 *
+	 * @return Field binding.
+	 *
+	 * @throws BindingException if the field can't be bound.
+	 */
+	@NotNull
+	private Field getChild( @NotNull final VariableElement field, @NotNull final XMLChild child, @NotNull final Map<String, Binding> bindings )
+	throws BindingException
+	{
+		final Types types = processingEnv.getTypeUtils();
+		TypeMirror type = field.asType();
+		final boolean list = ( type.getKind() == TypeKind.DECLARED ) &&
+		                     types.isSameType( types.erasure( type ), types.erasure( processingEnv.getElementUtils().getTypeElement( List.class.getName() ).asType() ) );
+		if ( list )
+		{
+			final List<? extends TypeMirror> typeArguments = ( (DeclaredType)type ).getTypeArguments();
+			if ( typeArguments.size() != 1 )
+			{
+				throw new BindingException( "Missing element type of list.", field );
+			}
+			type = typeArguments.get( 0 );
+		}
+
+		final String fieldName = field.getSimpleName().toString();
+		final Field result;
+		final ValueType valueType = getValueType( type, list );
+		final Element typeElement = ( type.getKind() == TypeKind.DECLARED ) ? ( (DeclaredType)type ).asElement() : null;
+		if ( valueType != null )
+		{
+			result = new Field( fieldName, valueType, list, null, child.value().isEmpty() ? fieldName : child.value(), namespace( child.namespace() ) );
+		}
+		else if ( ( typeElement != null ) && ( typeElement.getAnnotation( XMLElement.class ) != null ) )
+		{
+			final Binding binding = getBinding( (TypeElement)typeElement, bindings );
+			if ( child.value().isEmpty() )
+			{
+				result = new Field( fieldName, ValueType.ELEMENT, list, binding, binding._localName, binding._namespaceURI );
+			}
+			else
+			{
+				result = new Field( fieldName, ValueType.ELEMENT, list, binding, child.value(), namespace( child.namespace() ) );
+			}
+		}
+		else
+		{
+			throw new BindingException( "Unsupported child element type: " + type, field );
+		}
+		return result;
+	}
+
+	/**
+	 * Checks that generated code can create instances of the given class and
+	 * access its fields.
+	 *
+	 * @param type Bound class.
+	 * @param root Class for which code is generated.
+	 *
+	 * @throws BindingException if the class can't be bound.
+	 */
+	private void checkClass( @NotNull final TypeElement type, @NotNull final TypeElement root )
+	throws BindingException
+	{
+		final Set<Modifier> modifiers = type.getModifiers();
+		if ( modifiers.contains( Modifier.ABSTRACT ) || modifiers.contains( Modifier.PRIVATE ) )
+		{
+			throw new BindingException( "Bound classes must not be abstract or private.", type );
+		}
+		if ( ( type.getNestingKind() == NestingKind.MEMBER ) && !modifiers.contains( Modifier.STATIC ) )
+		{
+			throw new BindingException( "Bound member classes must be static.", type );
+		}
+
+		boolean constructor = false;
+		for ( final ExecutableElement candidate : ElementFilter.constructorsIn( type.getEnclosedElements() ) )
+		{
+			constructor |= candidate.getParameters().isEmpty() && !candidate.getModifiers().contains( Modifier.PRIVATE );
+		}
+		if ( !constructor )
+		{
+			throw new BindingException( "Bound classes must have a non-private constructor without arguments.", type );
+		}
+
+		final Elements elements = processingEnv.getElementUtils();
+		if ( !elements.getPackageOf( type ).equals( elements.getPackageOf( root ) ) && !modifiers.contains( Modifier.PUBLIC ) )
+		{
+			throw new BindingException( "Bound classes used from another package must be public.", type );
+		}
+	}
+
+	/**
+	 * Returns the value type for the given field type.
+	 *
+	 * @param type  Field type.
+	 * @param boxed Whether the type is a list element, which must be boxed.
+	 *
+	 * @return Value type; {@code null} if the type is not a simple value.
+	 */
+	@Nullable
+	private ValueType getValueType( @NotNull final TypeMirror type, final boolean boxed )
+	{
+		ValueType result = null;
+		if ( type.getKind().isPrimitive() )
+		{
+			if ( !boxed )
+			{
+				for ( final ValueType valueType : ValueType.values() )
+				{
+					if ( type.toString().equals( valueType._typeName ) )
+					{
+						result = valueType;
+					}
+				}
+			}
+		}
+		else if ( type.getKind() == TypeKind.DECLARED )
+		{
+			final String name = ( (TypeElement)( (DeclaredType)type ).asElement() ).getQualifiedName().toString();
+			for ( final ValueType valueType : ValueType.values() )
+			{
+				if ( ( valueType == ValueType.STRING ) ? name.equals( valueType._typeName ) : boxed && name.equals( valueType._boxedTypeName ) )
+				{
+					result = valueType;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes the parser for the given binding.
+	 *
+	 * @param root     Binding of the document element.
+	 * @param bindings All bindings used by the document element.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeParser( @NotNull final Binding root, @NotNull final Collection<Binding> bindings )
+	throws IOException
+	{
+		final String simpleName = root._type.getSimpleName() + "XMLParser";
+		final Code code = new Code();
+		writeHeader( code, root );
+		code.line( "/**" );
+		code.line( " * Parser for {@link " + root._className + "} documents." );
+		code.line( " * Generated by {@link ab.xml.XMLBindingProcessor}." );
+		code.line( " */" );
+		code.line( ( root._type.getModifiers().contains( Modifier.PUBLIC ) ? "public " : "" ) + "class " + simpleName );
+		code.line( "extends ab.xml.AbstractXMLParser" );
+		code.open();
+		code.line( "/**" );
+		code.line( " * Constructs a new instance." );
+		code.line( " *" );
+		code.line( " * @param in       Stream to read from." );
+		code.line( " * @param encoding Character encoding." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( "public " + simpleName + "( final java.io.InputStream in, final String encoding )" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+		code.line( "super( in, encoding );" );
+		code.close();
+		code.line( "" );
+		code.line( "/**" );
+		code.line( " * Constructs a new instance." );
+		code.line( " *" );
+		code.line( " * @param reader XML reader." );
+		code.line( " */" );
+		code.line( "public " + simpleName + "( final ab.xml.XMLReader reader )" );
+		code.open();
+		code.line( "super( reader );" );
+		code.close();
+		code.line( "" );
+		code.line( "/**" );
+		code.line( " * Parses the document element, skipping any events before it." );
+		code.line( " *" );
+		code.line( " * @return Parsed document element." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( "public " + root._className + " parse()" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+		code.line( "final ab.xml.XMLReader reader = _reader;" );
+		code.line( "ab.xml.XMLEventType eventType = reader.getEventType();" );
+		code.line( "while ( eventType != ab.xml.XMLEventType.START_ELEMENT )" );
+		code.open();
+		code.line( "if ( eventType == ab.xml.XMLEventType.END_DOCUMENT )" );
+		code.open();
+		code.line( "throw new ab.xml.XMLException( \"Missing document element.\" );" );
+		code.close();
+		code.line( "eventType = reader.next();" );
+		code.close();
+		code.line( "require( ab.xml.XMLEventType.START_ELEMENT, " + literal( root._namespaceURI ) + ", " + literal( root._localName ) + " );" );
+		code.line( "return read" + root._methodName + "();" );
+		code.close();
+
+		for ( final Binding binding : bindings )
+		{
+			code.line( "" );
+			writeReadMethod( code, binding, binding == root );
+		}
+		code.close();
+
+		writeSource( root, simpleName, code );
+	}
+
+	/**
+	 * Writes the parser method for the given binding.
+	 *
+	 * @param code    Code to write to.
+	 * @param binding Binding.
+	 * @param root    Whether the binding is that of the document element.
+	 */
+	private static void writeReadMethod( @NotNull final Code code, @NotNull final Binding binding, final boolean root )
+	{
+		code.line( "/**" );
+		code.line( " * Parses the current element into a {@link " + binding._className + "}." );
+		code.line( " * Afterwards, the reader is positioned at the end of the element." );
+		code.line( " *" );
+		code.line( " * @return Parsed element." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( ( root ? "public " : "protected " ) + binding._className + " read" + binding._methodName + "()" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+		code.line( "final ab.xml.XMLReader reader = _reader;" );
+		code.line( "final " + binding._className + " result = new " + binding._className + "();" );
+
+		for ( final Field attribute : binding._attributes )
+		{
+			final String namespaceURI = literal( attribute._namespaceURI );
+			final String localName = literal( attribute._localName );
+			if ( attribute._valueType == ValueType.STRING )
+			{
+				code.open();
+				code.line( "final String value = reader.getAttributeValue( " + namespaceURI + ", " + localName + " );" );
+				code.line( "if ( value != null )" );
+				code.open();
+				code.line( "result." + attribute._fieldName + " = value;" );
+				code.close();
+				code.close();
+			}
+			else
+			{
+				code.line( "result." + attribute._fieldName + " = reader." + attribute._valueType._attributeMethod + "( " + namespaceURI + ", " + localName + ", result." + attribute._fieldName + " );" );
+			}
+		}
+
+		final Field text = binding._text;
+		if ( binding._children.isEmpty() )
+		{
+			if ( text == null )
+			{
+				code.line( "reader.skipElement();" );
+			}
+			else
+			{
+				code.line( "result." + text._fieldName + " = " + text._valueType._elementMethod + "();" );
+			}
+		}
+		else
+		{
+			if ( text != null )
+			{
+				code.line( "String text = null;" );
+			}
+			code.line( "ab.xml.XMLEventType eventType = reader.next();" );
+			code.line( "while ( eventType != ab.xml.XMLEventType.END_ELEMENT )" );
+			code.open();
+			code.line( "if ( eventType == ab.xml.XMLEventType.START_ELEMENT )" );
+			code.open();
+			code.line( "switch ( reader.getLocalName() )" );
+			code.open();
+
+			final Map<String, List<Field>> childrenByName = new LinkedHashMap<String, List<Field>>();
+			for ( final Field child : binding._children )
+			{
+				List<Field> children = childrenByName.get( child._localName );
+				if ( children == null )
+				{
+					children = new ArrayList<Field>();
+					childrenByName.put( child._localName, children );
+				}
+				children.add( child );
+			}
+
+			for ( final Map.Entry<String, List<Field>> entry : childrenByName.entrySet() )
+			{
+				code.line( "case " + literal( entry.getKey() ) + ":" );
+				code.indent();
+				final List<Field> children = entry.getValue();
+				String keyword = "if";
+				for ( final Field child : children )
+				{
+					// Fields without namespace only match elements without namespace.
+					code.line( keyword + " ( matches( " + literal( child._namespaceURI ) + ", " + literal( child._localName ) + " ) )" );
+					code.open();
+					writeReadChild( code, child );
+					code.close();
+					keyword = "else if";
+				}
+				code.line( "else" );
+				code.open();
+				code.line( "reader.skipElement();" );
+				code.close();
+				code.line( "break;" );
+				code.outdent();
+				code.line( "" );
+			}
+
+			code.line( "default:" );
+			code.indent();
+			code.line( "reader.skipElement();" );
+			code.line( "break;" );
+			code.outdent();
+			code.close();
+			code.line( "eventType = reader.next();" );
+			code.close();
+			if ( text != null )
+			{
+				code.line( "else if ( eventType == ab.xml.XMLEventType.CHARACTERS )" );
+				code.open();
+				code.line( "final String content = parseTextContent();" );
+				code.line( "text = ( text == null ) ? content : text + content;" );
+				code.line( "eventType = reader.getEventType();" );
+				code.close();
+			}
+			code.line( "else" );
+			code.open();
+			code.line( "eventType = reader.next();" );
+			code.close();
+			code.close();
+
+			if ( text != null )
+			{
+				code.line( "if ( text != null )" );
+				code.open();
+				code.line( "result." + text._fieldName + " = text;" );
+				code.close();
+			}
+		}
+
+		code.line( "return result;" );
+		code.close();
+	}
+
+	/**
+	 * Writes code to read a child element into a field.
+	 *
+	 * @param code  Code to write to.
+	 * @param child Field bound to the child element.
+	 */
+	private static void writeReadChild( @NotNull final Code code, @NotNull final Field child )
+	{
+		final Binding binding = child._binding;
+		final String value = ( binding != null ) ? "read" + binding._methodName + "()" : child._valueType._elementMethod + "()";
+		if ( child._list )
+		{
+			final String elementType = ( binding != null ) ? binding._className : child._valueType._boxedTypeName;
+			code.line( "if ( result." + child._fieldName + " == null )" );
+			code.open();
+			code.line( "result." + child._fieldName + " = new java.util.ArrayList<" + elementType + ">();" );
+			code.close();
+			code.line( "result." + child._fieldName + ".add( " + value + " );" );
+		}
+		else
+		{
+			code.line( "result." + child._fieldName + " = " + value + ";" );
+		}
+	}
+
+	/**
+	 * Writes the serializer for the given binding.
+	 *
+	 * @param root     Binding of the document element.
+	 * @param bindings All bindings used by the document element.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeSerializer( @NotNull final Binding root, @NotNull final Collection<Binding> bindings )
+	throws IOException
+	{
+		final Set<String> namespaces = new LinkedHashSet<String>();
+		for ( final Binding binding : bindings )
+		{
+			namespaces.add( binding._namespaceURI );
+			for ( final Field field : binding._attributes )
+			{
+				namespaces.add( field._namespaceURI );
+			}
+			for ( final Field field : binding._children )
+			{
+				namespaces.add( field._namespaceURI );
+			}
+		}
+		namespaces.remove( null );
+
+		final String simpleName = root._type.getSimpleName() + "XMLSerializer";
+		final Code code = new Code();
+		writeHeader( code, root );
+		code.line( "/**" );
+		code.line( " * Serializer for {@link " + root._className + "} documents." );
+		code.line( " * Generated by {@link ab.xml.XMLBindingProcessor}." );
+		code.line( " */" );
+		code.line( ( root._type.getModifiers().contains( Modifier.PUBLIC ) ? "public " : "" ) + "final class " + simpleName );
+		code.open();
+		code.line( "/**" );
+		code.line( " * Utility class is not supposed to be instantiated." );
+		code.line( " */" );
+		code.line( "private " + simpleName + "()" );
+		code.open();
+		code.close();
+		code.line( "" );
+		code.line( "/**" );
+		code.line( " * Writes a document with the given document element." );
+		code.line( " *" );
+		code.line( " * @param writer XML writer." );
+		code.line( " * @param value  Document element." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( "public static void writeDocument( final ab.xml.XMLWriter writer, final " + root._className + " value )" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+		code.line( "writer.startDocument();" );
+		int prefix = 0;
+		for ( final String namespace : namespaces )
+		{
+			code.line( "writer.setPrefix( \"ns" + ++prefix + "\", " + literal( namespace ) + " );" );
+		}
+		code.line( "write( writer, value );" );
+		code.line( "writer.endDocument();" );
+		code.close();
+		code.line( "" );
+		code.line( "/**" );
+		code.line( " * Writes the given element." );
+		code.line( " *" );
+		code.line( " * @param writer XML writer." );
+		code.line( " * @param value  Element to write." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( "public static void write( final ab.xml.XMLWriter writer, final " + root._className + " value )" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+		code.line( "write" + root._methodName + "( writer, " + literal( root._namespaceURI ) + ", " + literal( root._localName ) + ", value );" );
+		code.close();
+
+		for ( final Binding binding : bindings )
+		{
+			code.line( "" );
+			writeWriteMethod( code, binding );
+		}
+		code.close();
+
+		writeSource( root, simpleName, code );
+	}
+
+	/**
+	 * Writes the serializer method for the given binding.
+	 *
+	 * @param code    Code to write to.
+	 * @param binding Binding.
+	 */
+	private static void writeWriteMethod( @NotNull final Code code, @NotNull final Binding binding )
+	{
+		code.line( "/**" );
+		code.line( " * Writes a {@link " + binding._className + "} element." );
+		code.line( " *" );
+		code.line( " * @param writer       XML writer." );
+		code.line( " * @param namespaceURI Namespace URI of the element." );
+		code.line( " * @param localName    Local name of the element." );
+		code.line( " * @param value        Element to write." );
+		code.line( " *" );
+		code.line( " * @throws ab.xml.XMLException if an XML-related exception occurs." );
+		code.line( " */" );
+		code.line( "private static void write" + binding._methodName + "( final ab.xml.XMLWriter writer, final String namespaceURI, final String localName, final " + binding._className + " value )" );
+		code.line( "throws ab.xml.XMLException" );
+		code.open();
+
+		final Field text = binding._text;
+		code.line( ( ( text == null ) && binding._children.isEmpty() ? "writer.emptyTag" : "writer.startTag" ) + "( namespaceURI, localName );" );
+		for ( final Field attribute : binding._attributes )
+		{
+			final String namespaceURI = literal( attribute._namespaceURI );
+			final String localName = literal( attribute._localName );
+			final String value = "value." + attribute._fieldName;
+			switch ( attribute._valueType )
+			{
+				case STRING:
+					code.line( "if ( " + value + " != null )" );
+					code.open();
+					code.line( "writer.attribute( " + namespaceURI + ", " + localName + ", " + value + " );" );
+					code.close();
+					break;
+
+				case DOUBLE:
+					code.line( "writer.doubleAttribute( " + namespaceURI + ", " + localName + ", " + value + " );" );
+					break;
+
+				case FLOAT:
+					code.line( "writer.floatAttribute( " + namespaceURI + ", " + localName + ", " + value + " );" );
+					break;
+
+				default:
+					code.line( "writer.attribute( " + namespaceURI + ", " + localName + ", String.valueOf( " + value + " ) );" );
+					break;
+			}
+		}
+
+		if ( text != null )
+		{
+			writeText( code, text._valueType, "value." + text._fieldName );
+		}
+
+		for ( final Field child : binding._children )
+		{
+			final String field = "value." + child._fieldName;
+			final boolean nullable = child._list || ( child._binding != null ) || ( child._valueType == ValueType.STRING );
+			if ( nullable )
+			{
+				code.line( "if ( " + field + " != null )" );
+				code.open();
+			}
+
+			final String value;
+			if ( child._list )
+			{
+				code.line( "for ( final " + ( ( child._binding != null ) ? child._binding._className : child._valueType._boxedTypeName ) + " element : " + field + " )" );
+				code.open();
+				value = "element";
+			}
+			else
+			{
+				value = field;
+			}
+
+			final String namespaceURI = literal( child._namespaceURI );
+			final String localName = literal( child._localName );
+			if ( child._binding != null )
+			{
+				code.line( "write" + child._binding._methodName + "( writer, " + namespaceURI + ", " + localName + ", " + value + " );" );
+			}
+			else
+			{
+				code.line( "writer.startTag( " + namespaceURI + ", " + localName + " );" );
+				writeText( code, child._valueType, value );
+				code.line( "writer.endTag( " + namespaceURI + ", " + localName + " );" );
+			}
+
+			if ( child._list )
+			{
+				code.close();
+			}
+			if ( nullable )
+			{
+				code.close();
+			}
+		}
+
+		code.line( "writer.endTag( namespaceURI, localName );" );
+		code.close();
+	}
+
+	/**
+	 * Writes code to write character data.
+	 *
+	 * @param code      Code to write to.
+	 * @param valueType Type of the value.
+	 * @param value     Expression for the value.
+	 */
+	private static void writeText( @NotNull final Code code, @NotNull final ValueType valueType, @NotNull final String value )
+	{
+		switch ( valueType )
+		{
+			case STRING:
+				code.line( "if ( " + value + " != null )" );
+				code.open();
+				code.line( "writer.text( " + value + " );" );
+				code.close();
+				break;
+
+			case DOUBLE:
+				code.line( "writer.doubleText( " + value + " );" );
+				break;
+
+			case FLOAT:
+				code.line( "writer.floatText( " + value + " );" );
+				break;
+
+			default:
+				code.line( "writer.text( String.valueOf( " + value + " ) );" );
+				break;
+		}
+	}
+
+	/**
+	 * Writes the package declaration of a generated class.
+	 *
+	 * @param code Code to write to.
+	 * @param root Binding for which the class is generated.
+	 */
+	private void writeHeader( @NotNull final Code code, @NotNull final Binding root )
+	{
+		final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf( root._type );
+		if ( !packageElement.isUnnamed() )
+		{
+			code.line( "package " + packageElement.getQualifiedName() + ";" );
+			code.line( "" );
+		}
+	}
+
+	/**
+	 * Writes a generated source file.
+	 *
+	 * @param root       Binding for which the class is generated.
+	 * @param simpleName Simple name of the generated class.
+	 * @param code       Code of the class.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private void writeSource( @NotNull final Binding root, @NotNull final String simpleName, @NotNull final Code code )
+	throws IOException
+	{
+		final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf( root._type );
+		final String name = packageElement.isUnnamed() ? simpleName : packageElement.getQualifiedName() + "." + simpleName;
+		final JavaFileObject file = processingEnv.getFiler().createSourceFile( name, root._type );
+		final Writer writer = file.openWriter();
+		try
+		{
+			writer.write( code.toString() );
+		}
+		finally
+		{
+			writer.close();
+		}
+	}
+
+	/**
+	 * Returns the namespace URI for the given annotation value.
+	 *
+	 * @param namespace Namespace from an annotation.
+	 *
+	 * @return Namespace URI; {@code null} for no namespace.
+	 */
+	@Nullable
+	private static String namespace( @NotNull final String namespace )
+	{
+		return namespace.isEmpty() ? null : namespace;
+	}
+
+	/**
+	 * Returns a method name suffix for the given class that is not used by
+	 * any of the given bindings.
+	 *
+	 * @param simpleName Simple name of the class.
+	 * @param bindings   Existing bindings.
+	 *
+	 * @return Method name suffix.
+	 */
+	@NotNull
+	private static String uniqueName( @NotNull final String simpleName, @NotNull final Collection<Binding> bindings )
+	{
+		String result = simpleName;
+		for ( int i = 2; !isUnique( result, bindings ); i++ )
+		{
+			result = simpleName + i;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the given method name suffix is not used by any of the
+	 * given bindings.
+	 *
+	 * @param name     Method name suffix.
+	 * @param bindings Existing bindings.
+	 *
+	 * @return {@code true} if the name is unique.
+	 */
+	private static boolean isUnique( @NotNull final String name, @NotNull final Collection<Binding> bindings )
+	{
+		boolean result = true;
+		for ( final Binding binding : bindings )
+		{
+			result &= !name.equals( binding._methodName );
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a Java string literal for the given string.
+	 *
+	 * @param value String.
+	 *
+	 * @return String literal; {@code null} if the string is {@code null}.
+	 */
+	@NotNull
+	private static String literal( @Nullable final String value )
+	{
+		final String result;
+		if ( value == null )
+		{
+			result = "null";
+		}
+		else
+		{
+			final StringBuilder literal = new StringBuilder( value.length() + 2 );
+			literal.append( '"' );
+			for ( int i = 0; i < value.length(); i++ )
+			{
+				final char c = value.charAt( i );
+				if ( ( c == '"' ) || ( c == '\\' ) )
+				{
+					literal.append( '\\' ).append( c );
+				}
+				else if ( ( c < 0x20 ) || ( c > 0x7e ) )
+				{
+					literal.append( String.format( "\\u%04x", (int)c ) );
+				}
+				else
+				{
+					literal.append( c );
+				}
+			}
+			literal.append( '"' );
+			result = literal.toString();
+		}
+		return result;
+	}
+
+	/**
+	 * Types of simple values, which are stored in attributes or as character
+	 * data.
+	 */
+	private enum ValueType
+	{
+		/**
+		 * {@code String} value.
+		 */
+		STRING( "java.lang.String", "java.lang.String", "getAttributeValue", "parseElementText" ),
+
+		/**
+		 * {@code int} value.
+		 */
+		INT( "int", "java.lang.Integer", "getAttributeAsInt", "parseIntElement" ),
+
+		/**
+		 * {@code long} value.
+		 */
+		LONG( "long", "java.lang.Long", "getAttributeAsLong", "parseLongElement" ),
+
+		/**
+		 * {@code float} value.
+		 */
+		FLOAT( "float", "java.lang.Float", "getAttributeAsFloat", "parseFloatElement" ),
+
+		/**
+		 * {@code double} value.
+		 */
+		DOUBLE( "double", "java.lang.Double", "getAttributeAsDouble", "parseDoubleElement" ),
+
+		/**
+		 * {@code boolean} value.
+		 */
+		BOOLEAN( "boolean", "java.lang.Boolean", "getAttributeAsBoolean", "parseBooleanElement" ),
+
+		/**
+		 * Element bound to another class; not a simple value.
+		 */
+		ELEMENT( "", "", "", "" );
+
+		/**
+		 * Name of the field type.
+		 */
+		private final String _typeName;
+
+		/**
+		 * Name of the boxed type, used for list elements.
+		 */
+		private final String _boxedTypeName;
+
+		/**
+		 * {@link XMLReader} method that returns an attribute value.
+		 */
+		private final String _attributeMethod;
+
+		/**
+		 * {@link AbstractXMLParser} method that parses the content of an
+		 * element.
+		 */
+		private final String _elementMethod;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param typeName        Name of the field type.
+		 * @param boxedTypeName   Name of the boxed type.
+		 * @param attributeMethod Method that returns an attribute value.
+		 * @param elementMethod   Method that parses the content of an element.
+		 */
+		ValueType( final String typeName, final String boxedTypeName, final String attributeMethod, final String elementMethod )
+		{
+			_typeName = typeName;
+			_boxedTypeName = boxedTypeName;
+			_attributeMethod = attributeMethod;
+			_elementMethod = elementMethod;
+		}
+	}
+
+	/**
+	 * Binding of a class to an element.
+	 */
+	private static class Binding
+	{
+		/**
+		 * Bound class.
+		 */
+		@NotNull
+		private final TypeElement _type;
+
+		/**
+		 * Canonical name of the class.
+		 */
+		@NotNull
+		private final String _className;
+
+		/**
+		 * Local name of the element.
+		 */
+		@NotNull
+		private final String _localName;
+
+		/**
+		 * Namespace URI of the element.
+		 */
+		@Nullable
+		private final String _namespaceURI;
+
+		/**
+		 * Suffix of the generated methods for the class.
+		 */
+		@NotNull
+		private final String _methodName;
+
+		/**
+		 * Fields bound to attributes.
+		 */
+		private final List<Field> _attributes = new ArrayList<Field>();
+
+		/**
+		 * Fields bound to child elements.
+		 */
+		private final List<Field> _children = new ArrayList<Field>();
+
+		/**
+		 * Field bound to character data.
+		 */
+		@Nullable
+		private Field _text = null;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param type         Bound class.
+		 * @param localName    Local name of the element.
+		 * @param namespaceURI Namespace URI of the element.
+		 * @param methodName   Suffix of the generated methods for the class.
+		 */
+		Binding( @NotNull final TypeElement type, @NotNull final String localName, @Nullable final String namespaceURI, @NotNull final String methodName )
+		{
+			_type = type;
+			_className = type.getQualifiedName().toString();
+			_localName = localName;
+			_namespaceURI = namespaceURI;
+			_methodName = methodName;
+		}
+	}
+
+	/**
+	 * Binding of a field to an attribute, child element or character data.
+	 */
+	private static class Field
+	{
+		/**
+		 * Name of the field.
+		 */
+		@NotNull
+		private final String _fieldName;
+
+		/**
+		 * Type of the value.
+		 */
+		@NotNull
+		private final ValueType _valueType;
+
+		/**
+		 * Whether the field is a list of values.
+		 */
+		private final boolean _list;
+
+		/**
+		 * Binding of the value class, for {@link ValueType#ELEMENT}.
+		 */
+		@Nullable
+		private final Binding _binding;
+
+		/**
+		 * Local name of the attribute or element.
+		 */
+		@NotNull
+		private final String _localName;
+
+		/**
+		 * Namespace URI of the attribute or element.
+		 */
+		@Nullable
+		private final String _namespaceURI;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param fieldName    Name of the field.
+		 * @param valueType    Type of the value.
+		 * @param list         Whether the field is a list of values.
+		 * @param binding      Binding of the value class.
+		 * @param localName    Local name of the attribute or element.
+		 * @param namespaceURI Namespace URI of the attribute or element.
+		 */
+		Field( @NotNull final String fieldName, @NotNull final ValueType valueType, final boolean list, @Nullable final Binding binding, @NotNull final String localName, @Nullable final String namespaceURI )
+		{
+			_fieldName = fieldName;
+			_valueType = valueType;
+			_list = list;
+			_binding = binding;
+			_localName = localName;
+			_namespaceURI = namespaceURI;
+		}
+	}
+
+	/**
+	 * Generated source code, indented with tabs.
+	 */
+	private static class Code
+	{
+		/**
+		 * Source code.
+		 */
+		private final StringBuilder _code = new StringBuilder();
+
+		/**
+		 * Current indentation level.
+		 */
+		private int _indent = 0;
+
+		/**
+		 * Adds a line of code.
+		 *
+		 * @param line Line to add.
+		 */
+		void line( @NotNull final String line )
+		{
+			if ( !line.isEmpty() )
+			{
+				for ( int i = 0; i < _indent; i++ )
+				{
+					_code.append( '\t' );
+				}
+				_code.append( line );
+			}
+			_code.append( '\n' );
+		}
+
+		/**
+		 * Opens a block.
+		 */
+		void open()
+		{
+			line( "{" );
+			indent();
+		}
+
+		/**
+		 * Closes a block.
+		 */
+		void close()
+		{
+			outdent();
+			line( "}" );
+		}
+
+		/**
+		 * Increases the indentation level.
+		 */
+		void indent()
+		{
+			_indent++;
+		}
+
+		/**
+		 * Decreases the indentation level.
+		 */
+		void outdent()
+		{
+			_indent--;
+		}
+
+		@Override
+		public String toString()
+		{
+			return _code.toString();
+		}
+	}
+
+	/**
+	 * Indicates that a class can't be bound.
+	 */
+	private static class BindingException
+	extends Exception
+	{
+		/**
+		 * Serialized data version.
+		 */
+		private static final long serialVersionUID = -2381904685214707315L;
+
+		/**
+		 * Element that causes the problem.
+		 */
+		private final transient Element _element;
+
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param message Description of the problem.
+		 * @param element Element that causes the problem.
+		 */
+		BindingException( @NotNull final String message, @NotNull final Element element )
+		{
+			super( message );
+			_element = element;
+		}
+	}
+}
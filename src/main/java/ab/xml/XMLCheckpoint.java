@@ -0,0 +1,278 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Position in a document from which parsing can be resumed, as returned by
+ * {@link XMLReader#getCheckpoint()}. A checkpoint is taken at an element
+ * boundary and captures the byte offset of the next event, together with the
+ * open elements and in-scope namespace declarations. Checkpoints are
+ * serializable, so they can be stored and used by a later process to resume
+ * parsing with {@link XMLReaderFactory#resumeXMLReader}.
+ *
+ * @author G. Meinders
+ */
+public final class XMLCheckpoint
+implements Serializable
+{
+	/**
+	 * Serialized data version.
+	 */
+	private static final long serialVersionUID = 4127086351290387122L;
+
+	/**
+	 * Offset from the start of the document of the byte after the event at
+	 * which the checkpoint was taken.
+	 */
+	private final long _offset;
+
+	/**
+	 * Line number at {@link #_offset}, starting at 1.
+	 */
+	private final int _lineNumber;
+
+	/**
+	 * Number of characters before {@link #_offset} on the same line.
+	 */
+	private final int _column;
+
+	/**
+	 * Character encoding of the document.
+	 */
+	@NotNull
+	private final String _encoding;
+
+	/**
+	 * Qualified names of the open elements, outermost first.
+	 */
+	@NotNull
+	private final String[] _elementQNames;
+
+	/**
+	 * Namespace URIs of the open elements.
+	 */
+	@NotNull
+	private final String[] _elementNamespaceURIs;
+
+	/**
+	 * Local names of the open elements.
+	 */
+	@NotNull
+	private final String[] _elementLocalNames;
+
+	/**
+	 * Number of namespace declarations in scope before each open element.
+	 */
+	@NotNull
+	private final int[] _elementNamespaceCounts;
+
+	/**
+	 * Prefixes of the namespace declarations in scope; empty for the default
+	 * namespace.
+	 */
+	@NotNull
+	private final String[] _namespacePrefixes;
+
+	/**
+	 * Namespace URIs of the namespace declarations in scope.
+	 */
+	@NotNull
+	private final String[] _namespaceURIs;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param offset                 Offset of the byte after the event.
+	 * @param lineNumber             Line number at the offset.
+	 * @param column                 Number of characters before the offset
+	 *                               on the same line.
+	 * @param encoding               Character encoding of the document.
+	 * @param elementQNames          Qualified names of the open elements.
+	 * @param elementNamespaceURIs   Namespace URIs of the open elements.
+	 * @param elementLocalNames      Local names of the open elements.
+	 * @param elementNamespaceCounts Number of namespace declarations in
+	 *                               scope before each open element.
+	 * @param namespacePrefixes      Prefixes of the namespace declarations.
+	 * @param namespaceURIs          Namespace URIs of the namespace
+	 *                               declarations.
+	 */
+	XMLCheckpoint( final long offset, final int lineNumber, final int column, @NotNull final String encoding, @NotNull final String[] elementQNames, @NotNull final String[] elementNamespaceURIs, @NotNull final String[] elementLocalNames, @NotNull final int[] elementNamespaceCounts, @NotNull final String[] namespacePrefixes, @NotNull final String[] namespaceURIs )
+	{
+		_offset = offset;
+		_lineNumber = lineNumber;
+		_column = column;
+		_encoding = encoding;
+		_elementQNames = elementQNames;
+		_elementNamespaceURIs = elementNamespaceURIs;
+		_elementLocalNames = elementLocalNames;
+		_elementNamespaceCounts = elementNamespaceCounts;
+		_namespacePrefixes = namespacePrefixes;
+		_namespaceURIs = namespaceURIs;
+	}
+
+	/**
+	 * Returns the offset from the start of the document at which parsing is
+	 * resumed.
+	 *
+	 * @return Byte offset.
+	 */
+	public long getOffset()
+	{
+		return _offset;
+	}
+
+	/**
+	 * Returns the line number at which parsing is resumed.
+	 *
+	 * @return Line number, starting at 1.
+	 */
+	public int getLineNumber()
+	{
+		return _lineNumber;
+	}
+
+	/**
+	 * Returns the number of characters before the checkpoint on the same
+	 * line.
+	 *
+	 * @return Column, starting at 0.
+	 */
+	int getColumn()
+	{
+		return _column;
+	}
+
+	/**
+	 * Returns the character encoding of the document.
+	 *
+	 * @return Name of the character encoding.
+	 */
+	@NotNull
+	public String getEncoding()
+	{
+		return _encoding;
+	}
+
+	/**
+	 * Returns the number of elements that are open at the checkpoint.
+	 *
+	 * @return Element depth.
+	 */
+	public int getDepth()
+	{
+		return _elementLocalNames.length;
+	}
+
+	/**
+	 * Returns the namespace URI of an open element.
+	 *
+	 * @param depth Depth of the element; {@code 0} for the root element.
+	 *
+	 * @return Namespace URI; {@code null} if the element has no namespace.
+	 */
+	@Nullable
+	public String getElementNamespaceURI( final int depth )
+	{
+		return _elementNamespaceURIs[ depth ];
+	}
+
+	/**
+	 * Returns the local name of an open element.
+	 *
+	 * @param depth Depth of the element; {@code 0} for the root element.
+	 *
+	 * @return Local name.
+	 */
+	@NotNull
+	public String getElementLocalName( final int depth )
+	{
+		return _elementLocalNames[ depth ];
+	}
+
+	/**
+	 * Returns the qualified names of the open elements.
+	 *
+	 * @return Qualified names, outermost first.
+	 */
+	@NotNull
+	String[] getElementQNames()
+	{
+		return _elementQNames;
+	}
+
+	/**
+	 * Returns the namespace URIs of the open elements.
+	 *
+	 * @return Namespace URIs, outermost first.
+	 */
+	@NotNull
+	String[] getElementNamespaceURIs()
+	{
+		return _elementNamespaceURIs;
+	}
+
+	/**
+	 * Returns the local names of the open elements.
+	 *
+	 * @return Local names, outermost first.
+	 */
+	@NotNull
+	String[] getElementLocalNames()
+	{
+		return _elementLocalNames;
+	}
+
+	/**
+	 * Returns the number of namespace declarations in scope before each open
+	 * element.
+	 *
+	 * @return Namespace declaration counts, outermost first.
+	 */
+	@NotNull
+	int[] getElementNamespaceCounts()
+	{
+		return _elementNamespaceCounts;
+	}
+
+	/**
+	 * Returns the prefixes of the namespace declarations in scope.
+	 *
+	 * @return Namespace prefixes; empty for the default namespace.
+	 */
+	@NotNull
+	String[] getNamespacePrefixes()
+	{
+		return _namespacePrefixes;
+	}
+
+	/**
+	 * Returns the namespace URIs of the namespace declarations in scope.
+	 *
+	 * @return Namespace URIs.
+	 */
+	@NotNull
+	String[] getNamespaceURIs()
+	{
+		return _namespaceURIs;
+	}
+}
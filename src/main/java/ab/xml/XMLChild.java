@@ -0,0 +1,52 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a field to a child element of the element of an {@link XMLElement}
+ * class. The field type is either another {@link XMLElement} class, or one of
+ * the types supported by {@link XMLAttribute} for elements with only
+ * character data. For repeated child elements, the field type is a {@link
+ * java.util.List} of such a type.
+ *
+ * @author G. Meinders
+ */
+@Documented
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.FIELD )
+public @interface XMLChild
+{
+	/**
+	 * Local name of the child element.
+	 *
+	 * @return Local name; empty to use the name of the {@link XMLElement}
+	 * class, or else the field name.
+	 */
+	String value() default "";
+
+	/**
+	 * Namespace URI of the child element. This is ignored if the name is
+	 * taken from the {@link XMLElement} class.
+	 *
+	 * @return Namespace URI; empty for no namespace.
+	 */
+	String namespace() default "";
+}
@@ -0,0 +1,53 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a class to an XML element. {@link XMLBindingProcessor} generates a
+ * parser and a serializer for each class with this annotation, named after
+ * the class with {@code XMLParser} and {@code XMLSerializer} appended.
+ *
+ * <p>Bound classes must have a non-private constructor without arguments.
+ * Their content is bound through non-private fields annotated with {@link
+ * XMLAttribute}, {@link XMLChild} or {@link XMLText}.
+ *
+ * @author G. Meinders
+ */
+@Documented
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.TYPE )
+public @interface XMLElement
+{
+	/**
+	 * Local name of the element.
+	 *
+	 * @return Local name.
+	 */
+	String value();
+
+	/**
+	 * Namespace URI of the element. Elements without namespace are matched
+	 * by their local name only.
+	 *
+	 * @return Namespace URI; empty for no namespace.
+	 */
+	String namespace() default "";
+}
@@ -0,0 +1,976 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+
+/**
+ * Recorded sequence of events from an {@link XMLReader}, which can be
+ * replayed any number of times. This allows a document to be processed in
+ * multiple passes while parsing it only once.
+ *
+ * <p>Events are stored in primitive arrays: a fixed number of integers per
+ * event and per attribute, with all character data, attribute values and
+ * processing instructions in a single character array. Names are stored once
+ * and remain canonical, as required by {@link XMLReader}.
+ *
+ * <p>A buffer is immutable once recorded. Any number of readers can be
+ * created for it, which may be used concurrently from different threads.
+ *
+ * @author G. Meinders
+ */
+public final class XMLEventBuffer
+{
+	/**
+	 * Number of integers per event.
+	 */
+	private static final int EVENT_SIZE = 7;
+
+	/**
+	 * Offset of the event type ordinal within an event.
+	 */
+	private static final int TYPE = 0;
+
+	/**
+	 * Offset of the namespace URI index (elements) or the start of the target
+	 * (processing instructions) or text (character data) within an event.
+	 */
+	private static final int FIELD1 = 1;
+
+	/**
+	 * Offset of the local name index (elements) or the length of the target
+	 * (processing instructions) or text (character data) within an event.
+	 */
+	private static final int FIELD2 = 2;
+
+	/**
+	 * Offset of the index of the first attribute (start elements) or the
+	 * start of the data (processing instructions) within an event.
+	 */
+	private static final int FIELD3 = 3;
+
+	/**
+	 * Offset of the attribute count (start elements) or the length of the
+	 * data (processing instructions) within an event.
+	 */
+	private static final int FIELD4 = 4;
+
+	/**
+	 * Offset of the line number within an event.
+	 */
+	private static final int LINE = 5;
+
+	/**
+	 * Offset of the column number within an event.
+	 */
+	private static final int COLUMN = 6;
+
+	/**
+	 * Number of integers per attribute.
+	 */
+	private static final int ATTRIBUTE_SIZE = 4;
+
+	/**
+	 * Event types, indexed by ordinal.
+	 */
+	private static final XMLEventType[] EVENT_TYPES = XMLEventType.values();
+
+	/**
+	 * Recorded events, {@link #EVENT_SIZE} integers each.
+	 */
+	@NotNull
+	private final int[] _events;
+
+	/**
+	 * Number of recorded events.
+	 */
+	private final int _eventCount;
+
+	/**
+	 * Index of the matching end element event for each event; {@code -1} if
+	 * the event is not a start element or has no matching end element.
+	 */
+	@NotNull
+	private final int[] _matchingEnds;
+
+	/**
+	 * Recorded attributes, {@link #ATTRIBUTE_SIZE} integers each: namespace
+	 * URI index, local name index, value start and value length.
+	 */
+	@NotNull
+	private final int[] _attributes;
+
+	/**
+	 * Character data, attribute values and processing instructions.
+	 */
+	@NotNull
+	private final char[] _chars;
+
+	/**
+	 * Names of elements and attributes; element {@code 0} is {@code null},
+	 * for the absence of a namespace.
+	 */
+	@NotNull
+	private final String[] _names;
+
+	/**
+	 * Constructs a new instance.
+	 *
+	 * @param recorder Recorder with recorded events.
+	 */
+	private XMLEventBuffer( @NotNull final Recorder recorder )
+	{
+		_events = Arrays.copyOf( recorder._events, recorder._eventCount * EVENT_SIZE );
+		_eventCount = recorder._eventCount;
+		_matchingEnds = Arrays.copyOf( recorder._matchingEnds, recorder._eventCount );
+		_attributes = Arrays.copyOf( recorder._attributes, recorder._attributeCount * ATTRIBUTE_SIZE );
+		_chars = Arrays.copyOf( recorder._chars, recorder._charCount );
+		_names = recorder._names.toArray( new String[ recorder._names.size() ] );
+	}
+
+	/**
+	 * Records the remaining events of the document being read. The current
+	 * event is recorded as well, unless it is {@link
+	 * XMLEventType#START_DOCUMENT}. Afterwards, the reader is positioned at
+	 * the end of the document.
+	 *
+	 * @param reader XML reader to record.
+	 *
+	 * @return Recorded events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	public static XMLEventBuffer record( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final Recorder recorder = new Recorder();
+		XMLEventType eventType = reader.getEventType();
+		if ( eventType != XMLEventType.START_DOCUMENT )
+		{
+			recorder.add( reader );
+		}
+		while ( eventType != XMLEventType.END_DOCUMENT )
+		{
+			eventType = reader.next();
+			recorder.add( reader );
+		}
+		return new XMLEventBuffer( recorder );
+	}
+
+	/**
+	 * Records the current element, including its content. Afterwards, the
+	 * reader is positioned at the end of the element, like after {@link
+	 * XMLReader#skipElement()}.
+	 *
+	 * @param reader XML reader to record.
+	 *
+	 * @return Recorded events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 */
+	@NotNull
+	public static XMLEventBuffer recordElement( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		if ( reader.getEventType() != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + reader.getEventType() );
+		}
+
+		final Recorder recorder = new Recorder();
+		recorder.add( reader );
+		int depth = 1;
+		while ( depth > 0 )
+		{
+			final XMLEventType eventType = reader.next();
+			if ( eventType == XMLEventType.START_ELEMENT )
+			{
+				depth++;
+			}
+			else if ( eventType == XMLEventType.END_ELEMENT )
+			{
+				depth--;
+			}
+			recorder.add( reader );
+		}
+		return new XMLEventBuffer( recorder );
+	}
+
+	/**
+	 * Returns the number of recorded events.
+	 *
+	 * @return Number of events.
+	 */
+	public int getEventCount()
+	{
+		return _eventCount;
+	}
+
+	/**
+	 * Creates a reader that replays the recorded events. The reader starts at
+	 * {@link XMLEventType#START_DOCUMENT} and ends with {@link
+	 * XMLEventType#END_DOCUMENT}, even if those events were not recorded.
+	 *
+	 * @return XML reader.
+	 */
+	@NotNull
+	public MarkableXMLReader createReader()
+	{
+		return new Replay();
+	}
+
+	/**
+	 * Collects events while recording.
+	 */
+	private static class Recorder
+	{
+		/**
+		 * Recorded events.
+		 */
+		@NotNull
+		private int[] _events = new int[ 64 * EVENT_SIZE ];
+
+		/**
+		 * Number of recorded events.
+		 */
+		private int _eventCount = 0;
+
+		/**
+		 * Index of the matching end element event for each event.
+		 */
+		@NotNull
+		private int[] _matchingEnds = new int[ 64 ];
+
+		/**
+		 * Recorded attributes.
+		 */
+		@NotNull
+		private int[] _attributes = new int[ 64 * ATTRIBUTE_SIZE ];
+
+		/**
+		 * Number of recorded attributes.
+		 */
+		private int _attributeCount = 0;
+
+		/**
+		 * Recorded characters.
+		 */
+		@NotNull
+		private char[] _chars = new char[ 1024 ];
+
+		/**
+		 * Number of recorded characters.
+		 */
+		private int _charCount = 0;
+
+		/**
+		 * Recorded names.
+		 */
+		@NotNull
+		private final List<String> _names = new ArrayList<String>();
+
+		/**
+		 * Maps names to their index in {@link #_names}.
+		 */
+		@NotNull
+		private final Map<String, Integer> _nameIndices = new HashMap<String, Integer>();
+
+		/**
+		 * Indices of start element events without a matching end element.
+		 */
+		@NotNull
+		private int[] _openElements = new int[ 16 ];
+
+		/**
+		 * Number of open elements.
+		 */
+		private int _depth = 0;
+
+		/**
+		 * Constructs a new instance.
+		 */
+		Recorder()
+		{
+			_names.add( null );
+		}
+
+		/**
+		 * Records the current event of the given reader.
+		 *
+		 * @param reader XML reader.
+		 */
+		void add( @NotNull final XMLReader reader )
+		{
+			final int event = _eventCount;
+			if ( event * EVENT_SIZE == _events.length )
+			{
+				_events = Arrays.copyOf( _events, _events.length * 2 );
+				_matchingEnds = Arrays.copyOf( _matchingEnds, _matchingEnds.length * 2 );
+			}
+			_eventCount = event + 1;
+
+			final int[] events = _events;
+			final int offset = event * EVENT_SIZE;
+			final XMLEventType eventType = reader.getEventType();
+			events[ offset + TYPE ] = eventType.ordinal();
+			events[ offset + LINE ] = reader.getLineNumber();
+			events[ offset + COLUMN ] = reader.getColumnNumber();
+			_matchingEnds[ event ] = -1;
+
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+				{
+					events[ offset + FIELD1 ] = nameIndex( reader.getNamespaceURI() );
+					events[ offset + FIELD2 ] = nameIndex( reader.getLocalName() );
+
+					final int attributeCount = reader.getAttributeCount();
+					events[ offset + FIELD3 ] = _attributeCount;
+					events[ offset + FIELD4 ] = attributeCount;
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						addAttribute( reader.getAttributeNamespaceURI( i ), reader.getAttributeLocalName( i ), reader.getAttributeValue( i ) );
+					}
+
+					if ( _depth == _openElements.length )
+					{
+						_openElements = Arrays.copyOf( _openElements, _depth * 2 );
+					}
+					_openElements[ _depth++ ] = event;
+					break;
+				}
+
+				case END_ELEMENT:
+					events[ offset + FIELD1 ] = nameIndex( reader.getNamespaceURI() );
+					events[ offset + FIELD2 ] = nameIndex( reader.getLocalName() );
+					if ( _depth > 0 )
+					{
+						_matchingEnds[ _openElements[ --_depth ] ] = event;
+					}
+					break;
+
+				case CHARACTERS:
+				{
+					final int length = reader.getTextLength();
+					events[ offset + FIELD1 ] = addChars( reader.getTextCharacters(), reader.getTextStart(), length );
+					events[ offset + FIELD2 ] = length;
+					break;
+				}
+
+				case PROCESSING_INSTRUCTION:
+				{
+					final String target = reader.getPITarget();
+					final String data = reader.getPIData();
+					events[ offset + FIELD1 ] = addChars( target );
+					events[ offset + FIELD2 ] = target.length();
+					events[ offset + FIELD3 ] = addChars( data );
+					events[ offset + FIELD4 ] = data.length();
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Records an attribute.
+		 *
+		 * @param namespaceURI Namespace URI.
+		 * @param localName    Local name.
+		 * @param value        Attribute value.
+		 */
+		private void addAttribute( @Nullable final String namespaceURI, @NotNull final String localName, @NotNull final String value )
+		{
+			final int offset = _attributeCount * ATTRIBUTE_SIZE;
+			if ( offset == _attributes.length )
+			{
+				_attributes = Arrays.copyOf( _attributes, offset * 2 );
+			}
+			_attributeCount++;
+
+			final int[] attributes = _attributes;
+			attributes[ offset ] = nameIndex( namespaceURI );
+			attributes[ offset + 1 ] = nameIndex( localName );
+			attributes[ offset + 2 ] = addChars( value );
+			attributes[ offset + 3 ] = value.length();
+		}
+
+		/**
+		 * Returns the index of the given name, adding it if needed.
+		 *
+		 * @param name Name.
+		 *
+		 * @return Name index.
+		 */
+		private int nameIndex( @Nullable final String name )
+		{
+			int result = 0;
+			if ( name != null )
+			{
+				final Integer index = _nameIndices.get( name );
+				if ( index == null )
+				{
+					result = _names.size();
+					_names.add( name );
+					_nameIndices.put( name, result );
+				}
+				else
+				{
+					result = index;
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Records the characters of a string.
+		 *
+		 * @param string String to record.
+		 *
+		 * @return Index of the first recorded character.
+		 */
+		private int addChars( @NotNull final String string )
+		{
+			final int result = reserveChars( string.length() );
+			string.getChars( 0, string.length(), _chars, result );
+			return result;
+		}
+
+		/**
+		 * Records characters.
+		 *
+		 * @param chars  Characters to record.
+		 * @param start  Start index.
+		 * @param length Number of characters.
+		 *
+		 * @return Index of the first recorded character.
+		 */
+		private int addChars( @NotNull final char[] chars, final int start, final int length )
+		{
+			final int result = reserveChars( length );
+			System.arraycopy( chars, start, _chars, result, length );
+			return result;
+		}
+
+		/**
+		 * Reserves room for the given number of characters.
+		 *
+		 * @param length Number of characters.
+		 *
+		 * @return Index of the first reserved character.
+		 */
+		private int reserveChars( final int length )
+		{
+			final int result = _charCount;
+			final int required = result + length;
+			if ( required > _chars.length )
+			{
+				_chars = Arrays.copyOf( _chars, Math.max( required, _chars.length * 2 ) );
+			}
+			_charCount = required;
+			return result;
+		}
+	}
+
+	/**
+	 * Reader that replays the recorded events.
+	 */
+	private class Replay
+	implements MarkableXMLReader
+	{
+		/**
+		 * Index of the current event; {@code -1} for the start of the
+		 * document; {@link #_eventCount} for the end of the document.
+		 */
+		private int _event = -1;
+
+		/**
+		 * Type of the current event.
+		 */
+		@NotNull
+		private XMLEventType _eventType = XMLEventType.START_DOCUMENT;
+
+		/**
+		 * Offset of the current event in {@link #_events}.
+		 */
+		private int _offset = 0;
+
+		/**
+		 * Index for looking up attributes of elements with many attributes;
+		 * {@code null} until needed.
+		 */
+		@Nullable
+		private AttributeIndex _attributeIndex = null;
+
+		/**
+		 * Index of the marked event; {@code -2} if no mark is set.
+		 */
+		private int _mark = -2;
+
+		@Override
+		@NotNull
+		public XMLEventType getEventType()
+		{
+			return _eventType;
+		}
+
+		@Override
+		@NotNull
+		public XMLEventType next()
+		{
+			if ( _eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+			moveTo( _event + 1 );
+			return _eventType;
+		}
+
+		/**
+		 * Moves to the given event.
+		 *
+		 * @param event Event index.
+		 */
+		private void moveTo( final int event )
+		{
+			_event = event;
+			_offset = event * EVENT_SIZE;
+			_eventType = ( event < 0 ) ? XMLEventType.START_DOCUMENT : ( event < _eventCount ) ? EVENT_TYPES[ _events[ _offset + TYPE ] ] : XMLEventType.END_DOCUMENT;
+			if ( _attributeIndex != null )
+			{
+				_attributeIndex.clear();
+			}
+		}
+
+		@Override
+		public void skipElement()
+		{
+			if ( _eventType != XMLEventType.START_ELEMENT )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+
+			final int end = _matchingEnds[ _event ];
+			moveTo( ( end < 0 ) ? _eventCount : end );
+		}
+
+		@Override
+		@NotNull
+		public XMLEventType peek()
+		{
+			if ( _eventType == XMLEventType.END_DOCUMENT )
+			{
+				throw new IllegalStateException( "Not allowed after " + XMLEventType.END_DOCUMENT + " event." );
+			}
+			final int event = _event + 1;
+			return ( event < _eventCount ) ? EVENT_TYPES[ _events[ event * EVENT_SIZE + TYPE ] ] : XMLEventType.END_DOCUMENT;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 *
+		 * <p>Since all events are kept in memory, the mark never becomes
+		 * invalid by reading past the read limit.
+		 */
+		@Override
+		public void mark( final int readLimit )
+		{
+			_mark = _event;
+		}
+
+		@Override
+		public void resetToMark()
+		{
+			if ( _mark < -1 )
+			{
+				throw new IllegalStateException( "No valid mark." );
+			}
+			moveTo( _mark );
+		}
+
+		@Override
+		public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+		{
+			throw new UnsupportedOperationException( "Replayed events can't be reset to another document." );
+		}
+
+		@Override
+		public String getNamespaceURI()
+		{
+			checkElement();
+			return _names[ _events[ _offset + FIELD1 ] ];
+		}
+
+		@Override
+		@NotNull
+		public String getLocalName()
+		{
+			checkElement();
+			return _names[ _events[ _offset + FIELD2 ] ];
+		}
+
+		/**
+		 * Checks that the current event is a start or end element event.
+		 */
+		private void checkElement()
+		{
+			final XMLEventType eventType = _eventType;
+			if ( ( eventType != XMLEventType.START_ELEMENT ) &&
+			     ( eventType != XMLEventType.END_ELEMENT ) )
+			{
+				throw new IllegalStateException( "Not allowed for " + eventType );
+			}
+		}
+
+		@Override
+		public int getAttributeCount()
+		{
+			checkStartElement();
+			return _events[ _offset + FIELD4 ];
+		}
+
+		@Override
+		public String getAttributeNamespaceURI( final int index )
+		{
+			return _names[ _attributes[ attributeOffset( index ) ] ];
+		}
+
+		@Override
+		@NotNull
+		public String getAttributeLocalName( final int index )
+		{
+			return _names[ _attributes[ attributeOffset( index ) + 1 ] ];
+		}
+
+		@Override
+		@NotNull
+		public String getAttributeValue( final int index )
+		{
+			final int offset = attributeOffset( index );
+			return new String( _chars, _attributes[ offset + 2 ], _attributes[ offset + 3 ] );
+		}
+
+		@Override
+		public String getAttributeValue( @NotNull final String localName )
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( true, null, localName );
+			return ( index < 0 ) ? null : getAttributeValue( index );
+		}
+
+		@Override
+		public String getAttributeValue( @Nullable final String namespaceURI, @NotNull final String localName )
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			return ( index < 0 ) ? null : getAttributeValue( index );
+		}
+
+		@Override
+		public int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			int result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseInt( _chars, _attributes[ offset + 2 ], _attributes[ offset + 2 ] + _attributes[ offset + 3 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			long result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseLong( _chars, _attributes[ offset + 2 ], _attributes[ offset + 2 ] + _attributes[ offset + 3 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			double result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseDouble( _chars, _attributes[ offset + 2 ], _attributes[ offset + 2 ] + _attributes[ offset + 3 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			float result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseFloat( _chars, _attributes[ offset + 2 ], _attributes[ offset + 2 ] + _attributes[ offset + 3 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+		throws XMLException
+		{
+			checkStartElement();
+			final int index = indexOfAttribute( false, namespaceURI, localName );
+			boolean result = defaultValue;
+			if ( index >= 0 )
+			{
+				final int offset = ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+				try
+				{
+					result = TextParser.parseBoolean( _chars, _attributes[ offset + 2 ], _attributes[ offset + 2 ] + _attributes[ offset + 3 ] );
+				}
+				catch ( final IllegalArgumentException ignored )
+				{
+					throw invalidAttributeValue( index );
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Creates an exception for an attribute with an invalid value.
+		 *
+		 * @param index Attribute index.
+		 *
+		 * @return Exception.
+		 */
+		@NotNull
+		private XMLException invalidAttributeValue( final int index )
+		{
+			return TextParser.invalidAttributeValue( getAttributeLocalName( index ), getAttributeValue( index ) );
+		}
+
+		/**
+		 * Returns the index of the specified attribute of the current element.
+		 *
+		 * @param anyNamespace Whether to match attributes in any namespace.
+		 * @param namespaceURI Namespace URI; {@code null} for an attribute
+		 *                     with no prefix.
+		 * @param localName    Local name.
+		 *
+		 * @return Attribute index; {@code -1} if not found.
+		 */
+		private int indexOfAttribute( final boolean anyNamespace, @Nullable final String namespaceURI, @NotNull final String localName )
+		{
+			int result = -1;
+
+			final int first = _events[ _offset + FIELD3 ];
+			final int attributeCount = _events[ _offset + FIELD4 ];
+			if ( attributeCount > AttributeIndex.THRESHOLD )
+			{
+				AttributeIndex attributeIndex = _attributeIndex;
+				if ( attributeIndex == null )
+				{
+					attributeIndex = new AttributeIndex();
+					_attributeIndex = attributeIndex;
+				}
+				if ( !attributeIndex.isBuilt() )
+				{
+					attributeIndex.reset( attributeCount );
+					for ( int i = 0; i < attributeCount; i++ )
+					{
+						final int offset = ( first + i ) * ATTRIBUTE_SIZE;
+						attributeIndex.set( i, _names[ _attributes[ offset ] ], _names[ _attributes[ offset + 1 ] ] );
+					}
+				}
+				result = anyNamespace ? attributeIndex.indexOf( localName ) : attributeIndex.indexOf( namespaceURI, localName );
+			}
+			else
+			{
+				for ( int i = 0; i < attributeCount; i++ )
+				{
+					final int offset = ( first + i ) * ATTRIBUTE_SIZE;
+					final String candidateLocalName = _names[ _attributes[ offset + 1 ] ];
+					final String candidateNamespaceURI = _names[ _attributes[ offset ] ];
+					//noinspection StringEquality
+					if ( ( ( candidateLocalName == localName ) || candidateLocalName.equals( localName ) ) &&
+					     ( anyNamespace || AttributeIndex.isSameNamespace( namespaceURI, candidateNamespaceURI ) ) )
+					{
+						result = i;
+						break;
+					}
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Returns the offset of the given attribute of the current element.
+		 *
+		 * @param index Attribute index.
+		 *
+		 * @return Offset in {@link #_attributes}.
+		 */
+		private int attributeOffset( final int index )
+		{
+			checkStartElement();
+			final int attributeCount = _events[ _offset + FIELD4 ];
+			if ( ( index < 0 ) || ( index >= attributeCount ) )
+			{
+				throw new IndexOutOfBoundsException( index + " (attributeCount: " + attributeCount + ')' );
+			}
+			return ( _events[ _offset + FIELD3 ] + index ) * ATTRIBUTE_SIZE;
+		}
+
+		/**
+		 * Checks that the current event is a start element event.
+		 */
+		private void checkStartElement()
+		{
+			if ( _eventType != XMLEventType.START_ELEMENT )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		@NotNull
+		public String getText()
+		{
+			checkCharacters();
+			return new String( _chars, _events[ _offset + FIELD1 ], _events[ _offset + FIELD2 ] );
+		}
+
+		@Override
+		@NotNull
+		public char[] getTextCharacters()
+		{
+			checkCharacters();
+			return _chars;
+		}
+
+		@Override
+		public int getTextStart()
+		{
+			checkCharacters();
+			return _events[ _offset + FIELD1 ];
+		}
+
+		@Override
+		public int getTextLength()
+		{
+			checkCharacters();
+			return _events[ _offset + FIELD2 ];
+		}
+
+		/**
+		 * Checks that the current event is a character data event.
+		 */
+		private void checkCharacters()
+		{
+			if ( _eventType != XMLEventType.CHARACTERS )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		@NotNull
+		public String getPITarget()
+		{
+			checkProcessingInstruction();
+			return new String( _chars, _events[ _offset + FIELD1 ], _events[ _offset + FIELD2 ] );
+		}
+
+		@Override
+		@NotNull
+		public String getPIData()
+		{
+			checkProcessingInstruction();
+			return new String( _chars, _events[ _offset + FIELD3 ], _events[ _offset + FIELD4 ] );
+		}
+
+		/**
+		 * Checks that the current event is a processing instruction.
+		 */
+		private void checkProcessingInstruction()
+		{
+			if ( _eventType != XMLEventType.PROCESSING_INSTRUCTION )
+			{
+				throw new IllegalStateException( "Not allowed for " + _eventType );
+			}
+		}
+
+		@Override
+		public int getLineNumber()
+		{
+			return ( ( _event >= 0 ) && ( _event < _eventCount ) ) ? _events[ _offset + LINE ] : -1;
+		}
+
+		@Override
+		public int getColumnNumber()
+		{
+			return ( ( _event >= 0 ) && ( _event < _eventCount ) ) ? _events[ _offset + COLUMN ] : -1;
+		}
+	}
+}
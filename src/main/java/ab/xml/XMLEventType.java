@@ -64,4 +64,11 @@ public enum XMLEventType
 	 * Indicates a document type declaration.
 	 */
 	DTD,
+
+	/**
+	 * Indicates that the next event can't be parsed until more input is
+	 * available. This is only reported by non-blocking readers, such as
+	 * {@link AsyncXMLReader}.
+	 */
+	NEED_MORE_INPUT,
 }
@@ -19,6 +19,8 @@
 
 package ab.xml;
 
+import java.io.*;
+
 import org.jetbrains.annotations.*;
 
 /**
@@ -27,6 +29,12 @@ import org.jetbrains.annotations.*;
  * <p>Comments and declarations are ignored. All character data is treated
  * equally. Processing instructions are supported.
  *
+ * <p>Namespace URIs and local names of elements and attributes are canonical,
+ * i.e. equal names are always the same instance as returned by {@link
+ * String#intern()}. As a result, names can be compared to string literals
+ * using {@code ==}. Names that are constructed at run time should be {@link
+ * String#intern() interned} to allow such comparison.
+ *
  * @author Gerrit Meinders
  */
 public interface XMLReader
@@ -54,6 +62,54 @@ public interface XMLReader
 	XMLEventType next()
 	throws XMLException;
 
+	/**
+	 * Skips the content of the current element. Afterwards, the reader is
+	 * positioned at the end of the element. Implementations may skip the
+	 * content without decoding text or attributes, so this is more efficient
+	 * than calling {@link #next()} repeatedly.
+	 *
+	 * @throws XMLException if a parse error occurs.
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 */
+	void skipElement()
+	throws XMLException;
+
+	/**
+	 * Returns a checkpoint from which parsing can be resumed after the current
+	 * event, using {@link XMLReaderFactory#resumeXMLReader}. Checkpoints are
+	 * only available at element boundaries, i.e. for {@link
+	 * XMLEventType#START_ELEMENT} and {@link XMLEventType#END_ELEMENT} events.
+	 *
+	 * @return Checkpoint after the current event.
+	 *
+	 * @throws IllegalStateException if the current event is not an element
+	 * boundary, or if it is the start of an empty element.
+	 * @throws UnsupportedOperationException if the reader doesn't support
+	 * checkpoints, i.e. if {@link XMLReaderFactory#supportsCheckpoints()}
+	 * returns {@code false} for the factory that created it.
+	 */
+	@NotNull
+	default XMLCheckpoint getCheckpoint()
+	{
+		throw new UnsupportedOperationException( "Checkpoints are not supported by " + getClass().getName() );
+	}
+
+	/**
+	 * Resets the reader to read a new document from the given stream. Any
+	 * state of the previous document is discarded, but internal buffers and
+	 * name tables are retained, which makes reusing a reader cheaper than
+	 * creating a new one.
+	 *
+	 * @param in       Stream to read from.
+	 * @param encoding Character encoding to be used; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	void reset( @NotNull InputStream in, @Nullable String encoding )
+	throws XMLException;
+
 	/**
 	 * Returns the URI of the namespace of the current element. This is either
 	 * the namespace bound to the element's prefix, the default namespace (if
@@ -167,6 +223,182 @@ public interface XMLReader
 	@Nullable
 	String getAttributeValue( @Nullable String namespaceURI, @NotNull String localName );
 
+	/**
+	 * Returns the value of the specified attribute as an integer, parsed as by
+	 * {@link Integer#parseInt(String)}. Where possible, the value is parsed directly
+	 * from the underlying buffer, without creating a string.
+	 *
+	 * @param namespaceURI Namespace URI, or {@code null} for an attribute with
+	 *                     no prefix.
+	 * @param localName    Local name.
+	 * @param defaultValue Value to return if the attribute is not found.
+	 *
+	 * @return Attribute value; {@code defaultValue} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws XMLException if the attribute value is not an integer.
+	 */
+	default int getAttributeAsInt( @Nullable final String namespaceURI, @NotNull final String localName, final int defaultValue )
+	throws XMLException
+	{
+		final String value = getAttributeValue( namespaceURI, localName );
+		int result = defaultValue;
+		if ( value != null )
+		{
+			try
+			{
+				result = Integer.parseInt( value );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw TextParser.invalidAttributeValue( localName, value );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified attribute as a long integer, parsed as by
+	 * {@link Long#parseLong(String)}. Where possible, the value is parsed directly
+	 * from the underlying buffer, without creating a string.
+	 *
+	 * @param namespaceURI Namespace URI, or {@code null} for an attribute with
+	 *                     no prefix.
+	 * @param localName    Local name.
+	 * @param defaultValue Value to return if the attribute is not found.
+	 *
+	 * @return Attribute value; {@code defaultValue} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws XMLException if the attribute value is not a long integer.
+	 */
+	default long getAttributeAsLong( @Nullable final String namespaceURI, @NotNull final String localName, final long defaultValue )
+	throws XMLException
+	{
+		final String value = getAttributeValue( namespaceURI, localName );
+		long result = defaultValue;
+		if ( value != null )
+		{
+			try
+			{
+				result = Long.parseLong( value );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw TextParser.invalidAttributeValue( localName, value );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified attribute as a double, parsed as by
+	 * {@link Double#parseDouble(String)}. Where possible, the value is parsed directly
+	 * from the underlying buffer, without creating a string.
+	 *
+	 * @param namespaceURI Namespace URI, or {@code null} for an attribute with
+	 *                     no prefix.
+	 * @param localName    Local name.
+	 * @param defaultValue Value to return if the attribute is not found.
+	 *
+	 * @return Attribute value; {@code defaultValue} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws XMLException if the attribute value is not a double.
+	 */
+	default double getAttributeAsDouble( @Nullable final String namespaceURI, @NotNull final String localName, final double defaultValue )
+	throws XMLException
+	{
+		final String value = getAttributeValue( namespaceURI, localName );
+		double result = defaultValue;
+		if ( value != null )
+		{
+			try
+			{
+				result = Double.parseDouble( value );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw TextParser.invalidAttributeValue( localName, value );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified attribute as a float, parsed as by
+	 * {@link Float#parseFloat(String)}. Where possible, the value is parsed directly
+	 * from the underlying buffer, without creating a string.
+	 *
+	 * @param namespaceURI Namespace URI, or {@code null} for an attribute with
+	 *                     no prefix.
+	 * @param localName    Local name.
+	 * @param defaultValue Value to return if the attribute is not found.
+	 *
+	 * @return Attribute value; {@code defaultValue} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws XMLException if the attribute value is not a float.
+	 */
+	default float getAttributeAsFloat( @Nullable final String namespaceURI, @NotNull final String localName, final float defaultValue )
+	throws XMLException
+	{
+		final String value = getAttributeValue( namespaceURI, localName );
+		float result = defaultValue;
+		if ( value != null )
+		{
+			try
+			{
+				result = Float.parseFloat( value );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw TextParser.invalidAttributeValue( localName, value );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the value of the specified attribute as a boolean. Valid values
+	 * are those of the XML Schema {@code boolean} type: {@code true}, {@code
+	 * false}, {@code 1} and {@code 0}. Where possible, the value is parsed
+	 * directly from the underlying buffer, without creating a string.
+	 *
+	 * @param namespaceURI Namespace URI, or {@code null} for an attribute with
+	 *                     no prefix.
+	 * @param localName    Local name.
+	 * @param defaultValue Value to return if the attribute is not found.
+	 *
+	 * @return Attribute value; {@code defaultValue} if not found.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#START_ELEMENT}.
+	 * @throws XMLException if the attribute value is not a boolean.
+	 */
+	default boolean getAttributeAsBoolean( @Nullable final String namespaceURI, @NotNull final String localName, final boolean defaultValue )
+	throws XMLException
+	{
+		final String value = getAttributeValue( namespaceURI, localName );
+		boolean result = defaultValue;
+		if ( value != null )
+		{
+			try
+			{
+				result = TextParser.parseBoolean( value );
+			}
+			catch ( final IllegalArgumentException ignored )
+			{
+				throw TextParser.invalidAttributeValue( localName, value );
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Returns the character data for the current event.
 	 *
@@ -178,6 +410,45 @@ public interface XMLReader
 	@NotNull
 	String getText();
 
+	/**
+	 * Returns the buffer containing the character data for the current event.
+	 * The character data is located in the range given by {@link
+	 * #getTextStart()} and {@link #getTextLength()}.
+	 *
+	 * <p>Unlike {@link #getText()}, this method does not create a copy of the
+	 * character data. The contents of the buffer are only valid until the next
+	 * call to {@link #next()} and must not be modified.
+	 *
+	 * @return Buffer containing the character data.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#CHARACTERS}.
+	 */
+	@NotNull
+	char[] getTextCharacters();
+
+	/**
+	 * Returns the index of the first character of the current event in the
+	 * buffer returned by {@link #getTextCharacters()}.
+	 *
+	 * @return Start index of the character data.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#CHARACTERS}.
+	 */
+	int getTextStart();
+
+	/**
+	 * Returns the number of characters of the current event in the buffer
+	 * returned by {@link #getTextCharacters()}.
+	 *
+	 * @return Length of the character data.
+	 *
+	 * @throws IllegalStateException if the current event is not {@link
+	 * XMLEventType#CHARACTERS}.
+	 */
+	int getTextLength();
+
 	/**
 	 * Returns the processing instruction target for the current event.
 	 *
@@ -19,6 +19,13 @@
 package ab.xml;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 import org.jetbrains.annotations.*;
 
@@ -30,21 +37,22 @@ import org.jetbrains.annotations.*;
  *
  * <li>Streaming API for XML (StAX)</li>
  *
- * <li>XML Pull</li> </ul>
+ * <li>XML Pull</li>
+ *
+ * <li>Built-in UTF-8 reader (see {@link Utf8ReaderFactory})</li> </ul>
+ *
+ * <p>Implementations are discovered using {@link java.util.ServiceLoader}.
+ * Additional implementations can be registered by listing them in a file
+ * {@code META-INF/services/ab.xml.XMLReaderFactory}.
  *
  * @author G. Meinders
  */
 public abstract class XMLReaderFactory
 {
 	/**
-	 * Class names of factory implementations.
+	 * Registry of factory implementations.
 	 */
-	@SuppressWarnings( "SpellCheckingInspection" )
-	private static final String[] FACTORY_CLASS_NAMES =
-	{
-	"ab.xml.XmlPullReaderFactory",
-	"ab.xml.StaxReaderFactory"
-	};
+	private static final FactoryRegistry<XMLReaderFactory> REGISTRY = new FactoryRegistry<XMLReaderFactory>( XMLReaderFactory.class, XMLReaderFactory::newFactory );
 
 	/**
 	 * Create a new factory that uses an XML API that is available on the
@@ -56,69 +64,202 @@ public abstract class XMLReaderFactory
 	 */
 	public static XMLReaderFactory newInstance()
 	{
-		XMLReaderFactory result = null;
+		return REGISTRY.newInstance();
+	}
+
+	/**
+	 * Create a new instance of the specified factory implementation.
+	 *
+	 * @param name Fully qualified or simple class name of the factory, e.g.
+	 *             {@code "Utf8ReaderFactory"}.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if the factory is not available.
+	 */
+	public static XMLReaderFactory newInstance( @NotNull final String name )
+	{
+		return REGISTRY.newInstance( name );
+	}
+
+	/**
+	 * Create a new instance of the most preferred factory implementation that
+	 * matches the given condition. Only factories that are available on the
+	 * current platform are considered.
+	 *
+	 * @param condition Condition that the factory must match.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no matching factory is available.
+	 */
+	public static XMLReaderFactory newInstance( @NotNull final Predicate<? super XMLReaderFactory> condition )
+	{
+		return REGISTRY.newInstance( condition );
+	}
 
-		for ( final String className : FACTORY_CLASS_NAMES )
+	/**
+	 * Returns the class names of all factory implementations that are
+	 * available on the current platform, in order of preference.
+	 *
+	 * @return Class names of available factories.
+	 */
+	@NotNull
+	public static List<String> getAvailableFactories()
+	{
+		final List<XMLReaderFactory> factories = REGISTRY.getFactories();
+		final List<String> result = new ArrayList<String>( factories.size() );
+		for ( final XMLReaderFactory factory : factories )
 		{
-			try
-			{
-				//noinspection unchecked
-				final Class<XMLReaderFactory> clazz = (Class<XMLReaderFactory>)Class.forName( className );
-				//noinspection JavaReflectionMemberAccess
-				result = clazz.getConstructor().newInstance();
-				break;
-			}
-			catch ( final FactoryException e )
-			{
-				// Factory determined a problem. Use another factory.
-			}
-			catch ( final NoClassDefFoundError e )
-			{
-				// If the underlying API is not available.
-			}
-			catch ( final ClassNotFoundException e )
-			{
-				/*
-				 * If the factory class doesn't exist.
-				 * If so, the list of factory classes should be corrected.
-				 */
-				throw new FactoryException( e );
-			}
-			catch ( final IllegalAccessException e )
-			{
-				/*
-				 * If the factory class doesn't have a public constructor.
-				 * If so, the factory class should be corrected.
-				 */
-				throw new FactoryException( e );
-			}
-			catch ( final Throwable e )
-			{
-				/*
-				 * Any other problem with the factory probably indicates a
-				 * programming error as well.
-				 */
-				throw new FactoryException( e );
-			}
+			result.add( factory.getClass().getName() );
 		}
+		return result;
+	}
 
-		if ( result == null )
+	/**
+	 * Returns a shared factory that uses an XML API that is available on the
+	 * current platform. Unlike {@link #newInstance()}, this method doesn't
+	 * create a new factory, so it is suitable for frequent use.
+	 *
+	 * @return Shared factory instance.
+	 *
+	 * @throws FactoryException if no factory can be loaded.
+	 */
+	public static XMLReaderFactory getSharedInstance()
+	{
+		return REGISTRY.getSharedInstance();
+	}
+
+	/**
+	 * Default maximum number of readers retained for reuse.
+	 */
+	public static final int DEFAULT_MAXIMUM_POOL_SIZE = 16;
+
+	/**
+	 * Readers that were released for reuse.
+	 */
+	@NotNull
+	private final Queue<XMLReader> _pool;
+
+	/**
+	 * Number of readers in {@link #_pool}.
+	 */
+	@NotNull
+	private final AtomicInteger _poolSize;
+
+	/**
+	 * Maximum number of readers retained for reuse.
+	 */
+	private volatile int _maximumPoolSize;
+
+	/**
+	 * Constructs a new factory instance.
+	 */
+	protected XMLReaderFactory()
+	{
+		_pool = new ConcurrentLinkedQueue<XMLReader>();
+		_poolSize = new AtomicInteger();
+		_maximumPoolSize = DEFAULT_MAXIMUM_POOL_SIZE;
+	}
+
+	/**
+	 * Creates a new instance of the same class as this factory, with default
+	 * settings. This is used to create new instances of discovered factories.
+	 * Implementations should override this method to avoid reflection and to
+	 * share resources that are expensive to create; the default
+	 * implementation uses the public no-argument constructor.
+	 *
+	 * @return New factory instance.
+	 *
+	 * @throws FactoryException if the factory can't be created.
+	 */
+	@NotNull
+	protected XMLReaderFactory newFactory()
+	{
+		return FactoryRegistry.instantiate( this );
+	}
+
+	/**
+	 * Returns the maximum number of readers retained for reuse.
+	 *
+	 * @return Maximum pool size.
+	 */
+	public int getMaximumPoolSize()
+	{
+		return _maximumPoolSize;
+	}
+
+	/**
+	 * Sets the maximum number of readers retained for reuse. Readers that are
+	 * already retained are not discarded when the maximum is lowered.
+	 *
+	 * @param maximumPoolSize Maximum pool size; {@code 0} to disable pooling.
+	 */
+	public void setMaximumPoolSize( final int maximumPoolSize )
+	{
+		if ( maximumPoolSize < 0 )
 		{
-			throw new FactoryException( "Could not find an implementation that is supported by the current platform." );
+			throw new IllegalArgumentException( "maximumPoolSize: " + maximumPoolSize );
 		}
+		_maximumPoolSize = maximumPoolSize;
+	}
 
+	/**
+	 * Returns an XML reader for the given stream. If a previously released
+	 * reader is available, it is {@link XMLReader#reset reset} and reused;
+	 * otherwise, a new reader is created. The reader should be returned using
+	 * {@link #releaseXMLReader} when it's no longer needed.
+	 *
+	 * <p>This method is thread-safe, but the returned reader is not.
+	 *
+	 * @param in       Stream to read from.
+	 * @param encoding Character encoding to be used; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @return XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader acquireXMLReader( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		XMLReader result = _pool.poll();
+		if ( result == null )
+		{
+			result = createXMLReader( in, encoding );
+		}
+		else
+		{
+			_poolSize.decrementAndGet();
+			result.reset( CompressedInput.openStream( in ), encoding );
+		}
 		return result;
 	}
 
 	/**
-	 * Constructs a new factory instance.
+	 * Releases an XML reader, such that it may be reused by {@link
+	 * #acquireXMLReader}. The caller must not use the reader after releasing
+	 * it. If the pool is full, the reader is discarded.
+	 *
+	 * <p>This method is thread-safe.
+	 *
+	 * @param reader XML reader created by this factory.
 	 */
-	protected XMLReaderFactory()
+	public void releaseXMLReader( @NotNull final XMLReader reader )
 	{
+		if ( _poolSize.incrementAndGet() <= _maximumPoolSize )
+		{
+			_pool.offer( reader );
+		}
+		else
+		{
+			_poolSize.decrementAndGet();
+		}
 	}
 
 	/**
-	 * Creates an XML reader.
+	 * Creates an XML reader. The factories provided by this library detect
+	 * compressed documents (gzip or zlib) and decompress them sequentially.
 	 *
 	 * @param in       Stream to read from.
 	 * @param encoding Character encoding to be used; {@code null} to detect
@@ -130,4 +271,170 @@ public abstract class XMLReaderFactory
 	 */
 	public abstract XMLReader createXMLReader( @NotNull final InputStream in, @Nullable final String encoding )
 	throws XMLException;
+
+	/**
+	 * Creates an XML reader that reads a document from the given array. The
+	 * array is not copied, so it must not be modified while the reader is in
+	 * use. Compressed documents (gzip or zlib) are decompressed automatically.
+	 *
+	 * @param bytes    Array containing the document.
+	 * @param offset   Start index of the document.
+	 * @param length   Length of the document, in bytes.
+	 * @param encoding Character encoding to be used; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader createXMLReader( @NotNull final byte[] bytes, final int offset, final int length, @Nullable final String encoding )
+	throws XMLException
+	{
+		final InputStream compressed = CompressedInput.open( ByteBuffer.wrap( bytes, offset, length ) );
+		return createXMLReader( ( compressed != null ) ? compressed : new ByteArrayInputStream( bytes, offset, length ), encoding );
+	}
+
+	/**
+	 * Creates an XML reader that reads a document from the remaining bytes of
+	 * the given buffer, which may be a heap or direct buffer. The position of
+	 * the buffer is not changed. The contents of the buffer are not copied, so
+	 * they must not be modified while the reader is in use. Compressed
+	 * documents (gzip or zlib) are decompressed automatically.
+	 *
+	 * @param buffer   Buffer containing the document.
+	 * @param encoding Character encoding to be used; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader createXMLReader( @NotNull final ByteBuffer buffer, @Nullable final String encoding )
+	throws XMLException
+	{
+		final XMLReader result;
+		if ( buffer.hasArray() )
+		{
+			result = createXMLReader( buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), encoding );
+		}
+		else
+		{
+			final InputStream compressed = CompressedInput.open( buffer );
+			result = createXMLReader( ( compressed != null ) ? compressed : new ByteBufferInputStream( buffer.duplicate() ), encoding );
+		}
+		return result;
+	}
+
+	/**
+	 * Creates an XML reader that reads a document from the given channel.
+	 * Input is read from the channel directly into the buffer of the reader.
+	 * Compressed documents (gzip or zlib) are decompressed automatically.
+	 *
+	 * @param channel  Channel to read from.
+	 * @param encoding Character encoding to be used; {@code null} to detect
+	 *                 automatically.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader createXMLReader( @NotNull final ReadableByteChannel channel, @Nullable final String encoding )
+	throws XMLException
+	{
+		return createXMLReader( Channels.newInputStream( channel ), encoding );
+	}
+
+	/**
+	 * Returns whether XML readers created by the factory support {@link
+	 * XMLReader#getCheckpoint()} and whether the factory supports {@link
+	 * #resumeXMLReader}. To select such a factory, use {@code
+	 * newInstance( XMLReaderFactory::supportsCheckpoints )}.
+	 *
+	 * @return {@code true} if checkpoints are supported.
+	 */
+	public boolean supportsCheckpoints()
+	{
+		return false;
+	}
+
+	/**
+	 * Creates an XML reader that resumes parsing a document at the given
+	 * checkpoint, which was obtained using {@link XMLReader#getCheckpoint()}.
+	 * The channel must contain the same document, starting at position 0, and
+	 * is positioned at the offset of the checkpoint. The first event of the
+	 * reader is the event following the checkpoint.
+	 *
+	 * <p>Only factories for which {@link #supportsCheckpoints()} returns
+	 * {@code true} support this method.
+	 *
+	 * @param channel    Channel to read from.
+	 * @param checkpoint Checkpoint to resume from.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 * @throws UnsupportedOperationException if {@link #supportsCheckpoints()}
+	 * returns {@code false}.
+	 */
+	public XMLReader resumeXMLReader( @NotNull final SeekableByteChannel channel, @NotNull final XMLCheckpoint checkpoint )
+	throws XMLException
+	{
+		throw new UnsupportedOperationException( "Checkpoints are not supported by " + getClass().getName() );
+	}
+
+	/**
+	 * Creates an XML reader that reads the given file. The file is
+	 * memory-mapped, and the character encoding is detected automatically.
+	 * Compressed files (gzip or zlib) are decompressed automatically.
+	 *
+	 * @param file File to read.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader createXMLReader( @NotNull final Path file )
+	throws XMLException
+	{
+		try ( final FileChannel channel = FileChannel.open( file, StandardOpenOption.READ ) )
+		{
+			return createXMLReader( channel );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	/**
+	 * Creates an XML reader that reads from the current position of the given
+	 * file channel up to the end of the file. The file is memory-mapped, and
+	 * the character encoding is detected automatically. The reader does not
+	 * depend on the channel, which may be closed after calling this method.
+	 *
+	 * <p>Compressed files (gzip or zlib) are decompressed automatically. The
+	 * members of multi-member gzip files, such as those created by {@code
+	 * pigz}, are inflated in parallel on background threads.
+	 *
+	 * @param channel File channel to read from.
+	 *
+	 * @return Created XML reader.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	public XMLReader createXMLReader( @NotNull final FileChannel channel )
+	throws XMLException
+	{
+		final InputStream in;
+		try
+		{
+			final InputStream compressed = CompressedInput.open( channel );
+			in = ( compressed != null ) ? compressed : new MappedFileInputStream( channel );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+		return createXMLReader( in, null );
+	}
 }
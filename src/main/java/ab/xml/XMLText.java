@@ -0,0 +1,37 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.lang.annotation.*;
+
+/**
+ * Binds a field to the character data of the element of an {@link
+ * XMLElement} class. Supported field types are those supported by {@link
+ * XMLAttribute}. If the class also has {@link XMLChild} fields, the field
+ * type must be {@code String}, which receives all character data between the
+ * child elements.
+ *
+ * @author G. Meinders
+ */
+@Documented
+@Retention( RetentionPolicy.CLASS )
+@Target( ElementType.FIELD )
+public @interface XMLText
+{
+}
@@ -116,6 +116,54 @@ public interface XMLWriter
 	void text( @NotNull String characters )
 	throws XMLException;
 
+	/**
+	 * Writes an attribute with a {@code double} value, formatted as by
+	 * {@link DatatypeConverter#printDouble(double)}.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param localName    Locale name of the attribute.
+	 * @param value        Value of the attribute.
+	 *
+	 * @throws XMLException if an XML-related error occurs.
+	 */
+	void doubleAttribute( @Nullable String namespaceURI, @NotNull String localName, double value )
+	throws XMLException;
+
+	/**
+	 * Writes an attribute with a {@code float} value, formatted as by
+	 * {@link DatatypeConverter#printFloat(float)}.
+	 *
+	 * @param namespaceURI Namespace URI.
+	 * @param localName    Locale name of the attribute.
+	 * @param value        Value of the attribute.
+	 *
+	 * @throws XMLException if an XML-related error occurs.
+	 */
+	void floatAttribute( @Nullable String namespaceURI, @NotNull String localName, float value )
+	throws XMLException;
+
+	/**
+	 * Writes a {@code double} value as character data, formatted as by
+	 * {@link DatatypeConverter#printDouble(double)}.
+	 *
+	 * @param value Value to be written.
+	 *
+	 * @throws XMLException if an XML-related error occurs.
+	 */
+	void doubleText( double value )
+	throws XMLException;
+
+	/**
+	 * Writes a {@code float} value as character data, formatted as by
+	 * {@link DatatypeConverter#printFloat(float)}.
+	 *
+	 * @param value Value to be written.
+	 *
+	 * @throws XMLException if an XML-related error occurs.
+	 */
+	void floatText( float value )
+	throws XMLException;
+
 	/**
 	 * Writes an end tag.
 	 *
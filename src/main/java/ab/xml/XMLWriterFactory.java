@@ -19,6 +19,10 @@
 package ab.xml;
 
 import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+import org.jetbrains.annotations.*;
 
 /**
  * Factory for creating {@link XMLWriter} instances using an XML API that is
@@ -30,6 +34,10 @@ import java.io.*;
  *
  * <li>XML Pull</li> </ul>
  *
+ * <p>Implementations are discovered using {@link java.util.ServiceLoader}.
+ * Additional implementations can be registered by listing them in a file
+ * {@code META-INF/services/ab.xml.XMLWriterFactory}.
+ *
  * For an overview of differences with these APIs, see {@link XMLWriter}.
  *
  * @author G. Meinders
@@ -37,14 +45,9 @@ import java.io.*;
 public abstract class XMLWriterFactory
 {
 	/**
-	 * Class names of factory implementations.
+	 * Registry of factory implementations.
 	 */
-	@SuppressWarnings( "SpellCheckingInspection" )
-	private static final String[] FACTORY_CLASS_NAMES =
-	{
-	"ab.xml.XmlPullWriterFactory",
-	"ab.xml.StaxWriterFactory"
-	};
+	private static final FactoryRegistry<XMLWriterFactory> REGISTRY = new FactoryRegistry<XMLWriterFactory>( XMLWriterFactory.class, XMLWriterFactory::newFactory );
 
 	/**
 	 * Create a new factory that uses an XML API that is available on the
@@ -56,57 +59,55 @@ public abstract class XMLWriterFactory
 	 */
 	public static XMLWriterFactory newInstance()
 	{
-		XMLWriterFactory result = null;
+		return REGISTRY.newInstance();
+	}
 
-		for ( final String className : FACTORY_CLASS_NAMES )
-		{
-			try
-			{
-				//noinspection unchecked
-				final Class<XMLWriterFactory> clazz = (Class<XMLWriterFactory>)Class.forName( className );
-				//noinspection JavaReflectionMemberAccess
-				result = clazz.getConstructor().newInstance();
-				break;
-			}
-			catch ( final FactoryException e )
-			{
-				// Factory determined a problem. Use another factory.
-			}
-			catch ( final NoClassDefFoundError e )
-			{
-				// If the underlying API is not available.
-			}
-			catch ( final ClassNotFoundException e )
-			{
-				/*
-				 * If the factory class doesn't exist.
-				 * If so, the list of factory classes should be corrected.
-				 */
-				throw new FactoryException( e );
-			}
-			catch ( final IllegalAccessException e )
-			{
-				/*
-				 * If the factory class doesn't have a public constructor.
-				 * If so, the factory class should be corrected.
-				 */
-				throw new FactoryException( e );
-			}
-			catch ( final Throwable e )
-			{
-				/*
-				 * Any other problem with the factory probably indicates a
-				 * programming error as well.
-				 */
-				throw new FactoryException( e );
-			}
-		}
+	/**
+	 * Create a new instance of the specified factory implementation.
+	 *
+	 * @param name Fully qualified or simple class name of the factory, e.g.
+	 *             {@code "StaxWriterFactory"}.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if the factory is not available.
+	 */
+	public static XMLWriterFactory newInstance( @NotNull final String name )
+	{
+		return REGISTRY.newInstance( name );
+	}
 
-		if ( result == null )
+	/**
+	 * Create a new instance of the most preferred factory implementation that
+	 * matches the given condition. Only factories that are available on the
+	 * current platform are considered.
+	 *
+	 * @param condition Condition that the factory must match.
+	 *
+	 * @return Factory instance.
+	 *
+	 * @throws FactoryException if no matching factory is available.
+	 */
+	public static XMLWriterFactory newInstance( @NotNull final Predicate<? super XMLWriterFactory> condition )
+	{
+		return REGISTRY.newInstance( condition );
+	}
+
+	/**
+	 * Returns the class names of all factory implementations that are
+	 * available on the current platform, in order of preference.
+	 *
+	 * @return Class names of available factories.
+	 */
+	@NotNull
+	public static List<String> getAvailableFactories()
+	{
+		final List<XMLWriterFactory> factories = REGISTRY.getFactories();
+		final List<String> result = new ArrayList<String>( factories.size() );
+		for ( final XMLWriterFactory factory : factories )
 		{
-			throw new FactoryException( "Could not find an implementation that is supported by the current platform." );
+			result.add( factory.getClass().getName() );
 		}
-
 		return result;
 	}
 
@@ -134,6 +135,23 @@ public abstract class XMLWriterFactory
 		_indenting = false;
 	}
 
+	/**
+	 * Creates a new instance of the same class as this factory, with default
+	 * settings. This is used to create new instances of discovered factories.
+	 * Implementations should override this method to avoid reflection and to
+	 * share resources that are expensive to create; the default
+	 * implementation uses the public no-argument constructor.
+	 *
+	 * @return New factory instance.
+	 *
+	 * @throws FactoryException if the factory can't be created.
+	 */
+	@NotNull
+	protected XMLWriterFactory newFactory()
+	{
+		return FactoryRegistry.instantiate( this );
+	}
+
 	/**
 	 * Returns whether XML writers created by the factory should automatically
 	 * indent the written XML. Indenting is disabled by default.
@@ -20,6 +20,7 @@
 package ab.xml;
 
 import java.io.*;
+import java.util.*;
 
 import org.jetbrains.annotations.*;
 import org.xmlpull.v1.*;
@@ -44,6 +45,18 @@ implements XMLReader
 	@NotNull
 	private XMLEventType _eventType;
 
+	/**
+	 * Provides canonical names.
+	 */
+	@NotNull
+	private final NameTable _names;
+
+	/**
+	 * Index used to look up attributes of elements with many attributes.
+	 */
+	@NotNull
+	private final AttributeIndex _attributeIndex;
+
 	/**
 	 * Target of the current processing instruction, if any.
 	 */
@@ -57,20 +70,38 @@ implements XMLReader
 	private String _piData;
 
 	/**
-	 * Text content of the current character data event. If set, the state of
-	 * the underlying parser should be ignored and a character data event with
-	 * the content of this string should be reported instead.
+	 * Whether the underlying parser is positioned at the token following the
+	 * current event, which should be reported by the next call to {@link
+	 * #next()}. This is the case after coalescing character data.
+	 */
+	private boolean _tokenPending;
+
+	/**
+	 * Text content of the current character data event. Consecutive character
+	 * data that is returned as separate events by {@link
+	 * XmlPullParser#nextToken()} is coalesced into this buffer.
+	 */
+	@NotNull
+	private char[] _characterData;
+
+	/**
+	 * Number of characters in {@link #_characterData}.
+	 */
+	private int _characterDataLength;
+
+	/**
+	 * Text content of the current character data event as a string, if
+	 * requested.
 	 */
 	@Nullable
-	private String _characterData;
+	private String _characterDataString;
 
 	/**
-	 * Used to coalesce consecutive character data that is returned as separate
-	 * events by {@link XmlPullParser#nextToken()}.
+	 * Receives the start and length of text from {@link
+	 * XmlPullParser#getTextCharacters(int[])}.
 	 */
-	@SuppressWarnings( "StringBufferField" )
 	@NotNull
-	private final StringBuilder _characterDataBuilder;
+	private final int[] _holderForStartAndLength;
 
 	/**
 	 * Constructs a new instance.
@@ -81,10 +112,15 @@ implements XMLReader
 	{
 		_parser = parser;
 		_eventType = XMLEventType.START_DOCUMENT;
+		_names = new NameTable();
+		_attributeIndex = new AttributeIndex();
 		_piTarget = null;
 		_piData = null;
-		_characterData = null;
-		_characterDataBuilder = new StringBuilder();
+		_tokenPending = false;
+		_characterData = new char[ 256 ];
+		_characterDataLength = 0;
+		_characterDataString = null;
+		_holderForStartAndLength = new int[ 2 ];
 	}
 
 	@Override
@@ -110,7 +146,7 @@ implements XMLReader
 			final int token;
 			try
 			{
-				if ( _characterData == null )
+				if ( !_tokenPending )
 				{
 					try
 					{
@@ -124,7 +160,7 @@ implements XMLReader
 				else
 				{
 					token = _parser.getEventType();
-					_characterData = null;
+					_tokenPending = false;
 				}
 			}
 			catch ( final XmlPullParserException e )
@@ -182,6 +218,7 @@ implements XMLReader
 		while ( result == null );
 
 		_eventType = result;
+		_attributeIndex.clear();
 		updateProcessingInstructionFields();
 
 		if ( result == XMLEventType.CHARACTERS )
@@ -192,6 +229,67 @@ implements XMLReader
 		return result;
 	}
 
+	@Override
+	public void skipElement()
+	throws XMLException
+	{
+		if ( _eventType != XMLEventType.START_ELEMENT )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		// Skip tokens directly, without coalescing character data.
+		final XmlPullParser parser = _parser;
+		final int depth = parser.getDepth();
+		try
+		{
+			int token;
+			do
+			{
+				token = parser.nextToken();
+				if ( token == XmlPullParser.END_DOCUMENT )
+				{
+					throw new XMLException( "Unexpected end of document." );
+				}
+			}
+			while ( ( token != XmlPullParser.END_TAG ) || ( parser.getDepth() != depth ) );
+		}
+		catch ( final XmlPullParserException e )
+		{
+			throw new XMLException( e );
+		}
+		catch ( final IOException e )
+		{
+			throw new XMLException( e );
+		}
+
+		_eventType = XMLEventType.END_ELEMENT;
+		_attributeIndex.clear();
+	}
+
+	@Override
+	public void reset( @NotNull final InputStream in, @Nullable final String encoding )
+	throws XMLException
+	{
+		try
+		{
+			_parser.setInput( in, encoding );
+		}
+		catch ( final XmlPullParserException e )
+		{
+			throw new XMLException( e );
+		}
+
+		_eventType = XMLEventType.START_DOCUMENT;
+		_attributeIndex.clear();
+		_piTarget = null;
+		_piData = null;
+		_tokenPending = false;
+		_characterDataLength = 0;
+		_characterDataString = null;
+		_names.trim();
+	}
+
 	/**
 	 * Updates the {@link #_piTarget} and {@link #_piData} fields. Must be
 	 * called after {@link #_eventType} is updated.
@@ -253,10 +351,11 @@ implements XMLReader
 	private void coalesceCharacterData()
 	throws XMLException
 	{
-		final StringBuilder builder = _characterDataBuilder;
-		builder.append( _parser.getText() );
+		_characterDataLength = 0;
+		_characterDataString = null;
 		try
 		{
+			appendCharacterData( _parser.getEventType() );
 			while ( true )
 			{
 				final int token = _parser.nextToken();
@@ -264,7 +363,7 @@ implements XMLReader
 				     ( token == XmlPullParser.CDSECT ) ||
 				     ( token == XmlPullParser.ENTITY_REF ) )
 				{
-					builder.append( _parser.getText() );
+					appendCharacterData( token );
 				}
 				else
 				{
@@ -281,8 +380,47 @@ implements XMLReader
 			throw new XMLException( e );
 		}
 
-		_characterData = builder.toString();
-		_characterDataBuilder.setLength( 0 );
+		_tokenPending = true;
+	}
+
+	/**
+	 * Appends the text of the current token of the underlying parser to
+	 * {@link #_characterData}.
+	 *
+	 * @param token Current token of the underlying parser.
+	 */
+	private void appendCharacterData( final int token )
+	{
+		final XmlPullParser parser = _parser;
+		final char[] text;
+		final int start;
+		final int length;
+		if ( token == XmlPullParser.ENTITY_REF )
+		{
+			// Text characters of entity references contain the entity name.
+			final String replacement = parser.getText();
+			text = ( replacement == null ) ? new char[ 0 ] : replacement.toCharArray();
+			start = 0;
+			length = text.length;
+		}
+		else
+		{
+			final int[] holder = _holderForStartAndLength;
+			text = parser.getTextCharacters( holder );
+			start = holder[ 0 ];
+			length = holder[ 1 ];
+		}
+
+		if ( length > 0 )
+		{
+			final int required = _characterDataLength + length;
+			if ( required > _characterData.length )
+			{
+				_characterData = Arrays.copyOf( _characterData, Math.max( required, _characterData.length * 2 ) );
+			}
+			System.arraycopy( text, start, _characterData, _characterDataLength, length );
+			_characterDataLength = required;
+		}
 	}
 
 	@Override
@@ -295,7 +433,7 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + eventType );
 		}
 
-		return _parser.getNamespace( _parser.getPrefix() );
+		return _names.getName( _parser.getNamespace( _parser.getPrefix() ) );
 	}
 
 	@Override
@@ -309,7 +447,7 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + eventType );
 		}
 
-		return _parser.getName();
+		return _names.getName( _parser.getName() );
 	}
 
 	@Override
@@ -336,7 +474,7 @@ implements XMLReader
 			throw new IndexOutOfBoundsException( index + " (attributeCount: " + getAttributeCount() + ')' );
 		}
 
-		return ( _parser.getAttributePrefix( index ) == null ) ? null : _parser.getAttributeNamespace( index );
+		return ( _parser.getAttributePrefix( index ) == null ) ? null : _names.getName( _parser.getAttributeNamespace( index ) );
 	}
 
 	@Override
@@ -353,7 +491,7 @@ implements XMLReader
 			throw new IndexOutOfBoundsException( index + " (attributeCount: " + getAttributeCount() + ')' );
 		}
 
-		return _parser.getAttributeName( index );
+		return _names.getName( _parser.getAttributeName( index ) );
 	}
 
 	@Override
@@ -385,12 +523,23 @@ implements XMLReader
 		String result = null;
 
 		final int attributeCount = _parser.getAttributeCount();
-		for ( int i = 0; i < attributeCount; i++ )
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			final int index = getAttributeIndex().indexOf( localName );
+			if ( index >= 0 )
+			{
+				result = _parser.getAttributeValue( index );
+			}
+		}
+		else
 		{
-			if ( localName.equals( _parser.getAttributeName( i ) ) )
+			for ( int i = 0; i < attributeCount; i++ )
 			{
-				result = _parser.getAttributeValue( i );
-				break;
+				if ( localName.equals( _parser.getAttributeName( i ) ) )
+				{
+					result = _parser.getAttributeValue( i );
+					break;
+				}
 			}
 		}
 
@@ -405,7 +554,55 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + _eventType );
 		}
 
-		return _parser.getAttributeValue( namespaceURI, localName );
+		String result = null;
+
+		// Not delegated, since XML Pull matches any namespace if none is specified.
+		final XmlPullParser parser = _parser;
+		final int attributeCount = parser.getAttributeCount();
+		if ( attributeCount > AttributeIndex.THRESHOLD )
+		{
+			final int index = getAttributeIndex().indexOf( namespaceURI, localName );
+			if ( index >= 0 )
+			{
+				result = parser.getAttributeValue( index );
+			}
+		}
+		else
+		{
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				if ( localName.equals( parser.getAttributeName( i ) ) && AttributeIndex.isSameNamespace( namespaceURI, parser.getAttributeNamespace( i ) ) )
+				{
+					result = parser.getAttributeValue( i );
+					break;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the attribute index for the current element, building it if
+	 * needed.
+	 *
+	 * @return Attribute index.
+	 */
+	@NotNull
+	private AttributeIndex getAttributeIndex()
+	{
+		final AttributeIndex result = _attributeIndex;
+		if ( !result.isBuilt() )
+		{
+			final XmlPullParser parser = _parser;
+			final int attributeCount = parser.getAttributeCount();
+			result.reset( attributeCount );
+			for ( int i = 0; i < attributeCount; i++ )
+			{
+				result.set( i, ( parser.getAttributePrefix( i ) == null ) ? null : parser.getAttributeNamespace( i ), parser.getAttributeName( i ) );
+			}
+		}
+		return result;
 	}
 
 	@Override
@@ -417,7 +614,47 @@ implements XMLReader
 			throw new IllegalStateException( "Not allowed for " + _eventType );
 		}
 
-		return ( _characterData != null ) ? _characterData : _parser.getText();
+		String result = _characterDataString;
+		if ( result == null )
+		{
+			result = new String( _characterData, 0, _characterDataLength );
+			_characterDataString = result;
+		}
+		return result;
+	}
+
+	@Override
+	@NotNull
+	public char[] getTextCharacters()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _characterData;
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return 0;
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		if ( _eventType != XMLEventType.CHARACTERS )
+		{
+			throw new IllegalStateException( "Not allowed for " + _eventType );
+		}
+
+		return _characterDataLength;
 	}
 
 	@Override
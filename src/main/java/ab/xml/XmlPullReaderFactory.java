@@ -28,9 +28,15 @@ import org.xmlpull.v1.*;
  *
  * @author G. Meinders
  */
-class XmlPullReaderFactory
+public class XmlPullReaderFactory
 extends XMLReaderFactory
 {
+	/**
+	 * Cached {@link XmlPullParserFactory} instance. Creating a factory involves
+	 * a search for implementation classes, so it is shared by all instances.
+	 */
+	private static volatile XmlPullParserFactory _sharedFactory = null;
+
 	/**
 	 * Factory used to create XML Pull readers.
 	 */
@@ -41,16 +47,28 @@ extends XMLReaderFactory
 	 */
 	public XmlPullReaderFactory()
 	{
-		try
+		XmlPullParserFactory factory = _sharedFactory;
+		if ( factory == null )
 		{
-			final XmlPullParserFactory factory = XmlPullParserFactory.newInstance();
-			factory.setNamespaceAware( true );
-			_factory = factory;
-		}
-		catch ( final XmlPullParserException e )
-		{
-			throw new FactoryException( e );
+			try
+			{
+				factory = XmlPullParserFactory.newInstance();
+				factory.setNamespaceAware( true );
+			}
+			catch ( final XmlPullParserException e )
+			{
+				throw new FactoryException( e );
+			}
+			_sharedFactory = factory;
 		}
+		_factory = factory;
+	}
+
+	@Override
+	@NotNull
+	protected XMLReaderFactory newFactory()
+	{
+		return new XmlPullReaderFactory();
 	}
 
 	@Override
@@ -61,7 +79,7 @@ extends XMLReaderFactory
 		try
 		{
 			parser = _factory.newPullParser();
-			parser.setInput( in, encoding );
+			parser.setInput( CompressedInput.openStream( in ), encoding );
 		}
 		catch ( final XmlPullParserException e )
 		{
@@ -44,6 +44,11 @@ implements XMLWriter
 	 */
 	private boolean _empty = false;
 
+	/**
+	 * Buffer used to format numbers.
+	 */
+	private final char[] _numberBuffer = new char[ DatatypeConverter.MAX_DOUBLE_LENGTH ];
+
 	/**
 	 * Constructs a new instance.
 	 *
@@ -144,6 +149,60 @@ implements XMLWriter
 		}
 	}
 
+	@Override
+	public void doubleAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final double value )
+	throws XMLException
+	{
+		attribute( namespaceURI, localName, DatatypeConverter.printDouble( value ) );
+	}
+
+	@Override
+	public void floatAttribute( @Nullable final String namespaceURI, @NotNull final String localName, final float value )
+	throws XMLException
+	{
+		attribute( namespaceURI, localName, DatatypeConverter.printFloat( value ) );
+	}
+
+	@Override
+	public void doubleText( final double value )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		try
+		{
+			final char[] buffer = _numberBuffer;
+			_serializer.text( buffer, 0, DatatypeConverter.printDouble( value, buffer, 0 ) );
+		}
+		catch ( final Exception e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
+	@Override
+	public void floatText( final float value )
+	throws XMLException
+	{
+		if ( _empty )
+		{
+			throw new XMLException( "Not allowed inside an empty tag. Use 'endTag' first." );
+		}
+
+		try
+		{
+			final char[] buffer = _numberBuffer;
+			_serializer.text( buffer, 0, DatatypeConverter.printFloat( value, buffer, 0 ) );
+		}
+		catch ( final Exception e )
+		{
+			throw new XMLException( e );
+		}
+	}
+
 	@Override
 	public void endTag( final String namespaceURI, @NotNull final String localName )
 	throws XMLException
@@ -31,6 +31,12 @@ import org.xmlpull.v1.*;
 public class XmlPullWriterFactory
 extends XMLWriterFactory
 {
+	/**
+	 * Cached {@link XmlPullParserFactory} instance. Creating a factory involves
+	 * a search for implementation classes, so it is shared by all instances.
+	 */
+	private static volatile XmlPullParserFactory _sharedParserFactory = null;
+
 	/**
 	 * Parser factory to create {@link XmlSerializer} instances with.
 	 */
@@ -41,18 +47,28 @@ extends XMLWriterFactory
 	 */
 	public XmlPullWriterFactory()
 	{
-		final XmlPullParserFactory parserFactory;
-		try
+		XmlPullParserFactory parserFactory = _sharedParserFactory;
+		if ( parserFactory == null )
 		{
-			parserFactory = XmlPullParserFactory.newInstance();
-		}
-		catch ( final XmlPullParserException e )
-		{
-			throw new FactoryException( e );
+			try
+			{
+				parserFactory = XmlPullParserFactory.newInstance();
+			}
+			catch ( final XmlPullParserException e )
+			{
+				throw new FactoryException( e );
+			}
+			_sharedParserFactory = parserFactory;
 		}
 		_parserFactory = parserFactory;
 	}
 
+	@Override
+	protected XMLWriterFactory newFactory()
+	{
+		return new XmlPullWriterFactory();
+	}
+
 	@Override
 	public XMLWriter createXMLWriter( final OutputStream out, final String encoding )
 	throws XMLException
@@ -0,0 +1,219 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link AbstractXMLParser}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestAbstractXMLParser
+{
+	/**
+	 * Tests parsing of lists, using each available reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testLists()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+
+			/*
+			 * Comments split the character data into multiple events, including
+			 * in the middle of a list element.
+			 */
+			final TestParser strings = new TestParser( factory, "<list> a\tbc\r\n d<!-- split -->ef g<!---->  h </list>" );
+			final List<String> actualStrings = new ArrayList<String>();
+			strings.parseList( actualStrings::add );
+			assertEquals( "Unexpected list for " + factoryName + '.', Arrays.asList( "a", "bc", "def", "g", "h" ), actualStrings );
+			assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, strings._reader.getEventType() );
+
+			final TestParser doubles = new TestParser( factory, "<list>1.5 -2\n3e2<!-- split -->5 0.1\t</list>" );
+			assertArrayEquals( "Unexpected list for " + factoryName + '.', new double[] { 1.5, -2.0, 3e25, 0.1 }, doubles.parseDoubleList(), 0.0 );
+
+			final TestParser floats = new TestParser( factory, "<list>\n\t1.5 -2<!---->.25 3e2\n</list>" );
+			assertArrayEquals( "Unexpected list for " + factoryName + '.', new float[] { 1.5f, -2.25f, 300.0f }, floats.parseFloatList(), 0.0f );
+
+			final StringBuilder indexList = new StringBuilder( "<list>" );
+			final int[] expectedIndices = new int[ 1000 ];
+			for ( int i = 0; i < expectedIndices.length; i++ )
+			{
+				expectedIndices[ i ] = i * 7 - 500;
+				indexList.append( expectedIndices[ i ] ).append( ( i % 3 == 0 ) ? "\n" : " " );
+			}
+			indexList.append( "</list>" );
+			final TestParser ints = new TestParser( factory, indexList.toString() );
+			assertArrayEquals( "Unexpected list for " + factoryName + '.', expectedIndices, ints.parseIntList() );
+
+			final TestParser empty = new TestParser( factory, "<list> \n </list>" );
+			assertEquals( "Unexpected list length for " + factoryName + '.', 0, empty.parseIntList().length );
+
+			final TestParser invalid = new TestParser( factory, "<list>1 2.5 3</list>" );
+			try
+			{
+				invalid.parseIntList();
+				fail( "Expected exception for " + factoryName + '.' );
+			}
+			catch ( final XMLException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Tests parsing of lists in parallel.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testParallelLists()
+	throws Exception
+	{
+		final StringBuilder content = new StringBuilder( "<list>" );
+		final Random random = new Random( 42L );
+		final int[] expectedInts = new int[ 10000 ];
+		for ( int i = 0; i < expectedInts.length; i++ )
+		{
+			expectedInts[ i ] = random.nextInt();
+			content.append( expectedInts[ i ] ).append( ( i % 10 == 0 ) ? "\r\n" : ( i % 1000 == 0 ) ? "<!-- -->\t" : " " );
+		}
+		content.append( "</list>" );
+
+		final double[] expectedDoubles = new double[ expectedInts.length ];
+		final float[] expectedFloats = new float[ expectedInts.length ];
+		for ( int i = 0; i < expectedInts.length; i++ )
+		{
+			expectedDoubles[ i ] = (double)expectedInts[ i ];
+			expectedFloats[ i ] = (float)expectedInts[ i ];
+		}
+
+		final ForkJoinPool pool = new ForkJoinPool( 4 );
+		try
+		{
+			for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+			{
+				final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+
+				final TestParser ints = new TestParser( factory, content.toString() );
+				ints.setListPool( pool );
+				ints.setMinimumListChunkSize( 100 );
+				assertArrayEquals( "Unexpected list for " + factoryName + '.', expectedInts, ints.parseIntList() );
+				assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, ints._reader.getEventType() );
+
+				final TestParser doubles = new TestParser( factory, content.toString() );
+				doubles.setListPool( pool );
+				doubles.setMinimumListChunkSize( 1 );
+				assertArrayEquals( "Unexpected list for " + factoryName + '.', expectedDoubles, doubles.parseDoubleList(), 0.0 );
+
+				final TestParser floats = new TestParser( factory, content.toString() );
+				floats.setListPool( pool );
+				assertArrayEquals( "Unexpected list for " + factoryName + '.', expectedFloats, floats.parseFloatList(), 0.0f );
+
+				final TestParser empty = new TestParser( factory, "<list/>" );
+				empty.setListPool( pool );
+				assertEquals( "Unexpected list length for " + factoryName + '.', 0, empty.parseDoubleList().length );
+
+				final TestParser invalid = new TestParser( factory, content.toString().replace( " " + expectedInts[ 5005 ] + ' ', " 1x2 " ) );
+				invalid.setListPool( pool );
+				invalid.setMinimumListChunkSize( 100 );
+				try
+				{
+					invalid.parseIntList();
+					fail( "Expected exception for " + factoryName + '.' );
+				}
+				catch ( final XMLException e )
+				{
+					assertTrue( "Unexpected message: " + e.getMessage(), e.getMessage().endsWith( ": 1x2" ) );
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Tests that only XML whitespace is trimmed from element text that is
+	 * parsed as a number, like attribute values and list items.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testElementWhitespace()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			assertEquals( "Unexpected value for " + factoryName + '.', 42, new TestParser( factory, "<list><value> \t42\r\n</value></list>" ).parseIntElement() );
+			assertEquals( "Unexpected value for " + factoryName + '.', 1.5, new TestParser( factory, "<list><value>\n1.5 </value></list>" ).parseDoubleElement(), 0.0 );
+
+			for ( final String value : Arrays.asList( "\u200342", "42\u001f", "\u00a042" ) )
+			{
+				try
+				{
+					new TestParser( factory, "<list><value>" + value + "</value></list>" ).parseIntElement();
+					fail( "Expected exception for " + factoryName + '.' );
+				}
+				catch ( final XMLException e )
+				{
+					// Expected.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Parser positioned at the content of the root element of a document.
+	 */
+	private static class TestParser
+	extends AbstractXMLParser
+	{
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param factory XML reader factory.
+		 * @param content Document content.
+		 *
+		 * @throws Exception if the document can't be read.
+		 */
+		TestParser( @NotNull final XMLReaderFactory factory, @NotNull final String content )
+		throws Exception
+		{
+			super( factory.createXMLReader( new ByteArrayInputStream( content.getBytes( "UTF-8" ) ), "UTF-8" ) );
+			_reader.next();
+			require( XMLEventType.START_ELEMENT );
+			_reader.next();
+		}
+	}
+}
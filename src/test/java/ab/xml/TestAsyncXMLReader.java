@@ -0,0 +1,267 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link AsyncXMLReader}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestAsyncXMLReader
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "﻿<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+	                                       "<!DOCTYPE root [ <!ENTITY e \"]>\"> ]>\n" +
+	                                       "<!-- comment -- with > and -->\n" +
+	                                       "<root xmlns=\"urn:a\" xmlns:b=\"urn:b\" id=\"42\" b:expr=\"a > b / c\">\n" +
+	                                       "\t<?target some ? data?>\n" +
+	                                       "\t<b:child flag='true'>text &amp; <![CDATA[<cdata> ]] ]]>more</b:child>\n" +
+	                                       "\t<empty/><empty a=\"/\" />é€😀<!-- inner -->after\r\n" +
+	                                       "\t<many a0=\"0\" a1=\"1\" a2=\"2\" a3=\"3\" a4=\"4\" a5=\"5\" a6=\"6\" a7=\"7\" a8=\"8\" a9=\"9\"/>\n" +
+	                                       "\t<skipped><x><y/></x>z</skipped>\n" +
+	                                       "</root>\n" +
+	                                       "<!-- trailing -->\n";
+
+	/**
+	 * Tests that feeding the document in chunks of various sizes results in
+	 * the same events as reading it from a stream.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testChunks()
+	throws Exception
+	{
+		final byte[] bytes = DOCUMENT.getBytes( "UTF-8" );
+		final String expected = describe( new Utf8ReaderFactory().createXMLReader( new ByteArrayInputStream( bytes ), null ), bytes, bytes.length );
+		for ( final int chunkSize : new int[] { 1, 2, 3, 5, 8, 13, 64, bytes.length } )
+		{
+			assertEquals( "Unexpected events for chunk size " + chunkSize + '.', expected, describe( new AsyncXMLReader(), bytes, chunkSize ) );
+		}
+
+		final AsyncXMLReader reader = new AsyncXMLReader();
+		reader.feed( ByteBuffer.wrap( bytes, 0, 10 ) );
+		reader.reset( new ByteArrayInputStream( bytes ), null );
+		assertEquals( "Unexpected events after reset.", expected, describe( reader, bytes, 0 ) );
+	}
+
+	/**
+	 * Tests that {@link XMLEventType#NEED_MORE_INPUT} is returned as long as
+	 * the next event is incomplete.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNeedMoreInput()
+	throws Exception
+	{
+		final AsyncXMLReader reader = new AsyncXMLReader();
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+
+		feed( reader, "<root><a x='1'" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+		assertEquals( "Unexpected buffered length.", 8, reader.getBufferedLength() );
+		try
+		{
+			reader.getLocalName();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+
+		feed( reader, "/>tex" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute value.", 1, reader.getAttributeAsInt( null, "x", 0 ) );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+
+		// The text might continue with a CDATA section.
+		feed( reader, "t<" );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+
+		feed( reader, "/" );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "text", reader.getText() );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+
+		feed( reader, "root>" );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+
+		reader.endOfInput();
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+		assertEquals( "Unexpected buffered length.", 0, reader.getBufferedLength() );
+	}
+
+	/**
+	 * Tests skipping an element that is not completely available.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSkipElement()
+	throws Exception
+	{
+		final AsyncXMLReader reader = new AsyncXMLReader();
+		feed( reader, "<root><skipped><x>" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.getEventType() );
+
+		feed( reader, "text</x><y/></skipped><after/>" );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "skipped", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "after", reader.getLocalName() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+	}
+
+	/**
+	 * Tests that an incomplete document results in an exception at the end of
+	 * the input.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testUnexpectedEnd()
+	throws Exception
+	{
+		final AsyncXMLReader reader = new AsyncXMLReader();
+		feed( reader, "<root><a" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.NEED_MORE_INPUT, reader.next() );
+		reader.endOfInput();
+		try
+		{
+			reader.next();
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+
+		try
+		{
+			reader.feed( ByteBuffer.allocate( 1 ) );
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Feeds the given text to the reader.
+	 *
+	 * @param reader Reader to feed.
+	 * @param text   Text to feed, encoded as UTF-8.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	private static void feed( @NotNull final AsyncXMLReader reader, @NotNull final String text )
+	throws Exception
+	{
+		reader.feed( ByteBuffer.wrap( text.getBytes( "UTF-8" ) ) );
+	}
+
+	/**
+	 * Returns a description of all events of the given reader. If the reader
+	 * is an {@link AsyncXMLReader}, input is fed in chunks as needed.
+	 *
+	 * @param reader    XML reader.
+	 * @param bytes     Input to feed.
+	 * @param chunkSize Number of bytes to feed at a time.
+	 *
+	 * @return Description of the events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader, @NotNull final byte[] bytes, final int chunkSize )
+	throws XMLException
+	{
+		final StringBuilder result = new StringBuilder();
+		int fed = 0;
+		for ( XMLEventType eventType = reader.next(); eventType != XMLEventType.END_DOCUMENT; eventType = reader.next() )
+		{
+			switch ( eventType )
+			{
+				case NEED_MORE_INPUT:
+				{
+					final AsyncXMLReader asyncReader = (AsyncXMLReader)reader;
+					if ( fed < bytes.length )
+					{
+						final int length = Math.min( chunkSize, bytes.length - fed );
+						asyncReader.feed( ByteBuffer.wrap( bytes, fed, length ) );
+						fed += length;
+					}
+					else
+					{
+						asyncReader.endOfInput();
+					}
+					continue;
+				}
+
+				case START_ELEMENT:
+					result.append( eventType ).append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					for ( int i = 0; i < reader.getAttributeCount(); i++ )
+					{
+						result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+						result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+					}
+					break;
+
+				case END_ELEMENT:
+					result.append( eventType ).append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					break;
+
+				case CHARACTERS:
+					result.append( eventType ).append( " '" ).append( reader.getText() ).append( '\'' );
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					result.append( eventType ).append( ' ' ).append( reader.getPITarget() ).append( ' ' ).append( reader.getPIData() );
+					break;
+
+				default:
+					result.append( eventType );
+					break;
+			}
+			result.append( " @" ).append( reader.getLineNumber() ).append( ':' ).append( reader.getColumnNumber() ).append( '\n' );
+		}
+		return result.toString();
+	}
+}
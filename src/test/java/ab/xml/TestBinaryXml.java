@@ -0,0 +1,304 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.charset.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link BinaryXml}, {@link BinaryXmlReader} and {@link
+ * BinaryXmlWriter}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestBinaryXml
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<root xmlns=\"urn:a\" xmlns:b=\"urn:b\" id=\"42\" b:scale=\"1.5\" code=\"007\" xml:lang=\"nl\">\n" +
+	                                       "\t<b:child flag=\"true\" b:neg=\"-12\">text &amp; möre €𝄞</b:child>\n" +
+	                                       "\t<many a0=\"0\" a1=\"1\" a2=\"2\" a3=\"3\" a4=\"4\" a5=\"5\" a6=\"6\" a7=\"7\" a8=\"8\" a9=\"9\"/>\n" +
+	                                       "\t<plain xmlns=\"\" b:x=\"y\"><b:nested/></plain>\n" +
+	                                       "\t<skipped b:s=\"é\"><x><y z=\"1e3\"/></x>z</skipped>\n" +
+	                                       "</root>";
+
+	/**
+	 * Tests conversion from text to binary and back.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConversion()
+	throws Exception
+	{
+		final String expected = describe( new Utf8Reader( new ByteArrayInputStream( DOCUMENT.getBytes( StandardCharsets.UTF_8 ) ), null ) );
+
+		final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		BinaryXml.toBinary( new ByteArrayInputStream( DOCUMENT.getBytes( StandardCharsets.UTF_8 ) ), binary );
+		assertTrue( "Binary document should be smaller.", binary.size() < DOCUMENT.getBytes( StandardCharsets.UTF_8 ).length );
+
+		final XMLReaderFactory binaryFactory = XMLReaderFactory.newInstance( "BinaryXmlReaderFactory" );
+		assertEquals( "Unexpected events.", expected, describe( binaryFactory.createXMLReader( new ByteArrayInputStream( binary.toByteArray() ), null ) ) );
+		assertEquals( "Unexpected events.", expected, describe( binaryFactory.createXMLReader( binary.toByteArray(), 0, binary.size(), null ) ) );
+		assertEquals( "Unexpected events.", expected, describe( new BinaryXmlReader( new TrickleInputStream( binary.toByteArray() ) ) ) );
+
+		final ByteArrayOutputStream text = new ByteArrayOutputStream();
+		BinaryXml.toText( new ByteArrayInputStream( binary.toByteArray() ), text, "UTF-8" );
+		assertEquals( "Unexpected events.", expected, describe( new Utf8Reader( new ByteArrayInputStream( text.toByteArray() ), null ) ) );
+
+		for ( final String writerFactoryName : XMLWriterFactory.getAvailableFactories() )
+		{
+			if ( !BinaryXmlWriterFactory.class.getName().equals( writerFactoryName ) )
+			{
+				final ByteArrayOutputStream out = new ByteArrayOutputStream();
+				final XMLWriter writer = XMLWriterFactory.newInstance( writerFactoryName ).createXMLWriter( out, "UTF-8" );
+				BinaryXml.copy( new BinaryXmlReader( new ByteArrayInputStream( binary.toByteArray() ) ), writer );
+				writer.flush();
+				assertEquals( "Unexpected events for " + writerFactoryName + '.', expected, describe( new Utf8Reader( new ByteArrayInputStream( out.toByteArray() ), null ) ) );
+			}
+		}
+	}
+
+	/**
+	 * Tests writing and reading typed values.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testTypedValues()
+	throws Exception
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		final XMLWriter writer = XMLWriterFactory.newInstance( "BinaryXmlWriterFactory" ).createXMLWriter( out, "UTF-8" );
+		writer.startDocument();
+		writer.startTag( null, "values" );
+		writer.doubleAttribute( null, "d", 0.1 );
+		writer.floatAttribute( null, "f", 0.1f );
+		writer.attribute( null, "i", "-123" );
+		writer.attribute( null, "big", "123456789012345678" );
+		writer.attribute( null, "zero", "0" );
+		writer.attribute( null, "padded", "0123" );
+		writer.attribute( null, "bool", "1" );
+		writer.doubleText( 1.0e-7 );
+		writer.emptyTag( null, "empty" );
+		try
+		{
+			writer.text( "not allowed" );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+		writer.endTag( null, "empty" );
+		writer.floatText( 3.0f );
+		writer.endDocument();
+
+		final XMLReader reader = new BinaryXmlReader( new ByteArrayInputStream( out.toByteArray() ) );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute value.", "0.1", reader.getAttributeValue( null, "d" ) );
+		assertEquals( "Unexpected attribute value.", 0.1, reader.getAttributeAsDouble( null, "d", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", 0.1f, reader.getAttributeAsFloat( null, "d", 0.0f ), 0.0f );
+		assertEquals( "Unexpected attribute value.", "0.1", reader.getAttributeValue( null, "f" ) );
+		assertEquals( "Unexpected attribute value.", 0.1f, reader.getAttributeAsFloat( null, "f", 0.0f ), 0.0f );
+		assertEquals( "Unexpected attribute value.", 0.1, reader.getAttributeAsDouble( null, "f", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", "-123", reader.getAttributeValue( null, "i" ) );
+		assertEquals( "Unexpected attribute value.", -123, reader.getAttributeAsInt( null, "i", 0 ) );
+		assertEquals( "Unexpected attribute value.", -123.0, reader.getAttributeAsDouble( null, "i", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", 123456789012345678L, reader.getAttributeAsLong( null, "big", 0L ) );
+		assertEquals( "Unexpected attribute value.", "0", reader.getAttributeValue( null, "zero" ) );
+		assertEquals( "Unexpected attribute value.", "0123", reader.getAttributeValue( null, "padded" ) );
+		assertEquals( "Unexpected attribute value.", 123, reader.getAttributeAsInt( null, "padded", 0 ) );
+		assertTrue( "Unexpected attribute value.", reader.getAttributeAsBoolean( null, "bool", false ) );
+		assertInvalidAttribute( reader, "big" );
+		assertInvalidAttribute( reader, "d" );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "1.0E-7", reader.getText() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute count.", 0, reader.getAttributeCount() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "empty", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "3.0", reader.getText() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "values", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+	}
+
+	/**
+	 * Tests skipping elements and reusing readers.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSkipAndReset()
+	throws Exception
+	{
+		final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+		BinaryXml.toBinary( new ByteArrayInputStream( DOCUMENT.getBytes( StandardCharsets.UTF_8 ) ), binary );
+
+		final XMLReaderFactory factory = new BinaryXmlReaderFactory();
+		for ( int i = 0; i < 2; i++ )
+		{
+			final XMLReader reader = factory.acquireXMLReader( new TrickleInputStream( binary.toByteArray() ), null );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			reader.skipElement();
+			assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+			assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+			factory.releaseXMLReader( reader );
+		}
+
+		final XMLReader reader = factory.createXMLReader( binary.toByteArray(), 0, binary.size(), null );
+		XMLEventType eventType = reader.next();
+		while ( ( eventType != XMLEventType.START_ELEMENT ) || !"skipped".equals( reader.getLocalName() ) )
+		{
+			eventType = reader.next();
+		}
+		reader.skipElement();
+		assertEquals( "Unexpected local name.", "skipped", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+
+		try
+		{
+			factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( StandardCharsets.UTF_8 ) ), null );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+
+		try
+		{
+			new BinaryXmlReader( binary.toByteArray(), 0, binary.size() / 2 ).skipElement();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+
+		final XMLReader truncated = new BinaryXmlReader( binary.toByteArray(), 0, binary.size() / 2 );
+		try
+		{
+			while ( truncated.next() != XMLEventType.END_DOCUMENT )
+			{
+				// Read until the end.
+			}
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Asserts that parsing the given attribute as an {@code int} fails.
+	 *
+	 * @param reader    XML reader.
+	 * @param localName Local name of the attribute.
+	 */
+	private static void assertInvalidAttribute( @NotNull final XMLReader reader, @NotNull final String localName )
+	{
+		try
+		{
+			reader.getAttributeAsInt( null, localName, 0 );
+			fail( "Expected exception for '" + localName + "'." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Returns a description of all remaining events of the given reader.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Description of events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final StringBuilder result = new StringBuilder();
+		for ( XMLEventType eventType = reader.next(); eventType != XMLEventType.END_DOCUMENT; eventType = reader.next() )
+		{
+			result.append( eventType );
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					for ( int i = 0; i < reader.getAttributeCount(); i++ )
+					{
+						result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+						result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+					}
+					break;
+
+				case END_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					break;
+
+				case CHARACTERS:
+					result.append( " '" ).append( reader.getText() ).append( '\'' );
+					break;
+			}
+			result.append( '\n' );
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Input stream that returns at most a few bytes per read, to test input
+	 * that crosses buffer boundaries.
+	 */
+	private static class TrickleInputStream
+	extends ByteArrayInputStream
+	{
+		/**
+		 * Constructs a new instance.
+		 *
+		 * @param bytes Bytes to read.
+		 */
+		TrickleInputStream( @NotNull final byte[] bytes )
+		{
+			super( bytes );
+		}
+
+		@Override
+		public synchronized int read( @NotNull final byte[] b, final int off, final int len )
+		{
+			return super.read( b, off, Math.min( len, 3 ) );
+		}
+	}
+}
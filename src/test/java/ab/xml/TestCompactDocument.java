@@ -0,0 +1,319 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link CompactDocument}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestCompactDocument
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<?before document?>\n" +
+	                                       "<root xmlns:b=\"urn:b\" id=\"42\" b:scale=\"1.5\">\n" +
+	                                       "\t<?target some data?>\n" +
+	                                       "\t<b:child flag=\"true\">text &amp; more</b:child>\n" +
+	                                       "\t<many a0=\"0\" a1=\"1\" a2=\"2\" a3=\"3\" a4=\"4\" a5=\"5\" a6=\"6\" a7=\"7\" a8=\"8\" a9=\"9\"/>\n" +
+	                                       "\t<nested><x><y/></x>z</nested>\n" +
+	                                       "</root>";
+
+	/**
+	 * Tests that the document is the same for each available reader
+	 * implementation, and that its reader returns the expected events.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testRead()
+	throws Exception
+	{
+		final String expected = "PROCESSING_INSTRUCTION before document\n" +
+		                        "START_ELEMENT {null}root {null}id='42' {urn:b}scale='1.5'\n" +
+		                        "CHARACTERS '\n\t'\n" +
+		                        "PROCESSING_INSTRUCTION target some data\n" +
+		                        "CHARACTERS '\n\t'\n" +
+		                        "START_ELEMENT {urn:b}child {null}flag='true'\n" +
+		                        "CHARACTERS 'text & more'\n" +
+		                        "END_ELEMENT {urn:b}child\n" +
+		                        "CHARACTERS '\n\t'\n" +
+		                        "START_ELEMENT {null}many {null}a0='0' {null}a1='1' {null}a2='2' {null}a3='3' {null}a4='4' {null}a5='5' {null}a6='6' {null}a7='7' {null}a8='8' {null}a9='9'\n" +
+		                        "END_ELEMENT {null}many\n" +
+		                        "CHARACTERS '\n\t'\n" +
+		                        "START_ELEMENT {null}nested\n" +
+		                        "START_ELEMENT {null}x\n" +
+		                        "START_ELEMENT {null}y\n" +
+		                        "END_ELEMENT {null}y\n" +
+		                        "END_ELEMENT {null}x\n" +
+		                        "CHARACTERS 'z'\n" +
+		                        "END_ELEMENT {null}nested\n" +
+		                        "CHARACTERS '\n'\n" +
+		                        "END_ELEMENT {null}root\n";
+
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReader reader = createReader( XMLReaderFactory.newInstance( factoryName ) );
+			final CompactDocument document = CompactDocument.read( reader );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_DOCUMENT, reader.getEventType() );
+			assertEquals( "Unexpected node count for " + factoryName + '.', 16, document.getNodeCount() );
+			assertEquals( "Unexpected events for " + factoryName + '.', expected, describe( document.createReader() ) );
+		}
+	}
+
+	/**
+	 * Tests navigation of the document tree.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNavigation()
+	throws Exception
+	{
+		final CompactDocument document = CompactDocument.read( createReader( new Utf8ReaderFactory() ) );
+		assertEquals( "Unexpected node type.", XMLEventType.START_DOCUMENT, document.getNodeType( CompactDocument.DOCUMENT ) );
+		assertEquals( "Unexpected parent.", CompactDocument.NONE, document.getParent( CompactDocument.DOCUMENT ) );
+
+		final int pi = document.getFirstChild( CompactDocument.DOCUMENT );
+		assertEquals( "Unexpected node type.", XMLEventType.PROCESSING_INSTRUCTION, document.getNodeType( pi ) );
+		assertEquals( "Unexpected target.", "before", document.getPITarget( pi ) );
+		assertEquals( "Unexpected data.", "document", document.getText( pi ) );
+
+		final int root = document.getDocumentElement();
+		assertEquals( "Unexpected document element.", document.getNextSibling( pi ), root );
+		assertEquals( "Unexpected next sibling.", CompactDocument.NONE, document.getNextSibling( root ) );
+		assertEquals( "Unexpected parent.", CompactDocument.DOCUMENT, document.getParent( root ) );
+		assertNull( "Unexpected namespace.", document.getNamespaceURI( root ) );
+		assertEquals( "Unexpected local name.", "root", document.getLocalName( root ) );
+		assertEquals( "Unexpected attribute count.", 2, document.getAttributeCount( root ) );
+		assertEquals( "Unexpected attribute name.", "urn:b", document.getAttributeNamespaceURI( root, 1 ) );
+		assertEquals( "Unexpected attribute name.", "scale", document.getAttributeLocalName( root, 1 ) );
+		assertEquals( "Unexpected attribute value.", "1.5", document.getAttributeValue( root, 1 ) );
+		assertEquals( "Unexpected attribute value.", "42", document.getAttributeValue( root, null, "id" ) );
+		assertNull( "Unexpected attribute value.", document.getAttributeValue( root, null, "scale" ) );
+		assertEquals( "Unexpected text.", "\n\t\n\ttext & more\n\t\n\tz\n", document.getText( root ) );
+
+		final int child = document.getChildElement( root, "urn:b", "child" );
+		assertEquals( "Unexpected parent.", root, document.getParent( child ) );
+		assertEquals( "Unexpected attribute value.", "true", document.getAttributeValue( child, null, "flag" ) );
+		assertEquals( "Unexpected text.", "text & more", document.getText( child ) );
+		assertEquals( "Unexpected node type.", XMLEventType.CHARACTERS, document.getNodeType( document.getFirstChild( child ) ) );
+		assertEquals( "Unexpected child element.", CompactDocument.NONE, document.getChildElement( root, null, "child" ) );
+
+		final int nested = document.getChildElement( root, null, "nested" );
+		final int x = document.getFirstChild( nested );
+		assertEquals( "Unexpected local name.", "x", document.getLocalName( x ) );
+		assertEquals( "Unexpected text.", "z", document.getText( nested ) );
+		assertEquals( "Unexpected text.", "", document.getText( x ) );
+
+		try
+		{
+			document.getLocalName( pi );
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			// Expected.
+		}
+
+		try
+		{
+			document.getAttributeValue( root, 2 );
+			fail( "Expected exception." );
+		}
+		catch ( final IndexOutOfBoundsException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests reading subtrees of the document.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSubtreeReader()
+	throws Exception
+	{
+		final CompactDocument document = CompactDocument.read( createReader( new Utf8ReaderFactory() ) );
+		final int root = document.getDocumentElement();
+
+		final int nested = document.getChildElement( root, null, "nested" );
+		final String expected = "START_ELEMENT {null}nested\n" +
+		                        "START_ELEMENT {null}x\n" +
+		                        "START_ELEMENT {null}y\n" +
+		                        "END_ELEMENT {null}y\n" +
+		                        "END_ELEMENT {null}x\n" +
+		                        "CHARACTERS 'z'\n" +
+		                        "END_ELEMENT {null}nested\n";
+		assertEquals( "Unexpected events.", expected, describe( document.createReader( nested ) ) );
+		assertEquals( "Unexpected events.", "CHARACTERS 'z'\n", describe( document.createReader( document.getNextSibling( document.getFirstChild( nested ) ) ) ) );
+
+		final XMLReader reader = document.createReader( root );
+		assertEquals( "Unexpected event type.", XMLEventType.START_DOCUMENT, reader.getEventType() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute value.", 42, reader.getAttributeAsInt( null, "id", -1 ) );
+		assertEquals( "Unexpected attribute value.", 1.5, reader.getAttributeAsDouble( "urn:b", "scale", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", "1.5", reader.getAttributeValue( "scale" ) );
+		assertEquals( "Unexpected line number.", -1, reader.getLineNumber() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.PROCESSING_INSTRUCTION, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		reader.skipElement();
+		assertEquals( "Unexpected local name.", "child", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		for ( int i = 9; i >= 0; i-- )
+		{
+			assertEquals( "Unexpected attribute value.", i, reader.getAttributeAsInt( null, "a" + i, -1 ) );
+		}
+		try
+		{
+			reader.getAttributeAsBoolean( null, "a9", false );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+		reader.skipElement();
+
+		final XMLReader subtree = document.createReader( root );
+		subtree.next();
+		subtree.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, subtree.next() );
+		try
+		{
+			subtree.next();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests reading a single element into a document.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadElement()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReader reader = createReader( XMLReaderFactory.newInstance( factoryName ) );
+			XMLEventType eventType = reader.next();
+			while ( ( eventType != XMLEventType.START_ELEMENT ) || !"nested".equals( reader.getLocalName() ) )
+			{
+				eventType = reader.next();
+			}
+
+			final CompactDocument document = CompactDocument.readElement( reader );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_ELEMENT, reader.getEventType() );
+			assertEquals( "Unexpected local name for " + factoryName + '.', "nested", reader.getLocalName() );
+			assertEquals( "Unexpected node count for " + factoryName + '.', 5, document.getNodeCount() );
+			assertEquals( "Unexpected document element for " + factoryName + '.', 1, document.getDocumentElement() );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.CHARACTERS, reader.next() );
+
+			try
+			{
+				CompactDocument.readElement( reader );
+				fail( "Expected exception for " + factoryName + '.' );
+			}
+			catch ( final IllegalStateException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Creates a reader for the test document.
+	 *
+	 * @param factory XML reader factory.
+	 *
+	 * @return XML reader.
+	 *
+	 * @throws Exception if the reader can't be created.
+	 */
+	@NotNull
+	private static XMLReader createReader( @NotNull final XMLReaderFactory factory )
+	throws Exception
+	{
+		return factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" );
+	}
+
+	/**
+	 * Returns a description of all remaining events of the given reader.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Description of events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final StringBuilder result = new StringBuilder();
+		for ( XMLEventType eventType = reader.next(); eventType != XMLEventType.END_DOCUMENT; eventType = reader.next() )
+		{
+			result.append( eventType );
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					for ( int i = 0; i < reader.getAttributeCount(); i++ )
+					{
+						result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+						result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+					}
+					break;
+
+				case END_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					break;
+
+				case CHARACTERS:
+					result.append( " '" ).append( reader.getText() ).append( '\'' );
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					result.append( ' ' ).append( reader.getPITarget() ).append( ' ' ).append( reader.getPIData() );
+					break;
+			}
+			result.append( '\n' );
+		}
+		return result.toString();
+	}
+}
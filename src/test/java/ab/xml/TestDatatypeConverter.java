@@ -0,0 +1,113 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.time.*;
+import java.util.*;
+import javax.xml.datatype.*;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link DatatypeConverter}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestDatatypeConverter
+{
+	/**
+	 * Tests that calendars are parsed and printed like {@link
+	 * XMLGregorianCalendar} does.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCalendar()
+	throws Exception
+	{
+		final DatatypeFactory datatypeFactory = DatatypeFactory.newInstance();
+
+		for ( final String value : Arrays.asList( "2020-01-02T03:04:05Z", "2020-01-02T03:04:05.123456+05:30", "2020-01-02T24:00:00", " 2020-02-29T23:59:59.5-00:00\n",
+		                                          "-0044-03-15T12:00:00Z", "0001-01-01T00:00:00-14:00", "12345-12-31T00:00:00.001+14:00", "1969-12-31T23:59:59.999" ) )
+		{
+			final Calendar expected = datatypeFactory.newXMLGregorianCalendar( value.trim() ).toGregorianCalendar();
+			final Calendar actual = DatatypeConverter.parseDateTime( value );
+			assertEquals( "Unexpected time for " + value, expected.getTimeInMillis(), actual.getTimeInMillis() );
+			assertEquals( "Unexpected offset for " + value, expected.getTimeZone().getOffset( expected.getTimeInMillis() ), actual.getTimeZone().getOffset( actual.getTimeInMillis() ) );
+			assertEquals( "Unexpected output for " + value, datatypeFactory.newXMLGregorianCalendar( (GregorianCalendar)expected ).toXMLFormat(), DatatypeConverter.printDateTime( actual ) );
+		}
+
+		final Random random = new Random( 1L );
+		final String[] timeZones = { "UTC", "Europe/Amsterdam", "America/St_Johns", "Asia/Kathmandu", "Pacific/Kiritimati" };
+		for ( int i = 0; i < 1000; i++ )
+		{
+			final GregorianCalendar calendar = new GregorianCalendar( TimeZone.getTimeZone( timeZones[ i % timeZones.length ] ) );
+			// Before 1582, printed fields are Julian, so only round-trip later times.
+			calendar.setTimeInMillis( random.nextLong() % 10000000000000L );
+			assertEquals( "Unexpected output for " + calendar.getTime(), datatypeFactory.newXMLGregorianCalendar( calendar ).toXMLFormat(), DatatypeConverter.printDateTime( calendar ) );
+			if ( ( calendar.get( Calendar.ZONE_OFFSET ) + calendar.get( Calendar.DST_OFFSET ) ) % 60000 == 0 )
+			{
+				assertEquals( "Unexpected time for " + calendar.getTime(), calendar.getTimeInMillis(), DatatypeConverter.parseDateTime( DatatypeConverter.printDateTime( calendar ) ).getTimeInMillis() );
+			}
+		}
+	}
+
+	/**
+	 * Tests parsing and printing of {@code java.time} types.
+	 */
+	@Test
+	public void testJavaTime()
+	{
+		assertEquals( "Unexpected value.", OffsetDateTime.of( 2020, 1, 2, 3, 4, 5, 123456789, ZoneOffset.ofHoursMinutes( -5, -30 ) ), DatatypeConverter.parseOffsetDateTime( "2020-01-02T03:04:05.1234567891-05:30" ) );
+		assertEquals( "Unexpected value.", OffsetDateTime.of( 2020, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC ), DatatypeConverter.parseOffsetDateTime( "2020-01-02T24:00:00" ) );
+		assertEquals( "Unexpected value.", OffsetDateTime.of( -44, 3, 15, 12, 0, 0, 0, ZoneOffset.UTC ), DatatypeConverter.parseOffsetDateTime( "<x>-0044-03-15T12:00:00Z</x>", 3, 24 ) );
+		assertEquals( "Unexpected value.", Instant.ofEpochSecond( 1577934245L, 500000000L ), DatatypeConverter.parseInstant( "2020-01-02T04:04:05.5+01:00" ) );
+		assertEquals( "Unexpected value.", LocalDate.of( 2020, 2, 29 ), DatatypeConverter.parseDate( "2020-02-29" ) );
+		assertEquals( "Unexpected value.", LocalDate.of( 2020, 2, 29 ), DatatypeConverter.parseDate( " 2020-02-29+01:00 " ) );
+
+		assertEquals( "Unexpected value.", "2020-01-02T03:04:05.12-05:30", DatatypeConverter.printDateTime( OffsetDateTime.of( 2020, 1, 2, 3, 4, 5, 120000000, ZoneOffset.ofHoursMinutes( -5, -30 ) ) ) );
+		assertEquals( "Unexpected value.", "-0044-03-15T12:00:00Z", DatatypeConverter.printDateTime( OffsetDateTime.of( -44, 3, 15, 12, 0, 0, 0, ZoneOffset.UTC ) ) );
+		assertEquals( "Unexpected value.", "2020-01-02T03:04:05.000000001Z", DatatypeConverter.printDateTime( Instant.ofEpochSecond( 1577934245L, 1L ) ) );
+		assertEquals( "Unexpected value.", "0900-12-01", DatatypeConverter.printDate( LocalDate.of( 900, 12, 1 ) ) );
+
+		final Random random = new Random( 2L );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			final OffsetDateTime dateTime = OffsetDateTime.ofInstant( Instant.ofEpochSecond( random.nextLong() % 100000000000L, (long)random.nextInt( 1000000000 ) ), ZoneOffset.ofTotalSeconds( ( random.nextInt( 28 * 60 + 1 ) - 14 * 60 ) * 60 ) );
+			final String printed = DatatypeConverter.printDateTime( dateTime );
+			assertEquals( "Unexpected value for " + printed, dateTime, DatatypeConverter.parseOffsetDateTime( printed ) );
+		}
+
+		for ( final String value : Arrays.asList( "", "2020-01-02", "2020-1-02T03:04:05", "02020-01-02T03:04:05", "2020-13-02T03:04:05", "2019-02-29T03:04:05",
+		                                          "2020-01-02T24:00:01", "2020-01-02T03:60:05", "2020-01-02T03:04:05.", "2020-01-02T03:04:05+14:01", "2020-01-02T03:04:05+1:00",
+		                                          "2020-01-02T03:04:05Zx", "2020-01-02 03:04:05" ) )
+		{
+			try
+			{
+				DatatypeConverter.parseOffsetDateTime( value );
+				fail( "Expected exception for '" + value + "'." );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				// Expected.
+			}
+		}
+	}
+}
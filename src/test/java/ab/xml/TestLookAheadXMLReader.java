@@ -0,0 +1,266 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link LookAheadXMLReader}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestLookAheadXMLReader
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<root xmlns=\"urn:a\" xmlns:b=\"urn:b\" id=\"42\" b:scale=\"1.5\">\n" +
+	                                       "\t<?target some data?>\n" +
+	                                       "\t<b:child flag=\"true\">text &amp; more</b:child>\n" +
+	                                       "\t<many a0=\"0\" a1=\"1\" a2=\"2\" a3=\"3\" a4=\"4\" a5=\"5\" a6=\"6\" a7=\"7\" a8=\"8\" a9=\"9\"/>\n" +
+	                                       "\t<skipped><x><y/></x>z</skipped>\n" +
+	                                       "</root>";
+
+	/**
+	 * Tests that peeking at each event doesn't change the events that are
+	 * read, using each available reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testPeek()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			final String expected = describe( createReader( factory ), false );
+			assertEquals( "Unexpected events for " + factoryName + '.', expected, describe( new LookAheadXMLReader( createReader( factory ) ), true ) );
+		}
+	}
+
+	/**
+	 * Tests that events after a mark are read again after a reset, using each
+	 * available reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMarkReset()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			final String expected = describe( createReader( factory ), false );
+
+			final MarkableXMLReader reader = new LookAheadXMLReader( createReader( factory ) );
+			reader.mark( 100 );
+			assertEquals( "Unexpected events for " + factoryName + '.', expected, describe( reader, false ) );
+			reader.resetToMark();
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.START_DOCUMENT, reader.getEventType() );
+			assertEquals( "Unexpected events for " + factoryName + " after reset.", expected, describe( reader, true ) );
+
+			final MarkableXMLReader root = new LookAheadXMLReader( createReader( factory ) );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.START_ELEMENT, root.next() );
+			root.mark( 4 );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.CHARACTERS, root.next() );
+			root.resetToMark();
+			assertEquals( "Unexpected attribute for " + factoryName + '.', 42, root.getAttributeAsInt( null, "id", 0 ) );
+			assertEquals( "Unexpected attribute for " + factoryName + '.', 1.5, root.getAttributeAsDouble( "urn:b", "scale", 0.0 ), 0.0 );
+			assertNull( "Unexpected attribute for " + factoryName + '.', root.getAttributeValue( null, "scale" ) );
+			assertEquals( "Unexpected attribute for " + factoryName + '.', "1.5", root.getAttributeValue( "scale" ) );
+		}
+	}
+
+	/**
+	 * Tests that a mark becomes invalid after reading past the read limit.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadLimit()
+	throws Exception
+	{
+		final MarkableXMLReader reader = new LookAheadXMLReader( createReader( new Utf8ReaderFactory() ) );
+		try
+		{
+			reader.resetToMark();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+
+		reader.next();
+		reader.mark( 2 );
+		reader.next();
+		reader.next();
+		reader.resetToMark();
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected peeked event type.", XMLEventType.CHARACTERS, reader.peek() );
+
+		reader.next();
+		assertEquals( "Unexpected event type.", XMLEventType.PROCESSING_INSTRUCTION, reader.next() );
+		reader.next();
+		try
+		{
+			reader.resetToMark();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "child", reader.getLocalName() );
+	}
+
+	/**
+	 * Tests skipping an element while a mark is set.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSkipElement()
+	throws Exception
+	{
+		final MarkableXMLReader reader = new LookAheadXMLReader( createReader( new Utf8ReaderFactory() ) );
+		while ( ( reader.next() != XMLEventType.START_ELEMENT ) || !"skipped".equals( reader.getLocalName() ) )
+		{
+			// Find element to skip.
+		}
+
+		reader.mark( 10 );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected local name.", "skipped", reader.getLocalName() );
+
+		reader.resetToMark();
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "x", reader.getLocalName() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "z", reader.getText() );
+	}
+
+	/**
+	 * Tests look-ahead support of in-memory readers, which don't need to be
+	 * wrapped.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testInMemoryReaders()
+	throws Exception
+	{
+		final String expected = describe( createReader( new Utf8ReaderFactory() ), false );
+		final XMLEventBuffer buffer = XMLEventBuffer.record( createReader( new Utf8ReaderFactory() ) );
+		final CompactDocument document = CompactDocument.read( createReader( new Utf8ReaderFactory() ) );
+
+		for ( final MarkableXMLReader reader : new MarkableXMLReader[] { buffer.createReader(), document.createReader() } )
+		{
+			reader.mark( 0 );
+			assertEquals( "Unexpected events for " + reader.getClass() + '.', expected, describe( reader, true ) );
+			reader.resetToMark();
+			assertEquals( "Unexpected event type for " + reader.getClass() + '.', XMLEventType.START_DOCUMENT, reader.getEventType() );
+			assertEquals( "Unexpected events for " + reader.getClass() + " after reset.", expected, describe( reader, false ) );
+		}
+	}
+
+	/**
+	 * Creates a reader for the test document.
+	 *
+	 * @param factory XML reader factory.
+	 *
+	 * @return XML reader.
+	 *
+	 * @throws Exception if the reader can't be created.
+	 */
+	@NotNull
+	private static XMLReader createReader( @NotNull final XMLReaderFactory factory )
+	throws Exception
+	{
+		return factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" );
+	}
+
+	/**
+	 * Returns a description of the remaining events of the given reader.
+	 *
+	 * @param reader XML reader.
+	 * @param peek   Whether to check the result of {@link
+	 *               MarkableXMLReader#peek()} before each event.
+	 *
+	 * @return Description of the events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader, final boolean peek )
+	throws XMLException
+	{
+		final MarkableXMLReader markable = peek ? (MarkableXMLReader)reader : null;
+		final StringBuilder result = new StringBuilder();
+		XMLEventType eventType;
+		do
+		{
+			final XMLEventType peeked = ( markable != null ) ? markable.peek() : null;
+			eventType = reader.next();
+			if ( markable != null )
+			{
+				assertEquals( "Unexpected peeked event type.", peeked, eventType );
+			}
+
+			result.append( eventType );
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					for ( int i = 0; i < reader.getAttributeCount(); i++ )
+					{
+						result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+						result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+					}
+					break;
+
+				case END_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					break;
+
+				case CHARACTERS:
+					result.append( " '" ).append( reader.getText() ).append( '\'' );
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					result.append( ' ' ).append( reader.getPITarget() ).append( ' ' ).append( reader.getPIData() );
+					break;
+			}
+			result.append( '\n' );
+		}
+		while ( eventType != XMLEventType.END_DOCUMENT );
+		return result.toString();
+	}
+}
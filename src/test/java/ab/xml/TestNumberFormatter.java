@@ -0,0 +1,145 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.nio.charset.*;
+import java.util.*;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link NumberFormatter}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestNumberFormatter
+{
+	/**
+	 * Tests formatting of specific doubles.
+	 */
+	@Test
+	public void testDoubles()
+	{
+		final Object[][] tests = {
+		{ 0.0, "0.0" },
+		{ -0.0, "-0.0" },
+		{ 1.0, "1.0" },
+		{ -123.0, "-123.0" },
+		{ 0.1, "0.1" },
+		{ 0.3, "0.3" },
+		{ 0.1 + 0.2, "0.30000000000000004" },
+		{ 2.0E-3, "0.002" },
+		{ 1.0E-3, "0.001" },
+		{ 1.0E-4, "1.0E-4" },
+		{ 1234567.0, "1234567.0" },
+		{ 1.0E7, "1.0E7" },
+		{ 1.0E23, "1.0E23" },
+		{ 2.0E23, "2.0E23" },
+		{ 123456789.0, "1.23456789E8" },
+		{ Double.MAX_VALUE, "1.7976931348623157E308" },
+		{ Double.MIN_VALUE, "4.9E-324" },
+		{ Double.MIN_NORMAL, "2.2250738585072014E-308" },
+		{ 9007199254740993.0, "9.007199254740992E15" },
+		{ Double.POSITIVE_INFINITY, "INF" },
+		{ Double.NEGATIVE_INFINITY, "-INF" },
+		{ Double.NaN, "NaN" },
+		};
+
+		final char[] buffer = new char[ DatatypeConverter.MAX_DOUBLE_LENGTH + 2 ];
+		final byte[] bytes = new byte[ DatatypeConverter.MAX_DOUBLE_LENGTH + 2 ];
+		for ( final Object[] test : tests )
+		{
+			final double value = (Double)test[ 0 ];
+			final String expected = (String)test[ 1 ];
+			assertEquals( "Unexpected result for " + value + '.', expected, DatatypeConverter.printDouble( value ) );
+			assertEquals( "Unexpected end index for " + value + '.', 2 + expected.length(), DatatypeConverter.printDouble( value, buffer, 2 ) );
+			assertEquals( "Unexpected result for " + value + '.', expected, new String( buffer, 2, expected.length() ) );
+			assertEquals( "Unexpected end index for " + value + '.', 2 + expected.length(), DatatypeConverter.printDouble( value, bytes, 2 ) );
+			assertEquals( "Unexpected result for " + value + '.', expected, new String( bytes, 2, expected.length(), StandardCharsets.US_ASCII ) );
+		}
+	}
+
+	/**
+	 * Tests formatting of specific floats.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFloats()
+	throws Exception
+	{
+		final Object[][] tests = {
+		{ 0.0f, "0.0" },
+		{ -0.0f, "-0.0" },
+		{ 1.0f, "1.0" },
+		{ 0.1f, "0.1" },
+		{ 16777216.0f, "1.6777216E7" },
+		{ 3.0E-3f, "0.003" },
+		{ 1.0E10f, "1.0E10" },
+		{ Float.MAX_VALUE, "3.4028235E38" },
+		{ Float.MIN_VALUE, "1.4E-45" },
+		{ Float.MIN_NORMAL, "1.1754944E-38" },
+		{ Float.POSITIVE_INFINITY, "INF" },
+		{ Float.NEGATIVE_INFINITY, "-INF" },
+		{ Float.NaN, "NaN" },
+		};
+
+		for ( final Object[] test : tests )
+		{
+			final float value = (Float)test[ 0 ];
+			final String expected = (String)test[ 1 ];
+			assertEquals( "Unexpected result for " + value + '.', expected, DatatypeConverter.printFloat( value ) );
+
+			final StringBuilder builder = new StringBuilder( "x" );
+			DatatypeConverter.printFloat( value, builder );
+			assertEquals( "Unexpected result for " + value + '.', 'x' + expected, builder.toString() );
+		}
+	}
+
+	/**
+	 * Tests that random values round-trip and are never longer than the
+	 * result of {@link Double#toString(double)}, which is not always the
+	 * shortest on older JDKs.
+	 */
+	@Test
+	public void testRoundTrip()
+	{
+		final Random random = new Random( 123L );
+		final char[] buffer = new char[ DatatypeConverter.MAX_DOUBLE_LENGTH ];
+		for ( int i = 0; i < 100000; i++ )
+		{
+			final double value = ( i % 2 == 0 ) ? Double.longBitsToDouble( random.nextLong() ) : random.nextDouble() * Math.pow( 10.0, (double)( random.nextInt( 30 ) - 15 ) );
+			if ( !Double.isNaN( value ) && !Double.isInfinite( value ) )
+			{
+				final String formatted = new String( buffer, 0, NumberFormatter.formatDouble( value, buffer, 0 ) );
+				assertEquals( "Round-trip failed for " + value + '.', value, Double.parseDouble( formatted ), 0.0 );
+				assertTrue( "Longer than expected: " + formatted + " for " + value + '.', formatted.length() <= Double.toString( value ).length() );
+			}
+
+			final float floatValue = Float.intBitsToFloat( random.nextInt() );
+			if ( !Float.isNaN( floatValue ) && !Float.isInfinite( floatValue ) )
+			{
+				final String formatted = new String( buffer, 0, NumberFormatter.formatFloat( floatValue, buffer, 0 ) );
+				assertEquals( "Round-trip failed for " + floatValue + '.', floatValue, Float.parseFloat( formatted ), 0.0f );
+				assertTrue( "Longer than expected: " + formatted + " for " + floatValue + '.', formatted.length() <= Float.toString( floatValue ).length() );
+			}
+		}
+	}
+}
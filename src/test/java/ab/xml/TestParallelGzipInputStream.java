@@ -0,0 +1,326 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link ParallelGzipInputStream}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestParallelGzipInputStream
+{
+	/**
+	 * Pool used to inflate segments.
+	 */
+	private ForkJoinPool _pool;
+
+	/**
+	 * Creates the pool.
+	 */
+	@Before
+	public void setUp()
+	{
+		_pool = new ForkJoinPool( 4 );
+	}
+
+	/**
+	 * Shuts down the pool.
+	 */
+	@After
+	public void tearDown()
+	{
+		_pool.shutdownNow();
+	}
+
+	/**
+	 * Tests inflation of data consisting of many members, with members
+	 * spanning segment boundaries and segments containing several members.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMultipleMembers()
+	throws Exception
+	{
+		final byte[] data = createData( 100000 );
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		for ( int offset = 0, length = 1; offset < data.length; offset += length, length = length * 3 % 7919 + 1 )
+		{
+			compressed.write( gzip( Arrays.copyOfRange( data, offset, Math.min( offset + length, data.length ) ) ) );
+		}
+
+		for ( final int segmentSize : new int[] { 64, 1000, 1 << 20 } )
+		{
+			assertArrayEquals( "Unexpected data for segment size " + segmentSize + '.', data, inflate( compressed.toByteArray(), 4096, segmentSize ) );
+		}
+	}
+
+	/**
+	 * Tests that the output is unaffected by the read-ahead limit, including
+	 * a limit that leaves all segments to the reading thread, and that the
+	 * stream can be closed before the end of the data.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReadAheadLimit()
+	throws Exception
+	{
+		final byte[] data = createData( 100000 );
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		for ( int offset = 0; offset < data.length; offset += 5000 )
+		{
+			compressed.write( gzip( Arrays.copyOfRange( data, offset, Math.min( offset + 5000, data.length ) ) ) );
+		}
+
+		for ( final long readAheadLimit : new long[] { 0, 65536, 1 << 18 } )
+		{
+			assertArrayEquals( "Unexpected data for read-ahead limit " + readAheadLimit + '.', data, inflate( compressed.toByteArray(), Integer.MAX_VALUE, 1000, readAheadLimit ) );
+		}
+
+		final ByteBuffer[] windows = { ByteBuffer.wrap( compressed.toByteArray() ) };
+		final InputStream in = new ParallelGzipInputStream( windows, Integer.MAX_VALUE, _pool, 1000, 1 << 18 );
+		try
+		{
+			for ( int i = 0; i < 12000; i++ )
+			{
+				assertEquals( "Unexpected byte at " + i + '.', data[ i ] & 0xff, in.read() );
+			}
+		}
+		finally
+		{
+			in.close();
+		}
+		assertEquals( "Unexpected result after close.", -1, in.read() );
+	}
+
+	/**
+	 * Tests inflation of a single member, which is inflated sequentially even
+	 * though it spans many segments.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSingleMember()
+	throws Exception
+	{
+		final byte[] data = createData( 100000 );
+		assertArrayEquals( "Unexpected data.", data, inflate( gzip( data ), Integer.MAX_VALUE, 256 ) );
+		assertArrayEquals( "Unexpected data.", new byte[ 0 ], inflate( gzip( new byte[ 0 ] ), Integer.MAX_VALUE, 256 ) );
+	}
+
+	/**
+	 * Tests that gzip data that appears inside a member, i.e. a false member
+	 * start, does not affect the output.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testFalseMemberStart()
+	throws Exception
+	{
+		final byte[] embedded = gzip( createData( 500 ) );
+
+		// Stored blocks contain the embedded member as-is.
+		final ByteArrayOutputStream stored = new ByteArrayOutputStream();
+		try ( final GZIPOutputStream out = new GZIPOutputStream( stored )
+		{
+			{
+				def.setLevel( Deflater.NO_COMPRESSION );
+			}
+		} )
+		{
+			out.write( createData( 300 ) );
+			out.write( embedded );
+			out.write( createData( 300 ) );
+		}
+
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		compressed.write( stored.toByteArray() );
+		compressed.write( gzip( createData( 1000 ) ) );
+
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		try ( final InputStream in = new GZIPInputStream( new ByteArrayInputStream( compressed.toByteArray() ) ) )
+		{
+			copy( in, expected );
+		}
+
+		for ( final int segmentSize : new int[] { 16, 100, 256 } )
+		{
+			assertArrayEquals( "Unexpected data for segment size " + segmentSize + '.', expected.toByteArray(), inflate( compressed.toByteArray(), Integer.MAX_VALUE, segmentSize ) );
+		}
+	}
+
+	/**
+	 * Tests that trailing garbage is ignored and that corrupt data is
+	 * reported, like {@link GZIPInputStream}.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testInvalidData()
+	throws Exception
+	{
+		final byte[] data = createData( 1000 );
+		final byte[] member = gzip( data );
+
+		final byte[] trailing = Arrays.copyOf( member, member.length + 20 );
+		assertArrayEquals( "Unexpected data.", data, inflate( trailing, Integer.MAX_VALUE, 64 ) );
+
+		final byte[] corrupt = member.clone();
+		corrupt[ corrupt.length - 5 ]++;
+		try
+		{
+			inflate( corrupt, Integer.MAX_VALUE, 64 );
+			fail( "Expected exception." );
+		}
+		catch ( final ZipException e )
+		{
+			// Expected.
+		}
+
+		try
+		{
+			inflate( Arrays.copyOf( member, member.length - 4 ), Integer.MAX_VALUE, 64 );
+			fail( "Expected exception." );
+		}
+		catch ( final EOFException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Inflates the given data using a {@link ParallelGzipInputStream}.
+	 *
+	 * @param compressed  Compressed data.
+	 * @param windowSize  Size of the windows to split the data into.
+	 * @param segmentSize Size of a segment.
+	 *
+	 * @return Inflated data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private byte[] inflate( @NotNull final byte[] compressed, final int windowSize, final int segmentSize )
+	throws IOException
+	{
+		return inflate( compressed, windowSize, segmentSize, ParallelGzipInputStream.DEFAULT_READ_AHEAD_LIMIT );
+	}
+
+	/**
+	 * Inflates the given data using a {@link ParallelGzipInputStream}.
+	 *
+	 * @param compressed     Compressed data.
+	 * @param windowSize     Size of the windows to split the data into.
+	 * @param segmentSize    Size of a segment.
+	 * @param readAheadLimit Maximum total size of output read ahead.
+	 *
+	 * @return Inflated data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private byte[] inflate( @NotNull final byte[] compressed, final int windowSize, final int segmentSize, final long readAheadLimit )
+	throws IOException
+	{
+		final int windowCount = Math.max( 1, ( compressed.length + windowSize - 1 ) / windowSize );
+		final ByteBuffer[] windows = new ByteBuffer[ windowCount ];
+		for ( int i = 0; i < windowCount; i++ )
+		{
+			final int offset = i * windowSize;
+			windows[ i ] = ByteBuffer.wrap( compressed, offset, Math.min( windowSize, compressed.length - offset ) ).slice();
+		}
+
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try ( final InputStream in = new ParallelGzipInputStream( windows, windowSize, _pool, segmentSize, readAheadLimit ) )
+		{
+			copy( in, result );
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Copies the contents of a stream to another stream.
+	 *
+	 * @param in  Stream to read from.
+	 * @param out Stream to write to.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	private static void copy( @NotNull final InputStream in, @NotNull final OutputStream out )
+	throws IOException
+	{
+		final byte[] buffer = new byte[ 1000 ];
+		for ( int count = in.read( buffer ); count >= 0; count = in.read( buffer ) )
+		{
+			out.write( buffer, 0, count );
+		}
+	}
+
+	/**
+	 * Compresses the given data as a single gzip member.
+	 *
+	 * @param data Data to compress.
+	 *
+	 * @return Compressed data.
+	 *
+	 * @throws IOException if an I/O error occurs.
+	 */
+	@NotNull
+	private static byte[] gzip( @NotNull final byte[] data )
+	throws IOException
+	{
+		final ByteArrayOutputStream result = new ByteArrayOutputStream();
+		try ( final GZIPOutputStream out = new GZIPOutputStream( result ) )
+		{
+			out.write( data );
+		}
+		return result.toByteArray();
+	}
+
+	/**
+	 * Creates test data that is somewhat compressible.
+	 *
+	 * @param length Length of the data.
+	 *
+	 * @return Test data.
+	 */
+	@NotNull
+	private static byte[] createData( final int length )
+	{
+		final Random random = new Random( length );
+		final byte[] result = new byte[ length ];
+		for ( int i = 0; i < length; i++ )
+		{
+			result[ i ] = (byte)( 'a' + random.nextInt( 8 ) );
+		}
+		return result;
+	}
+}
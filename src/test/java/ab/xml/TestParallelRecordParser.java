@@ -0,0 +1,238 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link ParallelRecordParser}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestParallelRecordParser
+{
+	/**
+	 * Number of records in the test document.
+	 */
+	private static final int RECORD_COUNT = 500;
+
+	/**
+	 * Pool used to parse chunks.
+	 */
+	private ForkJoinPool _pool;
+
+	@Before
+	public void setUp()
+	{
+		_pool = new ForkJoinPool( 4 );
+	}
+
+	@After
+	public void tearDown()
+	{
+		_pool.shutdown();
+	}
+
+	/**
+	 * Tests parsing records in order, using each reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testParse()
+	throws Exception
+	{
+		final byte[] document = createDocument();
+		final List<String> expected = getExpectedRecords();
+
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final ParallelRecordParser<String> parser = createParser( XMLReaderFactory.newInstance( factoryName ) );
+			assertEquals( "Unexpected records for " + factoryName, expected, parser.parse( ByteBuffer.wrap( document ) ) );
+
+			final ByteBuffer directBuffer = ByteBuffer.allocateDirect( document.length );
+			directBuffer.put( document );
+			directBuffer.flip();
+			assertEquals( "Unexpected records for " + factoryName, expected, parser.parse( directBuffer ) );
+		}
+	}
+
+	/**
+	 * Tests parsing records from a file, in order and unordered.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testParseFile()
+	throws Exception
+	{
+		final File file = File.createTempFile( "test", ".xml" );
+		try
+		{
+			try ( final OutputStream out = new FileOutputStream( file ) )
+			{
+				out.write( createDocument() );
+			}
+
+			final ParallelRecordParser<String> parser = createParser( new Utf8ReaderFactory() );
+			assertEquals( "Unexpected records.", getExpectedRecords(), parser.parse( file.toPath() ) );
+
+			final Queue<String> records = new ConcurrentLinkedQueue<String>();
+			parser.parseUnordered( file.toPath(), records::add );
+			final List<String> actual = new ArrayList<String>( records );
+			final List<String> expected = getExpectedRecords();
+			Collections.sort( actual );
+			Collections.sort( expected );
+			assertEquals( "Unexpected records.", expected, actual );
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	/**
+	 * Tests that errors in the document are reported.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMalformed()
+	throws Exception
+	{
+		final String document = new String( createDocument(), StandardCharsets.UTF_8 ).replace( "<ns:rec id='250' ns:type='té'>", "<ns:rec id='250' ns:type='té'><unclosed>" );
+		final ParallelRecordParser<String> parser = createParser( new Utf8ReaderFactory() );
+		try
+		{
+			parser.parse( ByteBuffer.wrap( document.getBytes( StandardCharsets.UTF_8 ) ) );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests parsing a document without records.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testEmpty()
+	throws Exception
+	{
+		final ParallelRecordParser<String> parser = createParser( new Utf8ReaderFactory() );
+		assertEquals( "Unexpected records.", Collections.<String>emptyList(), parser.parse( ByteBuffer.wrap( "<?xml version='1.0'?><root/>".getBytes( StandardCharsets.UTF_8 ) ) ) );
+		assertEquals( "Unexpected records.", Collections.<String>emptyList(), parser.parse( ByteBuffer.wrap( "<root>\n</root>".getBytes( StandardCharsets.UTF_8 ) ) ) );
+	}
+
+	/**
+	 * Creates a parser for the test document that uses small chunks.
+	 *
+	 * @param factory Factory used to create XML readers.
+	 *
+	 * @return Parser.
+	 */
+	@NotNull
+	private ParallelRecordParser<String> createParser( @NotNull final XMLReaderFactory factory )
+	{
+		final ParallelRecordParser<String> parser = new ParallelRecordParser<String>( factory, "ns:rec", reader -> {
+			assertEquals( "Unexpected namespace URI.", "urn:records", reader.getNamespaceURI() );
+			final String result = reader.getAttributeValue( null, "id" ) + ':' + reader.getAttributeValue( "urn:records", "type" );
+			int depth = 1;
+			while ( depth > 0 )
+			{
+				final XMLEventType eventType = reader.next();
+				if ( eventType == XMLEventType.START_ELEMENT )
+				{
+					depth++;
+				}
+				else if ( eventType == XMLEventType.END_ELEMENT )
+				{
+					depth--;
+				}
+			}
+			return result;
+		} );
+		parser.setPool( _pool );
+		parser.setMinimumChunkSize( 64 );
+		return parser;
+	}
+
+	/**
+	 * Creates the test document. The document contains start tags of records
+	 * in a comment, a CDATA section and a nested element, which are not
+	 * valid split points.
+	 *
+	 * @return Test document.
+	 */
+	@NotNull
+	private static byte[] createDocument()
+	{
+		final StringBuilder document = new StringBuilder();
+		document.append( "<?xml version='1.0' encoding='UTF-8'?>\n<!-- <ns:rec id='x'> -->\n<root xmlns:ns='urn:records' version=\"1>0\">\n" );
+		for ( int i = 0; i < RECORD_COUNT; i++ )
+		{
+			document.append( "\t<ns:rec id='" ).append( i ).append( "' ns:type='té'>" );
+			switch ( i % 4 )
+			{
+				case 0:
+					document.append( "<!-- <ns:rec id='comment'> -->" );
+					break;
+				case 1:
+					document.append( "<![CDATA[<ns:rec id='cdata'>]]>" );
+					break;
+				case 2:
+					document.append( "<ns:rec id='nested'/>" );
+					break;
+				default:
+					document.append( "text €" );
+			}
+			document.append( "</ns:rec>\n" );
+		}
+		document.append( "</root>\n<!-- </root> -->\n" );
+		return document.toString().getBytes( StandardCharsets.UTF_8 );
+	}
+
+	/**
+	 * Returns the records expected to be parsed from the test document.
+	 *
+	 * @return Expected records, in document order.
+	 */
+	@NotNull
+	private static List<String> getExpectedRecords()
+	{
+		final List<String> result = new ArrayList<String>();
+		for ( int i = 0; i < RECORD_COUNT; i++ )
+		{
+			result.add( i + ":té" );
+		}
+		return result;
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link PathSelector}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestPathSelector
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<config xmlns:e=\"urn:e\" version=\"2\">\n" +
+	                                       "\t<database type=\"sql\" url=\"jdbc:a\"><name>main</name></database>\n" +
+	                                       "\t<database type=\"ldap\" url=\"ldap:b\"><name>users</name></database>\n" +
+	                                       "\t<e:items>\n" +
+	                                       "\t\t<e:item e:id=\"1\">one</e:item>\n" +
+	                                       "\t\t<group><e:item e:id=\"2\">t<b>w</b>o</e:item></group>\n" +
+	                                       "\t\t<item id=\"3\">three</item>\n" +
+	                                       "\t</e:items>\n" +
+	                                       "</config>";
+
+	/**
+	 * Tests selection of attribute values and character data, using each
+	 * available reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testValues()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final List<String> actual = new ArrayList<String>();
+			final PathSelector selector = new PathSelector();
+			selector.addValueHandler( "/config/@version", value -> actual.add( "version=" + value ) );
+			selector.addValueHandler( "/config/database[@type='sql']/@url", value -> actual.add( "url=" + value ) );
+			selector.addValueHandler( "/config/database[@type=\"ldap\"]/name/text()", value -> actual.add( "ldap=" + value ) );
+			selector.addValueHandler( "/config/database/@missing", value -> actual.add( "missing=" + value ) );
+			selector.addValueHandler( "//{urn:e}item/text()", value -> actual.add( "e:item=" + value ) );
+			selector.addValueHandler( "//{}item/@{}id", value -> actual.add( "item.id=" + value ) );
+			selector.addValueHandler( "//item[@{urn:e}id]/@id", value -> actual.add( "id=" + value ) );
+			selector.addValueHandler( "/*/*/*/*/b/text()", value -> actual.add( "b=" + value ) );
+
+			final XMLReader reader = createReader( XMLReaderFactory.newInstance( factoryName ) );
+			selector.select( reader );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_DOCUMENT, reader.getEventType() );
+			assertEquals( "Unexpected values for " + factoryName + '.', Arrays.asList( "version=2", "url=jdbc:a", "ldap=users", "id=1", "e:item=one", "id=2", "b=w", "e:item=to", "item.id=3" ), actual );
+		}
+	}
+
+	/**
+	 * Tests selection of elements, including handlers that read the selected
+	 * element and skipping of subtrees without matches.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testElements()
+	throws Exception
+	{
+		final List<String> actual = new ArrayList<String>();
+		final PathSelector selector = new PathSelector();
+		selector.addElementHandler( "/config/database", reader -> actual.add( "database " + reader.getAttributeValue( "type" ) ) );
+		selector.addElementHandler( "/config/database[@type='ldap']", reader ->
+		{
+			actual.add( "ldap" );
+			reader.skipElement();
+		} );
+		selector.addValueHandler( "/config/database/name/text()", value -> actual.add( "name " + value ) );
+		selector.addElementHandler( "//*[@{urn:e}id]", reader -> actual.add( reader.getLocalName() + ' ' + reader.getAttributeValue( "urn:e", "id" ) ) );
+
+		selector.select( createReader( new Utf8ReaderFactory() ) );
+		assertEquals( "Unexpected elements.", Arrays.asList( "database sql", "name main", "database ldap", "ldap", "item 1", "item 2" ), actual );
+
+		// Only the children of 'config' are read; their content is skipped.
+		final AtomicInteger nextCount = new AtomicInteger();
+		final XMLReader reader = createReader( new Utf8ReaderFactory() );
+		final XMLReader countingReader = (XMLReader)Proxy.newProxyInstance( XMLReader.class.getClassLoader(), new Class<?>[] { XMLReader.class }, ( proxy, method, args ) ->
+		{
+			if ( "next".equals( method.getName() ) )
+			{
+				nextCount.incrementAndGet();
+			}
+			try
+			{
+				return method.invoke( reader, args );
+			}
+			catch ( final InvocationTargetException e )
+			{
+				throw e.getCause();
+			}
+		} );
+		final PathSelector databases = new PathSelector();
+		databases.addValueHandler( "/config/database/@url", value -> actual.add( value ) );
+		databases.select( countingReader );
+		assertEquals( "Unexpected number of events.", 10, nextCount.get() );
+	}
+
+	/**
+	 * Tests that invalid paths are rejected.
+	 */
+	@Test
+	public void testInvalidPaths()
+	{
+		final PathSelector selector = new PathSelector();
+		for ( final String path : Arrays.asList( "", "config", "/", "/config/", "//@id", "/config[@id", "/config[@id='1]", "/{urn:a", "/config/@id/text()", "/config/text" ) )
+		{
+			try
+			{
+				selector.addValueHandler( path, value -> fail( "Unexpected value." ) );
+				fail( "Expected exception for '" + path + "'." );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				// Expected.
+			}
+		}
+
+		try
+		{
+			selector.addElementHandler( "/config/@id", reader -> fail( "Unexpected element." ) );
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalArgumentException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Creates a reader for the test document.
+	 *
+	 * @param factory XML reader factory.
+	 *
+	 * @return XML reader.
+	 *
+	 * @throws Exception if the reader can't be created.
+	 */
+	@NotNull
+	private static XMLReader createReader( @NotNull final XMLReaderFactory factory )
+	throws Exception
+	{
+		return factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" );
+	}
+
+}
@@ -0,0 +1,297 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link TextParser}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestTextParser
+{
+	/**
+	 * Tests that numbers are parsed exactly like the corresponding JDK
+	 * methods.
+	 */
+	@Test
+	public void testNumbers()
+	{
+		final List<String> values = new ArrayList<String>( Arrays.asList( "0", "-0", "+0", "1", "-1", "+12", "007", "", "-", "+", " 1", "1 ", "1x", "--1",
+		                                                                  "2147483647", "2147483648", "-2147483648", "-2147483649",
+		                                                                  "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+		                                                                  "1.5", ".5", "5.", ".", "1e5", "1E-5", "1e", "1e+", "-1.25e-3", " 3.25 ", "1.5f", "2d",
+		                                                                  "NaN", "-Infinity", "0x1p3", "123456789012345", "1234567890123456", "12345678901234567890",
+		                                                                  "0.000000000000000000001", "1e22", "1e23", "4.9e-324", "1.7976931348623157e308",
+		                                                                  "1e400", "3.4028235e38", "1.00000000000000000000", "0.1", "0.3", "16777217", "١٢" ) );
+
+		final Random random = new Random( 1234L );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			values.add( String.valueOf( random.nextInt() ) );
+			values.add( String.valueOf( random.nextLong() ) );
+			values.add( String.valueOf( random.nextDouble() * Math.pow( 10.0, random.nextInt( 40 ) - 20 ) ) );
+			values.add( String.valueOf( (float)random.nextGaussian() ) );
+			values.add( String.format( Locale.US, "%." + random.nextInt( 10 ) + "f", random.nextGaussian() * 1000.0 ) );
+		}
+
+		for ( final String value : values )
+		{
+			final char[] chars = ( "<>" + value + "</>" ).toCharArray();
+			final int start = 2;
+			final int end = start + value.length();
+
+			assertEquals( "Unexpected int for '" + value + "'.", parseInt( value ), parseInt( chars, start, end ) );
+			assertEquals( "Unexpected long for '" + value + "'.", parseLong( value ), parseLong( chars, start, end ) );
+			assertEquals( "Unexpected double for '" + value + "'.", parseDouble( value ), parseDouble( chars, start, end ) );
+			assertEquals( "Unexpected float for '" + value + "'.", parseFloat( value ), parseFloat( chars, start, end ) );
+		}
+	}
+
+	/**
+	 * Tests parsing of booleans.
+	 */
+	@Test
+	public void testBooleans()
+	{
+		for ( final String value : Arrays.asList( "true", "1", " true\t", "\n1\r" ) )
+		{
+			assertTrue( "Unexpected value for '" + value + "'.", TextParser.parseBoolean( value ) );
+			assertTrue( "Unexpected value for '" + value + "'.", TextParser.parseBoolean( value.toCharArray(), 0, value.length() ) );
+		}
+
+		for ( final String value : Arrays.asList( "false", "0", " false ", "0 " ) )
+		{
+			assertFalse( "Unexpected value for '" + value + "'.", TextParser.parseBoolean( value ) );
+			assertFalse( "Unexpected value for '" + value + "'.", TextParser.parseBoolean( value.toCharArray(), 0, value.length() ) );
+		}
+
+		for ( final String value : Arrays.asList( "", "TRUE", "yes", "01", "t", "true false" ) )
+		{
+			try
+			{
+				TextParser.parseBoolean( value );
+				fail( "Expected exception for '" + value + "'." );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				// Expected.
+			}
+
+			try
+			{
+				TextParser.parseBoolean( value.toCharArray(), 0, value.length() );
+				fail( "Expected exception for '" + value + "'." );
+			}
+			catch ( final IllegalArgumentException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Parses an integer using the JDK.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Integer parseInt( @NotNull final String value )
+	{
+		Integer result;
+		try
+		{
+			result = Integer.parseInt( value );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses an integer using {@link TextParser}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Integer parseInt( @NotNull final char[] chars, final int start, final int end )
+	{
+		Integer result;
+		try
+		{
+			result = TextParser.parseInt( chars, start, end );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a long using the JDK.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Long parseLong( @NotNull final String value )
+	{
+		Long result;
+		try
+		{
+			result = Long.parseLong( value );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a long using {@link TextParser}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Long parseLong( @NotNull final char[] chars, final int start, final int end )
+	{
+		Long result;
+		try
+		{
+			result = TextParser.parseLong( chars, start, end );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a double using the JDK.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Double parseDouble( @NotNull final String value )
+	{
+		Double result;
+		try
+		{
+			result = Double.parseDouble( value );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a double using {@link TextParser}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Double parseDouble( @NotNull final char[] chars, final int start, final int end )
+	{
+		Double result;
+		try
+		{
+			result = TextParser.parseDouble( chars, start, end );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a float using the JDK.
+	 *
+	 * @param value Value to parse.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Float parseFloat( @NotNull final String value )
+	{
+		Float result;
+		try
+		{
+			result = Float.parseFloat( value );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+
+	/**
+	 * Parses a float using {@link TextParser}.
+	 *
+	 * @param chars Characters to parse.
+	 * @param start Start index.
+	 * @param end   End index.
+	 *
+	 * @return Parsed value; {@code null} if the value is invalid.
+	 */
+	@Nullable
+	private static Float parseFloat( @NotNull final char[] chars, final int start, final int end )
+	{
+		Float result;
+		try
+		{
+			result = TextParser.parseFloat( chars, start, end );
+		}
+		catch ( final NumberFormatException ignored )
+		{
+			result = null;
+		}
+		return result;
+	}
+}
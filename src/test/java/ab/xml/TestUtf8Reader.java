@@ -0,0 +1,522 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link Utf8Reader}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestUtf8Reader
+extends XMLReaderTestCase
+{
+	@Before
+	public void setUp()
+	{
+		_factory = new Utf8ReaderFactory();
+	}
+
+	/**
+	 * Tests that multi-byte characters, references and CDATA sections are
+	 * decoded correctly, also when they cross the boundaries of the input
+	 * buffer.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testBufferBoundaries()
+	throws Exception
+	{
+		final String document = "<?xml version=\"1.0\"?>\r\n<r\u00e9sum\u00e9 a=\"\u20ac&amp;\r\nb\"><![CDATA[<\u00ff>]]>x&#x1D11E;y\r\nz<!-- \u00e9 --></r\u00e9sum\u00e9>";
+		for ( int bufferSize = 1; bufferSize < 16; bufferSize++ )
+		{
+			final XMLReader reader = new Utf8Reader( new ByteArrayInputStream( document.getBytes( StandardCharsets.UTF_8 ) ), null, bufferSize );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected local name.", "r\u00e9sum\u00e9", reader.getLocalName() );
+			assertEquals( "Unexpected attribute value.", "\u20ac& b", reader.getAttributeValue( null, "a" ) );
+			assertEquals( "Unexpected line number", 3, reader.getLineNumber() );
+			assertEquals( "Unexpected column number", 4, reader.getColumnNumber() );
+			assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+			assertEquals( "Unexpected character data.", "<\u00ff>x\ud834\udd1ey\nz", reader.getText() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+			assertEquals( "Unexpected local name.", "r\u00e9sum\u00e9", reader.getLocalName() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+		}
+	}
+
+	/**
+	 * Tests that skipping an element works when markup crosses the boundaries
+	 * of the input buffer, and that line numbers account for skipped content.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSkipElementBufferBoundaries()
+	throws Exception
+	{
+		final String document = "<root><skip a='>'>\n<![CDATA[</skip>]]><!-- </skip> -->\n<?pi ?>\u00e9<x/></skip><next/></root>";
+		for ( int bufferSize = 1; bufferSize < 16; bufferSize++ )
+		{
+			final XMLReader reader = new Utf8Reader( new ByteArrayInputStream( document.getBytes( StandardCharsets.UTF_8 ) ), null, bufferSize );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			reader.skipElement();
+			assertEquals( "Unexpected local name.", "skip", reader.getLocalName() );
+			assertEquals( "Unexpected line number", 3, reader.getLineNumber() );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected local name.", "next", reader.getLocalName() );
+		}
+	}
+
+	/**
+	 * Tests that a memory-mapped file is read correctly when it is mapped as
+	 * multiple windows.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMappedFileWindows()
+	throws Exception
+	{
+		final File file = File.createTempFile( "test", ".xml" );
+		try
+		{
+			try ( final OutputStream out = new FileOutputStream( file ) )
+			{
+				out.write( "<root><child a='\u20ac'>\u00e9\u00e9</child></root>".getBytes( StandardCharsets.UTF_8 ) );
+			}
+
+			for ( int windowSize = 1; windowSize < 8; windowSize++ )
+			{
+				final XMLReader reader;
+				try ( final FileChannel channel = new FileInputStream( file ).getChannel() )
+				{
+					reader = new Utf8Reader( new MappedFileInputStream( channel, windowSize ), null );
+				}
+				assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+				assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+				assertEquals( "Unexpected attribute value.", "\u20ac", reader.getAttributeValue( null, "a" ) );
+				assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+				assertEquals( "Unexpected text.", "\u00e9\u00e9", reader.getText() );
+				assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+				assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+				assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+			}
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	/**
+	 * Tests that a reader that read a document from an array doesn't reuse
+	 * that array when reset.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testResetAfterArray()
+	throws Exception
+	{
+		final byte[] first = "<first/>".getBytes( StandardCharsets.UTF_8 );
+		final XMLReader reader = new Utf8Reader( first, 0, first.length, null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+
+		reader.reset( new ByteArrayInputStream( "<second>long enough to fill the buffer</second>".getBytes( StandardCharsets.UTF_8 ) ), null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "second", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "long enough to fill the buffer", reader.getText() );
+		assertEquals( "Array should not be modified.", "<first/>", new String( first, StandardCharsets.UTF_8 ) );
+	}
+
+	/**
+	 * Tests that names are decoded using the character encoding of the current
+	 * document when the reader is reset, and that a reader that read many
+	 * distinct names still reports names correctly after being reset.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testResetNames()
+	throws Exception
+	{
+		final byte[] utf8 = "<caf\u00e9/>".getBytes( StandardCharsets.UTF_8 );
+		final XMLReader reader = new Utf8Reader( new ByteArrayInputStream( utf8 ), null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "caf\u00e9", reader.getLocalName() );
+
+		final byte[] latin1 = ( "<?xml version='1.0' encoding='ISO-8859-1'?><caf\u00c3\u00a9/>" ).getBytes( StandardCharsets.ISO_8859_1 );
+		reader.reset( new ByteArrayInputStream( latin1 ), null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "caf\u00c3\u00a9", reader.getLocalName() );
+
+		final StringBuilder document = new StringBuilder( "<root>" );
+		for ( int i = 0; i <= NameTable.MAXIMUM_SIZE; i++ )
+		{
+			document.append( "<e" ).append( i ).append( "/>" );
+		}
+		document.append( "</root>" );
+		reader.reset( new ByteArrayInputStream( document.toString().getBytes( StandardCharsets.UTF_8 ) ), null );
+		while ( reader.next() != XMLEventType.END_DOCUMENT )
+		{
+			// Read the entire document.
+		}
+
+		reader.reset( new ByteArrayInputStream( utf8 ), null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertSame( "Unexpected local name.", "caf\u00e9", reader.getLocalName() );
+	}
+
+	/**
+	 * Tests that ASCII runs are decoded correctly when they are interrupted by
+	 * markup, references, line breaks or multi-byte characters at every
+	 * position within a group of eight bytes.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testAsciiRuns()
+	throws Exception
+	{
+		final String[] specials = { "&amp;", "\r\n", "\u00e9", "\u20ac", "\ud834\udd1e", "<![CDATA[]]>", "\t" };
+		for ( int offset = 0; offset < 17; offset++ )
+		{
+			final StringBuilder text = new StringBuilder();
+			final StringBuilder expected = new StringBuilder();
+			for ( final String special : specials )
+			{
+				for ( int i = 0; i < offset; i++ )
+				{
+					text.append( (char)( 'a' + i ) );
+					expected.append( (char)( 'a' + i ) );
+				}
+				text.append( special );
+				expected.append( "&amp;".equals( special ) ? "&" : "\r\n".equals( special ) ? "\n" : "<![CDATA[]]>".equals( special ) ? "" : special );
+			}
+			final String value = expected.toString().replace( '\n', ' ' ).replace( '\t', ' ' );
+
+			final String document = "<a v=\"" + text.toString().replace( "<![CDATA[]]>", "" ).replace( "\r\n", "\n" ) + "\" w='0123456789'><![CDATA[" + expected + "]]>" + text + "</a>";
+			final byte[] bytes = document.getBytes( StandardCharsets.UTF_8 );
+			for ( final XMLReader reader : Arrays.asList( new Utf8Reader( bytes, 0, bytes.length, null ), new Utf8Reader( new ByteArrayInputStream( bytes ), null, 11 ) ) )
+			{
+				assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+				assertEquals( "Unexpected attribute value.", value, reader.getAttributeValue( "v" ) );
+				assertEquals( "Unexpected attribute value.", "0123456789", reader.getAttributeValue( "w" ) );
+				assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+				assertEquals( "Unexpected character data.", expected + expected.toString(), reader.getText() );
+				assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+			}
+		}
+
+		// Character data without references is created from the input directly.
+		final XMLReader reader = createReaderForContent( "<a>0123456789abcdef</a>" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected character data.", "0123456789abcdef", reader.getText() );
+	}
+
+	/**
+	 * Tests that documents encoded using ISO-8859-1 are decoded correctly.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testLatin1()
+	throws Exception
+	{
+		final XMLReader reader = createReaderForContent( "<?xml version='1.0' encoding='ISO-8859-1'?><a b='\u00e9'>\u00ff</a>", "ISO-8859-1" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute value.", "\u00e9", reader.getAttributeValue( 0 ) );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected character data.", "\u00ff", reader.getText() );
+	}
+
+	/**
+	 * Tests that invalid character references and duplicate attributes are
+	 * rejected, and that valid character references are still accepted.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNotWellFormed()
+	throws Exception
+	{
+		final StringBuilder manyAttributes = new StringBuilder( "<a" );
+		for ( int i = 0; i <= AttributeIndex.THRESHOLD; i++ )
+		{
+			manyAttributes.append( " a" ).append( i ).append( "='" ).append( i ).append( '\'' );
+		}
+		manyAttributes.append( " a0='x'/>" );
+
+		for ( final String document : Arrays.asList( "<a>&#+65;</a>", "<a>&#-65;</a>", "<a>&#0;</a>", "<a>&#;</a>", "<a>&#x;</a>", "<a>&#xD800;</a>", "<a>&#xFFFE;</a>", "<a>&#x110000;</a>", "<a>&#9999999999;</a>", "<a x='1' x='2'/>", "<a xmlns:p='urn:p' xmlns:q='urn:p' p:x='1' q:x='2'/>", manyAttributes.toString() ) )
+		{
+			final XMLReader reader = createReaderForContent( document );
+			try
+			{
+				while ( reader.next() != XMLEventType.END_DOCUMENT )
+				{
+					// Read the entire document.
+				}
+				fail( "Expected exception for " + document );
+			}
+			catch ( final XMLException e )
+			{
+				// Expected.
+			}
+		}
+
+		final XMLReader reader = createReaderForContent( "<a p:x='1' x='2' xmlns:p='urn:p'>&#65;&#x9;&#x10FFFF;</a>" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute count.", 2, reader.getAttributeCount() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected character data.", "A\t\udbff\udfff", reader.getText() );
+	}
+
+	/**
+	 * Tests that malformed UTF-8 sequences and characters that are not allowed
+	 * in XML documents are rejected, at any buffer boundary, while similar
+	 * valid input is accepted.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMalformedInput()
+	throws Exception
+	{
+		final List<byte[]> malformed = Arrays.asList(
+			new byte[] { '<', 'a', '>', (byte)0xc0, (byte)0xaf, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', (byte)0xe0, (byte)0x80, (byte)0xaf, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', (byte)0xed, (byte)0xa0, (byte)0x80, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', (byte)0xf4, (byte)0x90, (byte)0x80, (byte)0x80, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', (byte)0xef, (byte)0xbf, (byte)0xbe, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', 'x', 0x01, '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', ' ', 'b', '=', '\'', 0x1f, '\'', '/', '>' },
+			new byte[] { '<', 'a', '>', '<', '!', '[', 'C', 'D', 'A', 'T', 'A', '[', 0x00, ']', ']', '>', '<', '/', 'a', '>' },
+			new byte[] { '<', 'a', '>', 'x', ']', ']', '>', 'y', '<', '/', 'a', '>' } );
+
+		for ( int bufferSize = 1; bufferSize < 16; bufferSize++ )
+		{
+			for ( final byte[] document : malformed )
+			{
+				final XMLReader reader = new Utf8Reader( new ByteArrayInputStream( document ), null, bufferSize );
+				try
+				{
+					while ( reader.next() != XMLEventType.END_DOCUMENT )
+					{
+						// Read the entire document.
+					}
+					fail( "Expected exception for " + Arrays.toString( document ) + " with buffer size " + bufferSize );
+				}
+				catch ( final XMLException e )
+				{
+					// Expected.
+				}
+			}
+
+			final String document = "<a b='x\ty'>x]]y]>\t\u0080\ud7ff\ue000\ufffd\ud834\udd1e<![CDATA[]]]]></a>";
+			final XMLReader reader = new Utf8Reader( new ByteArrayInputStream( document.getBytes( StandardCharsets.UTF_8 ) ), null, bufferSize );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected attribute value.", "x y", reader.getAttributeValue( 0 ) );
+			assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+			assertEquals( "Unexpected character data.", "x]]y]>\t\u0080\ud7ff\ue000\ufffd\ud834\udd1e]]", reader.getText() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+		}
+	}
+
+	/**
+	 * Tests that parsing resumed from a checkpoint, taken at any element
+	 * boundary and serialized, continues with the same events.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCheckpoints()
+	throws Exception
+	{
+		final String document = "<?xml version=\"1.0\"?>\n" +
+		                        "<root xmlns=\"urn:a\" xmlns:b=\"urn:b\">\n" +
+		                        "\t<b:item b:id=\"1\">\u20ac</b:item>\n" +
+		                        "\t<group xmlns=\"urn:c\"><b:item b:id=\"2\"/><empty/></group>\n" +
+		                        "\t<item xmlns:b=\"urn:d\" b:id=\"3\">three</item>\n" +
+		                        "</root>\n";
+
+		final File file = File.createTempFile( "test", ".xml" );
+		try
+		{
+			try ( final OutputStream out = new FileOutputStream( file ) )
+			{
+				out.write( document.getBytes( StandardCharsets.UTF_8 ) );
+			}
+
+			final List<String> expected = new ArrayList<String>();
+			final List<XMLCheckpoint> checkpoints = new ArrayList<XMLCheckpoint>();
+			final XMLReader reader = createReaderForContent( document );
+			do
+			{
+				final XMLEventType eventType = reader.next();
+				expected.add( describe( reader ) );
+
+				XMLCheckpoint checkpoint = null;
+				try
+				{
+					checkpoint = reader.getCheckpoint();
+					assertTrue( "Unexpected checkpoint for " + eventType + '.', ( eventType == XMLEventType.START_ELEMENT ) || ( eventType == XMLEventType.END_ELEMENT ) );
+				}
+				catch ( final IllegalStateException e )
+				{
+					assertFalse( "Expected checkpoint for " + eventType + '.', ( eventType == XMLEventType.END_ELEMENT ) || ( ( eventType == XMLEventType.START_ELEMENT ) && !"empty".equals( reader.getLocalName() ) && !"2".equals( reader.getAttributeValue( "id" ) ) ) );
+				}
+				checkpoints.add( checkpoint );
+			}
+			while ( reader.getEventType() != XMLEventType.END_DOCUMENT );
+
+			for ( int i = 0; i < checkpoints.size(); i++ )
+			{
+				final XMLCheckpoint checkpoint = checkpoints.get( i );
+				if ( checkpoint != null )
+				{
+					final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					try ( final ObjectOutputStream out = new ObjectOutputStream( bytes ) )
+					{
+						out.writeObject( checkpoint );
+					}
+
+					final XMLCheckpoint deserialized;
+					try ( final ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) )
+					{
+						deserialized = (XMLCheckpoint)in.readObject();
+					}
+
+					final XMLReader resumed;
+					try ( final FileChannel channel = new RandomAccessFile( file, "r" ).getChannel() )
+					{
+						resumed = _factory.resumeXMLReader( channel, deserialized );
+					}
+
+					final List<String> actual = new ArrayList<String>();
+					do
+					{
+						resumed.next();
+						actual.add( describe( resumed ) );
+					}
+					while ( resumed.getEventType() != XMLEventType.END_DOCUMENT );
+					assertEquals( "Unexpected events after checkpoint " + i + '.', expected.subList( i + 1, expected.size() ), actual );
+				}
+			}
+
+			assertTrue( "Expected checkpoint support.", _factory.supportsCheckpoints() );
+			assertFalse( "Unexpected checkpoint support.", new StaxReaderFactory().supportsCheckpoints() );
+			try ( final FileChannel channel = new RandomAccessFile( file, "r" ).getChannel() )
+			{
+				new StaxReaderFactory().resumeXMLReader( channel, checkpoints.get( 1 ) );
+				fail( "Expected exception." );
+			}
+			catch ( final UnsupportedOperationException e )
+			{
+				// Expected.
+			}
+
+			for ( final boolean gzip : new boolean[] { true, false } )
+			{
+				try ( final OutputStream out = gzip ? new GZIPOutputStream( new FileOutputStream( file ) ) : new DeflaterOutputStream( new FileOutputStream( file ) ) )
+				{
+					out.write( document.getBytes( StandardCharsets.UTF_8 ) );
+				}
+
+				try ( final FileChannel channel = new RandomAccessFile( file, "r" ).getChannel() )
+				{
+					final XMLReader compressed = _factory.createXMLReader( channel );
+					assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, compressed.next() );
+					try
+					{
+						compressed.getCheckpoint();
+						fail( "Expected exception for compressed input (gzip=" + gzip + ")." );
+					}
+					catch ( final IllegalStateException e )
+					{
+						// Expected.
+					}
+					compressed.skipElement();
+
+					try
+					{
+						_factory.resumeXMLReader( channel, checkpoints.get( 1 ) );
+						fail( "Expected exception for compressed channel (gzip=" + gzip + ")." );
+					}
+					catch ( final XMLException e )
+					{
+						// Expected.
+					}
+				}
+			}
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
+	/**
+	 * Returns a description of the current event.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Description of the event.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader )
+	{
+		final XMLEventType eventType = reader.getEventType();
+		final StringBuilder result = new StringBuilder();
+		result.append( eventType );
+		if ( ( eventType == XMLEventType.START_ELEMENT ) || ( eventType == XMLEventType.END_ELEMENT ) )
+		{
+			result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+		}
+		if ( eventType == XMLEventType.START_ELEMENT )
+		{
+			for ( int i = 0; i < reader.getAttributeCount(); i++ )
+			{
+				result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+				result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+			}
+		}
+		else if ( eventType == XMLEventType.CHARACTERS )
+		{
+			result.append( " '" ).append( reader.getText() ).append( '\'' );
+		}
+		result.append( " @" ).append( reader.getLineNumber() ).append( ':' ).append( reader.getColumnNumber() );
+		return result.toString();
+	}
+}
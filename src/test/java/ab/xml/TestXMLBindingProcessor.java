@@ -0,0 +1,338 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link XMLBindingProcessor}, using the parsers and
+ * serializers generated for the bound classes in this test.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestXMLBindingProcessor
+{
+	/**
+	 * Namespace used for testing.
+	 */
+	private static final String NAMESPACE = "urn:test";
+
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<drawing xmlns:t=\"urn:test\" name=\"Plan\" version=\"3\" t:scale=\"0.5\">\n" +
+	                                       "\t<title>Ground floor</title>\n" +
+	                                       "\t<unknown><title>Ignored</title></unknown>\n" +
+	                                       "\t<tag>a</tag><tag> b </tag>\n" +
+	                                       "\t<origin x=\"1\" y=\"-2.5\"/>\n" +
+	                                       "\t<t:shape id=\"12345678901\" type=\"wall\" filled=\"true\" width=\"0.25\">\n" +
+	                                       "\t\tWall <point x=\"0\" y=\"0\"/> one <point x=\"4\" y=\"0\"><z>1</z></point>\n" +
+	                                       "\t</t:shape>\n" +
+	                                       "\t<t:shape type=\"door\"/>\n" +
+	                                       "\t<shape type=\"other\"/>\n" +
+	                                       "\t<height unit=\"m\"> 2.75 </height>\n" +
+	                                       "\t<count>\n" +
+	                                       "\t\t42\n" +
+	                                       "\t</count>\n" +
+	                                       "</drawing>";
+
+	/**
+	 * Tests parsing of a document, using each available reader
+	 * implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testParse()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			final DrawingXMLParser parser = new DrawingXMLParser( factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" ) );
+			assertDocument( factoryName, parser.parse() );
+		}
+	}
+
+	/**
+	 * Tests that written documents are parsed back to equal objects, using
+	 * each available writer implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testWrite()
+	throws Exception
+	{
+		final Drawing drawing = new DrawingXMLParser( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" ).parse();
+		drawing.shapes.get( 0 ).label = "Wall one";
+
+		for ( final String factoryName : XMLWriterFactory.getAvailableFactories() )
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final XMLWriter writer = XMLWriterFactory.newInstance( factoryName ).createXMLWriter( out, "UTF-8" );
+			DrawingXMLSerializer.writeDocument( writer, drawing );
+			writer.flush();
+
+			final XMLReader reader = XMLReaderFactory.newInstance( factoryName.replace( "Writer", "Reader" ) ).createXMLReader( new ByteArrayInputStream( out.toByteArray() ), "UTF-8" );
+			final Drawing parsed = new DrawingXMLParser( reader ).parse();
+			assertDocument( factoryName, parsed );
+		}
+	}
+
+	/**
+	 * Tests that child elements without namespace don't match elements with
+	 * the same local name in another namespace, using each available reader
+	 * implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testForeignNamespace()
+	throws Exception
+	{
+		final String document = "<drawing xmlns:x=\"urn:other\" xmlns:t=\"urn:test\">" +
+		                        "<x:title>Foreign</x:title><title>Local</title><x:origin x=\"9\" y=\"9\"/><x:count>7</x:count>" +
+		                        "<t:shape type=\"wall\"><x:point x=\"1\" y=\"1\"/><point x=\"2\" y=\"3\"/></t:shape>" +
+		                        "</drawing>";
+
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			final Drawing drawing = new DrawingXMLParser( factory.createXMLReader( new ByteArrayInputStream( document.getBytes( "UTF-8" ) ), "UTF-8" ) ).parse();
+			assertEquals( factoryName, "Local", drawing.title );
+			assertNull( factoryName, drawing.origin );
+			assertEquals( factoryName, 0, drawing.count );
+			assertEquals( factoryName, 1, drawing.shapes.size() );
+
+			final Shape wall = drawing.shapes.get( 0 );
+			assertEquals( factoryName, 1, wall.points.size() );
+			assertEquals( factoryName, 2.0, wall.points.get( 0 ).x, 0.0 );
+			assertEquals( factoryName, 3.0, wall.points.get( 0 ).y, 0.0 );
+		}
+	}
+
+	/**
+	 * Tests that invalid element content is reported.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testInvalidContent()
+	throws Exception
+	{
+		for ( final String document : Arrays.asList( "<drawing><count>x</count></drawing>", "<drawing><count>1<b/></count></drawing>", "<other/>", "<x:drawing xmlns:x=\"urn:other\"/>", "<!-- empty -->" ) )
+		{
+			try
+			{
+				new DrawingXMLParser( new ByteArrayInputStream( document.getBytes( "UTF-8" ) ), "UTF-8" ).parse();
+				fail( "Expected exception for " + document );
+			}
+			catch ( final XMLException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Asserts that the given drawing matches the test document.
+	 *
+	 * @param message Message prefix.
+	 * @param drawing Drawing to check.
+	 */
+	private static void assertDocument( @NotNull final String message, @NotNull final Drawing drawing )
+	{
+		assertEquals( message, "Plan", drawing.name );
+		assertEquals( message, 3, drawing.version );
+		assertEquals( message, 0.5, drawing.scale, 0.0 );
+		assertEquals( message, "Ground floor", drawing.title );
+		assertEquals( message, Arrays.asList( "a", " b " ), drawing.tags );
+		assertEquals( message, 1.0, drawing.origin.x, 0.0 );
+		assertEquals( message, -2.5, drawing.origin.y, 0.0 );
+		assertEquals( message, 2, drawing.shapes.size() );
+
+		final Shape wall = drawing.shapes.get( 0 );
+		assertEquals( message, 12345678901L, wall.id );
+		assertEquals( message, "wall", wall.type );
+		assertTrue( message, wall.filled );
+		assertEquals( message, 0.25f, wall.width, 0.0f );
+		assertEquals( message, "Wall one", wall.label.replaceAll( "\\s+", " " ).trim() );
+		assertEquals( message, 2, wall.points.size() );
+		assertEquals( message, 4.0, wall.points.get( 1 ).x, 0.0 );
+
+		final Shape door = drawing.shapes.get( 1 );
+		assertEquals( message, "door", door.type );
+		assertEquals( message, -1L, door.id );
+		assertFalse( message, door.filled );
+		assertNull( message, door.points );
+
+		assertEquals( message, "m", drawing.height.unit );
+		assertEquals( message, 2.75, drawing.height.value, 0.0 );
+		assertEquals( message, 42, drawing.count );
+	}
+
+	/**
+	 * Document element.
+	 */
+	@XMLElement( "drawing" )
+	static class Drawing
+	{
+		/**
+		 * Name attribute.
+		 */
+		@XMLAttribute
+		String name;
+
+		/**
+		 * Version attribute.
+		 */
+		@XMLAttribute
+		int version = 1;
+
+		/**
+		 * Scale attribute.
+		 */
+		@XMLAttribute( value = "scale", namespace = NAMESPACE )
+		double scale = 1.0;
+
+		/**
+		 * Child element with text only.
+		 */
+		@XMLChild
+		String title;
+
+		/**
+		 * Repeated child element with text only.
+		 */
+		@XMLChild( "tag" )
+		List<String> tags;
+
+		/**
+		 * Child element bound to a class.
+		 */
+		@XMLChild( "origin" )
+		Point origin;
+
+		/**
+		 * Repeated child elements bound to a class.
+		 */
+		@XMLChild
+		List<Shape> shapes;
+
+		/**
+		 * Child element with attributes and text.
+		 */
+		@XMLChild( "height" )
+		Measurement height;
+
+		/**
+		 * Child element with a number.
+		 */
+		@XMLChild
+		int count;
+	}
+
+	/**
+	 * Shape, with mixed content.
+	 */
+	@XMLElement( value = "shape", namespace = NAMESPACE )
+	static class Shape
+	{
+		/**
+		 * Identifier.
+		 */
+		@XMLAttribute
+		long id = -1L;
+
+		/**
+		 * Type.
+		 */
+		@XMLAttribute
+		String type;
+
+		/**
+		 * Filled flag.
+		 */
+		@XMLAttribute
+		boolean filled;
+
+		/**
+		 * Line width.
+		 */
+		@XMLAttribute
+		float width;
+
+		/**
+		 * Text between the points.
+		 */
+		@XMLText
+		String label;
+
+		/**
+		 * Points.
+		 */
+		@XMLChild
+		List<Point> points;
+	}
+
+	/**
+	 * Point, without content.
+	 */
+	@XMLElement( "point" )
+	static class Point
+	{
+		/**
+		 * X coordinate.
+		 */
+		@XMLAttribute
+		double x;
+
+		/**
+		 * Y coordinate.
+		 */
+		@XMLAttribute
+		double y;
+	}
+
+	/**
+	 * Value with a unit.
+	 */
+	@XMLElement( "measurement" )
+	static class Measurement
+	{
+		/**
+		 * Unit.
+		 */
+		@XMLAttribute
+		String unit;
+
+		/**
+		 * Value.
+		 */
+		@XMLText
+		double value;
+	}
+}
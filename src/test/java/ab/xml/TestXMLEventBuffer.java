@@ -0,0 +1,303 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link XMLEventBuffer}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestXMLEventBuffer
+{
+	/**
+	 * Document used for testing.
+	 */
+	private static final String DOCUMENT = "<?xml version=\"1.0\"?>\n" +
+	                                       "<root xmlns=\"urn:a\" xmlns:b=\"urn:b\" id=\"42\" b:scale=\"1.5\">\n" +
+	                                       "\t<?target some data?>\n" +
+	                                       "\t<b:child flag=\"true\">text &amp; more</b:child>\n" +
+	                                       "\t<many a0=\"0\" a1=\"1\" a2=\"2\" a3=\"3\" a4=\"4\" a5=\"5\" a6=\"6\" a7=\"7\" a8=\"8\" a9=\"9\"/>\n" +
+	                                       "\t<skipped><x><y/></x>z</skipped>\n" +
+	                                       "</root>";
+
+	/**
+	 * Tests that replayed events match the events of the original reader,
+	 * using each available reader implementation.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReplay()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+			final XMLReader reader = createReader( factory );
+			final XMLEventBuffer buffer = XMLEventBuffer.record( reader );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_DOCUMENT, reader.getEventType() );
+
+			final String expected = describe( createReader( factory ) );
+			assertEquals( "Unexpected events for " + factoryName + '.', expected, describe( buffer.createReader() ) );
+			assertEquals( "Unexpected events for " + factoryName + " on second replay.", expected, describe( buffer.createReader() ) );
+
+			final XMLReader replay = buffer.createReader();
+			try
+			{
+				replay.reset( new ByteArrayInputStream( new byte[ 0 ] ), null );
+				fail( "Expected exception for " + factoryName + '.' );
+			}
+			catch ( final UnsupportedOperationException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Tests attribute access and skipping elements on replayed events.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testAttributesAndSkip()
+	throws Exception
+	{
+		final XMLEventBuffer buffer = XMLEventBuffer.record( createReader( new Utf8ReaderFactory() ) );
+		final XMLReader reader = buffer.createReader();
+		assertEquals( "Unexpected event type.", XMLEventType.START_DOCUMENT, reader.getEventType() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected namespace.", "urn:a", reader.getNamespaceURI() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected line number.", 2, reader.getLineNumber() );
+		assertEquals( "Unexpected attribute value.", 42, reader.getAttributeAsInt( null, "id", -1 ) );
+		assertEquals( "Unexpected attribute value.", 42L, reader.getAttributeAsLong( null, "id", -1L ) );
+		assertEquals( "Unexpected attribute value.", 1.5, reader.getAttributeAsDouble( "urn:b", "scale", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", 1.5f, reader.getAttributeAsFloat( "urn:b", "scale", 0.0f ), 0.0f );
+		assertEquals( "Unexpected attribute value.", 0.0, reader.getAttributeAsDouble( null, "scale", 0.0 ), 0.0 );
+		assertEquals( "Unexpected attribute value.", "1.5", reader.getAttributeValue( "scale" ) );
+		assertNull( "Unexpected attribute value.", reader.getAttributeValue( "missing" ) );
+		try
+		{
+			reader.getAttributeAsBoolean( null, "id", false );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		try
+		{
+			reader.getLocalName();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+
+		assertEquals( "Unexpected event type.", XMLEventType.PROCESSING_INSTRUCTION, reader.next() );
+		assertEquals( "Unexpected target.", "target", reader.getPITarget() );
+		assertEquals( "Unexpected data.", "some data", reader.getPIData() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertTrue( "Unexpected attribute value.", reader.getAttributeAsBoolean( null, "flag", false ) );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "text & more", new String( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() ) );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected namespace.", "urn:b", reader.getNamespaceURI() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute count.", 10, reader.getAttributeCount() );
+		for ( int i = 9; i >= 0; i-- )
+		{
+			assertEquals( "Unexpected attribute value.", i, reader.getAttributeAsInt( null, "a" + i, -1 ) );
+			assertEquals( "Unexpected attribute value.", String.valueOf( i ), reader.getAttributeValue( "a" + i ) );
+		}
+		assertEquals( "Unexpected attribute value.", -1, reader.getAttributeAsInt( null, "a10", -1 ) );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected local name.", "many", reader.getLocalName() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "skipped", reader.getLocalName() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected local name.", "skipped", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+		try
+		{
+			reader.next();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests recording of a single element.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testRecordElement()
+	throws Exception
+	{
+		for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+		{
+			final XMLReader reader = createReader( XMLReaderFactory.newInstance( factoryName ) );
+			XMLEventType eventType = reader.next();
+			while ( ( eventType != XMLEventType.START_ELEMENT ) || !"child".equals( reader.getLocalName() ) )
+			{
+				eventType = reader.next();
+			}
+
+			final XMLEventBuffer buffer = XMLEventBuffer.recordElement( reader );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_ELEMENT, reader.getEventType() );
+			assertEquals( "Unexpected local name for " + factoryName + '.', "child", reader.getLocalName() );
+			assertEquals( "Unexpected event count for " + factoryName + '.', 3, buffer.getEventCount() );
+
+			final XMLReader replay = buffer.createReader();
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.START_ELEMENT, replay.next() );
+			replay.skipElement();
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_ELEMENT, replay.getEventType() );
+			assertEquals( "Unexpected event type for " + factoryName + '.', XMLEventType.END_DOCUMENT, replay.next() );
+
+			try
+			{
+				XMLEventBuffer.recordElement( replay );
+				fail( "Expected exception for " + factoryName + '.' );
+			}
+			catch ( final IllegalStateException e )
+			{
+				// Expected.
+			}
+		}
+	}
+
+	/**
+	 * Tests that events can be replayed from multiple threads at once.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testConcurrentReplay()
+	throws Exception
+	{
+		final XMLEventBuffer buffer = XMLEventBuffer.record( createReader( new Utf8ReaderFactory() ) );
+		final String expected = describe( buffer.createReader() );
+
+		final ExecutorService executor = Executors.newFixedThreadPool( 4 );
+		try
+		{
+			final List<Future<String>> results = new ArrayList<Future<String>>();
+			for ( int i = 0; i < 16; i++ )
+			{
+				results.add( executor.submit( () -> describe( buffer.createReader() ) ) );
+			}
+			for ( final Future<String> result : results )
+			{
+				assertEquals( "Unexpected events.", expected, result.get() );
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Creates a reader for the test document.
+	 *
+	 * @param factory XML reader factory.
+	 *
+	 * @return XML reader.
+	 *
+	 * @throws Exception if the reader can't be created.
+	 */
+	@NotNull
+	private static XMLReader createReader( @NotNull final XMLReaderFactory factory )
+	throws Exception
+	{
+		return factory.createXMLReader( new ByteArrayInputStream( DOCUMENT.getBytes( "UTF-8" ) ), "UTF-8" );
+	}
+
+	/**
+	 * Returns a description of all remaining events of the given reader.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Description of events.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final StringBuilder result = new StringBuilder();
+		for ( XMLEventType eventType = reader.next(); eventType != XMLEventType.END_DOCUMENT; eventType = reader.next() )
+		{
+			result.append( eventType );
+			switch ( eventType )
+			{
+				case START_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					for ( int i = 0; i < reader.getAttributeCount(); i++ )
+					{
+						result.append( " {" ).append( reader.getAttributeNamespaceURI( i ) ).append( '}' ).append( reader.getAttributeLocalName( i ) );
+						result.append( "='" ).append( reader.getAttributeValue( i ) ).append( '\'' );
+					}
+					break;
+
+				case END_ELEMENT:
+					result.append( " {" ).append( reader.getNamespaceURI() ).append( '}' ).append( reader.getLocalName() );
+					break;
+
+				case CHARACTERS:
+					result.append( " '" ).append( reader.getText() ).append( '\'' );
+					break;
+
+				case PROCESSING_INSTRUCTION:
+					result.append( ' ' ).append( reader.getPITarget() ).append( ' ' ).append( reader.getPIData() );
+					break;
+			}
+			result.append( '\n' );
+		}
+		return result.toString();
+	}
+}
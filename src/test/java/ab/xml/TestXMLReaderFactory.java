@@ -0,0 +1,200 @@
+/*
+ * AsoBrain XML Library
+ * Copyright (C) 1999-2026 Peter S. Heijnen
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package ab.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.jetbrains.annotations.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link XMLReaderFactory}.
+ *
+ * @author Gerrit Meinders
+ */
+public class TestXMLReaderFactory
+{
+	/**
+	 * Tests discovery and selection of factory implementations.
+	 */
+	@Test
+	public void testDiscovery()
+	{
+		final List<String> factories = XMLReaderFactory.getAvailableFactories();
+		assertEquals( "Unexpected factories.", Arrays.asList( XmlPullReaderFactory.class.getName(), StaxReaderFactory.class.getName(), Utf8ReaderFactory.class.getName(), BinaryXmlReaderFactory.class.getName() ), factories );
+
+		assertTrue( "Unexpected default factory.", XMLReaderFactory.newInstance() instanceof XmlPullReaderFactory );
+		assertNotSame( "Expected new instance.", XMLReaderFactory.newInstance(), XMLReaderFactory.newInstance() );
+		assertSame( "Expected shared instance.", XMLReaderFactory.getSharedInstance(), XMLReaderFactory.getSharedInstance() );
+		assertTrue( "Unexpected shared factory.", XMLReaderFactory.getSharedInstance() instanceof XmlPullReaderFactory );
+
+		assertTrue( "Unexpected factory.", XMLReaderFactory.newInstance( "Utf8ReaderFactory" ) instanceof Utf8ReaderFactory );
+		assertTrue( "Unexpected factory.", XMLReaderFactory.newInstance( StaxReaderFactory.class.getName() ) instanceof StaxReaderFactory );
+		assertTrue( "Unexpected factory.", XMLReaderFactory.newInstance( factory -> factory instanceof BinaryXmlReaderFactory ) instanceof BinaryXmlReaderFactory );
+		assertTrue( "Unexpected factory.", XMLReaderFactory.newInstance( XMLReaderFactory::supportsCheckpoints ) instanceof Utf8ReaderFactory );
+
+		final XMLReaderFactory first = XMLReaderFactory.newInstance( "StaxReaderFactory" );
+		final XMLReaderFactory second = XMLReaderFactory.newInstance( "StaxReaderFactory" );
+		first.setMaximumPoolSize( 1 );
+		assertEquals( "Settings must not be shared.", XMLReaderFactory.DEFAULT_MAXIMUM_POOL_SIZE, second.getMaximumPoolSize() );
+
+		try
+		{
+			XMLReaderFactory.newInstance( factory -> false );
+			fail( "Expected exception." );
+		}
+		catch ( final FactoryException e )
+		{
+			// Expected.
+		}
+
+		try
+		{
+			XMLReaderFactory.newInstance( "NonExistentFactory" );
+			fail( "Expected exception." );
+		}
+		catch ( final FactoryException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests discovery and selection of writer factory implementations.
+	 */
+	@Test
+	public void testWriterDiscovery()
+	{
+		assertEquals( "Unexpected factories.", Arrays.asList( XmlPullWriterFactory.class.getName(), StaxWriterFactory.class.getName(), BinaryXmlWriterFactory.class.getName() ), XMLWriterFactory.getAvailableFactories() );
+		assertTrue( "Unexpected default factory.", XMLWriterFactory.newInstance() instanceof XmlPullWriterFactory );
+		assertTrue( "Unexpected factory.", XMLWriterFactory.newInstance( "StaxWriterFactory" ) instanceof StaxWriterFactory );
+	}
+
+	/**
+	 * Tests that gzip and zlib compressed documents are detected and
+	 * decompressed, using each available reader implementation and each kind
+	 * of input.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testCompressedInput()
+	throws Exception
+	{
+		final StringBuilder document = new StringBuilder( "<?xml version=\"1.0\"?>\n<items>" );
+		for ( int i = 0; i < 1000; i++ )
+		{
+			document.append( "<item id=\"" ).append( i ).append( "\">Item " ).append( i ).append( "</item>" );
+		}
+		document.append( "</items>" );
+		final byte[] bytes = document.toString().getBytes( "UTF-8" );
+		final String expected = describe( new Utf8ReaderFactory().createXMLReader( bytes, 0, bytes.length, null ) );
+
+		// Multi-member gzip data, as produced by pigz.
+		final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		for ( int offset = 0; offset < bytes.length; offset += 4096 )
+		{
+			try ( final GZIPOutputStream out = new GZIPOutputStream( gzip ) )
+			{
+				out.write( bytes, offset, Math.min( 4096, bytes.length - offset ) );
+			}
+		}
+
+		final ByteArrayOutputStream zlib = new ByteArrayOutputStream();
+		try ( final DeflaterOutputStream out = new DeflaterOutputStream( zlib ) )
+		{
+			out.write( bytes );
+		}
+
+		final Path file = Files.createTempFile( "test", ".xml.gz" );
+		try
+		{
+			for ( final byte[] compressed : Arrays.asList( gzip.toByteArray(), zlib.toByteArray() ) )
+			{
+				Files.write( file, compressed );
+				final ByteBuffer direct = ByteBuffer.allocateDirect( compressed.length );
+				direct.put( compressed );
+				direct.flip();
+
+				for ( final String factoryName : XMLReaderTestCase.getTextReaderFactories() )
+				{
+					final XMLReaderFactory factory = XMLReaderFactory.newInstance( factoryName );
+					assertEquals( "Unexpected events from array for " + factoryName + '.', expected, describe( factory.createXMLReader( compressed, 0, compressed.length, null ) ) );
+					assertEquals( "Unexpected events from buffer for " + factoryName + '.', expected, describe( factory.createXMLReader( direct, null ) ) );
+					assertEquals( "Unexpected events from channel for " + factoryName + '.', expected, describe( factory.createXMLReader( Channels.newChannel( new ByteArrayInputStream( compressed ) ), null ) ) );
+					assertEquals( "Unexpected events from file for " + factoryName + '.', expected, describe( factory.createXMLReader( file ) ) );
+					assertEquals( "Unexpected events from stream for " + factoryName + '.', expected, describe( factory.createXMLReader( new ByteArrayInputStream( compressed ), null ) ) );
+
+					// The second reader is a reset instance of the first.
+					for ( int i = 0; i < 2; i++ )
+					{
+						final XMLReader reader = factory.acquireXMLReader( new BufferedInputStream( new ByteArrayInputStream( compressed ) ), null );
+						assertEquals( "Unexpected events from pooled reader for " + factoryName + '.', expected, describe( reader ) );
+						factory.releaseXMLReader( reader );
+					}
+				}
+			}
+		}
+		finally
+		{
+			Files.delete( file );
+		}
+	}
+
+	/**
+	 * Returns a description of the elements and character data read by the
+	 * given reader.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @return Description of the document.
+	 *
+	 * @throws XMLException if an XML-related exception occurs.
+	 */
+	@NotNull
+	private static String describe( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		final StringBuilder result = new StringBuilder();
+		while ( reader.next() != XMLEventType.END_DOCUMENT )
+		{
+			switch ( reader.getEventType() )
+			{
+				case START_ELEMENT:
+					result.append( '<' ).append( reader.getLocalName() ).append( ' ' ).append( reader.getAttributeValue( "id" ) ).append( '>' );
+					break;
+
+				case CHARACTERS:
+					result.append( reader.getText() );
+					break;
+
+				case END_ELEMENT:
+					result.append( "</" ).append( reader.getLocalName() ).append( '>' );
+					break;
+			}
+		}
+		return result.toString();
+	}
+}
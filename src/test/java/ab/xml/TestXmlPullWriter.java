@@ -62,4 +62,30 @@ public class TestXmlPullWriter
 
 		XMLTestTools.assertXMLEquals( "Unexpected output", getClass().getResourceAsStream( "TestXmlPullWriter-1.xml" ), new ByteArrayInputStream( actual.toByteArray() ) );
 	}
+
+	/**
+	 * Tests writing of numeric attributes and character data.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testNumbers()
+	throws Exception
+	{
+		final XMLWriterFactory xmlWriterFactory = XmlPullWriterFactory.newInstance();
+
+		final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		final XMLWriter xmlWriter = xmlWriterFactory.createXMLWriter( actual, "UTF-8" );
+		xmlWriter.startDocument();
+		xmlWriter.startTag( null, "test" );
+		xmlWriter.doubleAttribute( null, "d", 0.1 );
+		xmlWriter.floatAttribute( null, "f", 1.0E10f );
+		xmlWriter.doubleText( -1.5E-7 );
+		xmlWriter.text( " " );
+		xmlWriter.floatText( Float.NEGATIVE_INFINITY );
+		xmlWriter.endTag( null, "test" );
+		xmlWriter.endDocument();
+
+		XMLTestTools.assertXMLEquals( "Unexpected output", new ByteArrayInputStream( "<?xml version='1.0' encoding='UTF-8'?><test d='0.1' f='1.0E10'>-1.5E-7 -INF</test>".getBytes( "UTF-8" ) ), new ByteArrayInputStream( actual.toByteArray() ) );
+	}
 }
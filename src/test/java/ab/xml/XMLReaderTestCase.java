@@ -19,6 +19,8 @@
 package ab.xml;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.*;
 
 import org.jetbrains.annotations.*;
@@ -388,6 +390,357 @@ public abstract class XMLReaderTestCase
 		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, ignoreWhiteSpace( reader ) );
 	}
 
+	/**
+	 * Tests that {@link XMLReader#getTextCharacters()} provides the same
+	 * character data as {@link XMLReader#getText()}.
+	 *
+	 * @throws XMLException if the test fails.
+	 */
+	@Test
+	public void testTextCharacters()
+	throws XMLException
+	{
+		final XMLReader reader = createReaderForContent( "<root>a&amp;b<![CDATA[<c>]]>d<!-- comment -->e</root>" );
+
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected character data.", "a&b<c>d", new String( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() ) );
+		assertEquals( "Unexpected character data.", "a&b<c>d", reader.getText() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected character data.", "e", new String( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() ) );
+
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		try
+		{
+			throw new AssertionError( "Expected IllegalStateException, but return value was: " + Arrays.toString( reader.getTextCharacters() ) );
+		}
+		catch ( IllegalStateException e )
+		{ /* Success! */ }
+	}
+
+	/**
+	 * Tests that names returned by the reader are canonical.
+	 *
+	 * @throws XMLException if the test fails.
+	 */
+	@Test
+	public void testCanonicalNames()
+	throws XMLException
+	{
+		final XMLReader reader = createReaderForContent( "<a:root xmlns:a='urn:a' xmlns:b='urn:b'><a:child b:attribute='1' other='2'/></a:root>" );
+
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertSame( "Unexpected namespace URI.", "urn:a", reader.getNamespaceURI() );
+		assertSame( "Unexpected local name.", "root", reader.getLocalName() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertSame( "Unexpected namespace URI.", "urn:a", reader.getNamespaceURI() );
+		assertSame( "Unexpected local name.", "child", reader.getLocalName() );
+		assertSame( "Unexpected namespace URI for attribute 0.", "urn:b", reader.getAttributeNamespaceURI( 0 ) );
+		assertSame( "Unexpected local name for attribute 0.", "attribute", reader.getAttributeLocalName( 0 ) );
+		assertSame( "Unexpected local name for attribute 1.", "other", reader.getAttributeLocalName( 1 ) );
+
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertSame( "Unexpected local name.", "child", reader.getLocalName() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertSame( "Unexpected namespace URI.", "urn:a", reader.getNamespaceURI() );
+		assertSame( "Unexpected local name.", "root", reader.getLocalName() );
+	}
+
+	/**
+	 * Tests attribute lookup by name for an element with many attributes.
+	 *
+	 * @throws XMLException if the test fails.
+	 */
+	@Test
+	public void testManyAttributes()
+	throws XMLException
+	{
+		final StringBuilder document = new StringBuilder( "<root xmlns:ns='urn:ns'" );
+		for ( int i = 0; i < 40; i++ )
+		{
+			document.append( " a" ).append( i ).append( "='" ).append( i ).append( '\'' );
+		}
+		document.append( " ns:a0='ns0'/>" );
+
+		final XMLReader reader = createReaderForContent( document.toString() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected attribute count.", 41, reader.getAttributeCount() );
+		for ( int i = 39; i >= 0; i-- )
+		{
+			assertEquals( "Unexpected value for attribute a" + i + '.', String.valueOf( i ), reader.getAttributeValue( null, "a" + i ) );
+			assertEquals( "Unexpected value for attribute a" + i + '.', String.valueOf( i ), reader.getAttributeValue( "a" + i ) );
+		}
+		assertEquals( "Unexpected value for attribute ns:a0.", "ns0", reader.getAttributeValue( "urn:ns", "a0" ) );
+		assertNull( "Value of non-existent attribute should be null.", reader.getAttributeValue( null, "a40" ) );
+		assertNull( "Value of non-existent attribute should be null.", reader.getAttributeValue( "urn:ns", "a1" ) );
+	}
+
+	/**
+	 * Tests that attribute lookup by namespace gives the same results whether
+	 * or not the element has enough attributes to use an index.
+	 *
+	 * @throws XMLException if the test fails.
+	 */
+	@Test
+	public void testAttributeNamespaces()
+	throws XMLException
+	{
+		for ( final int attributeCount : new int[] { AttributeIndex.THRESHOLD, AttributeIndex.THRESHOLD + 1 } )
+		{
+			final StringBuilder document = new StringBuilder( "<root xmlns:t='urn:t' t:scale='5'" );
+			for ( int i = 1; i < attributeCount; i++ )
+			{
+				document.append( " a" ).append( i ).append( "='" ).append( i ).append( '\'' );
+			}
+			document.append( "/>" );
+
+			final XMLReader reader = createReaderForContent( document.toString() );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected attribute count.", attributeCount, reader.getAttributeCount() );
+			assertEquals( "Unexpected value for " + attributeCount + " attributes.", "5", reader.getAttributeValue( "urn:t", "scale" ) );
+			assertEquals( "Unexpected value for " + attributeCount + " attributes.", "5", reader.getAttributeValue( "scale" ) );
+			assertNull( "Unexpected value for " + attributeCount + " attributes.", reader.getAttributeValue( null, "scale" ) );
+			assertNull( "Unexpected value for " + attributeCount + " attributes.", reader.getAttributeValue( "", "scale" ) );
+			assertEquals( "Unexpected value for " + attributeCount + " attributes.", "1", reader.getAttributeValue( null, "a1" ) );
+			assertEquals( "Unexpected value for " + attributeCount + " attributes.", "1", reader.getAttributeValue( "", "a1" ) );
+			assertNull( "Unexpected value for " + attributeCount + " attributes.", reader.getAttributeValue( "urn:t", "a1" ) );
+		}
+	}
+
+	/**
+	 * Tests the primitive attribute accessors.
+	 *
+	 * @throws XMLException if the test fails.
+	 */
+	@Test
+	public void testPrimitiveAttributes()
+	throws XMLException
+	{
+		final XMLReader reader = createReaderForContent( "<root xmlns:ns='urn:ns' i=' -42 ' l='9223372036854775807' d='-1.25e-3' f='&#51;.5' t='true' z=' 0 ' ns:i='7' bad='1x' max='2147483648'/>" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+
+		assertEquals( "Unexpected int value.", 7, reader.getAttributeAsInt( "urn:ns", "i", 0 ) );
+		assertEquals( "Unexpected long value.", Long.MAX_VALUE, reader.getAttributeAsLong( null, "l", 0L ) );
+		assertEquals( "Unexpected double value.", -1.25e-3, reader.getAttributeAsDouble( null, "d", 0.0 ), 0.0 );
+		assertEquals( "Unexpected float value.", 3.5f, reader.getAttributeAsFloat( null, "f", 0.0f ), 0.0f );
+		assertTrue( "Unexpected boolean value.", reader.getAttributeAsBoolean( null, "t", false ) );
+		assertFalse( "Unexpected boolean value.", reader.getAttributeAsBoolean( null, "z", true ) );
+		assertEquals( "Unexpected double value.", 7.0, reader.getAttributeAsDouble( "urn:ns", "i", 0.0 ), 0.0 );
+
+		assertEquals( "Expected default value.", 5, reader.getAttributeAsInt( null, "missing", 5 ) );
+		assertEquals( "Expected default value.", 5L, reader.getAttributeAsLong( "urn:ns", "l", 5L ) );
+		assertEquals( "Expected default value.", 0.5, reader.getAttributeAsDouble( null, "missing", 0.5 ), 0.0 );
+		assertEquals( "Expected default value.", 0.5f, reader.getAttributeAsFloat( null, "missing", 0.5f ), 0.0f );
+		assertTrue( "Expected default value.", reader.getAttributeAsBoolean( null, "missing", true ) );
+
+		assertInvalidAttribute( reader, "i" );
+		assertInvalidAttribute( reader, "bad" );
+		assertInvalidAttribute( reader, "max" );
+		try
+		{
+			reader.getAttributeAsBoolean( null, "d", false );
+			fail( "Expected exception." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		try
+		{
+			reader.getAttributeAsInt( null, "i", 0 );
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Asserts that the given attribute is not a valid integer.
+	 *
+	 * @param reader    XML reader.
+	 * @param localName Local name of the attribute.
+	 */
+	private static void assertInvalidAttribute( @NotNull final XMLReader reader, @NotNull final String localName )
+	{
+		try
+		{
+			reader.getAttributeAsInt( null, localName, 0 );
+			fail( "Expected exception for attribute '" + localName + "'." );
+		}
+		catch ( final XMLException e )
+		{
+			// Expected.
+		}
+	}
+
+	/**
+	 * Tests that a reader can be reset to read another document, and that
+	 * readers are reused by the pool of the factory.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testReset()
+	throws Exception
+	{
+		final XMLReader reader = _factory.acquireXMLReader( new ByteArrayInputStream( "<a:root xmlns:a='urn:a' x='1'>text<unfinished>".getBytes( "UTF-8" ) ), null );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		_factory.releaseXMLReader( reader );
+
+		final XMLReader reused = _factory.acquireXMLReader( new ByteArrayInputStream( "<?xml version='1.0'?><root y='2'>other</root>".getBytes( "UTF-8" ) ), null );
+		assertSame( "Expected reader to be reused.", reader, reused );
+		assertEquals( "Unexpected event type.", XMLEventType.START_DOCUMENT, reused.getEventType() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reused.next() );
+		assertNull( "Unexpected namespace URI.", reused.getNamespaceURI() );
+		assertEquals( "Unexpected local name.", "root", reused.getLocalName() );
+		assertEquals( "Unexpected attribute count.", 1, reused.getAttributeCount() );
+		assertEquals( "Unexpected attribute value.", "2", reused.getAttributeValue( null, "y" ) );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reused.next() );
+		assertEquals( "Unexpected text.", "other", reused.getText() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reused.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reused.next() );
+
+		_factory.setMaximumPoolSize( 0 );
+		_factory.releaseXMLReader( reused );
+		assertNotSame( "Reader should not be retained.", reused, _factory.acquireXMLReader( new ByteArrayInputStream( "<root/>".getBytes( "UTF-8" ) ), null ) );
+	}
+
+	/**
+	 * Tests skipping the content of elements.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testSkipElement()
+	throws Exception
+	{
+		final XMLReader reader = createReaderForContent( "<root><skip a='>' b=\"/>\"><x><![CDATA[</skip>]]><!-- </skip> --><?pi </skip>?><y/>text &amp; more</x><z/></skip><empty/><next>text</next></root>" );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "skip", reader.getLocalName() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected local name.", "skip", reader.getLocalName() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "empty", reader.getLocalName() );
+		reader.skipElement();
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.getEventType() );
+		assertEquals( "Unexpected local name.", "empty", reader.getLocalName() );
+
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "next", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "text", reader.getText() );
+		try
+		{
+			reader.skipElement();
+			fail( "Expected exception." );
+		}
+		catch ( final IllegalStateException e )
+		{
+			// Expected.
+		}
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+	}
+
+	/**
+	 * Tests reading from byte arrays, byte buffers and channels.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testByteInput()
+	throws Exception
+	{
+		final byte[] document = "<root a='\u00e9'>text</root>".getBytes( "UTF-8" );
+		final byte[] padded = new byte[ document.length + 7 ];
+		Arrays.fill( padded, (byte)'x' );
+		System.arraycopy( document, 0, padded, 3, document.length );
+
+		assertByteInput( _factory.createXMLReader( padded, 3, document.length, null ) );
+
+		final ByteBuffer heapBuffer = ByteBuffer.wrap( padded, 1, padded.length - 1 ).slice();
+		heapBuffer.position( 2 );
+		heapBuffer.limit( 2 + document.length );
+		assertByteInput( _factory.createXMLReader( heapBuffer, "UTF-8" ) );
+		assertEquals( "Buffer position should not change.", 2, heapBuffer.position() );
+
+		final ByteBuffer directBuffer = ByteBuffer.allocateDirect( document.length );
+		directBuffer.put( document );
+		directBuffer.flip();
+		assertByteInput( _factory.createXMLReader( directBuffer, null ) );
+		assertEquals( "Buffer position should not change.", 0, directBuffer.position() );
+
+		assertByteInput( _factory.createXMLReader( Channels.newChannel( new ByteArrayInputStream( document ) ), null ) );
+	}
+
+	/**
+	 * Asserts that the given reader reads the document used by {@link
+	 * #testByteInput()}.
+	 *
+	 * @param reader XML reader.
+	 *
+	 * @throws XMLException if an XML-related error occurs.
+	 */
+	private static void assertByteInput( @NotNull final XMLReader reader )
+	throws XMLException
+	{
+		assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+		assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+		assertEquals( "Unexpected attribute value.", "\u00e9", reader.getAttributeValue( null, "a" ) );
+		assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+		assertEquals( "Unexpected text.", "text", reader.getText() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+		assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+	}
+
+	/**
+	 * Tests reading a memory-mapped file.
+	 *
+	 * @throws Exception if the test fails.
+	 */
+	@Test
+	public void testMappedFile()
+	throws Exception
+	{
+		final File file = File.createTempFile( "test", ".xml" );
+		try
+		{
+			try ( final OutputStream out = new FileOutputStream( file ) )
+			{
+				out.write( "<?xml version='1.0' encoding='UTF-8'?><root a='\u00e9'>text</root>".getBytes( "UTF-8" ) );
+			}
+
+			final XMLReader reader = _factory.createXMLReader( file.toPath() );
+			assertEquals( "Unexpected event type.", XMLEventType.START_ELEMENT, reader.next() );
+			assertEquals( "Unexpected local name.", "root", reader.getLocalName() );
+			assertEquals( "Unexpected attribute value.", "\u00e9", reader.getAttributeValue( null, "a" ) );
+			assertEquals( "Unexpected event type.", XMLEventType.CHARACTERS, reader.next() );
+			assertEquals( "Unexpected text.", "text", reader.getText() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_ELEMENT, reader.next() );
+			assertEquals( "Unexpected event type.", XMLEventType.END_DOCUMENT, reader.next() );
+		}
+		finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			file.delete();
+		}
+	}
+
 	/**
 	 * Tests exception handling as specified by the {@link XMLReader} interface.
 	 * This includes calling methods for event types that are not allowed and
@@ -799,6 +1152,20 @@ public abstract class XMLReaderTestCase
 		{ /* Success! */ }
 	}
 
+	/**
+	 * Returns the class names of all available factories that read textual
+	 * XML, i.e. all except {@link BinaryXmlReaderFactory}.
+	 *
+	 * @return Class names of factories.
+	 */
+	@NotNull
+	public static List<String> getTextReaderFactories()
+	{
+		final List<String> result = new ArrayList<String>( XMLReaderFactory.getAvailableFactories() );
+		result.remove( BinaryXmlReaderFactory.class.getName() );
+		return result;
+	}
+
 	/**
 	 * Creates a reader to read the given XML document. This method always uses
 	 * UTF-8 character encoding.